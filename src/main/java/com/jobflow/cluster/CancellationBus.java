@@ -0,0 +1,24 @@
+package com.jobflow.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Cancellation Bus
+ *
+ * Broadcasts cancellation requests to every JobFlow node, including the sender, so
+ * whichever node runs the execution can stop it.
+ */
+public interface CancellationBus {
+
+    /**
+     * Send a cancellation request to all nodes
+     * @param request Encoded cancellation request
+     */
+    void publish(String request);
+
+    /**
+     * Register a listener for cancellation requests from any node
+     * @param listener Called with each request
+     */
+    void subscribe(Consumer<String> listener);
+}
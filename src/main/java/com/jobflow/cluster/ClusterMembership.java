@@ -0,0 +1,31 @@
+package com.jobflow.cluster;
+
+import java.util.Set;
+
+/**
+ * Cluster Membership Registry
+ *
+ * Tracks which JobFlow nodes are alive. Nodes announce themselves through periodic
+ * heartbeats; a node whose heartbeat is older than its TTL is considered gone.
+ */
+public interface ClusterMembership {
+
+    /**
+     * Record a heartbeat for a node
+     * @param nodeId The node ID
+     * @param ttlMs Time in milliseconds after which the node is considered dead without a new heartbeat
+     */
+    void heartbeat(String nodeId, long ttlMs);
+
+    /**
+     * Remove a node from the cluster immediately
+     * @param nodeId The node ID
+     */
+    void leave(String nodeId);
+
+    /**
+     * Get the IDs of all live nodes
+     * @return Live node IDs
+     */
+    Set<String> getLiveMembers();
+}
@@ -0,0 +1,183 @@
+package com.jobflow.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Cluster Partitioner
+ *
+ * Assigns task and workflow IDs to cluster nodes with a consistent hash ring so each
+ * node only scans and fires its own slice. IDs fall into PARTITION_BUCKETS buckets by
+ * id modulo the bucket count, and the ring assigns buckets rather than single IDs, so
+ * a node's slice is a plain SQL predicate on the id. The ring is rebuilt whenever the
+ * set of live members changes, and a PartitionChangedEvent is published so schedulers
+ * can pick up or drop work.
+ */
+@Slf4j
+@Component
+public class ClusterPartitioner {
+
+    // Fixed across the cluster; changing it reassigns every ID
+    public static final int PARTITION_BUCKETS = 1024;
+
+    private final ClusterMembership membership;
+    private final LocalNode localNode;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${jobflow.cluster.partitioning.enabled}")
+    private boolean enabled;
+
+    @Value("${jobflow.cluster.virtual-nodes}")
+    private int virtualNodes;
+
+    @Value("${jobflow.cluster.heartbeat-interval-ms}")
+    private long heartbeatIntervalMs;
+
+    @Value("${jobflow.cluster.member-ttl-ms}")
+    private long memberTtlMs;
+
+    @Value("${jobflow.worker.enabled}")
+    private boolean workerMode;
+
+    private volatile ConsistentHashRing ring;
+    // Buckets of the current ring owned by this node
+    private volatile Set<Integer> ownedTaskBuckets;
+    private volatile Set<Integer> ownedWorkflowBuckets;
+    private ScheduledFuture<?> heartbeatJob;
+
+    @Autowired
+    public ClusterPartitioner(ClusterMembership membership,
+                              LocalNode localNode,
+                              @Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler,
+                              ApplicationEventPublisher eventPublisher) {
+        this.membership = membership;
+        this.localNode = localNode;
+        this.taskScheduler = taskScheduler;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Workers own no partitions
+        if (!enabled || workerMode) {
+            return;
+        }
+        setRing(new ConsistentHashRing(Set.of(localNode.getNodeId()), virtualNodes));
+        heartbeatJob = taskScheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeatJob != null) {
+            heartbeatJob.cancel(false);
+            membership.leave(localNode.getNodeId());
+        }
+    }
+
+    /**
+     * Send a heartbeat and rebalance if membership changed
+     */
+    public void heartbeat() {
+        try {
+            membership.heartbeat(localNode.getNodeId(), memberTtlMs);
+            Set<String> members = new HashSet<>(membership.getLiveMembers());
+            // Never drop ourselves from our own view, even if the registry lags
+            members.add(localNode.getNodeId());
+
+            if (!members.equals(ring.getNodes())) {
+                log.info("Cluster membership changed from {} to {}, rebalancing", ring.getNodes(), members);
+                setRing(new ConsistentHashRing(members, virtualNodes));
+                eventPublisher.publishEvent(new PartitionChangedEvent(this, ring.getNodes()));
+            }
+        } catch (Exception e) {
+            log.error("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Check if this node owns a task
+     */
+    public boolean ownsTask(Long taskId) {
+        return owns("task:" + bucketOf(taskId));
+    }
+
+    /**
+     * Check if this node owns a workflow
+     */
+    public boolean ownsWorkflow(Long workflowId) {
+        return owns("workflow:" + bucketOf(workflowId));
+    }
+
+    /**
+     * Task buckets owned by this node, for selecting its slice with MOD(id, PARTITION_BUCKETS)
+     * @return The owned buckets, or null if this node owns every task
+     */
+    public Set<Integer> getOwnedTaskBuckets() {
+        return isPartitioned() ? ownedTaskBuckets : null;
+    }
+
+    /**
+     * Workflow buckets owned by this node, for selecting its slice with MOD(id, PARTITION_BUCKETS)
+     * @return The owned buckets, or null if this node owns every workflow
+     */
+    public Set<Integer> getOwnedWorkflowBuckets() {
+        return isPartitioned() ? ownedWorkflowBuckets : null;
+    }
+
+    /**
+     * Bucket of a task or workflow ID
+     */
+    public static int bucketOf(Long id) {
+        return (int) Math.floorMod(id, (long) PARTITION_BUCKETS);
+    }
+
+    /**
+     * Get the live members in the current ring
+     */
+    public Set<String> getMembers() {
+        ConsistentHashRing current = ring;
+        return current != null ? current.getNodes() : Set.of(localNode.getNodeId());
+    }
+
+    private boolean owns(String key) {
+        ConsistentHashRing current = ring;
+        if (!enabled || current == null || current.isEmpty()) {
+            return true;
+        }
+        return localNode.getNodeId().equals(current.getOwner(key));
+    }
+
+    private boolean isPartitioned() {
+        ConsistentHashRing current = ring;
+        return enabled && current != null && !current.isEmpty();
+    }
+
+    private void setRing(ConsistentHashRing newRing) {
+        Set<Integer> taskBuckets = new HashSet<>();
+        Set<Integer> workflowBuckets = new HashSet<>();
+        for (int bucket = 0; bucket < PARTITION_BUCKETS; bucket++) {
+            if (localNode.getNodeId().equals(newRing.getOwner("task:" + bucket))) {
+                taskBuckets.add(bucket);
+            }
+            if (localNode.getNodeId().equals(newRing.getOwner("workflow:" + bucket))) {
+                workflowBuckets.add(bucket);
+            }
+        }
+        ownedTaskBuckets = Set.copyOf(taskBuckets);
+        ownedWorkflowBuckets = Set.copyOf(workflowBuckets);
+        ring = newRing;
+    }
+}
@@ -0,0 +1,31 @@
+package com.jobflow.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory implementation of CancellationBus
+ *
+ * Stand-in for single-node setups and tests; delivers requests synchronously to the
+ * listeners in this JVM.
+ */
+@Component
+@ConditionalOnProperty(name = "jobflow.cluster.mode", havingValue = "local")
+public class InMemoryCancellationBus implements CancellationBus {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String request) {
+        listeners.forEach(listener -> listener.accept(request));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,39 @@
+package com.jobflow.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory implementation of ClusterMembership
+ *
+ * Stand-in for single-node setups and tests; several partitioners in one JVM can
+ * share an instance to simulate a cluster.
+ */
+@Component
+@ConditionalOnProperty(name = "jobflow.cluster.mode", havingValue = "local")
+public class InMemoryClusterMembership implements ClusterMembership {
+
+    private final Map<String, Long> expiryByNode = new ConcurrentHashMap<>();
+
+    @Override
+    public void heartbeat(String nodeId, long ttlMs) {
+        expiryByNode.put(nodeId, System.currentTimeMillis() + ttlMs);
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        expiryByNode.remove(nodeId);
+    }
+
+    @Override
+    public Set<String> getLiveMembers() {
+        long now = System.currentTimeMillis();
+        expiryByNode.values().removeIf(expiry -> expiry <= now);
+        return expiryByNode.keySet().stream().collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,55 @@
+package com.jobflow.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Local Node
+ *
+ * Identity of this JobFlow instance within the cluster. Uses the configured node ID
+ * when present, otherwise derives one from the host name and process ID.
+ */
+@Slf4j
+@Component
+public class LocalNode {
+
+    private final String nodeId;
+    private final String hostAddress;
+
+    public LocalNode(@Value("${jobflow.node.id}") String configuredNodeId) {
+        this.nodeId = StringUtils.hasText(configuredNodeId) ? configuredNodeId : generateNodeId();
+        this.hostAddress = resolveHostAddress();
+        log.info("Local node ID: {}", nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getHostAddress() {
+        return hostAddress;
+    }
+
+    private static String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    private static String resolveHostAddress() {
+        try {
+            return InetAddress.getLocalHost().getHostAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.jobflow.cluster;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * Published when cluster membership changes and ownership of tasks and workflows
+ * has been redistributed
+ */
+public class PartitionChangedEvent extends ApplicationEvent {
+
+    private final Set<String> members;
+
+    public PartitionChangedEvent(Object source, Set<String> members) {
+        super(source);
+        this.members = members;
+    }
+
+    public Set<String> getMembers() {
+        return members;
+    }
+}
@@ -0,0 +1,68 @@
+package com.jobflow.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Redis-based implementation of CancellationBus
+ *
+ * Publishes requests on a pub/sub channel. Delivery is at most once: a node that is
+ * disconnected when a request is sent misses it, and its execution ends by timeout.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jobflow.cluster.mode", havingValue = "redis", matchIfMissing = true)
+public class RedisCancellationBus implements CancellationBus {
+
+    private static final ChannelTopic CHANNEL = new ChannelTopic("cluster:cancellations");
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public RedisCancellationBus(@Qualifier("lockRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer.setConnectionFactory(connectionFactory);
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String request = new String(message.getBody(), StandardCharsets.UTF_8);
+            listeners.forEach(listener -> listener.accept(request));
+        }, CHANNEL);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        listenerContainer.destroy();
+    }
+
+    @Override
+    public void publish(String request) {
+        redisTemplate.convertAndSend(CHANNEL.getTopic(), request);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,53 @@
+package com.jobflow.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Redis-based implementation of ClusterMembership
+ *
+ * Keeps members in a sorted set scored by heartbeat expiry, so expired members can be
+ * pruned with a single range removal.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jobflow.cluster.mode", havingValue = "redis", matchIfMissing = true)
+public class RedisClusterMembership implements ClusterMembership {
+
+    private static final String MEMBERS_KEY = "cluster:members";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    public RedisClusterMembership(@Qualifier("schedulerRedisTemplate") RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void heartbeat(String nodeId, long ttlMs) {
+        redisTemplate.opsForZSet().add(MEMBERS_KEY, nodeId, System.currentTimeMillis() + ttlMs);
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        redisTemplate.opsForZSet().remove(MEMBERS_KEY, nodeId);
+        log.info("Node left cluster: {}", nodeId);
+    }
+
+    @Override
+    public Set<String> getLiveMembers() {
+        redisTemplate.opsForZSet().removeRangeByScore(MEMBERS_KEY, 0, System.currentTimeMillis());
+        Set<Object> members = redisTemplate.opsForZSet().range(MEMBERS_KEY, 0, -1);
+        if (members == null) {
+            return Set.of();
+        }
+        return members.stream().map(Object::toString).collect(Collectors.toSet());
+    }
+}
@@ -29,7 +29,9 @@ public class WebConfig implements WebMvcConfigurer {
                 "/lib/**",
                 "/api/auth/login",
                 "/api/auth/register",
-                "/api/auth/forgot-password"
+                "/api/auth/forgot-password",
+                // Workers authenticate with the worker token instead
+                "/api/workers/**"
             );
     }
 
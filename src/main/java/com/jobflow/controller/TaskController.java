@@ -135,7 +135,7 @@ public class TaskController extends BaseController {
             Task task = taskService.findById(taskId);
             verifyResourceAccess(task.getCreatedBy(), task.getTenantId());
             taskService.retryTask(taskId, getCurrentUser().getUsername());
-            return success(null, "Task retry started");
+            return success(null, "Task retry scheduled");
         } catch (Exception e) {
             log.error("Failed to retry task", e);
             return error("Failed to retry task: " + e.getMessage(), HttpStatus.BAD_REQUEST);
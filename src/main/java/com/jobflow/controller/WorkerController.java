@@ -0,0 +1,84 @@
+package com.jobflow.controller;
+
+import com.jobflow.scheduler.RemoteWorkerBroker;
+import com.jobflow.worker.WorkerProtocol;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Worker Controller
+ *
+ * Endpoints remote workers use to lease tasks and report on them. Workers authenticate
+ * with the shared jobflow.worker.token rather than a user JWT; with no token
+ * configured every worker request is rejected.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/workers")
+@Tag(name = "Remote Workers", description = "Protocol between the scheduler and remote worker processes")
+public class WorkerController extends BaseController {
+
+    private final RemoteWorkerBroker broker;
+
+    @Value("${jobflow.worker.token}")
+    private String workerToken;
+
+    @Value("${execution.remote.max-poll-wait-ms}")
+    private long maxPollWaitMs;
+
+    @Autowired
+    public WorkerController(RemoteWorkerBroker broker) {
+        this.broker = broker;
+    }
+
+    @Operation(summary = "Long-poll for a batch of leased tasks")
+    @PostMapping("/{workerId}/poll")
+    public DeferredResult<ResponseEntity<ApiResponse<List<WorkerProtocol.LeasedTask>>>> poll(
+            @PathVariable String workerId,
+            @RequestHeader(value = WorkerProtocol.TOKEN_HEADER, required = false) String token,
+            @RequestBody WorkerProtocol.PollRequest request) {
+        long waitMs = Math.max(0, Math.min(request.getWaitMs(), maxPollWaitMs));
+        // An empty batch when the wait runs out; the worker simply polls again
+        DeferredResult<ResponseEntity<ApiResponse<List<WorkerProtocol.LeasedTask>>>> response =
+            new DeferredResult<>(waitMs, success(List.of()));
+        if (!isAuthorized(token)) {
+            response.setResult(error("Invalid worker token", HttpStatus.UNAUTHORIZED));
+            return response;
+        }
+
+        Runnable withdraw = broker.poll(workerId, request, leased -> response.setResult(success(leased)));
+        response.onCompletion(withdraw);
+        return response;
+    }
+
+    @Operation(summary = "Report finished tasks and renew the leases of running ones")
+    @PostMapping("/{workerId}/report")
+    public ResponseEntity<ApiResponse<List<String>>> report(
+            @PathVariable String workerId,
+            @RequestHeader(value = WorkerProtocol.TOKEN_HEADER, required = false) String token,
+            @RequestBody WorkerProtocol.ReportRequest request) {
+        if (!isAuthorized(token)) {
+            return error("Invalid worker token", HttpStatus.UNAUTHORIZED);
+        }
+        return success(broker.report(workerId, request));
+    }
+
+    private boolean isAuthorized(String token) {
+        if (!StringUtils.hasText(workerToken) || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(workerToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -3,6 +3,7 @@ package com.jobflow.controller;
 import com.jobflow.domain.Task;
 import com.jobflow.domain.Workflow;
 import com.jobflow.domain.WorkflowDependency;
+import com.jobflow.scheduler.WorkflowForecast;
 import com.jobflow.service.WorkflowService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -252,6 +253,22 @@ public class WorkflowController extends BaseController {
         }
     }
 
+    @Operation(summary = "Get projected completion, slack and critical path of a workflow run")
+    @GetMapping("/{workflowId}/forecast")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'OPERATOR', 'VIEWER')")
+    public ResponseEntity<ApiResponse<WorkflowForecast>> getWorkflowForecast(
+            @PathVariable Long workflowId) {
+        try {
+            Workflow workflow = workflowService.findById(workflowId);
+            verifyResourceAccess(workflow.getCreatedBy(), workflow.getTenantId());
+            WorkflowForecast forecast = workflowService.getWorkflowForecast(workflowId);
+            return success(forecast);
+        } catch (Exception e) {
+            log.error("Failed to get workflow forecast", e);
+            return error("Failed to get workflow forecast: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @Operation(summary = "Get workflow statistics")
     @GetMapping("/statistics")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
@@ -2,7 +2,9 @@ package com.jobflow.dao;
 
 import com.jobflow.domain.ExecutionRecord;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ExecutionRecordDao {
@@ -12,6 +14,16 @@ public interface ExecutionRecordDao {
      */
     ExecutionRecord save(ExecutionRecord record);
 
+    /**
+     * Insert new execution records in one JDBC batch; generated IDs are not returned
+     */
+    void insertAll(List<ExecutionRecord> records);
+
+    /**
+     * Write the outcome of finished executions, matched by execution ID, in one JDBC batch
+     */
+    void updateAll(List<ExecutionRecord> records);
+
     /**
      * Find execution record by ID
      */
@@ -52,8 +64,53 @@ public interface ExecutionRecordDao {
      */
     List<ExecutionRecord> findTimedOutExecutions(Long tenantId, LocalDateTime timeout);
 
+    /**
+     * Find running executions that started before the timeout and were not started by the given executor,
+     * i.e. those owned by other nodes or left behind by nodes that went away
+     */
+    List<ExecutionRecord> findTimedOutExecutionsExcept(Long tenantId, LocalDateTime timeout, String executor);
+
+    /**
+     * Find running executions by execution ID, in one query
+     */
+    List<ExecutionRecord> findRunningByExecutionIds(Long tenantId, Collection<String> executionIds);
+
     /**
      * Find execution by execution ID
      */
     ExecutionRecord findByExecutionId(Long tenantId, String executionId);
+
+    /**
+     * Durations in milliseconds of a task's most recent executions with the given status
+     */
+    List<Long> findRecentDurations(Long taskId, ExecutionRecord.ExecutionStatus status, int limit);
+
+    /**
+     * Durations in milliseconds of the most recent executions with the given status of many tasks, in one query
+     * @return Durations keyed by task ID, most recent first; tasks without history are absent
+     */
+    Map<Long, List<Long>> findRecentDurations(Collection<Long> taskIds, ExecutionRecord.ExecutionStatus status, int limit);
+
+    /**
+     * Delete the records of executions that never got to run, in one statement
+     */
+    void deleteByExecutionIds(Collection<String> executionIds);
+
+    /**
+     * Store the measured resource usage of an execution
+     */
+    void updateResourceUsage(String executionId, String resourceUsage);
+
+    /**
+     * Find executions in every tenant that still have a retry pending
+     */
+    List<ExecutionRecord> findPendingRetries();
+
+    /**
+     * Atomically take the pending retries of the given executions.
+     * Each retry is taken by exactly one caller across the cluster; rows locked by a
+     * concurrent claim are skipped.
+     * @return Execution IDs whose retry was taken by this call
+     */
+    List<String> claimRetries(Collection<String> executionIds);
 }
@@ -2,7 +2,9 @@ package com.jobflow.dao;
 
 import com.jobflow.domain.Task;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TaskDao {
@@ -23,7 +25,45 @@ public interface TaskDao {
 
     /**
      * Find scheduled tasks that should be executed at the given time
-     * This considers both the start_time and end_time of tasks
+     * This considers both the start_time and end_time of tasks. Recurring tasks that are
+     * running right now are included, since they are due again after the current run
      */
     List<Task> findScheduledTasks(LocalDateTime now);
+
+    /**
+     * Find the scheduled tasks of a partition slice: those whose id modulo bucketCount
+     * is one of the given buckets
+     */
+    List<Task> findScheduledTasks(LocalDateTime now, int bucketCount, Collection<Integer> buckets);
+
+    /**
+     * Atomically claim up to limit of the given due tasks for an owner.
+     * Rows locked by a concurrent claim or leased by another live owner are skipped,
+     * so nodes never wait on each other.
+     * Only tasks of the current tenant are claimed.
+     * @return The tasks claimed by this call
+     */
+    List<Task> claimTasks(Collection<Long> taskIds, String owner, int limit, LocalDateTime leaseUntil);
+
+    /**
+     * Release a claim held by the given owner
+     */
+    boolean releaseClaim(Long taskId, String owner);
+
+    /**
+     * Release the claims an owner holds on the given tasks with one statement
+     */
+    void releaseClaims(Collection<Long> taskIds, String owner);
+
+    /**
+     * Atomically switch the given SCHEDULED tasks to RUNNING with one statement.
+     * Tasks in any other status, or locked by a concurrent start, are skipped.
+     * @return IDs of the tasks started by this call
+     */
+    List<Long> startTasks(Collection<Long> taskIds, String operator);
+
+    /**
+     * Write the status of several tasks in one JDBC batch
+     */
+    void updateStatuses(Map<Long, Task.TaskStatus> statuses, String operator);
 }
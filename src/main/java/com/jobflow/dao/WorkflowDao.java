@@ -2,6 +2,7 @@ package com.jobflow.dao;
 
 import com.jobflow.domain.Workflow;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,13 +19,47 @@ public interface WorkflowDao {
 
     /**
      * Find scheduled workflows that should be executed at the given time
-     * This considers both the start_time and end_time of workflows
+     * This considers both the start_time and end_time of workflows. Recurring workflows
+     * that are running right now are included, since they are due again after the current run
      */
     List<Workflow> findScheduledWorkflows(LocalDateTime now);
 
+    /**
+     * Find the scheduled workflows of a partition slice: those whose id modulo
+     * bucketCount is one of the given buckets
+     */
+    List<Workflow> findScheduledWorkflows(LocalDateTime now, int bucketCount, Collection<Integer> buckets);
+
+    /**
+     * Current structure version of a workflow, 0 if it doesn't exist
+     */
+    long getStructureVersion(Long workflowId);
+
+    /**
+     * Increment the structure version of a workflow whose tasks or dependencies change.
+     * The row stays locked until the transaction ends, so structure changes to the same
+     * workflow are serialized across nodes.
+     * @return The new version
+     */
+    long bumpStructureVersion(Long workflowId);
+
     /**
      * Find workflows that depend on the given workflow
      * Used for managing workflow dependencies and scheduling
      */
     List<Workflow> findDependentWorkflows(Long workflowId);
+
+    /**
+     * Atomically claim up to limit of the given due workflows for an owner.
+     * Rows locked by a concurrent claim or leased by another live owner are skipped,
+     * so nodes never wait on each other.
+     * Only workflows of the current tenant are claimed.
+     * @return The workflows claimed by this call
+     */
+    List<Workflow> claimWorkflows(Collection<Long> workflowIds, String owner, int limit, LocalDateTime leaseUntil);
+
+    /**
+     * Release a claim held by the given owner
+     */
+    boolean releaseClaim(Long workflowId, String owner);
 }
@@ -2,11 +2,13 @@ package com.jobflow.dao.jdbc;
 
 import com.jobflow.dao.ExecutionRecordDao;
 import com.jobflow.domain.ExecutionRecord;
+import com.jobflow.domain.Task;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
@@ -14,6 +16,9 @@ import org.springframework.stereotype.Repository;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,6 +27,22 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ExecutionRecordJdbcDao implements ExecutionRecordDao {
 
+    private static final String INSERT_SQL = """
+        INSERT INTO fj_execution_record (
+            execution_id, type, task_id, workflow_id, status, start_time, end_time,
+            duration, error_message, stack_trace, input_params, output_result,
+            retry_count, max_retries, next_retry_time, executor, executor_ip,
+            trigger_type, trigger_info, environment, resource_usage, tenant_id,
+            created_by, created_time, updated_by, updated_time
+        ) VALUES (
+            :executionId, :type, :taskId, :workflowId, :status, :startTime, :endTime,
+            :duration, :errorMessage, :stackTrace, :inputParams, :outputResult,
+            :retryCount, :maxRetries, :nextRetryTime, :executor, :executorIp,
+            :triggerType, :triggerInfo, :environment, :resourceUsage, :tenantId,
+            :createdBy, :createdTime, :updatedBy, :updatedTime
+        )
+    """;
+
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
@@ -37,26 +58,10 @@ public class ExecutionRecordJdbcDao implements ExecutionRecordDao {
     }
 
     private ExecutionRecord insert(ExecutionRecord record) {
-        String sql = """
-            INSERT INTO fj_execution_record (
-                execution_id, type, task_id, workflow_id, status, start_time, end_time,
-                duration, error_message, stack_trace, input_params, output_result,
-                retry_count, max_retries, next_retry_time, executor, executor_ip,
-                trigger_type, trigger_info, environment, resource_usage, tenant_id,
-                created_by, created_time, updated_by, updated_time
-            ) VALUES (
-                :executionId, :type, :taskId, :workflowId, :status, :startTime, :endTime,
-                :duration, :errorMessage, :stackTrace, :inputParams, :outputResult,
-                :retryCount, :maxRetries, :nextRetryTime, :executor, :executorIp,
-                :triggerType, :triggerInfo, :environment, :resourceUsage, :tenantId,
-                :createdBy, :createdTime, :updatedBy, :updatedTime
-            )
-        """;
-
         KeyHolder keyHolder = new GeneratedKeyHolder();
         MapSqlParameterSource params = createParameterSource(record);
 
-        namedParameterJdbcTemplate.update(sql, params, keyHolder, new String[]{"id"});
+        namedParameterJdbcTemplate.update(INSERT_SQL, params, keyHolder, new String[]{"id"});
         record.setId(keyHolder.getKey().longValue());
         return record;
     }
@@ -82,6 +87,33 @@ public class ExecutionRecordJdbcDao implements ExecutionRecordDao {
         return record;
     }
 
+    @Override
+    public void insertAll(List<ExecutionRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        namedParameterJdbcTemplate.batchUpdate(INSERT_SQL, records.stream()
+            .map(this::createParameterSource)
+            .toArray(SqlParameterSource[]::new));
+    }
+
+    @Override
+    public void updateAll(List<ExecutionRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        String sql = """
+            UPDATE fj_execution_record SET
+                status = :status, end_time = :endTime, duration = :duration,
+                error_message = :errorMessage, stack_trace = :stackTrace,
+                output_result = :outputResult, updated_by = :updatedBy, updated_time = :updatedTime
+            WHERE execution_id = :executionId AND tenant_id = :tenantId
+        """;
+        namedParameterJdbcTemplate.batchUpdate(sql, records.stream()
+            .map(this::createParameterSource)
+            .toArray(SqlParameterSource[]::new));
+    }
+
     @Override
     public Optional<ExecutionRecord> findById(Long id) {
         String sql = "SELECT * FROM fj_execution_record WHERE id = ? AND tenant_id = ?";
@@ -118,6 +150,107 @@ public class ExecutionRecordJdbcDao implements ExecutionRecordDao {
         return jdbcTemplate.query(sql, rowMapper, tenantId, status.name(), now);
     }
 
+    @Override
+    public List<Long> findRecentDurations(Long taskId, ExecutionRecord.ExecutionStatus status, int limit) {
+        String sql = """
+            SELECT duration FROM fj_execution_record
+            WHERE task_id = ? AND status = ? AND duration IS NOT NULL
+            ORDER BY end_time DESC
+            LIMIT ?
+        """;
+        return jdbcTemplate.queryForList(sql, Long.class, taskId, status.name(), limit);
+    }
+
+    @Override
+    public Map<Long, List<Long>> findRecentDurations(Collection<Long> taskIds, ExecutionRecord.ExecutionStatus status,
+                                                     int limit) {
+        Map<Long, List<Long>> durations = new HashMap<>();
+        if (taskIds.isEmpty()) {
+            return durations;
+        }
+
+        String sql = """
+            SELECT task_id, duration FROM (
+                SELECT task_id, duration,
+                       ROW_NUMBER() OVER (PARTITION BY task_id ORDER BY end_time DESC) AS rn
+                FROM fj_execution_record
+                WHERE task_id IN (:taskIds) AND status = :status AND duration IS NOT NULL
+            ) recent
+            WHERE rn <= :limit
+            ORDER BY task_id, rn
+        """;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("taskIds", taskIds)
+            .addValue("status", status.name())
+            .addValue("limit", limit);
+
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            durations.computeIfAbsent(rs.getLong("task_id"), id -> new ArrayList<>()).add(rs.getLong("duration"));
+        });
+        return durations;
+    }
+
+    @Override
+    public void deleteByExecutionIds(Collection<String> executionIds) {
+        if (executionIds.isEmpty()) {
+            return;
+        }
+        String sql = "DELETE FROM fj_execution_record WHERE execution_id IN (:executionIds)";
+        namedParameterJdbcTemplate.update(sql, new MapSqlParameterSource()
+            .addValue("executionIds", executionIds));
+    }
+
+    @Override
+    public void updateResourceUsage(String executionId, String resourceUsage) {
+        String sql = """
+            UPDATE fj_execution_record SET resource_usage = ?
+            WHERE execution_id = ?
+        """;
+        jdbcTemplate.update(sql, resourceUsage, executionId);
+    }
+
+    @Override
+    public List<ExecutionRecord> findPendingRetries() {
+        String sql = """
+            SELECT * FROM fj_execution_record
+            WHERE status = 'RETRY' AND next_retry_time IS NOT NULL
+            ORDER BY next_retry_time
+        """;
+        return jdbcTemplate.query(sql, rowMapper);
+    }
+
+    @Override
+    public List<String> claimRetries(Collection<String> executionIds) {
+        if (executionIds.isEmpty()) {
+            return List.of();
+        }
+
+        String selectSql = """
+            SELECT execution_id FROM fj_execution_record
+            WHERE execution_id IN (:ids)
+            AND status = 'RETRY' AND next_retry_time IS NOT NULL
+            FOR UPDATE SKIP LOCKED
+        """;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("ids", executionIds);
+
+        List<String> claimedIds = namedParameterJdbcTemplate.queryForList(selectSql, params, String.class);
+        if (claimedIds.isEmpty()) {
+            return List.of();
+        }
+        params.addValue("claimedIds", claimedIds);
+
+        // The record stays RETRY as history; clearing the time marks the retry as taken
+        String claimSql = """
+            UPDATE fj_execution_record SET next_retry_time = NULL
+            WHERE execution_id IN (:claimedIds)
+        """;
+        namedParameterJdbcTemplate.update(claimSql, params);
+        return claimedIds;
+    }
+
     @Override
     public List<ExecutionRecord> findByStatusAndStartTime(Long tenantId, List<ExecutionRecord.ExecutionStatus> statuses, LocalDateTime startTime) {
         String sql = """
@@ -174,6 +307,33 @@ public class ExecutionRecordJdbcDao implements ExecutionRecordDao {
         return jdbcTemplate.query(sql, rowMapper, tenantId, timeout);
     }
 
+    @Override
+    public List<ExecutionRecord> findTimedOutExecutionsExcept(Long tenantId, LocalDateTime timeout, String executor) {
+        String sql = """
+            SELECT * FROM fj_execution_record 
+            WHERE tenant_id = ? 
+            AND status = 'RUNNING' 
+            AND start_time <= ?
+            AND (executor IS NULL OR executor <> ?)
+        """;
+        return jdbcTemplate.query(sql, rowMapper, tenantId, timeout, executor);
+    }
+
+    @Override
+    public List<ExecutionRecord> findRunningByExecutionIds(Long tenantId, Collection<String> executionIds) {
+        if (executionIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+            SELECT * FROM fj_execution_record
+            WHERE tenant_id = :tenantId AND execution_id IN (:executionIds) AND status = 'RUNNING'
+        """;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("tenantId", tenantId)
+            .addValue("executionIds", executionIds);
+        return namedParameterJdbcTemplate.query(sql, params, rowMapper);
+    }
+
     @Override
     public ExecutionRecord findByExecutionId(Long tenantId, String executionId) {
         String sql = """
@@ -221,6 +381,13 @@ public class ExecutionRecordJdbcDao implements ExecutionRecordDao {
             record.setId(rs.getLong("id"));
             record.setExecutionId(rs.getString("execution_id"));
             record.setType(ExecutionRecord.ExecutionType.valueOf(rs.getString("type")));
+
+            long taskId = rs.getLong("task_id");
+            if (!rs.wasNull()) {
+                Task task = new Task();
+                task.setId(taskId);
+                record.setTask(task);
+            }
             record.setStatus(ExecutionRecord.ExecutionStatus.valueOf(rs.getString("status")));
             record.setStartTime(rs.getTimestamp("start_time").toLocalDateTime());
             
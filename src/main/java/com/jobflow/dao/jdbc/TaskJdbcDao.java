@@ -10,11 +10,14 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -38,14 +41,14 @@ public class TaskJdbcDao implements TaskDao {
     private Task insert(Task task) {
         String sql = """
             INSERT INTO fj_task (
-                name, description, command, cron, timeout, retries, retry_delay,
+                name, description, type, command, cron, timeout, retries, retry_delay,
                 status, priority, start_time, end_time, workflow_id, sequence,
-                parameters, notification, tenant_id, created_by, created_time,
+                parameters, cacheable, batchable, speculative, notification, tenant_id, created_by, created_time,
                 updated_by, updated_time
             ) VALUES (
-                :name, :description, :command, :cron, :timeout, :retries, :retryDelay,
+                :name, :description, :type, :command, :cron, :timeout, :retries, :retryDelay,
                 :status, :priority, :startTime, :endTime, :workflowId, :sequence,
-                :parameters, :notification, :tenantId, :createdBy, :createdTime,
+                :parameters, :cacheable, :batchable, :speculative, :notification, :tenantId, :createdBy, :createdTime,
                 :updatedBy, :updatedTime
             )
         """;
@@ -61,11 +64,12 @@ public class TaskJdbcDao implements TaskDao {
     private Task update(Task task) {
         String sql = """
             UPDATE fj_task SET
-                name = :name, description = :description, command = :command,
+                name = :name, description = :description, type = :type, command = :command,
                 cron = :cron, timeout = :timeout, retries = :retries,
                 retry_delay = :retryDelay, status = :status, priority = :priority,
                 start_time = :startTime, end_time = :endTime, workflow_id = :workflowId,
-                sequence = :sequence, parameters = :parameters, notification = :notification,
+                sequence = :sequence, parameters = :parameters, cacheable = :cacheable,
+                batchable = :batchable, speculative = :speculative, notification = :notification,
                 updated_by = :updatedBy, updated_time = :updatedTime
             WHERE id = :id AND tenant_id = :tenantId
         """;
@@ -97,18 +101,163 @@ public class TaskJdbcDao implements TaskDao {
         String sql = """
             SELECT * FROM fj_task 
             WHERE tenant_id = ? 
-            AND status = 'SCHEDULED'
+            AND (status = 'SCHEDULED' OR (status = 'RUNNING' AND cron IS NOT NULL AND cron <> ''))
             AND (start_time IS NULL OR start_time <= ?)
             AND (end_time IS NULL OR end_time > ?)
         """;
         return jdbcTemplate.query(sql, rowMapper, getCurrentTenantId(), now, now);
     }
 
+    @Override
+    public List<Task> findScheduledTasks(LocalDateTime now, int bucketCount, Collection<Integer> buckets) {
+        if (buckets.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = """
+            SELECT * FROM fj_task
+            WHERE tenant_id = :tenantId
+            AND (status = 'SCHEDULED' OR (status = 'RUNNING' AND cron IS NOT NULL AND cron <> ''))
+            AND (start_time IS NULL OR start_time <= :now)
+            AND (end_time IS NULL OR end_time > :now)
+            AND MOD(id, :bucketCount) IN (:buckets)
+        """;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("tenantId", getCurrentTenantId())
+            .addValue("now", now)
+            .addValue("bucketCount", bucketCount)
+            .addValue("buckets", buckets);
+        return namedParameterJdbcTemplate.query(sql, params, rowMapper);
+    }
+
+    @Override
+    @Transactional
+    public List<Task> claimTasks(Collection<Long> taskIds, String owner, int limit, LocalDateTime leaseUntil) {
+        if (taskIds.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        String selectSql = """
+            SELECT id FROM fj_task
+            WHERE id IN (:ids)
+            AND tenant_id = :tenantId
+            AND status = 'SCHEDULED'
+            AND (lease_owner IS NULL OR lease_owner = :owner OR lease_expire_time < :now)
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        """;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("ids", taskIds)
+            .addValue("tenantId", getCurrentTenantId())
+            .addValue("owner", owner)
+            .addValue("now", LocalDateTime.now())
+            .addValue("limit", limit)
+            .addValue("leaseUntil", leaseUntil);
+
+        List<Long> claimedIds = namedParameterJdbcTemplate.queryForList(selectSql, params, Long.class);
+        if (claimedIds.isEmpty()) {
+            return List.of();
+        }
+        params.addValue("claimedIds", claimedIds);
+
+        String claimSql = """
+            UPDATE fj_task SET lease_owner = :owner, lease_expire_time = :leaseUntil
+            WHERE id IN (:claimedIds)
+        """;
+        namedParameterJdbcTemplate.update(claimSql, params);
+
+        String fetchSql = "SELECT * FROM fj_task WHERE id IN (:claimedIds)";
+        return namedParameterJdbcTemplate.query(fetchSql, params, rowMapper);
+    }
+
+    @Override
+    public boolean releaseClaim(Long taskId, String owner) {
+        String sql = """
+            UPDATE fj_task SET lease_owner = NULL, lease_expire_time = NULL
+            WHERE id = ? AND lease_owner = ?
+        """;
+        return jdbcTemplate.update(sql, taskId, owner) > 0;
+    }
+
+    @Override
+    public void releaseClaims(Collection<Long> taskIds, String owner) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        String sql = """
+            UPDATE fj_task SET lease_owner = NULL, lease_expire_time = NULL
+            WHERE id IN (:ids) AND lease_owner = :owner
+        """;
+        namedParameterJdbcTemplate.update(sql, new MapSqlParameterSource()
+            .addValue("ids", taskIds)
+            .addValue("owner", owner));
+    }
+
+    @Override
+    @Transactional
+    public List<Long> startTasks(Collection<Long> taskIds, String operator) {
+        if (taskIds.isEmpty()) {
+            return List.of();
+        }
+
+        String selectSql = """
+            SELECT id FROM fj_task
+            WHERE id IN (:ids)
+            AND tenant_id = :tenantId
+            AND status = 'SCHEDULED'
+            ORDER BY id
+            FOR UPDATE SKIP LOCKED
+        """;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("ids", taskIds)
+            .addValue("tenantId", getCurrentTenantId())
+            .addValue("operator", operator)
+            .addValue("now", LocalDateTime.now());
+
+        List<Long> startedIds = namedParameterJdbcTemplate.queryForList(selectSql, params, Long.class);
+        if (startedIds.isEmpty()) {
+            return List.of();
+        }
+        params.addValue("startedIds", startedIds);
+
+        String startSql = """
+            UPDATE fj_task SET status = 'RUNNING', updated_by = :operator, updated_time = :now
+            WHERE id IN (:startedIds) AND tenant_id = :tenantId
+        """;
+        namedParameterJdbcTemplate.update(startSql, params);
+        return startedIds;
+    }
+
+    @Override
+    public void updateStatuses(Map<Long, Task.TaskStatus> statuses, String operator) {
+        if (statuses.isEmpty()) {
+            return;
+        }
+        String sql = """
+            UPDATE fj_task SET status = :status, updated_by = :operator, updated_time = :now
+            WHERE id = :id AND tenant_id = :tenantId
+        """;
+        LocalDateTime now = LocalDateTime.now();
+        Long tenantId = getCurrentTenantId();
+        namedParameterJdbcTemplate.batchUpdate(sql, statuses.entrySet().stream()
+            .map(entry -> new MapSqlParameterSource()
+                .addValue("id", entry.getKey())
+                .addValue("tenantId", tenantId)
+                .addValue("status", entry.getValue().name())
+                .addValue("operator", operator)
+                .addValue("now", now))
+            .toArray(MapSqlParameterSource[]::new));
+    }
+
     private MapSqlParameterSource createParameterSource(Task task) {
         return new MapSqlParameterSource()
             .addValue("id", task.getId())
             .addValue("name", task.getName())
             .addValue("description", task.getDescription())
+            .addValue("type", task.getType() != null ? task.getType().name() : null)
             .addValue("command", task.getCommand())
             .addValue("cron", task.getCron())
             .addValue("timeout", task.getTimeout())
@@ -121,6 +270,9 @@ public class TaskJdbcDao implements TaskDao {
             .addValue("workflowId", task.getWorkflowId())
             .addValue("sequence", task.getSequence())
             .addValue("parameters", task.getParameters())
+            .addValue("cacheable", Boolean.TRUE.equals(task.getCacheable()))
+            .addValue("batchable", Boolean.TRUE.equals(task.getBatchable()))
+            .addValue("speculative", Boolean.TRUE.equals(task.getSpeculative()))
             .addValue("notification", task.getNotification())
             .addValue("tenantId", task.getTenantId())
             .addValue("createdBy", task.getCreatedBy())
@@ -136,11 +288,17 @@ public class TaskJdbcDao implements TaskDao {
             task.setId(rs.getLong("id"));
             task.setName(rs.getString("name"));
             task.setDescription(rs.getString("description"));
+            String type = rs.getString("type");
+            if (type != null) {
+                task.setType(Task.TaskType.valueOf(type));
+            }
+
             task.setCommand(rs.getString("command"));
             task.setCron(rs.getString("cron"));
-            task.setTimeout(rs.getInt("timeout"));
-            task.setRetries(rs.getInt("retries"));
-            task.setRetryDelay(rs.getInt("retry_delay"));
+            // Unset limits stay null, so the configured defaults apply instead of 0
+            task.setTimeout(rs.getObject("timeout", Integer.class));
+            task.setRetries(rs.getObject("retries", Integer.class));
+            task.setRetryDelay(rs.getObject("retry_delay", Integer.class));
             task.setStatus(Task.TaskStatus.valueOf(rs.getString("status")));
             
             String priority = rs.getString("priority");
@@ -156,9 +314,13 @@ public class TaskJdbcDao implements TaskDao {
                 task.setEndTime(rs.getTimestamp("end_time").toLocalDateTime());
             }
             
-            task.setWorkflowId(rs.getLong("workflow_id"));
-            task.setSequence(rs.getInt("sequence"));
+            // Null for a standalone task, which is how the services tell it from a workflow task
+            task.setWorkflowId(rs.getObject("workflow_id", Long.class));
+            task.setSequence(rs.getObject("sequence", Integer.class));
             task.setParameters(rs.getString("parameters"));
+            task.setCacheable(rs.getBoolean("cacheable"));
+            task.setBatchable(rs.getBoolean("batchable"));
+            task.setSpeculative(rs.getBoolean("speculative"));
             task.setNotification(rs.getString("notification"));
             task.setTenantId(rs.getLong("tenant_id"));
             task.setCreatedBy(rs.getString("created_by"));
@@ -168,6 +330,11 @@ public class TaskJdbcDao implements TaskDao {
             }
             
             task.setUpdatedBy(rs.getString("updated_by"));
+            task.setLeaseOwner(rs.getString("lease_owner"));
+
+            if (rs.getTimestamp("lease_expire_time") != null) {
+                task.setLeaseExpireTime(rs.getTimestamp("lease_expire_time").toLocalDateTime());
+            }
             
             if (rs.getTimestamp("updated_time") != null) {
                 task.setUpdatedTime(rs.getTimestamp("updated_time").toLocalDateTime());
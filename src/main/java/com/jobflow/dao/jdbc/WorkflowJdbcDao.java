@@ -10,10 +10,12 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -88,13 +90,52 @@ public class WorkflowJdbcDao implements WorkflowDao {
         String sql = """
             SELECT * FROM fj_workflow 
             WHERE tenant_id = ? 
-            AND status = 'SCHEDULED'
+            AND (status = 'SCHEDULED' OR (status = 'RUNNING' AND cron IS NOT NULL AND cron <> ''))
             AND (start_time IS NULL OR start_time <= ?)
             AND (end_time IS NULL OR end_time > ?)
         """;
         return jdbcTemplate.query(sql, rowMapper, getCurrentTenantId(), now, now);
     }
 
+    @Override
+    public List<Workflow> findScheduledWorkflows(LocalDateTime now, int bucketCount, Collection<Integer> buckets) {
+        if (buckets.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = """
+            SELECT * FROM fj_workflow
+            WHERE tenant_id = :tenantId
+            AND (status = 'SCHEDULED' OR (status = 'RUNNING' AND cron IS NOT NULL AND cron <> ''))
+            AND (start_time IS NULL OR start_time <= :now)
+            AND (end_time IS NULL OR end_time > :now)
+            AND MOD(id, :bucketCount) IN (:buckets)
+        """;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("tenantId", getCurrentTenantId())
+            .addValue("now", now)
+            .addValue("bucketCount", bucketCount)
+            .addValue("buckets", buckets);
+        return namedParameterJdbcTemplate.query(sql, params, rowMapper);
+    }
+
+    @Override
+    public long getStructureVersion(Long workflowId) {
+        String sql = "SELECT structure_version FROM fj_workflow WHERE id = ? AND tenant_id = ?";
+        List<Long> versions = jdbcTemplate.queryForList(sql, Long.class, workflowId, getCurrentTenantId());
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    @Override
+    public long bumpStructureVersion(Long workflowId) {
+        String sql = """
+            UPDATE fj_workflow SET structure_version = structure_version + 1
+            WHERE id = ? AND tenant_id = ?
+        """;
+        jdbcTemplate.update(sql, workflowId, getCurrentTenantId());
+        return getStructureVersion(workflowId);
+    }
+
     @Override
     public List<Workflow> findDependentWorkflows(Long workflowId) {
         String sql = """
@@ -105,6 +146,57 @@ public class WorkflowJdbcDao implements WorkflowDao {
         return jdbcTemplate.query(sql, rowMapper, workflowId, getCurrentTenantId());
     }
 
+    @Override
+    @Transactional
+    public List<Workflow> claimWorkflows(Collection<Long> workflowIds, String owner, int limit, LocalDateTime leaseUntil) {
+        if (workflowIds.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        String selectSql = """
+            SELECT id FROM fj_workflow
+            WHERE id IN (:ids)
+            AND tenant_id = :tenantId
+            AND status = 'SCHEDULED'
+            AND (lease_owner IS NULL OR lease_owner = :owner OR lease_expire_time < :now)
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        """;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("ids", workflowIds)
+            .addValue("tenantId", getCurrentTenantId())
+            .addValue("owner", owner)
+            .addValue("now", LocalDateTime.now())
+            .addValue("limit", limit)
+            .addValue("leaseUntil", leaseUntil);
+
+        List<Long> claimedIds = namedParameterJdbcTemplate.queryForList(selectSql, params, Long.class);
+        if (claimedIds.isEmpty()) {
+            return List.of();
+        }
+        params.addValue("claimedIds", claimedIds);
+
+        String claimSql = """
+            UPDATE fj_workflow SET lease_owner = :owner, lease_expire_time = :leaseUntil
+            WHERE id IN (:claimedIds)
+        """;
+        namedParameterJdbcTemplate.update(claimSql, params);
+
+        String fetchSql = "SELECT * FROM fj_workflow WHERE id IN (:claimedIds)";
+        return namedParameterJdbcTemplate.query(fetchSql, params, rowMapper);
+    }
+
+    @Override
+    public boolean releaseClaim(Long workflowId, String owner) {
+        String sql = """
+            UPDATE fj_workflow SET lease_owner = NULL, lease_expire_time = NULL
+            WHERE id = ? AND lease_owner = ?
+        """;
+        return jdbcTemplate.update(sql, workflowId, owner) > 0;
+    }
+
     private MapSqlParameterSource createParameterSource(Workflow workflow) {
         return new MapSqlParameterSource()
             .addValue("id", workflow.getId())
@@ -152,13 +244,15 @@ public class WorkflowJdbcDao implements WorkflowDao {
                 workflow.setEndTime(rs.getTimestamp("end_time").toLocalDateTime());
             }
             
-            workflow.setTimeout(rs.getInt("timeout"));
-            workflow.setRetries(rs.getInt("retries"));
-            workflow.setRetryDelay(rs.getInt("retry_delay"));
+            // Unset limits stay null, so the configured defaults apply instead of 0
+            workflow.setTimeout(rs.getObject("timeout", Integer.class));
+            workflow.setRetries(rs.getObject("retries", Integer.class));
+            workflow.setRetryDelay(rs.getObject("retry_delay", Integer.class));
             workflow.setNotification(rs.getString("notification"));
             workflow.setParameters(rs.getString("parameters"));
             workflow.setConcurrent(rs.getBoolean("concurrent"));
             workflow.setErrorHandling(rs.getString("error_handling"));
+            workflow.setStructureVersion(rs.getLong("structure_version"));
             workflow.setTenantId(rs.getLong("tenant_id"));
             workflow.setCreatedBy(rs.getString("created_by"));
             
@@ -167,6 +261,11 @@ public class WorkflowJdbcDao implements WorkflowDao {
             }
             
             workflow.setUpdatedBy(rs.getString("updated_by"));
+            workflow.setLeaseOwner(rs.getString("lease_owner"));
+
+            if (rs.getTimestamp("lease_expire_time") != null) {
+                workflow.setLeaseExpireTime(rs.getTimestamp("lease_expire_time").toLocalDateTime());
+            }
             
             if (rs.getTimestamp("updated_time") != null) {
                 workflow.setUpdatedTime(rs.getTimestamp("updated_time").toLocalDateTime());
@@ -11,6 +11,7 @@ import java.util.List;
 public class Task extends BaseEntity {
     private String name;
     private String description;
+    private TaskType type;
     private String command;
     private String cron;
     private Integer timeout;
@@ -23,6 +24,11 @@ public class Task extends BaseEntity {
     private Long workflowId;
     private Integer sequence;
     private String parameters;
+    private Boolean cacheable;              // Reuse the output of an earlier run with identical inputs
+    private Boolean batchable;              // Short task that may run in a micro-batch with similar tasks
+    private Boolean speculative;            // Idempotent task that may get a backup attempt when it straggles
+    private String leaseOwner;              // Node currently holding the execution claim
+    private LocalDateTime leaseExpireTime;  // Claim is free for other nodes after this time
     private List<NotificationConfig> notifications;  // Multiple notification configurations
 
     public enum TaskStatus {
@@ -36,6 +42,12 @@ public class Task extends BaseEntity {
         RETRY      // Task is waiting for retry
     }
 
+    public enum TaskType {
+        HTTP,        // Call an HTTP endpoint
+        SHELL,       // Run a shell command
+        SPRING_BEAN  // Invoke a method on a Spring bean
+    }
+
     public enum TaskPriority {
         LOW,
         MEDIUM,
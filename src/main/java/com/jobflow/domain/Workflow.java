@@ -22,6 +22,9 @@ public class Workflow extends BaseEntity {
     private String parameters;
     private Boolean concurrent;
     private String errorHandling;
+    private Long structureVersion;          // Bumped whenever tasks or dependencies change
+    private String leaseOwner;              // Node currently holding the execution claim
+    private LocalDateTime leaseExpireTime;  // Claim is free for other nodes after this time
     private List<WorkflowDependency> dependencies;
     private List<NotificationConfig> notifications;  // Multiple notification configurations
 
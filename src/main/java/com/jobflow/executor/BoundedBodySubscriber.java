@@ -0,0 +1,104 @@
+package com.jobflow.executor;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Bounded Body Subscriber
+ *
+ * Streams an HTTP response body, keeping only the first maxBytes and counting the
+ * rest. Large responses are drained as they arrive instead of being buffered whole,
+ * and the captured prefix is what ends up in the execution record. The decoded body
+ * is at most maxBytes of UTF-8, plus the truncation note, and never ends in a split
+ * character.
+ */
+public class BoundedBodySubscriber implements HttpResponse.BodySubscriber<String> {
+
+    /**
+     * Upper bound on the note appended to a truncated body
+     */
+    public static final int TRUNCATION_NOTE_BYTES = 64;
+    private static final String TRUNCATION_NOTE_PREFIX = "\n... [truncated, ";
+
+    private final int maxBytes;
+    private final Charset charset;
+    private final ByteArrayOutputStream captured;
+    private final CompletableFuture<String> body = new CompletableFuture<>();
+    private long totalBytes;
+
+    public BoundedBodySubscriber(int maxBytes, Charset charset) {
+        this.maxBytes = maxBytes;
+        this.charset = charset;
+        this.captured = new ByteArrayOutputStream(Math.min(maxBytes, 8192));
+    }
+
+    /**
+     * Body handler that captures at most maxBytes of each response
+     */
+    public static HttpResponse.BodyHandler<String> handler(int maxBytes, Charset charset) {
+        return responseInfo -> new BoundedBodySubscriber(maxBytes, charset);
+    }
+
+    @Override
+    public CompletionStage<String> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        for (ByteBuffer buffer : buffers) {
+            int length = buffer.remaining();
+            int room = maxBytes - captured.size();
+            if (room > 0) {
+                byte[] chunk = new byte[Math.min(room, length)];
+                buffer.get(chunk);
+                captured.write(chunk, 0, chunk.length);
+            }
+            totalBytes += length;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        boolean truncated = totalBytes > captured.size();
+        String text = truncated ? decodeComplete(captured.toByteArray()) : captured.toString(charset);
+        // Replacement characters for undecodable bytes take more UTF-8 than the bytes they replace
+        String limited = OutputLimits.head(text, maxBytes);
+        if (truncated || limited.length() < text.length()) {
+            limited += TRUNCATION_NOTE_PREFIX + totalBytes + " bytes total]";
+        }
+        body.complete(limited);
+    }
+
+    /**
+     * Decode the captured prefix, leaving out a character cut off at the end
+     */
+    private String decodeComplete(byte[] bytes) {
+        CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer out = CharBuffer.allocate((int) (bytes.length * (double) decoder.maxCharsPerByte()) + 1);
+        // Not the end of input, so an incomplete trailing sequence is left undecoded
+        decoder.decode(ByteBuffer.wrap(bytes), out, false);
+        return out.flip().toString();
+    }
+}
@@ -0,0 +1,298 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jobflow.dao.WorkflowDependencyDao;
+import com.jobflow.domain.Task;
+import com.jobflow.domain.WorkflowDependency;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Execution Cache
+ *
+ * Memoizes the output of deterministic tasks. A task opts in with Task.cacheable; its
+ * cache key is a SHA-256 hash of the command, the canonical form of its parameters
+ * and the output hash of each upstream task in its workflow. When the key is found,
+ * the task is completed with the cached output instead of being executed, so
+ * re-running part of a workflow only executes tasks whose inputs actually changed.
+ *
+ * Outputs and upstream output hashes are kept in a local LRU tier with a TTL and,
+ * when execution.cache.shared.enabled is set, in Redis so all nodes share hits. Keys
+ * are derived from content, so editing a task simply produces a new key; stale
+ * entries age out with the TTL.
+ */
+@Slf4j
+@Component
+public class ExecutionCache {
+
+    private static final String OUTPUT_KEY_PREFIX = "cache:execution:";
+    private static final String OUTPUT_HASH_KEY_PREFIX = "cache:output-hash:";
+
+    private final WorkflowDependencyDao dependencyDao;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper canonicalMapper;
+
+    @Value("${execution.cache.enabled}")
+    private boolean enabled;
+
+    @Value("${execution.cache.shared.enabled}")
+    private boolean sharedEnabled;
+
+    @Value("${execution.cache.local.max-entries}")
+    private int maxLocalEntries;
+
+    @Value("${execution.cache.ttl-ms}")
+    private long ttlMs;
+
+    private LocalTier<String> outputs;
+    private LocalTier<Long> outputHashes;
+    private Counter localHits;
+    private Counter sharedHits;
+    private Counter misses;
+
+    @Autowired
+    public ExecutionCache(WorkflowDependencyDao dependencyDao,
+                          @Qualifier("lockRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                          MeterRegistry meterRegistry,
+                          ObjectMapper objectMapper) {
+        this.dependencyDao = dependencyDao;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        // Parameters that differ only in key order or whitespace must hash the same
+        this.canonicalMapper = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    @PostConstruct
+    public void init() {
+        outputs = new LocalTier<>(maxLocalEntries, ttlMs);
+        outputHashes = new LocalTier<>(maxLocalEntries, ttlMs);
+        localHits = Counter.builder("jobflow.cache.hits").tag("tier", "local")
+            .description("Task executions skipped because the output was cached")
+            .register(meterRegistry);
+        sharedHits = Counter.builder("jobflow.cache.hits").tag("tier", "shared")
+            .description("Task executions skipped because the output was cached")
+            .register(meterRegistry);
+        misses = Counter.builder("jobflow.cache.misses")
+            .description("Cacheable task executions that had to run")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Compute the cache key of a task's next run
+     * @return The key, or null if the task is not cacheable or an upstream output is unknown
+     */
+    public String keyFor(Task task) {
+        if (!enabled || !Boolean.TRUE.equals(task.getCacheable())) {
+            return null;
+        }
+
+        MessageDigest digest = sha256();
+        update(digest, task.getType() != null ? task.getType().name() : "");
+        update(digest, task.getCommand());
+        update(digest, canonicalParameters(task.getParameters()));
+
+        if (isInWorkflow(task)) {
+            // Sorted so the key doesn't depend on the order dependencies were added
+            TreeSet<Long> upstreamIds = new TreeSet<>();
+            List<WorkflowDependency> dependencies = dependencyDao.findByTargetTaskId(task.getWorkflowId(), task.getId());
+            dependencies.forEach(dependency -> upstreamIds.add(dependency.getSourceTaskId()));
+            for (Long upstreamId : upstreamIds) {
+                String outputHash = getOutputHash(upstreamId);
+                if (outputHash == null) {
+                    return null;
+                }
+                update(digest, upstreamId + "=" + outputHash);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Look up the output of an earlier run with the same key
+     * @return The cached output, or null on a miss
+     */
+    public String get(String key) {
+        String output = outputs.get(key);
+        if (output != null) {
+            localHits.increment();
+            return output;
+        }
+        if (sharedEnabled) {
+            try {
+                output = redisTemplate.opsForValue().get(OUTPUT_KEY_PREFIX + key);
+            } catch (Exception e) {
+                log.warn("Shared execution cache unavailable: {}", e.getMessage());
+            }
+            if (output != null) {
+                outputs.put(key, output);
+                sharedHits.increment();
+                return output;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Record the output of a successful run
+     * @param key Cache key of the run, or null if the task is not cacheable
+     */
+    public void recordSuccess(Task task, String key, String output) {
+        if (!enabled) {
+            return;
+        }
+        String value = output != null ? output : "";
+        if (key != null) {
+            outputs.put(key, value);
+            writeShared(OUTPUT_KEY_PREFIX + key, value);
+        }
+        // Downstream tasks key on this output, whether or not this task is cacheable itself
+        if (isInWorkflow(task)) {
+            String outputHash = hash(value);
+            outputHashes.put(task.getId(), outputHash);
+            writeShared(OUTPUT_HASH_KEY_PREFIX + task.getId(), outputHash);
+        }
+    }
+
+    /**
+     * Number of outputs held by the local tier
+     */
+    public int getLocalSize() {
+        return outputs.size();
+    }
+
+    private String getOutputHash(Long taskId) {
+        String outputHash = outputHashes.get(taskId);
+        if (outputHash == null && sharedEnabled) {
+            try {
+                outputHash = redisTemplate.opsForValue().get(OUTPUT_HASH_KEY_PREFIX + taskId);
+            } catch (Exception e) {
+                log.warn("Shared execution cache unavailable: {}", e.getMessage());
+            }
+            if (outputHash != null) {
+                outputHashes.put(taskId, outputHash);
+            }
+        }
+        return outputHash;
+    }
+
+    private static boolean isInWorkflow(Task task) {
+        return task.getWorkflowId() != null && task.getWorkflowId() != 0;
+    }
+
+    private void writeShared(String key, String value) {
+        if (!sharedEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(key, value, Duration.ofMillis(ttlMs));
+        } catch (Exception e) {
+            log.warn("Failed to write shared execution cache: {}", e.getMessage());
+        }
+    }
+
+    private String canonicalParameters(String parameters) {
+        if (!StringUtils.hasText(parameters)) {
+            return "";
+        }
+        try {
+            Object tree = canonicalMapper.readValue(parameters, Object.class);
+            return canonicalMapper.writeValueAsString(tree);
+        } catch (Exception e) {
+            // Not JSON; hash it as written
+            return parameters;
+        }
+    }
+
+    private static String hash(String value) {
+        MessageDigest digest = sha256();
+        update(digest, value);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Length-prefixed so that adjacent fields can't run into each other
+     */
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Size-bounded, least recently used map whose entries expire after a TTL
+     */
+    private static class LocalTier<K> {
+        private final long ttlMs;
+        private final Map<K, Entry> entries;
+
+        LocalTier(int maxEntries, long ttlMs) {
+            this.ttlMs = ttlMs;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized String get(K key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(K key, String value) {
+            entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMs));
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private static class Entry {
+            private final String value;
+            private final long expiresAt;
+
+            Entry(String value, long expiresAt) {
+                this.value = value;
+                this.expiresAt = expiresAt;
+            }
+        }
+    }
+}
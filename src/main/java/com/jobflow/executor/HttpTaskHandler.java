@@ -0,0 +1,166 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP Task Handler
+ *
+ * Runs HTTP tasks on one shared, non-blocking HttpClient. The client keeps pooled
+ * keep-alive connections per host and negotiates HTTP/2, so concurrent calls to the
+ * same host are multiplexed over a single connection.
+ *
+ * The task command is the URL. Task parameters may hold a JSON object with "method",
+ * "headers" and "body". The request timeout is Task.timeout in milliseconds. 2xx
+ * responses succeed; anything else fails the task. Response bodies are streamed and
+ * only the first execution.http.max-captured-bytes are kept as output, at most what
+ * fits in the output column next to the status line and truncation note. Cancelling
+ * the returned future aborts the request.
+ */
+@Slf4j
+@Component
+public class HttpTaskHandler implements TaskHandler {
+
+    // "HTTP nnn\n"
+    private static final int STATUS_LINE_BYTES = 16;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${execution.http.connect-timeout-ms}")
+    private long connectTimeoutMs;
+
+    @Value("${execution.http.keep-alive-seconds}")
+    private int keepAliveSeconds;
+
+    @Value("${execution.http.io-threads}")
+    private int ioThreads;
+
+    @Value("${execution.http.max-captured-bytes}")
+    private int maxCapturedBytes;
+
+    private int capturedBytes;
+    private ExecutorService ioExecutor;
+    private HttpClient httpClient;
+
+    @Autowired
+    public HttpTaskHandler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        int fitting = OutputLimits.MAX_STORED_BYTES - STATUS_LINE_BYTES - BoundedBodySubscriber.TRUNCATION_NOTE_BYTES;
+        capturedBytes = Math.min(maxCapturedBytes, fitting);
+        if (capturedBytes < maxCapturedBytes) {
+            log.info("Capturing {} bytes of HTTP responses, execution.http.max-captured-bytes={} exceeds the output column",
+                capturedBytes, maxCapturedBytes);
+        }
+
+        // Read once when the JDK connection pool is first used, so set before building the client
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+
+        ioExecutor = Executors.newFixedThreadPool(ioThreads, new CustomizableThreadFactory("Http-"));
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(ioExecutor)
+            .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioExecutor.shutdownNow();
+    }
+
+    @Override
+    public Task.TaskType getType() {
+        return Task.TaskType.HTTP;
+    }
+
+    @Override
+    public CompletableFuture<String> execute(Task task) {
+        HttpRequest request;
+        try {
+            request = buildRequest(task);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(
+                new TaskExecutionException("Invalid HTTP task " + task.getId() + ": " + e.getMessage(), e));
+        }
+
+        CompletableFuture<HttpResponse<String>> exchange =
+            httpClient.sendAsync(request, BoundedBodySubscriber.handler(capturedBytes, StandardCharsets.UTF_8));
+        CompletableFuture<String> result = exchange.thenApply(response -> {
+            String output = "HTTP " + response.statusCode() + "\n" + response.body();
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                throw new TaskExecutionException(
+                    "HTTP task " + task.getId() + " returned status " + response.statusCode(), output);
+            }
+            return output;
+        });
+        // Dependent stages do not propagate cancellation; cancel the exchange itself to abort the request
+        result.whenComplete((output, error) -> {
+            if (error != null) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private HttpRequest buildRequest(Task task) throws Exception {
+        String method = "GET";
+        String body = null;
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(task.getCommand().trim()));
+
+        if (StringUtils.hasText(task.getParameters())) {
+            JsonNode spec = objectMapper.readTree(task.getParameters());
+            if (spec.hasNonNull("method")) {
+                method = spec.get("method").asText().toUpperCase();
+            }
+            if (spec.hasNonNull("body")) {
+                JsonNode bodyNode = spec.get("body");
+                body = bodyNode.isTextual() ? bodyNode.asText() : objectMapper.writeValueAsString(bodyNode);
+            }
+            JsonNode headers = spec.get("headers");
+            if (headers != null && headers.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> fields = headers.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> header = fields.next();
+                    builder.header(header.getKey(), header.getValue().asText());
+                }
+            }
+        }
+
+        if (task.getTimeout() != null && task.getTimeout() > 0) {
+            builder.timeout(Duration.ofMillis(task.getTimeout()));
+        }
+        return builder
+            .method(method, body != null
+                ? HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)
+                : HttpRequest.BodyPublishers.noBody())
+            .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.jobflow.executor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output Limits
+ *
+ * Task output and failure messages are stored in the TEXT columns output_result and
+ * error_message, which hold at most 65,535 bytes of UTF-8. Handlers keep what they
+ * return within MAX_STORED_BYTES; the rest of the column is left for the failure
+ * message put in front of a failed task's output. Cuts are made in UTF-8 bytes and
+ * always on a character boundary.
+ */
+public final class OutputLimits {
+
+    public static final int MAX_STORED_BYTES = 60_000;
+
+    private OutputLimits() {
+    }
+
+    public static int utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * The longest prefix of text that fits in maxBytes of UTF-8
+     */
+    public static String head(String text, int maxBytes) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return text;
+        }
+        int end = Math.max(0, maxBytes);
+        // Back off continuation bytes so the cut does not split a character
+        while (end > 0 && isContinuation(bytes[end])) {
+            end--;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The longest suffix of text that fits in maxBytes of UTF-8
+     */
+    public static String tail(String text, int maxBytes) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return text;
+        }
+        int start = bytes.length - Math.max(0, maxBytes);
+        while (start < bytes.length && isContinuation(bytes[start])) {
+            start++;
+        }
+        return new String(bytes, start, bytes.length - start, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+}
@@ -0,0 +1,19 @@
+package com.jobflow.executor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resource Usage
+ *
+ * Resources a task execution actually used, as sampled from its process tree: CPU time
+ * across all processes and the peak resident memory of the tree.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceUsage {
+    private long cpuMs;
+    private long peakMemoryMb;
+}
@@ -0,0 +1,181 @@
+package com.jobflow.executor;
+
+import com.jobflow.domain.Task;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Resource Usage Tracker
+ *
+ * Measures what task processes actually use. Every execution.resources.sample-ms the
+ * process tree of each running task is sampled from /proc: resident memory is summed
+ * over the tree and its peak kept, and CPU time is the total of the last value seen for
+ * each process, so children that already exited still count. Usage is approximate; a
+ * process shorter than one sample interval is only seen when it starts.
+ *
+ * The usage of a finished run is held, keyed by the task instance that ran, until the
+ * caller recording the execution takes it. Remote workers report the same measurements
+ * with their results.
+ */
+@Slf4j
+@Component
+public class ResourceUsageTracker {
+
+    private static final long KB = 1024;
+    private static final long MB = 1024 * 1024;
+    private static final long FINISHED_RETENTION_MS = 300_000;
+
+    private final ThreadPoolTaskScheduler taskScheduler;
+    // By task instance, so that concurrent runs of one task ID don't mix
+    private final Map<Task, Sampling> running = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<Task, Finished> finished = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    @Value("${execution.resources.sample-ms}")
+    private long sampleMs;
+
+    private ScheduledFuture<?> sampler;
+
+    @Autowired
+    public ResourceUsageTracker(@Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        sampler = taskScheduler.scheduleWithFixedDelay(this::sampleAll, sampleMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sampler != null) {
+            sampler.cancel(false);
+        }
+    }
+
+    /**
+     * Sample a task's process tree until the process exits
+     * @return The process exit, completed once the usage of the run has been recorded
+     */
+    public CompletableFuture<Process> track(Task task, Process process) {
+        Sampling sampling = new Sampling(process.toHandle());
+        sampling.sample();
+        running.put(task, sampling);
+        return process.onExit().whenComplete((exited, error) -> {
+            running.remove(task, sampling);
+            record(task, sampling.toUsage());
+        });
+    }
+
+    /**
+     * Record usage measured elsewhere, e.g. reported by a remote worker
+     */
+    public void record(Task task, ResourceUsage usage) {
+        finished.put(task, new Finished(usage, System.currentTimeMillis()));
+    }
+
+    /**
+     * Remove and return the usage of the task's last finished run
+     * @return The usage, or null if the run started no tracked process
+     */
+    public ResourceUsage take(Task task) {
+        Finished entry = finished.remove(task);
+        return entry != null ? entry.usage : null;
+    }
+
+    private void sampleAll() {
+        List<Sampling> snapshot;
+        synchronized (running) {
+            snapshot = new ArrayList<>(running.values());
+        }
+        snapshot.forEach(Sampling::sample);
+
+        // Drop usage nobody took, e.g. of runs cancelled before their process exited
+        long expiredBefore = System.currentTimeMillis() - FINISHED_RETENTION_MS;
+        synchronized (finished) {
+            finished.values().removeIf(entry -> entry.recordedAt < expiredBefore);
+        }
+    }
+
+    /**
+     * Resident memory of a process in bytes from /proc/[pid]/status, or 0 if it is gone
+     */
+    private static long residentBytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring("VmRSS:".length()).trim().split("\\s+")[0]) * KB;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.trace("Cannot read memory of process {}: {}", pid, e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Measurements of one running process tree
+     */
+    private static class Sampling {
+        private final ProcessHandle root;
+        private final Map<Long, Long> cpuMsByPid = new HashMap<>();
+        private long peakBytes;
+
+        Sampling(ProcessHandle root) {
+            this.root = root;
+        }
+
+        synchronized void sample() {
+            List<ProcessHandle> tree = new ArrayList<>();
+            tree.add(root);
+            root.descendants().forEach(tree::add);
+
+            long treeBytes = 0;
+            for (ProcessHandle process : tree) {
+                long pid = process.pid();
+                process.info().totalCpuDuration()
+                    .map(Duration::toMillis)
+                    .ifPresent(cpuMs -> cpuMsByPid.merge(pid, cpuMs, Long::max));
+                treeBytes += residentBytes(pid);
+            }
+            peakBytes = Math.max(peakBytes, treeBytes);
+        }
+
+        synchronized ResourceUsage toUsage() {
+            long cpuMs = cpuMsByPid.values().stream().mapToLong(Long::longValue).sum();
+            return new ResourceUsage(cpuMs, (peakBytes + MB - 1) / MB);
+        }
+    }
+
+    /**
+     * Usage of a finished run waiting to be taken
+     */
+    private static class Finished {
+        private final ResourceUsage usage;
+        private final long recordedAt;
+
+        Finished(ResourceUsage usage, long recordedAt) {
+            this.usage = usage;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Shell Task Handler
+ *
+ * Runs the task command with /bin/sh -c. Stdout and stderr are drained concurrently
+ * into SpillingOutputBuffers, so a chatty process never blocks on a full pipe and
+ * never holds more than the ring buffer in memory; output past the spill threshold
+ * goes to a file under execution.shell.spill-dir. The task output is a summary: exit
+ * code, the tail of each stream and the spill file paths, cut to fit the output
+ * column. Spill files older than execution.shell.spill-retention-hours are deleted.
+ *
+ * Task parameters may hold a JSON object with "workingDir" and "env". Exit code 0
+ * succeeds. Cancelling the returned future, which the dispatcher does on timeout,
+ * kills the whole process tree. CPU and memory used by the tree are sampled by the
+ * ResourceUsageTracker.
+ */
+@Slf4j
+@Component
+public class ShellTaskHandler implements TaskHandler {
+
+    private static final int READ_CHUNK_BYTES = 8192;
+    private static final long SPILL_CLEANUP_INTERVAL_MS = 3_600_000;
+
+    private final ObjectMapper objectMapper;
+    private final ResourceUsageTracker usageTracker;
+    private final ThreadPoolTaskScheduler taskScheduler;
+
+    @Value("${execution.shell.ring-buffer-bytes}")
+    private int ringBufferBytes;
+
+    @Value("${execution.shell.spill-threshold-bytes}")
+    private long spillThresholdBytes;
+
+    @Value("${execution.shell.spill-dir}")
+    private String spillDir;
+
+    @Value("${execution.shell.spill-retention-hours}")
+    private long spillRetentionHours;
+
+    private final Charset charset = Charset.defaultCharset();
+    private ExecutorService outputReaders;
+    private ScheduledFuture<?> spillCleanup;
+
+    @Autowired
+    public ShellTaskHandler(ObjectMapper objectMapper, ResourceUsageTracker usageTracker,
+                            @Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler) {
+        this.objectMapper = objectMapper;
+        this.usageTracker = usageTracker;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @PostConstruct
+    public void init() {
+        outputReaders = Executors.newCachedThreadPool(new CustomizableThreadFactory("Shell-Output-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSpillCleanup() {
+        spillCleanup = taskScheduler.scheduleWithFixedDelay(this::deleteExpiredSpillFiles, SPILL_CLEANUP_INTERVAL_MS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (spillCleanup != null) {
+            spillCleanup.cancel(false);
+        }
+        outputReaders.shutdownNow();
+    }
+
+    @Override
+    public Task.TaskType getType() {
+        return Task.TaskType.SHELL;
+    }
+
+    @Override
+    public CompletableFuture<String> execute(Task task) {
+        Process process;
+        try {
+            process = buildProcess(task).start();
+            // Tasks get no stdin
+            process.getOutputStream().close();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(
+                new TaskExecutionException("Failed to start shell task " + task.getId() + ": " + e.getMessage(), e));
+        }
+
+        Path dir = Paths.get(spillDir);
+        String prefix = "task-" + task.getId() + "-";
+        SpillingOutputBuffer stdout = new SpillingOutputBuffer(ringBufferBytes, spillThresholdBytes, dir, prefix + "stdout-");
+        SpillingOutputBuffer stderr = new SpillingOutputBuffer(ringBufferBytes, spillThresholdBytes, dir, prefix + "stderr-");
+        CompletableFuture<Void> stdoutDrained = drain(process.getInputStream(), stdout);
+        CompletableFuture<Void> stderrDrained = drain(process.getErrorStream(), stderr);
+
+        CompletableFuture<String> result = usageTracker.track(task, process)
+            .thenCombine(CompletableFuture.allOf(stdoutDrained, stderrDrained), (exited, drained) -> {
+                String exitLine = "exit code " + exited.exitValue() + "\n";
+                int budget = OutputLimits.MAX_STORED_BYTES - exitLine.length() - 1;
+                // Stderr gets at most half; whatever it leaves goes to stdout
+                String stderrSummary = stderr.summary("stderr", charset, budget / 2);
+                String stdoutSummary = stdout.summary("stdout", charset,
+                    budget - OutputLimits.utf8Length(stderrSummary));
+                String summary = exitLine + stdoutSummary + "\n" + stderrSummary;
+                if (exited.exitValue() != 0) {
+                    throw new TaskExecutionException(
+                        "Shell task " + task.getId() + " exited with code " + exited.exitValue(), summary);
+                }
+                return summary;
+            });
+
+        result.whenComplete((output, error) -> {
+            if (error != null) {
+                log.warn("Killing process tree of shell task {} (pid {})", task.getId(), process.pid());
+                killTree(process.toHandle());
+            }
+        });
+        return result;
+    }
+
+    private ProcessBuilder buildProcess(Task task) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder("/bin/sh", "-c", task.getCommand());
+        if (StringUtils.hasText(task.getParameters())) {
+            JsonNode spec = objectMapper.readTree(task.getParameters());
+            if (spec.hasNonNull("workingDir")) {
+                builder.directory(new File(spec.get("workingDir").asText()));
+            }
+            JsonNode env = spec.get("env");
+            if (env != null && env.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> fields = env.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> variable = fields.next();
+                    builder.environment().put(variable.getKey(), variable.getValue().asText());
+                }
+            }
+        }
+        return builder;
+    }
+
+    private CompletableFuture<Void> drain(InputStream stream, SpillingOutputBuffer buffer) {
+        return CompletableFuture.runAsync(() -> {
+            byte[] chunk = new byte[READ_CHUNK_BYTES];
+            try (InputStream in = stream) {
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    buffer.write(chunk, 0, read);
+                }
+            } catch (IOException e) {
+                // Stream closed because the process was killed
+                log.debug("Output stream closed: {}", e.getMessage());
+            } finally {
+                buffer.close();
+            }
+        }, outputReaders);
+    }
+
+    /**
+     * Delete spill files not written to for longer than the retention. A file still being
+     * written by a running task is modified with each chunk, so it is never old enough.
+     */
+    void deleteExpiredSpillFiles() {
+        Path dir = Paths.get(spillDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(Duration.ofHours(spillRetentionHours)));
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "task-*.log")) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0 && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to delete spill file {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list spill directory {}: {}", dir, e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} spill files older than {} hours", deleted, spillRetentionHours);
+        }
+    }
+
+    /**
+     * Kill children before the parent so they cannot be reparented and escape
+     */
+    private static void killTree(ProcessHandle process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+}
@@ -0,0 +1,151 @@
+package com.jobflow.executor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Spilling Output Buffer
+ *
+ * Captures a process output stream with bounded memory. The last ringBytes of output
+ * are kept in a ring buffer for the execution summary. Once more than spillThreshold
+ * bytes have been written, the complete output is also written to a file under
+ * spillDir, so arbitrarily large output never reaches the heap or the database.
+ */
+public class SpillingOutputBuffer {
+
+    private final byte[] ring;
+    private final long spillThreshold;
+    private final Path spillDir;
+    private final String spillPrefix;
+
+    private int position;
+    private long totalBytes;
+    private Path spillFile;
+    private OutputStream spillStream;
+    private IOException spillError;
+
+    public SpillingOutputBuffer(int ringBytes, long spillThreshold, Path spillDir, String spillPrefix) {
+        this.ring = new byte[ringBytes];
+        // Spilling starts from the ring contents, so it must still hold everything written
+        this.spillThreshold = Math.min(spillThreshold, ringBytes);
+        this.spillDir = spillDir;
+        this.spillPrefix = spillPrefix;
+    }
+
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        if (spillStream == null && spillError == null && totalBytes + length > spillThreshold) {
+            startSpill();
+        }
+        if (spillStream != null) {
+            try {
+                spillStream.write(bytes, offset, length);
+            } catch (IOException e) {
+                abandonSpill(e);
+            }
+        }
+
+        // Only the last ring.length bytes of a large chunk can survive in the ring
+        int skip = Math.max(0, length - ring.length);
+        for (int i = offset + skip; i < offset + length; ) {
+            int count = Math.min(offset + length - i, ring.length - position);
+            System.arraycopy(bytes, i, ring, position, count);
+            position = (position + count) % ring.length;
+            i += count;
+        }
+        totalBytes += length;
+    }
+
+    /**
+     * Flush and close the spill file, if any
+     */
+    public synchronized void close() {
+        if (spillStream != null) {
+            try {
+                spillStream.close();
+            } catch (IOException e) {
+                spillError = e;
+            }
+            spillStream = null;
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * File holding the complete output, or null if the output fit in memory
+     */
+    public synchronized Path getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * The last bytes of output, decoded with the given charset
+     */
+    public synchronized String tail(Charset charset) {
+        int length = (int) Math.min(totalBytes, ring.length);
+        byte[] tail = new byte[length];
+        int start = Math.floorMod(position - length, ring.length);
+        int first = Math.min(length, ring.length - start);
+        System.arraycopy(ring, start, tail, 0, first);
+        System.arraycopy(ring, 0, tail, first, length - first);
+        return new String(tail, charset);
+    }
+
+    /**
+     * Short description of the output: size, tail and where the full output is. The
+     * tail is cut further, on a character boundary, so the whole summary fits in
+     * maxBytes of UTF-8.
+     */
+    public synchronized String summary(String name, Charset charset, int maxBytes) {
+        StringBuilder header = new StringBuilder("--- ").append(name)
+            .append(" (").append(totalBytes).append(" bytes");
+        if (spillFile != null) {
+            header.append(", full output: ").append(spillFile);
+        } else if (spillError != null) {
+            header.append(", spill failed: ").append(spillError.getMessage());
+        }
+        String tail = tail(charset);
+        // Room for the longest possible ", last N bytes shown) ---\n"
+        int reserved = OutputLimits.utf8Length(header.toString()) + 48;
+        String shown = OutputLimits.tail(tail, Math.max(0, maxBytes - reserved));
+        int shownBytes = OutputLimits.utf8Length(shown);
+        if (totalBytes > shownBytes) {
+            header.append(", last ").append(shownBytes).append(" bytes shown");
+        }
+        String summary = header.append(") ---\n").append(shown).toString();
+        // Only a header longer than maxBytes on its own, e.g. a very long spill path, gets here
+        return OutputLimits.head(summary, maxBytes);
+    }
+
+    private void startSpill() {
+        try {
+            Files.createDirectories(spillDir);
+            spillFile = Files.createTempFile(spillDir, spillPrefix, ".log");
+            spillStream = new BufferedOutputStream(Files.newOutputStream(spillFile));
+            // Everything written so far is still in the ring
+            byte[] written = new byte[(int) totalBytes];
+            System.arraycopy(ring, 0, written, 0, written.length);
+            spillStream.write(written);
+        } catch (IOException e) {
+            abandonSpill(e);
+        }
+    }
+
+    private void abandonSpill(IOException e) {
+        spillError = e;
+        if (spillStream != null) {
+            try {
+                spillStream.close();
+            } catch (IOException ignored) {
+                // Already failing
+            }
+            spillStream = null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spring Bean Task Handler
+ *
+ * Invokes a method on a Spring bean. The task command is "beanName.methodName" and
+ * task parameters may hold a JSON object whose "args" array is bound, by position, to
+ * the method's parameters; the method is chosen by name and argument count.
+ *
+ * Bean lookup, method resolution and argument conversion happen once per task. The
+ * result is cached by task ID as a MethodHandle bound to the bean and its arguments,
+ * so the hot path is a single invokeExact. Entries are invalidated when the task is
+ * updated or deleted, and are re-resolved if the cached command or parameters no
+ * longer match the task, e.g. after an update made on another node.
+ *
+ * Methods returning a CompletionStage complete the task when the stage completes;
+ * any other return value is the task output.
+ */
+@Slf4j
+@Component
+public class SpringBeanTaskHandler implements TaskHandler {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class);
+
+    private final ApplicationContext applicationContext;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, ResolvedInvocation> invocations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SpringBeanTaskHandler(ApplicationContext applicationContext, ObjectMapper objectMapper) {
+        this.applicationContext = applicationContext;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Task.TaskType getType() {
+        return Task.TaskType.SPRING_BEAN;
+    }
+
+    @Override
+    public CompletableFuture<String> execute(Task task) {
+        ResolvedInvocation invocation;
+        try {
+            invocation = resolve(task);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(
+                new TaskExecutionException("Invalid Spring bean task " + task.getId() + ": " + e.getMessage(), e));
+        }
+
+        Object result;
+        try {
+            result = (Object) invocation.invoker.invokeExact();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(
+                new TaskExecutionException("Spring bean task " + task.getId() + " failed: " + t.getMessage(), t));
+        }
+
+        if (result instanceof CompletionStage) {
+            return ((CompletionStage<?>) result).toCompletableFuture()
+                .thenApply(value -> value != null ? value.toString() : null);
+        }
+        return CompletableFuture.completedFuture(result != null ? result.toString() : null);
+    }
+
+    @Override
+    public void invalidate(Long taskId) {
+        invocations.remove(taskId);
+    }
+
+    /**
+     * Number of tasks with a cached invocation
+     */
+    public int getCachedCount() {
+        return invocations.size();
+    }
+
+    private ResolvedInvocation resolve(Task task) throws Exception {
+        ResolvedInvocation cached = invocations.get(task.getId());
+        if (cached != null && cached.matches(task)) {
+            return cached;
+        }
+
+        ResolvedInvocation resolved = new ResolvedInvocation(task.getCommand(), task.getParameters(), bind(task));
+        invocations.put(task.getId(), resolved);
+        log.debug("Resolved Spring bean task {}: {}", task.getId(), task.getCommand());
+        return resolved;
+    }
+
+    /**
+     * Build a () -> Object handle for the bean method with its arguments bound
+     */
+    private MethodHandle bind(Task task) throws Exception {
+        String command = task.getCommand() != null ? task.getCommand().trim() : "";
+        int separator = command.lastIndexOf('.');
+        if (separator <= 0 || separator == command.length() - 1) {
+            throw new IllegalArgumentException("Command must be beanName.methodName: " + command);
+        }
+        String beanName = command.substring(0, separator);
+        String methodName = command.substring(separator + 1);
+
+        List<JsonNode> args = new ArrayList<>();
+        if (StringUtils.hasText(task.getParameters())) {
+            JsonNode argsNode = objectMapper.readTree(task.getParameters()).get("args");
+            if (argsNode != null && argsNode.isArray()) {
+                argsNode.forEach(args::add);
+            }
+        }
+
+        Object bean = applicationContext.getBean(beanName);
+        Method method = findMethod(bean.getClass(), methodName, args.size());
+        method.trySetAccessible();
+
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(bean);
+        }
+        Type[] parameterTypes = method.getGenericParameterTypes();
+        for (int i = 0; i < args.size(); i++) {
+            JavaType type = objectMapper.getTypeFactory().constructType(parameterTypes[i]);
+            Object value = objectMapper.convertValue(args.get(i), type);
+            handle = MethodHandles.insertArguments(handle, 0, value);
+        }
+        return handle.asType(INVOKER_TYPE);
+    }
+
+    private static Method findMethod(Class<?> beanClass, String methodName, int argCount) {
+        Method match = null;
+        for (Method method : beanClass.getMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == argCount && !method.isBridge()) {
+                if (match != null) {
+                    throw new IllegalArgumentException(
+                        "Ambiguous method " + methodName + " with " + argCount + " arguments on " + beanClass.getName());
+                }
+                match = method;
+            }
+        }
+        if (match == null) {
+            throw new IllegalArgumentException(
+                "No public method " + methodName + " with " + argCount + " arguments on " + beanClass.getName());
+        }
+        return match;
+    }
+
+    /**
+     * Bound invoker together with the task definition it was resolved from
+     */
+    private static class ResolvedInvocation {
+        private final String command;
+        private final String parameters;
+        private final MethodHandle invoker;
+
+        ResolvedInvocation(String command, String parameters, MethodHandle invoker) {
+            this.command = command;
+            this.parameters = parameters;
+            this.invoker = invoker;
+        }
+
+        boolean matches(Task task) {
+            return Objects.equals(command, task.getCommand()) && Objects.equals(parameters, task.getParameters());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.jobflow.executor;
+
+/**
+ * Task Execution Exception
+ *
+ * Thrown when a task ran but did not succeed, e.g. an HTTP task answered with an
+ * error status. Carries whatever output was captured before the failure.
+ */
+public class TaskExecutionException extends RuntimeException {
+
+    private final String output;
+
+    public TaskExecutionException(String message, String output) {
+        super(message);
+        this.output = output;
+    }
+
+    public TaskExecutionException(String message, Throwable cause) {
+        super(message, cause);
+        this.output = null;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,33 @@
+package com.jobflow.executor;
+
+import com.jobflow.domain.Task;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Task Handler
+ *
+ * Runs the work of one TaskType. Handlers return as soon as the work is started and
+ * complete the future with the task's output, or exceptionally with a
+ * TaskExecutionException if the task failed.
+ */
+public interface TaskHandler {
+
+    /**
+     * The task type this handler runs
+     */
+    Task.TaskType getType();
+
+    /**
+     * Start executing a task
+     * @param task The task to execute
+     * @return Future completed with the captured output of the task
+     */
+    CompletableFuture<String> execute(Task task);
+
+    /**
+     * Drop anything cached for a task after it was updated or deleted
+     */
+    default void invalidate(Long taskId) {
+    }
+}
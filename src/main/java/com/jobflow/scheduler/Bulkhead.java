@@ -0,0 +1,184 @@
+package com.jobflow.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulkhead
+ *
+ * Fixed-size pool with a bounded queue that isolates one kind of work from the rest.
+ * When both the pool and the queue are full, execute() throws
+ * RejectedExecutionException instead of running the work on the caller, so the caller
+ * can defer it rather than be blocked by a saturated neighbour.
+ *
+ * A bulkhead on virtual threads does not pool them: each piece of work gets a new
+ * thread, and two semaphores stand in for the pool and the queue. Work beyond
+ * poolSize + queueCapacity is rejected; admitted work waits for one of poolSize
+ * permits on its own, cheap, virtual thread.
+ *
+ * Publishes utilization, queue size, queue wait and rejections tagged with the
+ * bulkhead name.
+ */
+public class Bulkhead implements Executor {
+
+    private final String name;
+    private final int poolSize;
+    // Platform threads
+    private final ThreadPoolExecutor executor;
+    // Virtual threads
+    private final ThreadFactory virtualThreadFactory;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final Set<Thread> virtualThreads = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+    private final Timer queueWait;
+    private final Counter rejections;
+
+    /**
+     * Bulkhead on a pool of platform threads
+     */
+    public Bulkhead(String name, int poolSize, int queueCapacity, ThreadFactory threadFactory,
+                    MeterRegistry meterRegistry) {
+        this(name, poolSize, queueCapacity, threadFactory, false, meterRegistry);
+    }
+
+    /**
+     * @param virtual Whether threadFactory makes virtual threads, which are started per task instead of pooled
+     */
+    public Bulkhead(String name, int poolSize, int queueCapacity, ThreadFactory threadFactory, boolean virtual,
+                    MeterRegistry meterRegistry) {
+        this.name = name;
+        this.poolSize = poolSize;
+        if (virtual) {
+            this.executor = null;
+            this.virtualThreadFactory = threadFactory;
+            this.admitted = new Semaphore(poolSize + queueCapacity);
+            this.running = new Semaphore(poolSize);
+        } else {
+            this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+            this.executor.allowCoreThreadTimeOut(true);
+            this.virtualThreadFactory = null;
+            this.admitted = null;
+            this.running = null;
+        }
+
+        Gauge.builder("jobflow.bulkhead.utilization", this, Bulkhead::getUtilization)
+            .tag("bulkhead", name)
+            .description("Fraction of the bulkhead's threads that are busy")
+            .register(meterRegistry);
+        Gauge.builder("jobflow.bulkhead.active", this, Bulkhead::getActiveCount)
+            .tag("bulkhead", name)
+            .description("Threads of the bulkhead running work")
+            .register(meterRegistry);
+        Gauge.builder("jobflow.bulkhead.queue.size", this, Bulkhead::getQueueSize)
+            .tag("bulkhead", name)
+            .description("Work waiting in the bulkhead's queue")
+            .register(meterRegistry);
+        this.queueWait = Timer.builder("jobflow.bulkhead.queue.wait")
+            .tag("bulkhead", name)
+            .description("Time work spent in the bulkhead's queue")
+            .register(meterRegistry);
+        this.rejections = Counter.builder("jobflow.bulkhead.rejected")
+            .tag("bulkhead", name)
+            .description("Work rejected because the bulkhead was full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run work in the bulkhead
+     * @throws RejectedExecutionException if the pool and queue are full
+     */
+    @Override
+    public void execute(Runnable work) {
+        long submittedAt = System.nanoTime();
+        if (executor == null) {
+            executeOnVirtualThread(work, submittedAt);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                work.run();
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new RejectedExecutionException("Bulkhead " + name + " is full", e);
+        }
+    }
+
+    private void executeOnVirtualThread(Runnable work, long submittedAt) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Bulkhead " + name + " is shut down");
+        }
+        if (!admitted.tryAcquire()) {
+            rejections.increment();
+            throw new RejectedExecutionException("Bulkhead " + name + " is full");
+        }
+        try {
+            virtualThreadFactory.newThread(() -> {
+                virtualThreads.add(Thread.currentThread());
+                try {
+                    running.acquire();
+                    try {
+                        queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                        work.run();
+                    } finally {
+                        running.release();
+                    }
+                } catch (InterruptedException e) {
+                    // Shut down while queued
+                    Thread.currentThread().interrupt();
+                } finally {
+                    virtualThreads.remove(Thread.currentThread());
+                    admitted.release();
+                }
+            }).start();
+        } catch (RuntimeException e) {
+            admitted.release();
+            rejections.increment();
+            throw new RejectedExecutionException("Bulkhead " + name + " could not start a thread", e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getUtilization() {
+        return (double) getActiveCount() / poolSize;
+    }
+
+    public int getActiveCount() {
+        return executor != null ? executor.getActiveCount() : poolSize - running.availablePermits();
+    }
+
+    public int getQueueSize() {
+        if (executor != null) {
+            return executor.getQueue().size();
+        }
+        // Threads admitted but waiting for a running permit
+        return running.getQueueLength();
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        } else {
+            shutdown = true;
+            virtualThreads.forEach(Thread::interrupt);
+        }
+    }
+}
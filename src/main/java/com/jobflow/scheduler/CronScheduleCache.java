@@ -0,0 +1,178 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cron Schedule Cache
+ *
+ * Bounded LRU cache of compiled cron expressions, interned by their normalized text
+ * so tasks sharing an expression share one compiled schedule. Also offers a bulk API
+ * that computes the next fire times for many tasks at once, evaluating each distinct
+ * expression only once per call.
+ *
+ * Lookups go through a ConcurrentHashMap and only stamp the entry with an access
+ * counter, so concurrent hits never contend on a lock. Misses beyond maxSize evict the
+ * least recently stamped entry under a lock; that is a scan of the map, which is fine
+ * because misses are rare once the task set's expressions are compiled.
+ */
+@Slf4j
+@Component
+public class CronScheduleCache {
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final AtomicLong clock = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CronScheduleCache(@Value("${scheduler.cron-cache.max-size}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the compiled form of a cron expression
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    public CronExpression get(String expression) {
+        String key = normalize(expression);
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            entry.lastAccess = clock.incrementAndGet();
+            return entry.compiled;
+        }
+
+        misses.incrementAndGet();
+        entry = new Entry(CronExpression.parse(key), clock.incrementAndGet());
+        Entry existing = cache.putIfAbsent(key, entry);
+        if (existing != null) {
+            return existing.compiled;
+        }
+        if (cache.size() > maxSize) {
+            evict();
+        }
+        return entry.compiled;
+    }
+
+    /**
+     * Next fire time after the given time, or null if the expression never fires again
+     */
+    public LocalDateTime next(String expression, LocalDateTime from) {
+        return get(expression).next(from);
+    }
+
+    /**
+     * Next N fire times after the given time
+     */
+    public List<LocalDateTime> next(String expression, LocalDateTime from, int count) {
+        return computeNext(get(expression), from, count);
+    }
+
+    /**
+     * Compute the next N fire times for many tasks in one pass.
+     * Tasks with identical expressions share the same result list; tasks without a valid
+     * cron expression are left out of the result.
+     * @return Fire times keyed by task ID
+     */
+    public Map<Long, List<LocalDateTime>> nextFireTimes(Collection<Task> tasks, LocalDateTime from, int count) {
+        Map<String, List<LocalDateTime>> byExpression = new HashMap<>();
+        Map<Long, List<LocalDateTime>> result = new HashMap<>(tasks.size() * 2);
+
+        for (Task task : tasks) {
+            if (task.getCron() == null || task.getCron().isBlank()) {
+                continue;
+            }
+            String key = normalize(task.getCron());
+            List<LocalDateTime> times = byExpression.computeIfAbsent(key, k -> {
+                try {
+                    return computeNext(get(k), from, count);
+                } catch (IllegalArgumentException e) {
+                    log.error("Invalid cron expression '{}': {}", k, e.getMessage());
+                    return Collections.emptyList();
+                }
+            });
+            if (!times.isEmpty()) {
+                result.put(task.getId(), times);
+            }
+        }
+
+        return result;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private List<LocalDateTime> computeNext(CronExpression cron, LocalDateTime from, int count) {
+        List<LocalDateTime> times = new ArrayList<>(count);
+        LocalDateTime current = from;
+        for (int i = 0; i < count; i++) {
+            current = cron.next(current);
+            if (current == null) {
+                break;
+            }
+            times.add(current);
+        }
+        return Collections.unmodifiableList(times);
+    }
+
+    private void evict() {
+        evictionLock.lock();
+        try {
+            while (cache.size() > maxSize) {
+                String eldest = null;
+                long oldest = Long.MAX_VALUE;
+                for (Map.Entry<String, Entry> candidate : cache.entrySet()) {
+                    if (candidate.getValue().lastAccess < oldest) {
+                        oldest = candidate.getValue().lastAccess;
+                        eldest = candidate.getKey();
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                cache.remove(eldest);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static String normalize(String expression) {
+        return expression.trim().replaceAll("\\s+", " ");
+    }
+
+    private static class Entry {
+        private final CronExpression compiled;
+        private volatile long lastAccess;
+
+        Entry(CronExpression compiled, long lastAccess) {
+            this.compiled = compiled;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
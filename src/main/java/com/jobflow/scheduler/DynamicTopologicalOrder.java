@@ -0,0 +1,274 @@
+package com.jobflow.scheduler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dynamic Topological Order
+ *
+ * Topological order of a growing DAG, maintained edge by edge with the Pearce-Kelly
+ * algorithm. Adding an edge x->y that already agrees with the order costs O(1).
+ * Otherwise only the tasks whose position lies between y and x are searched: forward
+ * from y and backward from x. Reaching x from y means the edge would close a cycle, and
+ * it is rejected without changing anything. Otherwise the positions of the two visited
+ * sets are reassigned among themselves. The cost is proportional to the affected
+ * region, not to the whole graph.
+ *
+ * Not thread-safe; callers synchronize on the instance.
+ */
+public class DynamicTopologicalOrder {
+
+    private final Map<Long, Integer> indexById;
+    private long[] taskIds;
+    // Position of each task in the order; distinct, not necessarily contiguous
+    private int[] ord;
+    private int[][] successors;
+    private int[] successorCounts;
+    private int[][] predecessors;
+    private int[] predecessorCounts;
+    private int size;
+    private int nextOrd;
+
+    // Search state, reused between calls
+    private int[] visitMark;
+    private int visitEpoch;
+    private int[] stack;
+    private int[] forward;
+    private int[] backward;
+
+    public DynamicTopologicalOrder(int expectedTasks) {
+        int capacity = Math.max(16, expectedTasks);
+        this.indexById = new HashMap<>(capacity * 2);
+        this.taskIds = new long[capacity];
+        this.ord = new int[capacity];
+        this.successors = new int[capacity][];
+        this.successorCounts = new int[capacity];
+        this.predecessors = new int[capacity][];
+        this.predecessorCounts = new int[capacity];
+        this.visitMark = new int[capacity];
+        this.stack = new int[capacity];
+        this.forward = new int[capacity];
+        this.backward = new int[capacity];
+    }
+
+    /**
+     * Seed the order from a compiled plan, whose topological order is used as is
+     */
+    public static DynamicTopologicalOrder of(WorkflowPlan plan) {
+        DynamicTopologicalOrder order = new DynamicTopologicalOrder(plan.size());
+        for (Long taskId : plan.getTopologicalOrder()) {
+            order.addTask(taskId);
+        }
+        for (int i = 0; i < plan.size(); i++) {
+            int source = order.indexById.get(plan.getTaskId(i));
+            for (int e = plan.successorStart(i); e < plan.successorStart(i + 1); e++) {
+                order.link(source, order.indexById.get(plan.getTaskId(plan.successorAt(e))));
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Add a task at the end of the order; no-op if it is already known
+     */
+    public void addTask(Long taskId) {
+        index(taskId);
+    }
+
+    /**
+     * Add an edge unless it would close a cycle
+     * @return false if target already reaches source, in which case nothing changed
+     */
+    public boolean tryAddEdge(Long sourceTaskId, Long targetTaskId) {
+        if (sourceTaskId.equals(targetTaskId)) {
+            return false;
+        }
+        int x = index(sourceTaskId);
+        int y = index(targetTaskId);
+        int lowerBound = ord[y];
+        int upperBound = ord[x];
+
+        if (lowerBound < upperBound) {
+            visitEpoch++;
+            int forwardCount = searchForward(y, x, upperBound);
+            if (forwardCount < 0) {
+                return false;
+            }
+            int backwardCount = searchBackward(x, lowerBound);
+            reorder(forwardCount, backwardCount);
+        }
+
+        link(x, y);
+        return true;
+    }
+
+    /**
+     * Remove one occurrence of an edge; the order stays valid as is
+     */
+    public void removeEdge(Long sourceTaskId, Long targetTaskId) {
+        Integer x = indexById.get(sourceTaskId);
+        Integer y = indexById.get(targetTaskId);
+        if (x == null || y == null) {
+            return;
+        }
+        successorCounts[x] = removeOne(successors[x], successorCounts[x], y);
+        predecessorCounts[y] = removeOne(predecessors[y], predecessorCounts[y], x);
+    }
+
+    public boolean contains(Long taskId) {
+        return indexById.containsKey(taskId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether source comes before target in the current order
+     */
+    public boolean precedes(Long sourceTaskId, Long targetTaskId) {
+        Integer x = indexById.get(sourceTaskId);
+        Integer y = indexById.get(targetTaskId);
+        return x != null && y != null && ord[x] < ord[y];
+    }
+
+    /**
+     * Depth-first search from the new edge's target over tasks positioned before its source
+     * @return Number of tasks visited, left in forward; -1 if the source was reached
+     */
+    private int searchForward(int start, int cycleTarget, int upperBound) {
+        int count = 0;
+        int top = 0;
+        stack[top++] = start;
+        visitMark[start] = visitEpoch;
+        while (top > 0) {
+            int node = stack[--top];
+            forward[count++] = node;
+            int[] out = successors[node];
+            for (int e = 0; e < successorCounts[node]; e++) {
+                int next = out[e];
+                if (next == cycleTarget) {
+                    return -1;
+                }
+                if (visitMark[next] != visitEpoch && ord[next] < upperBound) {
+                    visitMark[next] = visitEpoch;
+                    stack[top++] = next;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Depth-first search backward from the new edge's source over tasks positioned after its target
+     * @return Number of tasks visited, left in backward
+     */
+    private int searchBackward(int start, int lowerBound) {
+        int count = 0;
+        int top = 0;
+        stack[top++] = start;
+        visitMark[start] = visitEpoch;
+        while (top > 0) {
+            int node = stack[--top];
+            backward[count++] = node;
+            int[] in = predecessors[node];
+            for (int e = 0; e < predecessorCounts[node]; e++) {
+                int next = in[e];
+                if (visitMark[next] != visitEpoch && ord[next] > lowerBound) {
+                    visitMark[next] = visitEpoch;
+                    stack[top++] = next;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Give the backward set the lowest of the freed positions and the forward set the rest,
+     * each set keeping its internal order
+     */
+    private void reorder(int forwardCount, int backwardCount) {
+        Integer[] backwardNodes = boxSortedByOrd(backward, backwardCount);
+        Integer[] forwardNodes = boxSortedByOrd(forward, forwardCount);
+
+        int[] slots = new int[forwardCount + backwardCount];
+        int s = 0;
+        for (Integer node : backwardNodes) {
+            slots[s++] = ord[node];
+        }
+        for (Integer node : forwardNodes) {
+            slots[s++] = ord[node];
+        }
+        Arrays.sort(slots);
+
+        s = 0;
+        for (Integer node : backwardNodes) {
+            ord[node] = slots[s++];
+        }
+        for (Integer node : forwardNodes) {
+            ord[node] = slots[s++];
+        }
+    }
+
+    private Integer[] boxSortedByOrd(int[] nodes, int count) {
+        Integer[] boxed = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            boxed[i] = nodes[i];
+        }
+        Arrays.sort(boxed, (a, b) -> Integer.compare(ord[a], ord[b]));
+        return boxed;
+    }
+
+    private int index(Long taskId) {
+        Integer existing = indexById.get(taskId);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == taskIds.length) {
+            grow();
+        }
+        int index = size++;
+        indexById.put(taskId, index);
+        taskIds[index] = taskId;
+        ord[index] = nextOrd++;
+        successors[index] = new int[2];
+        predecessors[index] = new int[2];
+        return index;
+    }
+
+    private void link(int x, int y) {
+        if (successorCounts[x] == successors[x].length) {
+            successors[x] = Arrays.copyOf(successors[x], successors[x].length * 2);
+        }
+        successors[x][successorCounts[x]++] = y;
+        if (predecessorCounts[y] == predecessors[y].length) {
+            predecessors[y] = Arrays.copyOf(predecessors[y], predecessors[y].length * 2);
+        }
+        predecessors[y][predecessorCounts[y]++] = x;
+    }
+
+    private static int removeOne(int[] list, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (list[i] == value) {
+                list[i] = list[count - 1];
+                return count - 1;
+            }
+        }
+        return count;
+    }
+
+    private void grow() {
+        int capacity = taskIds.length * 2;
+        taskIds = Arrays.copyOf(taskIds, capacity);
+        ord = Arrays.copyOf(ord, capacity);
+        successors = Arrays.copyOf(successors, capacity);
+        successorCounts = Arrays.copyOf(successorCounts, capacity);
+        predecessors = Arrays.copyOf(predecessors, capacity);
+        predecessorCounts = Arrays.copyOf(predecessorCounts, capacity);
+        visitMark = Arrays.copyOf(visitMark, capacity);
+        stack = Arrays.copyOf(stack, capacity);
+        forward = Arrays.copyOf(forward, capacity);
+        backward = Arrays.copyOf(backward, capacity);
+    }
+}
@@ -0,0 +1,265 @@
+package com.jobflow.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fair Share Scheduler
+ *
+ * Weighted deficit round robin across tenants. Each tenant has its own bounded
+ * priority lane; active tenants take turns, and on its turn a tenant may start as many
+ * items as its weight, up to its max concurrency. A tenant flooding the scheduler
+ * therefore only fills its own lane and cannot delay other tenants beyond their share.
+ */
+public class FairShareScheduler<T> {
+
+    private final int levels;
+    private final int laneCapacity;
+    private final long agingStepMs;
+    private final int defaultWeight;
+    private final int defaultMaxConcurrency;
+
+    private final Map<Long, TenantLane<T>> lanes = new HashMap<>();
+    private final ArrayDeque<TenantLane<T>> activeLanes = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int totalRunning;
+
+    public FairShareScheduler(int levels, int laneCapacity, long agingStepMs,
+                              int defaultWeight, int defaultMaxConcurrency) {
+        this.levels = levels;
+        this.laneCapacity = laneCapacity;
+        this.agingStepMs = agingStepMs;
+        this.defaultWeight = defaultWeight;
+        this.defaultMaxConcurrency = defaultMaxConcurrency;
+    }
+
+    /**
+     * Set the weight and max concurrency of a tenant
+     */
+    public void configureTenant(Long tenantId, int weight, int maxConcurrency) {
+        lock.lock();
+        try {
+            TenantLane<T> lane = getLane(tenantId);
+            lane.weight = Math.max(1, weight);
+            lane.maxConcurrency = Math.max(1, maxConcurrency);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue an item for a tenant at the given priority level
+     * @return false if the tenant's lane is full
+     */
+    public boolean offer(Long tenantId, int priority, T item) {
+        lock.lock();
+        try {
+            TenantLane<T> lane = getLane(tenantId);
+            if (!lane.queue.offer(priority, item)) {
+                return false;
+            }
+            if (!lane.active) {
+                lane.active = true;
+                activeLanes.addLast(lane);
+            }
+            available.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the next item according to tenant shares, waiting until one is eligible.
+     * The caller must call release() for the tenant once the item finishes.
+     */
+    public Grant<T> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            Grant<T> grant;
+            while ((grant = next()) == null) {
+                available.await();
+            }
+            return grant;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return a concurrency slot to a tenant
+     */
+    public void release(Long tenantId) {
+        lock.lock();
+        try {
+            TenantLane<T> lane = lanes.get(tenantId);
+            if (lane != null && lane.running > 0) {
+                lane.running--;
+                totalRunning--;
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Set<Long> getTenants() {
+        lock.lock();
+        try {
+            return Set.copyOf(lanes.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued(Long tenantId) {
+        lock.lock();
+        try {
+            TenantLane<T> lane = lanes.get(tenantId);
+            return lane != null ? lane.queue.size() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued(Long tenantId, int priority) {
+        lock.lock();
+        try {
+            TenantLane<T> lane = lanes.get(tenantId);
+            return lane != null ? lane.queue.depth(priority) : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunning(Long tenantId) {
+        lock.lock();
+        try {
+            TenantLane<T> lane = lanes.get(tenantId);
+            return lane != null ? lane.running : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTotalRunning() {
+        lock.lock();
+        try {
+            return totalRunning;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fraction of all running items that belong to a tenant
+     */
+    public double getShare(Long tenantId) {
+        lock.lock();
+        try {
+            TenantLane<T> lane = lanes.get(tenantId);
+            return lane == null || totalRunning == 0 ? 0.0 : (double) lane.running / totalRunning;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private TenantLane<T> getLane(Long tenantId) {
+        return lanes.computeIfAbsent(tenantId, id -> new TenantLane<>(id,
+            new PriorityDispatchQueue<>(levels, laneCapacity, agingStepMs), defaultWeight, defaultMaxConcurrency));
+    }
+
+    /**
+     * Pick the next item; must be called with the lock held
+     */
+    private Grant<T> next() {
+        // Two passes: a lane whose turn just ended is refilled when it comes around again
+        for (int i = 0, n = activeLanes.size() * 2; i < n && !activeLanes.isEmpty(); i++) {
+            TenantLane<T> lane = activeLanes.peekFirst();
+
+            if (lane.queue.size() == 0) {
+                activeLanes.pollFirst();
+                lane.active = false;
+                lane.inTurn = false;
+                lane.deficit = 0;
+                continue;
+            }
+
+            if (lane.running >= lane.maxConcurrency) {
+                lane.inTurn = false;
+                activeLanes.addLast(activeLanes.pollFirst());
+                continue;
+            }
+
+            if (!lane.inTurn) {
+                lane.deficit = Math.min(lane.deficit + lane.weight, lane.weight);
+                lane.inTurn = true;
+            }
+
+            if (lane.deficit < 1) {
+                lane.inTurn = false;
+                activeLanes.addLast(activeLanes.pollFirst());
+                continue;
+            }
+
+            PriorityDispatchQueue.Entry<T> entry = lane.queue.poll();
+            lane.deficit--;
+            lane.running++;
+            totalRunning++;
+            if (lane.deficit < 1) {
+                lane.inTurn = false;
+                activeLanes.addLast(activeLanes.pollFirst());
+            }
+            return new Grant<>(lane.tenantId, entry);
+        }
+        return null;
+    }
+
+    /**
+     * An item granted to run on behalf of a tenant
+     */
+    public static class Grant<T> {
+        private final Long tenantId;
+        private final PriorityDispatchQueue.Entry<T> entry;
+
+        Grant(Long tenantId, PriorityDispatchQueue.Entry<T> entry) {
+            this.tenantId = tenantId;
+            this.entry = entry;
+        }
+
+        public Long getTenantId() {
+            return tenantId;
+        }
+
+        public PriorityDispatchQueue.Entry<T> getEntry() {
+            return entry;
+        }
+    }
+
+    /**
+     * Per-tenant queue and DRR state
+     */
+    private static class TenantLane<T> {
+        private final Long tenantId;
+        private final PriorityDispatchQueue<T> queue;
+        private int weight;
+        private int maxConcurrency;
+        private int deficit;
+        private int running;
+        private boolean active;
+        private boolean inTurn;
+
+        TenantLane(Long tenantId, PriorityDispatchQueue<T> queue, int weight, int maxConcurrency) {
+            this.tenantId = tenantId;
+            this.queue = queue;
+            this.weight = weight;
+            this.maxConcurrency = maxConcurrency;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.jobflow.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical Timing Wheel
+ *
+ * Keeps any number of timed entries in memory and fires each one at its tick.
+ * Insertion and cancellation are O(1); only buckets that actually hold entries
+ * are put on the internal delay queue, so an idle wheel costs nothing and a
+ * single driver thread can serve hundreds of thousands of entries.
+ *
+ * Entries beyond the range of the lowest wheel overflow into coarser wheels and
+ * cascade down as the clock advances.
+ *
+ * Expired actions are handed to the fire executor only after the wheel lock is
+ * released, so a slow or saturated executor delays firing but never blocks
+ * schedule() callers. The executor should queue rather than run work on the caller,
+ * which is the driver thread.
+ */
+@Slf4j
+public class HierarchicalTimingWheel {
+
+    private final Executor fireExecutor;
+    private final DelayQueue<Bucket> delayQueue = new DelayQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Wheel rootWheel;
+
+    /**
+     * @param tickMs Duration of one tick of the lowest wheel in milliseconds
+     * @param wheelSize Number of buckets per wheel
+     * @param fireExecutor Executor that runs the actions of expired entries
+     */
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, Executor fireExecutor) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.fireExecutor = fireExecutor;
+        this.rootWheel = new Wheel(tickMs, wheelSize, currentTimeMs(), size, delayQueue);
+    }
+
+    /**
+     * Schedule an action to run at the given epoch millisecond
+     * @return The timer entry, which can be used to cancel the action
+     */
+    public TimerEntry schedule(long expirationMs, Runnable action) {
+        TimerEntry entry = new TimerEntry(expirationMs, action);
+        boolean expired;
+        lock.readLock().lock();
+        try {
+            expired = !rootWheel.add(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (expired) {
+            fire(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Advance the clock, firing all entries that have expired.
+     * Blocks for at most the given timeout waiting for the next bucket to expire.
+     * @return true if any bucket was processed
+     */
+    public boolean advanceClock(long timeoutMs) {
+        Bucket bucket;
+        try {
+            bucket = delayQueue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (bucket == null) {
+            return false;
+        }
+
+        List<TimerEntry> expired = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                rootWheel.advanceClock(bucket.getExpiration());
+                // Entries of coarser wheels cascade down; those due now are fired below
+                bucket.flush(entry -> {
+                    if (!rootWheel.add(entry)) {
+                        expired.add(entry);
+                    }
+                });
+                bucket = delayQueue.poll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        expired.forEach(this::fire);
+        return true;
+    }
+
+    /**
+     * Number of entries waiting to fire
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void fire(TimerEntry entry) {
+        if (!entry.isCancelled()) {
+            try {
+                fireExecutor.execute(entry.action);
+            } catch (Exception e) {
+                log.error("Failed to fire timer entry: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static long currentTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Translate an epoch millisecond into the monotonic clock used by the wheel
+     */
+    private static long toWheelTime(long epochMs) {
+        return currentTimeMs() + (epochMs - System.currentTimeMillis());
+    }
+
+    /**
+     * A single scheduled action
+     */
+    public static class TimerEntry {
+        private final long expirationMs;
+        private final Runnable action;
+        private volatile Bucket bucket;
+        private volatile boolean cancelled;
+        private TimerEntry next;
+        private TimerEntry prev;
+
+        private TimerEntry(long epochExpirationMs, Runnable action) {
+            this.expirationMs = toWheelTime(epochExpirationMs);
+            this.action = action;
+        }
+
+        /**
+         * Cancel this entry; it is removed from its bucket immediately
+         */
+        public void cancel() {
+            cancelled = true;
+            removeFromBucket();
+        }
+
+        private void removeFromBucket() {
+            Bucket current = bucket;
+            while (current != null) {
+                current.remove(this);
+                current = bucket;
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Remaining delay in milliseconds before this entry fires
+         */
+        public long getDelayMs() {
+            return expirationMs - currentTimeMs();
+        }
+    }
+
+    /**
+     * Doubly linked list of entries that expire in the same tick
+     */
+    private static class Bucket implements Delayed {
+        private final AtomicInteger counter;
+        private final AtomicLong expiration = new AtomicLong(-1L);
+        private final TimerEntry root = new TimerEntry(0L, null);
+
+        Bucket(AtomicInteger counter) {
+            this.counter = counter;
+            root.next = root;
+            root.prev = root;
+        }
+
+        boolean setExpiration(long expirationMs) {
+            return expiration.getAndSet(expirationMs) != expirationMs;
+        }
+
+        long getExpiration() {
+            return expiration.get();
+        }
+
+        void add(TimerEntry entry) {
+            boolean added = false;
+            while (!added) {
+                // An entry lives in at most one bucket; detach it before relinking
+                entry.removeFromBucket();
+                synchronized (this) {
+                    if (entry.bucket == null) {
+                        TimerEntry tail = root.prev;
+                        entry.next = root;
+                        entry.prev = tail;
+                        tail.next = entry;
+                        root.prev = entry;
+                        entry.bucket = this;
+                        counter.incrementAndGet();
+                        added = true;
+                    }
+                }
+            }
+        }
+
+        synchronized void remove(TimerEntry entry) {
+            if (entry.bucket == this) {
+                entry.next.prev = entry.prev;
+                entry.prev.next = entry.next;
+                entry.next = null;
+                entry.prev = null;
+                entry.bucket = null;
+                counter.decrementAndGet();
+            }
+        }
+
+        synchronized void flush(Consumer<TimerEntry> consumer) {
+            TimerEntry head = root.next;
+            while (head != root) {
+                remove(head);
+                consumer.accept(head);
+                head = root.next;
+            }
+            expiration.set(-1L);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(getExpiration() - currentTimeMs(), 0), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getExpiration(), ((Bucket) other).getExpiration());
+        }
+    }
+
+    /**
+     * One level of the hierarchy
+     */
+    private static class Wheel {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket[] buckets;
+        private final AtomicInteger counter;
+        private final DelayQueue<Bucket> queue;
+        private long currentTime;
+        private volatile Wheel overflowWheel;
+
+        Wheel(long tickMs, int wheelSize, long startMs, AtomicInteger counter, DelayQueue<Bucket> queue) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.counter = counter;
+            this.queue = queue;
+            this.currentTime = startMs - (startMs % tickMs);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket(counter);
+            }
+        }
+
+        /**
+         * @return false if the entry has already expired or was cancelled
+         */
+        boolean add(TimerEntry entry) {
+            long expiration = entry.expirationMs;
+            if (entry.isCancelled()) {
+                return false;
+            } else if (expiration < currentTime + tickMs) {
+                return false;
+            } else if (expiration < currentTime + interval) {
+                long virtualId = expiration / tickMs;
+                Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(entry);
+                if (bucket.setExpiration(virtualId * tickMs)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            } else {
+                return getOverflowWheel().add(entry);
+            }
+        }
+
+        void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - (timeMs % tickMs);
+                if (overflowWheel != null) {
+                    overflowWheel.advanceClock(currentTime);
+                }
+            }
+        }
+
+        private Wheel getOverflowWheel() {
+            if (overflowWheel == null) {
+                synchronized (this) {
+                    if (overflowWheel == null) {
+                        overflowWheel = new Wheel(interval, wheelSize, currentTime, counter, queue);
+                    }
+                }
+            }
+            return overflowWheel;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.cluster.CancellationBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-Flight Execution Registry
+ *
+ * Tracks the task executions running on this node by execution ID, together with the
+ * dispatch future that controls them. Cancelling an execution fails that future with a
+ * CancellationException; the dispatcher then stops the live work, which interrupts a
+ * thread still inside the handler, kills a shell process tree or aborts an HTTP request.
+ *
+ * Cancels are broadcast on the CancellationBus, so a cancel issued on any node reaches
+ * the node actually running the execution. Requests for executions not running here
+ * are ignored.
+ */
+@Slf4j
+@Component
+public class InFlightExecutionRegistry {
+
+    private static final String EXECUTION_PREFIX = "EXECUTION:";
+    private static final String TASK_PREFIX = "TASK:";
+
+    private final CancellationBus cancellationBus;
+    private final Map<String, InFlight> executions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InFlightExecutionRegistry(CancellationBus cancellationBus) {
+        this.cancellationBus = cancellationBus;
+    }
+
+    @PostConstruct
+    public void init() {
+        cancellationBus.subscribe(this::onCancelRequest);
+    }
+
+    /**
+     * Track a running execution until unregister()
+     * @param taskId Task being executed
+     * @param executionId Execution record ID, may be null if the record could not be created
+     * @param execution Future that stops the work when completed exceptionally
+     */
+    public void register(Long taskId, String executionId, CompletableFuture<String> execution) {
+        executions.put(key(taskId, executionId), new InFlight(taskId, execution));
+    }
+
+    public void unregister(Long taskId, String executionId) {
+        executions.remove(key(taskId, executionId));
+    }
+
+    /**
+     * Cancel an execution wherever in the cluster it is running
+     */
+    public void cancelExecution(String executionId, String reason) {
+        cancellationBus.publish(EXECUTION_PREFIX + executionId + "|" + reason);
+    }
+
+    /**
+     * Cancel the running execution of a task wherever in the cluster it is running
+     */
+    public void cancelTask(Long taskId, String reason) {
+        cancellationBus.publish(TASK_PREFIX + taskId + "|" + reason);
+    }
+
+    /**
+     * Number of executions running on this node
+     */
+    public int getInFlightCount() {
+        return executions.size();
+    }
+
+    private void onCancelRequest(String request) {
+        int separator = request.indexOf('|');
+        String target = separator >= 0 ? request.substring(0, separator) : request;
+        String reason = separator >= 0 ? request.substring(separator + 1) : "Cancelled";
+
+        try {
+            if (target.startsWith(EXECUTION_PREFIX)) {
+                InFlight inFlight = executions.get(target.substring(EXECUTION_PREFIX.length()));
+                if (inFlight != null) {
+                    cancel(inFlight, reason);
+                }
+            } else if (target.startsWith(TASK_PREFIX)) {
+                Long taskId = Long.valueOf(target.substring(TASK_PREFIX.length()));
+                executions.values().stream()
+                    .filter(inFlight -> inFlight.taskId.equals(taskId))
+                    .forEach(inFlight -> cancel(inFlight, reason));
+            } else {
+                log.warn("Ignoring unknown cancellation request: {}", request);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed cancellation request: {}", request);
+        }
+    }
+
+    private void cancel(InFlight inFlight, String reason) {
+        if (inFlight.execution.completeExceptionally(new CancellationException(reason))) {
+            log.info("Cancelled running execution of task {}: {}", inFlight.taskId, reason);
+        }
+    }
+
+    /**
+     * Executions without a record are still tracked, by task ID
+     */
+    private static String key(Long taskId, String executionId) {
+        return executionId != null ? executionId : TASK_PREFIX + taskId;
+    }
+
+    /**
+     * A running execution
+     */
+    private static class InFlight {
+        private final Long taskId;
+        private final CompletableFuture<String> execution;
+
+        InFlight(Long taskId, CompletableFuture<String> execution) {
+            this.taskId = taskId;
+            this.execution = execution;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.service.TaskService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Micro Batcher
+ *
+ * Groups short tasks so their fixed per-task cost is paid once per group. Tasks
+ * flagged batchable that fire within execution.batch.linger-ms of each other are
+ * grouped by tenant, type and target (the bean of a SPRING_BEAN task, the host of an
+ * HTTP task) and each group of up to execution.batch.max-size tasks runs through
+ * TaskService.executeBatch: one dispatch, one RUNNING update and one JDBC batch each
+ * for execution records and outcomes.
+ *
+ * Publishes batch sizes, batched task count and batch execution time, so throughput
+ * with and without batching can be compared from the metrics.
+ */
+@Slf4j
+@Component
+public class MicroBatcher {
+
+    private static final String SYSTEM_OPERATOR = "system";
+
+    private final TaskService taskService;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final Executor taskExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, List<Task>> groups = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    @Value("${execution.batch.enabled}")
+    private boolean enabled;
+
+    @Value("${execution.batch.linger-ms}")
+    private long lingerMs;
+
+    @Value("${execution.batch.max-size}")
+    private int maxSize;
+
+    private DistributionSummary batchSizes;
+    private Counter batchedTasks;
+    private Timer batchTimer;
+
+    @Autowired
+    public MicroBatcher(TaskService taskService,
+                        @Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler,
+                        @Qualifier("taskExecutor") Executor taskExecutor,
+                        MeterRegistry meterRegistry) {
+        this.taskService = taskService;
+        this.taskScheduler = taskScheduler;
+        this.taskExecutor = taskExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        batchSizes = DistributionSummary.builder("jobflow.batch.size")
+            .description("Tasks per micro-batch")
+            .register(meterRegistry);
+        batchedTasks = Counter.builder("jobflow.batch.tasks")
+            .description("Tasks executed in micro-batches")
+            .register(meterRegistry);
+        batchTimer = Timer.builder("jobflow.batch.execution")
+            .description("Time from dispatch of a micro-batch until all outcomes were recorded")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Whether a task should be run through a micro-batch
+     */
+    public boolean accepts(Task task) {
+        return enabled && Boolean.TRUE.equals(task.getBatchable())
+            && (task.getType() == Task.TaskType.SPRING_BEAN || task.getType() == Task.TaskType.HTTP);
+    }
+
+    /**
+     * Add a fired task to the group for its tenant, type and target
+     */
+    public void add(Task task) {
+        groups.compute(groupKey(task), (key, group) -> {
+            List<Task> tasks = group != null ? group : new ArrayList<>();
+            tasks.add(task);
+            return tasks;
+        });
+        if (flushScheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now().plusMillis(lingerMs));
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        for (String key : new ArrayList<>(groups.keySet())) {
+            List<Task> group = groups.remove(key);
+            if (group == null) {
+                continue;
+            }
+            for (int from = 0; from < group.size(); from += maxSize) {
+                List<Task> batch = new ArrayList<>(group.subList(from, Math.min(from + maxSize, group.size())));
+                taskExecutor.execute(() -> execute(batch));
+            }
+        }
+    }
+
+    private void execute(List<Task> batch) {
+        batchSizes.record(batch.size());
+        batchedTasks.increment(batch.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            taskService.executeBatch(batch, SYSTEM_OPERATOR)
+                .whenComplete((result, error) -> sample.stop(batchTimer));
+        } catch (Exception e) {
+            log.error("Failed to execute batch of {} tasks: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private static String groupKey(Task task) {
+        return task.getTenantId() + "|" + task.getType() + "|" + targetOf(task);
+    }
+
+    /**
+     * Bean name of a SPRING_BEAN task, scheme and authority of an HTTP task
+     */
+    static String targetOf(Task task) {
+        String command = task.getCommand() != null ? task.getCommand().trim() : "";
+        if (task.getType() == Task.TaskType.SPRING_BEAN) {
+            int separator = command.lastIndexOf('.');
+            return separator > 0 ? command.substring(0, separator) : command;
+        }
+        try {
+            URI uri = URI.create(command);
+            return uri.getScheme() + "://" + uri.getAuthority();
+        } catch (IllegalArgumentException e) {
+            return command;
+        }
+    }
+}
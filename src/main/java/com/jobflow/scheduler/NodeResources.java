@@ -0,0 +1,278 @@
+package com.jobflow.scheduler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Node Resources
+ *
+ * CPU and memory this node can give to tasks, and the share currently reserved by
+ * running tasks. Capacity is read at startup from the cgroup limits of the process
+ * (v2, then v1) and /proc/meminfo, unless execution.resources.cpu or
+ * execution.resources.memory-mb override it.
+ *
+ * A task starts only if its declared demand fits into the free capacity; otherwise it
+ * is rejected and deferred like a task refused by a full bulkhead, with its claim
+ * released so any node with room can take it. A node with nothing
+ * reserved admits any task, so a demand larger than the node still runs, alone.
+ * Workers advertise their free capacity when polling and are leased only tasks that
+ * fit.
+ */
+@Slf4j
+@Component
+public class NodeResources {
+
+    private static final long MB = 1024 * 1024;
+    private static final Path CGROUP_ROOT = Paths.get("/sys/fs/cgroup");
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${execution.resources.enabled}")
+    private boolean enabled;
+
+    @Value("${execution.resources.cpu}")
+    private double configuredCpu;
+
+    @Value("${execution.resources.memory-mb}")
+    private long configuredMemoryMb;
+
+    private double cpuCapacity;
+    private long memoryCapacityMb;
+    // Guarded by this
+    private double reservedCpu;
+    private long reservedMemoryMb;
+    private int reservations;
+
+    @Autowired
+    public NodeResources(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        cpuCapacity = configuredCpu > 0 ? configuredCpu : detectCpu();
+        memoryCapacityMb = configuredMemoryMb > 0 ? configuredMemoryMb : detectMemoryMb();
+        log.info("Node capacity: {} CPU, {} MB memory", cpuCapacity,
+            memoryCapacityMb == Long.MAX_VALUE ? "unlimited" : memoryCapacityMb);
+
+        Gauge.builder("jobflow.resources.cpu.reserved", this, NodeResources::getReservedCpu)
+            .description("CPU cores reserved by running tasks")
+            .register(meterRegistry);
+        Gauge.builder("jobflow.resources.memory.reserved", this, NodeResources::getReservedMemoryMb)
+            .description("Memory in MB reserved by running tasks")
+            .baseUnit("megabytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Resources a task declares in the "resources" object of its parameters
+     */
+    public ResourceDemand demandOf(Task task) {
+        if (!enabled || !StringUtils.hasText(task.getParameters())) {
+            return ResourceDemand.NONE;
+        }
+        try {
+            JsonNode resources = objectMapper.readTree(task.getParameters()).get("resources");
+            if (resources == null || !resources.isObject()) {
+                return ResourceDemand.NONE;
+            }
+            return new ResourceDemand(resources.path("cpu").asDouble(0), resources.path("memoryMb").asLong(0));
+        } catch (Exception e) {
+            // Parameters that are not JSON declare nothing
+            return ResourceDemand.NONE;
+        }
+    }
+
+    /**
+     * Start work only if the task's demand fits, holding the reservation until it ends
+     * @return The work's future, or one failed with RejectedExecutionException if the
+     *         task does not fit right now
+     */
+    public CompletableFuture<String> admit(Task task, Supplier<CompletableFuture<String>> work) {
+        ResourceDemand demand = demandOf(task);
+        if (!tryReserve(demand)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                "Not enough capacity for task " + task.getId() + " demanding " + demand));
+        }
+        CompletableFuture<String> execution;
+        try {
+            execution = work.get();
+        } catch (RuntimeException e) {
+            release(demand);
+            throw e;
+        }
+        execution.whenComplete((output, error) -> release(demand));
+        return execution;
+    }
+
+    /**
+     * Whether a task's demand would be admitted right now, without reserving it.
+     * Lets a node pass on a task before marking it running; admit() still decides.
+     */
+    public boolean fits(Task task) {
+        ResourceDemand demand = demandOf(task);
+        synchronized (this) {
+            return demand.isNone() || reservations == 0 || demand.fitsIn(getFreeCpu(), getFreeMemoryMb());
+        }
+    }
+
+    /**
+     * Reserve a demand if it fits, or if nothing else is reserved
+     */
+    public synchronized boolean tryReserve(ResourceDemand demand) {
+        if (demand.isNone()) {
+            return true;
+        }
+        if (reservations > 0 && !demand.fitsIn(getFreeCpu(), getFreeMemoryMb())) {
+            return false;
+        }
+        reserve(demand);
+        return true;
+    }
+
+    /**
+     * Reserve a demand unconditionally, e.g. for work a scheduler already placed here
+     */
+    public synchronized void reserve(ResourceDemand demand) {
+        if (demand.isNone()) {
+            return;
+        }
+        reservedCpu += demand.getCpu();
+        reservedMemoryMb += demand.getMemoryMb();
+        reservations++;
+    }
+
+    public synchronized void release(ResourceDemand demand) {
+        if (demand.isNone()) {
+            return;
+        }
+        reservedCpu = Math.max(0, reservedCpu - demand.getCpu());
+        reservedMemoryMb = Math.max(0, reservedMemoryMb - demand.getMemoryMb());
+        reservations = Math.max(0, reservations - 1);
+    }
+
+    public double getCpuCapacity() {
+        return cpuCapacity;
+    }
+
+    public long getMemoryCapacityMb() {
+        return memoryCapacityMb;
+    }
+
+    public synchronized double getReservedCpu() {
+        return reservedCpu;
+    }
+
+    public synchronized long getReservedMemoryMb() {
+        return reservedMemoryMb;
+    }
+
+    public synchronized double getFreeCpu() {
+        return Math.max(0, cpuCapacity - reservedCpu);
+    }
+
+    public synchronized long getFreeMemoryMb() {
+        return Math.max(0, memoryCapacityMb - reservedMemoryMb);
+    }
+
+    /**
+     * CPU quota of the cgroup, or the processor count when there is none
+     */
+    private static double detectCpu() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        // v2: "<quota> <period>" or "max <period>"
+        String[] cpuMax = split(readFirstLine(CGROUP_ROOT.resolve("cpu.max")));
+        if (cpuMax.length == 2 && !"max".equals(cpuMax[0])) {
+            return Math.min(processors, parseLong(cpuMax[0]) / (double) parseLong(cpuMax[1]));
+        }
+        // v1: quota is -1 when unlimited
+        long quota = parseLong(readFirstLine(CGROUP_ROOT.resolve("cpu/cpu.cfs_quota_us")));
+        long period = parseLong(readFirstLine(CGROUP_ROOT.resolve("cpu/cpu.cfs_period_us")));
+        if (quota > 0 && period > 0) {
+            return Math.min(processors, quota / (double) period);
+        }
+        return processors;
+    }
+
+    /**
+     * Lower of the cgroup memory limit and physical memory, or unlimited if neither is known
+     */
+    private static long detectMemoryMb() {
+        long limitBytes = Long.MAX_VALUE;
+        String v2 = readFirstLine(CGROUP_ROOT.resolve("memory.max"));
+        if (v2 != null && !"max".equals(v2)) {
+            limitBytes = Math.min(limitBytes, positiveOr(parseLong(v2), Long.MAX_VALUE));
+        }
+        // v1 reports a huge value, close to Long.MAX_VALUE, when unlimited
+        long v1 = parseLong(readFirstLine(CGROUP_ROOT.resolve("memory/memory.limit_in_bytes")));
+        limitBytes = Math.min(limitBytes, positiveOr(v1, Long.MAX_VALUE));
+
+        long physicalKb = readMeminfoKb("MemTotal");
+        if (physicalKb > 0) {
+            limitBytes = Math.min(limitBytes, physicalKb * 1024);
+        }
+        return limitBytes == Long.MAX_VALUE ? Long.MAX_VALUE : limitBytes / MB;
+    }
+
+    /**
+     * A field of /proc/meminfo in kB, or -1 if unavailable
+     */
+    private static long readMeminfoKb(String field) {
+        try {
+            List<String> lines = Files.readAllLines(Paths.get("/proc/meminfo"));
+            for (String line : lines) {
+                if (line.startsWith(field + ":")) {
+                    return parseLong(split(line.substring(field.length() + 1))[0]);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Cannot read /proc/meminfo: {}", e.getMessage());
+        }
+        return -1;
+    }
+
+    private static String readFirstLine(Path file) {
+        try {
+            List<String> lines = Files.readAllLines(file);
+            return lines.isEmpty() ? null : lines.get(0).trim();
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static String[] split(String value) {
+        return value == null ? new String[0] : value.trim().split("\\s+");
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value == null ? -1 : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long positiveOr(long value, long fallback) {
+        return value > 0 ? value : fallback;
+    }
+}
@@ -0,0 +1,179 @@
+package com.jobflow.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Priority Dispatch Queue
+ *
+ * Bounded queue with one FIFO lane per priority level. The next entry is taken from
+ * the lane whose head has the highest effective priority, where every agingStep of
+ * waiting raises an entry by one level. High priority work therefore goes first under
+ * load, while low priority work still makes progress instead of starving.
+ */
+public class PriorityDispatchQueue<T> {
+
+    private final ArrayDeque<Entry<T>>[] lanes;
+    private final int capacity;
+    private final long agingStepMs;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public PriorityDispatchQueue(int levels, int capacity, long agingStepMs) {
+        this.lanes = new ArrayDeque[levels];
+        for (int i = 0; i < levels; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+        this.capacity = capacity;
+        this.agingStepMs = agingStepMs;
+    }
+
+    /**
+     * Add an item at the given priority level (0 = lowest)
+     * @return false if the queue is full
+     */
+    public boolean offer(int priority, T item) {
+        int level = Math.max(0, Math.min(priority, lanes.length - 1));
+        lock.lock();
+        try {
+            if (size >= capacity) {
+                return false;
+            }
+            lanes[level].addLast(new Entry<>(item, level, System.currentTimeMillis()));
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the entry with the highest effective priority, waiting if the queue is empty
+     */
+    public Entry<T> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the entry with the highest effective priority without waiting
+     * @return The entry, or null if the queue is empty
+     */
+    public Entry<T> poll() {
+        lock.lock();
+        try {
+            return size == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the entry with the highest effective priority, waiting up to the given timeout
+     * @return The entry, or null if the queue stayed empty
+     */
+    public Entry<T> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of entries waiting at a priority level
+     */
+    public int depth(int priority) {
+        lock.lock();
+        try {
+            return lanes[priority].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry<T> dequeue() {
+        long now = System.currentTimeMillis();
+        int best = -1;
+        long bestScore = Long.MIN_VALUE;
+        // Scan from the highest level down so ties go to the higher base priority
+        for (int level = lanes.length - 1; level >= 0; level--) {
+            Entry<T> head = lanes[level].peekFirst();
+            if (head == null) {
+                continue;
+            }
+            long score = level + (agingStepMs > 0 ? (now - head.enqueuedAt) / agingStepMs : 0);
+            if (score > bestScore) {
+                bestScore = score;
+                best = level;
+            }
+        }
+        size--;
+        return lanes[best].pollFirst();
+    }
+
+    /**
+     * Queued item with its priority and enqueue time
+     */
+    public static class Entry<T> {
+        private final T item;
+        private final int priority;
+        private final long enqueuedAt;
+
+        Entry(T item, int priority, long enqueuedAt) {
+            this.item = item;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public long getWaitMs() {
+            return System.currentTimeMillis() - enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.executor.ResourceUsageTracker;
+import com.jobflow.executor.TaskExecutionException;
+import com.jobflow.worker.WorkerProtocol;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Predicate;
+
+/**
+ * Remote Worker Broker
+ *
+ * Hands task executions to remote worker processes, so CPU-heavy tasks run outside the
+ * scheduler JVM and execution capacity scales by adding workers. Tasks of the types in
+ * execution.remote.task-types are queued here instead of being dispatched locally.
+ * Workers pull them in batches through long polls and hold each one under a lease of
+ * execution.remote.lease-ms, which their periodic reports renew.
+ *
+ * A lease that expires without a report, because the worker died or was cut off, goes
+ * back to the head of the queue under a new lease ID, so a late result from the old
+ * worker is ignored. Completing the execution future from elsewhere, on timeout or
+ * cancel, revokes the lease and the worker stops the task on its next report.
+ *
+ * Leasing is first-fit bin packing: walking the queue in order, a poll gets every task
+ * whose declared demand still fits into the free capacity the worker advertised, and
+ * larger tasks wait for a worker with room. An idle worker takes any task.
+ *
+ * The queue belongs to this scheduler node, which completes the execution future as
+ * for a local run; workers poll every scheduler node they are configured with.
+ */
+@Slf4j
+@Component
+public class RemoteWorkerBroker {
+
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final NodeResources nodeResources;
+    private final ResourceUsageTracker usageTracker;
+    private final MeterRegistry meterRegistry;
+
+    // Queued leases and waiting polls are guarded by this
+    private final Deque<RemoteLease> pending = new ArrayDeque<>();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    // Granted leases by lease ID
+    private final Map<String, RemoteLease> leases = new ConcurrentHashMap<>();
+
+    @Value("${execution.remote.enabled}")
+    private boolean enabled;
+
+    @Value("${execution.remote.task-types}")
+    private String remoteTaskTypes;
+
+    @Value("${execution.remote.lease-ms}")
+    private long leaseMs;
+
+    @Value("${execution.remote.max-poll-batch}")
+    private int maxPollBatch;
+
+    private Set<Task.TaskType> remoteTypes;
+    private Counter reassigned;
+    private ScheduledFuture<?> reaper;
+
+    @Autowired
+    public RemoteWorkerBroker(@Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler,
+                              NodeResources nodeResources,
+                              ResourceUsageTracker usageTracker,
+                              MeterRegistry meterRegistry) {
+        this.taskScheduler = taskScheduler;
+        this.nodeResources = nodeResources;
+        this.usageTracker = usageTracker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        remoteTypes = parseTaskTypes(remoteTaskTypes);
+        Gauge.builder("jobflow.remote.pending", this, RemoteWorkerBroker::getPendingCount)
+            .description("Tasks waiting for a remote worker")
+            .register(meterRegistry);
+        Gauge.builder("jobflow.remote.leased", leases, Map::size)
+            .description("Tasks leased to remote workers")
+            .register(meterRegistry);
+        reassigned = Counter.builder("jobflow.remote.reassigned")
+            .description("Leases that expired without a worker report and were requeued")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        reaper = taskScheduler.scheduleWithFixedDelay(this::reassignExpired, Math.max(1, leaseMs / 2));
+        log.info("Remote execution enabled for task types {}", remoteTypes);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reaper != null) {
+            reaper.cancel(false);
+        }
+    }
+
+    /**
+     * Whether a task is executed by remote workers
+     */
+    public boolean accepts(Task task) {
+        return enabled && task.getType() != null && remoteTypes.contains(task.getType());
+    }
+
+    /**
+     * Queue a task for the next worker that polls for its type
+     * @return Future completed by the worker's result; completing it otherwise revokes the lease
+     */
+    public CompletableFuture<String> submit(Task task, String executionId) {
+        RemoteLease lease = new RemoteLease(task, executionId, nodeResources.demandOf(task));
+        lease.result.whenComplete((output, error) -> revoke(lease));
+        offer(lease, false);
+        return lease.result;
+    }
+
+    /**
+     * Wait for tasks on behalf of a worker
+     * @param deliver Hands leased tasks to the worker; returns false if the poll already
+     *                ended, in which case the tasks are requeued
+     * @return Action that withdraws the poll once it has ended
+     */
+    public Runnable poll(String workerId, WorkerProtocol.PollRequest request,
+                         Predicate<List<WorkerProtocol.LeasedTask>> deliver) {
+        Set<Task.TaskType> types = request.getTaskTypes() == null || request.getTaskTypes().isEmpty()
+            ? EnumSet.allOf(Task.TaskType.class)
+            : EnumSet.copyOf(request.getTaskTypes());
+        int maxTasks = Math.max(1, Math.min(request.getMaxTasks(), maxPollBatch));
+        Waiter waiter = new Waiter(workerId, types, maxTasks,
+            request.getFreeCpu() != null ? request.getFreeCpu() : Double.MAX_VALUE,
+            request.getFreeMemoryMb() != null ? request.getFreeMemoryMb() : Long.MAX_VALUE,
+            request.isIdle(), deliver);
+
+        synchronized (this) {
+            if (!serve(waiter)) {
+                waiters.add(waiter);
+            }
+        }
+        return () -> {
+            synchronized (this) {
+                waiters.remove(waiter);
+            }
+        };
+    }
+
+    /**
+     * Apply a worker report: complete finished tasks and renew the leases still running
+     * @return IDs of running leases the worker no longer holds and must stop
+     */
+    public List<String> report(String workerId, WorkerProtocol.ReportRequest request) {
+        if (request.getResults() != null) {
+            for (WorkerProtocol.TaskResult result : request.getResults()) {
+                complete(workerId, result);
+            }
+        }
+
+        List<String> revoked = new ArrayList<>();
+        if (request.getRunningLeaseIds() != null) {
+            long expiresAt = System.currentTimeMillis() + leaseMs;
+            for (String leaseId : request.getRunningLeaseIds()) {
+                RemoteLease lease = leases.get(leaseId);
+                if (lease != null && workerId.equals(lease.workerId)) {
+                    lease.expiresAt = expiresAt;
+                } else {
+                    revoked.add(leaseId);
+                }
+            }
+        }
+        return revoked;
+    }
+
+    /**
+     * Number of tasks waiting for a worker
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Number of tasks leased to workers
+     */
+    public int getLeasedCount() {
+        return leases.size();
+    }
+
+    private void complete(String workerId, WorkerProtocol.TaskResult result) {
+        RemoteLease lease = result.getLeaseId() != null ? leases.get(result.getLeaseId()) : null;
+        if (lease == null || !workerId.equals(lease.workerId) || !leases.remove(result.getLeaseId(), lease)) {
+            // The lease expired and was reassigned, or the execution already ended
+            log.debug("Ignoring result of stale lease {} from worker {}", result.getLeaseId(), workerId);
+            return;
+        }
+        if (result.getResourceUsage() != null) {
+            usageTracker.record(lease.task, result.getResourceUsage());
+        }
+        if (result.isSuccess()) {
+            lease.result.complete(result.getOutput());
+        } else {
+            lease.result.completeExceptionally(new TaskExecutionException(
+                "Task " + lease.task.getId() + " failed on worker " + workerId + ": " + result.getError(),
+                result.getOutput()));
+        }
+    }
+
+    private synchronized void offer(RemoteLease lease, boolean first) {
+        if (lease.result.isDone()) {
+            return;
+        }
+        if (first) {
+            pending.addFirst(lease);
+        } else {
+            pending.addLast(lease);
+        }
+        Iterator<Waiter> it = waiters.iterator();
+        while (it.hasNext() && !pending.isEmpty()) {
+            if (serve(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Lease queued tasks to a waiting poll; caller holds the monitor
+     * @return Whether the poll got tasks and has ended
+     */
+    private boolean serve(Waiter waiter) {
+        List<RemoteLease> granted = new ArrayList<>();
+        double freeCpu = waiter.freeCpu;
+        long freeMemoryMb = waiter.freeMemoryMb;
+        Iterator<RemoteLease> it = pending.iterator();
+        while (it.hasNext() && granted.size() < waiter.maxTasks) {
+            RemoteLease lease = it.next();
+            if (!waiter.types.contains(lease.task.getType())) {
+                continue;
+            }
+            boolean fits = lease.demand.fitsIn(freeCpu, freeMemoryMb)
+                || (waiter.idle && granted.isEmpty());
+            if (fits) {
+                it.remove();
+                granted.add(lease);
+                freeCpu -= lease.demand.getCpu();
+                freeMemoryMb -= lease.demand.getMemoryMb();
+            }
+        }
+        if (granted.isEmpty()) {
+            return false;
+        }
+
+        long expiresAt = System.currentTimeMillis() + leaseMs;
+        List<WorkerProtocol.LeasedTask> leased = new ArrayList<>(granted.size());
+        for (RemoteLease lease : granted) {
+            lease.leaseId = UUID.randomUUID().toString();
+            lease.workerId = waiter.workerId;
+            lease.expiresAt = expiresAt;
+            leases.put(lease.leaseId, lease);
+            leased.add(new WorkerProtocol.LeasedTask(lease.leaseId, lease.executionId, lease.task, leaseMs));
+        }
+
+        if (!waiter.deliver.test(leased)) {
+            // The poll timed out meanwhile; nobody got these tasks
+            for (int i = granted.size() - 1; i >= 0; i--) {
+                RemoteLease lease = granted.get(i);
+                leases.remove(lease.leaseId, lease);
+                lease.workerId = null;
+                pending.addFirst(lease);
+            }
+            return true;
+        }
+        log.debug("Leased {} tasks to worker {}", leased.size(), waiter.workerId);
+        return true;
+    }
+
+    private void revoke(RemoteLease lease) {
+        synchronized (this) {
+            pending.remove(lease);
+        }
+        String leaseId = lease.leaseId;
+        if (leaseId != null) {
+            leases.remove(leaseId, lease);
+        }
+    }
+
+    private void reassignExpired() {
+        long now = System.currentTimeMillis();
+        Collection<RemoteLease> expired = new ArrayList<>();
+        for (RemoteLease lease : leases.values()) {
+            if (lease.expiresAt < now && leases.remove(lease.leaseId, lease)) {
+                expired.add(lease);
+            }
+        }
+        for (RemoteLease lease : expired) {
+            log.warn("Lease of task {} on worker {} expired, reassigning", lease.task.getId(), lease.workerId);
+            reassigned.increment();
+            lease.workerId = null;
+            offer(lease, true);
+        }
+    }
+
+    private static Set<Task.TaskType> parseTaskTypes(String spec) {
+        Set<Task.TaskType> types = EnumSet.noneOf(Task.TaskType.class);
+        if (spec != null) {
+            for (String type : spec.split(",")) {
+                if (!type.isBlank()) {
+                    types.add(Task.TaskType.valueOf(type.trim().toUpperCase()));
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * A task execution handed to remote workers
+     */
+    private static class RemoteLease {
+        private final Task task;
+        private final String executionId;
+        private final ResourceDemand demand;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        // Current grant, null while queued
+        private volatile String leaseId;
+        private volatile String workerId;
+        private volatile long expiresAt;
+
+        RemoteLease(Task task, String executionId, ResourceDemand demand) {
+            this.task = task;
+            this.executionId = executionId;
+            this.demand = demand;
+        }
+    }
+
+    /**
+     * A worker poll waiting for tasks
+     */
+    private static class Waiter {
+        private final String workerId;
+        private final Set<Task.TaskType> types;
+        private final int maxTasks;
+        private final double freeCpu;
+        private final long freeMemoryMb;
+        private final boolean idle;
+        private final Predicate<List<WorkerProtocol.LeasedTask>> deliver;
+
+        Waiter(String workerId, Set<Task.TaskType> types, int maxTasks, double freeCpu, long freeMemoryMb,
+               boolean idle, Predicate<List<WorkerProtocol.LeasedTask>> deliver) {
+            this.workerId = workerId;
+            this.types = types;
+            this.maxTasks = maxTasks;
+            this.freeCpu = freeCpu;
+            this.freeMemoryMb = freeMemoryMb;
+            this.idle = idle;
+            this.deliver = deliver;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.jobflow.scheduler;
+
+/**
+ * Resource Demand
+ *
+ * CPU cores and memory a task declares it needs while running, from the "resources"
+ * object of its parameters, e.g. {"resources": {"cpu": 2, "memoryMb": 1024}}. Tasks
+ * that declare nothing demand nothing and are never held back by capacity.
+ */
+public final class ResourceDemand {
+
+    public static final ResourceDemand NONE = new ResourceDemand(0, 0);
+
+    private final double cpu;
+    private final long memoryMb;
+
+    public ResourceDemand(double cpu, long memoryMb) {
+        this.cpu = Math.max(0, cpu);
+        this.memoryMb = Math.max(0, memoryMb);
+    }
+
+    public double getCpu() {
+        return cpu;
+    }
+
+    public long getMemoryMb() {
+        return memoryMb;
+    }
+
+    public boolean isNone() {
+        return cpu == 0 && memoryMb == 0;
+    }
+
+    /**
+     * Whether this demand fits into the given free capacity
+     */
+    public boolean fitsIn(double freeCpu, long freeMemoryMb) {
+        return cpu <= freeCpu && memoryMb <= freeMemoryMb;
+    }
+
+    @Override
+    public String toString() {
+        return cpu + " CPU, " + memoryMb + " MB";
+    }
+}
@@ -0,0 +1,258 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.dao.ExecutionRecordDao;
+import com.jobflow.domain.ExecutionRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Retry Engine
+ *
+ * Holds pending task retries in an in-memory delay queue. The backoff before retry n
+ * is drawn uniformly from [0, min(max-delay, initial-delay * multiplier^(n-1))] ("full
+ * jitter"), so tasks that failed together during a downstream outage come back spread
+ * over the whole window instead of in lockstep.
+ *
+ * The retry time is persisted as next_retry_time on the failed execution record, and
+ * the queue is seeded from those records at startup. Due retries are taken in batches:
+ * one statement claims the whole batch, so a retry seeded on several nodes still runs
+ * exactly once, and the claimed retries are handed to the retry handler.
+ */
+@Slf4j
+@Component
+public class RetryEngine {
+
+    private final ExecutionRecordDao executionRecordDao;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
+    private final DelayQueue<PendingRetry> queue = new DelayQueue<>();
+    // Pending retries by execution ID, so seeding never queues a retry twice
+    private final Map<String, PendingRetry> persisted = new ConcurrentHashMap<>();
+
+    @Value("${execution.retry.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${execution.retry.initial-delay}")
+    private long initialDelayMs;
+
+    @Value("${execution.retry.multiplier}")
+    private double multiplier;
+
+    @Value("${execution.retry.max-delay}")
+    private long maxDelayMs;
+
+    @Value("${execution.retry.batch-size}")
+    private int batchSize;
+
+    @Value("${jobflow.worker.enabled}")
+    private boolean workerMode;
+
+    private volatile Consumer<PendingRetry> retryHandler;
+    private Thread dispatcher;
+
+    @Autowired
+    public RetryEngine(ExecutionRecordDao executionRecordDao,
+                       TransactionTemplate transactionTemplate,
+                       @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.executionRecordDao = executionRecordDao;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (workerMode) {
+            return;
+        }
+        try {
+            for (ExecutionRecord record : executionRecordDao.findPendingRetries()) {
+                if (record.getTask() == null) {
+                    continue;
+                }
+                enqueue(new PendingRetry(record.getTask().getId(), record.getExecutionId(),
+                    record.getRetryCount(), toEpochMs(record.getNextRetryTime())));
+            }
+            log.info("Retry engine started with {} pending retries", queue.size());
+        } catch (Exception e) {
+            log.error("Failed to load pending retries: {}", e.getMessage());
+        }
+
+        dispatcher = new CustomizableThreadFactory("Retry-").newThread(this::dispatchLoop);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Set the action that re-executes a due retry
+     */
+    public void onRetryDue(Consumer<PendingRetry> handler) {
+        this.retryHandler = handler;
+    }
+
+    /**
+     * Whether a task that has run the given number of attempts may be retried
+     * @param taskRetries Retries configured on the task, or null for execution.retry.max-attempts
+     */
+    public boolean canRetry(Integer taskRetries, int attempt) {
+        int limit = taskRetries != null ? taskRetries : maxAttempts;
+        return attempt <= limit;
+    }
+
+    /**
+     * Pick the time of a retry with full jitter
+     * @param attempt Retry number, starting at 1
+     */
+    public LocalDateTime nextRetryTime(int attempt) {
+        double ceiling = Math.min(maxDelayMs, initialDelayMs * Math.pow(multiplier, Math.max(0, attempt - 1)));
+        long delayMs = ThreadLocalRandom.current().nextLong((long) ceiling + 1);
+        return LocalDateTime.now().plus(Duration.ofMillis(delayMs));
+    }
+
+    /**
+     * Queue a retry
+     * @param executionId Failed execution whose record holds the persisted retry time, or
+     *                    null for a retry that is not persisted
+     */
+    public void schedule(Long taskId, String executionId, int attempt, LocalDateTime retryAt) {
+        enqueue(new PendingRetry(taskId, executionId, attempt, toEpochMs(retryAt)));
+        log.debug("Retry {} of task {} scheduled at {}", attempt, taskId, retryAt);
+    }
+
+    /**
+     * Number of retries waiting in the queue
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private void enqueue(PendingRetry retry) {
+        if (retry.executionId != null && persisted.putIfAbsent(retry.executionId, retry) != null) {
+            return;
+        }
+        queue.add(retry);
+    }
+
+    private void dispatchLoop() {
+        List<PendingRetry> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // Everything else already due goes out with it
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                dispatch(batch);
+            } catch (Exception e) {
+                log.error("Failed to dispatch {} retries: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void dispatch(List<PendingRetry> batch) {
+        List<String> executionIds = batch.stream()
+            .filter(retry -> retry.executionId != null)
+            .map(retry -> retry.executionId)
+            .collect(Collectors.toList());
+        executionIds.forEach(persisted::remove);
+
+        Set<String> claimed = executionIds.isEmpty()
+            ? Set.of()
+            : new HashSet<>(transactionTemplate.execute(status -> executionRecordDao.claimRetries(executionIds)));
+
+        Consumer<PendingRetry> handler = retryHandler;
+        for (PendingRetry retry : batch) {
+            if (retry.executionId != null && !claimed.contains(retry.executionId)) {
+                // Taken by another node, or the retry was already run
+                continue;
+            }
+            if (handler == null) {
+                log.warn("No retry handler, dropping retry {} of task {}", retry.attempt, retry.taskId);
+                continue;
+            }
+            taskExecutor.execute(() -> {
+                try {
+                    handler.accept(retry);
+                } catch (Exception e) {
+                    log.error("Retry {} of task {} failed to start: {}", retry.attempt, retry.taskId, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private static long toEpochMs(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * A retry waiting for its time
+     */
+    public static class PendingRetry implements Delayed {
+        private final Long taskId;
+        private final String executionId;
+        private final int attempt;
+        private final long dueMs;
+
+        PendingRetry(Long taskId, String executionId, int attempt, long dueMs) {
+            this.taskId = taskId;
+            this.executionId = executionId;
+            this.attempt = attempt;
+            this.dueMs = dueMs;
+        }
+
+        public Long getTaskId() {
+            return taskId;
+        }
+
+        /**
+         * Retry number, starting at 1
+         */
+        public int getAttempt() {
+            return attempt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueMs, ((PendingRetry) other).dueMs);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.jobflow.scheduler;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Run Forecast
+ *
+ * Critical-path model of one workflow run. Each unfinished task gets an earliest start
+ * and finish: a pending task starts when its last upstream task finishes, but not
+ * before now, and a running task finishes its estimated duration after it started, but
+ * not before now. Finished tasks keep their actual finish time. The run's ETA is the
+ * latest finish, computed with both the p50 and the p90 durations.
+ *
+ * Finish times are maintained incrementally. A task starting or finishing only
+ * re-evaluates its descendants whose times actually change, in topological order.
+ * Moving the clock forward only re-seeds the tasks whose upstream tasks are all done.
+ * Slack and the critical path need a backward pass and are computed on request.
+ */
+public class RunForecast {
+
+    private static final byte PENDING = 0;
+    private static final byte RUNNING = 1;
+    private static final byte DONE = 2;
+
+    private final WorkflowPlan plan;
+    private final boolean[] included;
+    private final long[] p50;
+    private final long[] p90;
+    private final long startedAtMs;
+    // 0 when the workflow has no timeout
+    private final long deadlineMs;
+
+    private final byte[] state;
+    private final long[] taskStartedAt;
+    private final long[] start50;
+    private final long[] finish50;
+    private final long[] finish90;
+    private final int[] position;
+    private final int[] unfinishedUpstream;
+    // Unfinished tasks whose upstream tasks are all done, i.e. the ones bounded by the clock
+    private final BitSet frontier;
+    private int unfinished;
+    private long clock;
+
+    /**
+     * @param included Which plan indexes belong to the run; null for all
+     * @param timeoutMs Workflow timeout, or 0 for none
+     */
+    public RunForecast(WorkflowPlan plan, boolean[] included, long[] p50, long[] p90, long now, long timeoutMs) {
+        int n = plan.size();
+        this.plan = plan;
+        this.included = included;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.startedAtMs = now;
+        this.deadlineMs = timeoutMs > 0 ? now + timeoutMs : 0;
+        this.state = new byte[n];
+        this.taskStartedAt = new long[n];
+        this.start50 = new long[n];
+        this.finish50 = new long[n];
+        this.finish90 = new long[n];
+        this.position = new int[n];
+        this.unfinishedUpstream = new int[n];
+        this.frontier = new BitSet(n);
+        this.clock = now;
+
+        int[] order = plan.order();
+        for (int p = 0; p < n; p++) {
+            position[order[p]] = p;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!includes(i)) {
+                // Outside the run: finished at once, so it never delays anything
+                state[i] = DONE;
+                finish50[i] = now;
+                finish90[i] = now;
+                continue;
+            }
+            unfinished++;
+            for (int e = plan.predecessorStart(i); e < plan.predecessorStart(i + 1); e++) {
+                if (includes(plan.predecessorAt(e))) {
+                    unfinishedUpstream[i]++;
+                }
+            }
+            if (unfinishedUpstream[i] == 0) {
+                frontier.set(i);
+            }
+        }
+        for (int i : order) {
+            if (includes(i)) {
+                evaluate(i);
+            }
+        }
+    }
+
+    public synchronized void taskStarted(int index, long now) {
+        if (!includes(index) || state[index] != PENDING) {
+            return;
+        }
+        advance(now);
+        state[index] = RUNNING;
+        taskStartedAt[index] = now;
+        PriorityQueue<Integer> queue = newQueue();
+        queue.add(index);
+        propagate(queue);
+    }
+
+    public synchronized void taskFinished(int index, long now) {
+        if (!includes(index) || state[index] == DONE) {
+            return;
+        }
+        advance(now);
+        state[index] = DONE;
+        finish50[index] = now;
+        finish90[index] = now;
+        frontier.clear(index);
+        unfinished--;
+
+        PriorityQueue<Integer> queue = newQueue();
+        for (int e = plan.successorStart(index); e < plan.successorStart(index + 1); e++) {
+            int successor = plan.successorAt(e);
+            if (state[successor] == DONE) {
+                continue;
+            }
+            if (--unfinishedUpstream[successor] == 0) {
+                frontier.set(successor);
+            }
+            queue.add(successor);
+        }
+        propagate(queue);
+    }
+
+    /**
+     * Projected completion time in epoch milliseconds, using p50 durations
+     */
+    public synchronized long getEstimatedFinishMs(long now) {
+        advance(now);
+        return latestFinish(finish50);
+    }
+
+    /**
+     * Deadline minus the p90 projected completion, negative when the deadline is projected
+     * to be missed; Long.MAX_VALUE without a deadline
+     */
+    public synchronized long getSlaMarginMs(long now) {
+        if (deadlineMs == 0) {
+            return Long.MAX_VALUE;
+        }
+        advance(now);
+        return deadlineMs - latestFinish(finish90);
+    }
+
+    /**
+     * Full projection including slack and the critical path
+     */
+    public synchronized WorkflowForecast snapshot(long now) {
+        advance(now);
+        long eta50 = latestFinish(finish50);
+        long eta90 = latestFinish(finish90);
+
+        WorkflowForecast forecast = new WorkflowForecast();
+        forecast.setWorkflowId(plan.getWorkflowId());
+        forecast.setEstimatedCompletionTime(toTime(eta50));
+        forecast.setPessimisticCompletionTime(toTime(eta90));
+        forecast.setRemainingMs(Math.max(0, eta50 - now));
+        if (deadlineMs > 0) {
+            forecast.setDeadline(toTime(deadlineMs));
+            forecast.setSlaAtRisk(eta90 > deadlineMs);
+        }
+        int total = 0;
+        for (int i = 0; i < plan.size(); i++) {
+            if (includes(i)) {
+                total++;
+            }
+        }
+        forecast.setProgress(total == 0 ? 0.0 : (double) (total - unfinished) / total * 100);
+
+        // Backward pass: latest finish that doesn't push back the ETA
+        int n = plan.size();
+        long[] latestFinish = new long[n];
+        int[] order = plan.order();
+        for (int p = n - 1; p >= 0; p--) {
+            int i = order[p];
+            if (state[i] == DONE) {
+                continue;
+            }
+            long latest = eta50;
+            for (int e = plan.successorStart(i); e < plan.successorStart(i + 1); e++) {
+                int successor = plan.successorAt(e);
+                if (state[successor] != DONE) {
+                    long duration = finish50[successor] - start50[successor];
+                    latest = Math.min(latest, latestFinish[successor] - duration);
+                }
+            }
+            latestFinish[i] = latest;
+        }
+        for (int i : order) {
+            if (state[i] != DONE) {
+                forecast.getSlackMs().put(plan.getTaskId(i), latestFinish[i] - finish50[i]);
+            }
+        }
+        forecast.setCriticalPath(criticalPath());
+        return forecast;
+    }
+
+    /**
+     * Walk back from the unfinished task finishing last through the upstream task that bounds each start
+     */
+    private List<Long> criticalPath() {
+        int last = -1;
+        for (int i = 0; i < plan.size(); i++) {
+            if (state[i] != DONE && (last < 0 || finish50[i] > finish50[last])) {
+                last = i;
+            }
+        }
+        List<Long> path = new ArrayList<>();
+        int current = last;
+        while (current >= 0) {
+            path.add(plan.getTaskId(current));
+            int bounding = -1;
+            if (state[current] == PENDING) {
+                for (int e = plan.predecessorStart(current); e < plan.predecessorStart(current + 1); e++) {
+                    int predecessor = plan.predecessorAt(e);
+                    if (state[predecessor] != DONE && finish50[predecessor] == start50[current]) {
+                        bounding = predecessor;
+                        break;
+                    }
+                }
+            }
+            current = bounding;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    public WorkflowPlan getPlan() {
+        return plan;
+    }
+
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    public long getStartedAtMs() {
+        return startedAtMs;
+    }
+
+    /**
+     * Move the clock forward; only tasks whose upstream tasks are all done depend on it directly
+     */
+    private void advance(long now) {
+        if (now <= clock) {
+            return;
+        }
+        clock = now;
+        PriorityQueue<Integer> queue = newQueue();
+        for (int i = frontier.nextSetBit(0); i >= 0; i = frontier.nextSetBit(i + 1)) {
+            queue.add(i);
+        }
+        propagate(queue);
+    }
+
+    /**
+     * Re-evaluate queued tasks in topological order, following successors only where times changed
+     */
+    private void propagate(PriorityQueue<Integer> queue) {
+        BitSet queued = new BitSet(plan.size());
+        for (Integer index : queue) {
+            queued.set(index);
+        }
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            queued.clear(index);
+            if (!evaluate(index)) {
+                continue;
+            }
+            for (int e = plan.successorStart(index); e < plan.successorStart(index + 1); e++) {
+                int successor = plan.successorAt(e);
+                if (state[successor] != DONE && !queued.get(successor)) {
+                    queued.set(successor);
+                    queue.add(successor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute a task's start and finish times
+     * @return Whether they changed
+     */
+    private boolean evaluate(int index) {
+        if (state[index] == DONE) {
+            return false;
+        }
+        long start;
+        long end50;
+        long end90;
+        if (state[index] == RUNNING) {
+            start = taskStartedAt[index];
+            end50 = Math.max(clock, start + p50[index]);
+            end90 = Math.max(clock, start + p90[index]);
+        } else {
+            start = clock;
+            long start90 = clock;
+            for (int e = plan.predecessorStart(index); e < plan.predecessorStart(index + 1); e++) {
+                int predecessor = plan.predecessorAt(e);
+                if (includes(predecessor)) {
+                    start = Math.max(start, finish50[predecessor]);
+                    start90 = Math.max(start90, finish90[predecessor]);
+                }
+            }
+            end50 = start + p50[index];
+            end90 = start90 + p90[index];
+        }
+        boolean changed = start != start50[index] || end50 != finish50[index] || end90 != finish90[index];
+        start50[index] = start;
+        finish50[index] = end50;
+        finish90[index] = end90;
+        return changed;
+    }
+
+    private long latestFinish(long[] finish) {
+        long latest = clock;
+        for (int i = 0; i < finish.length; i++) {
+            if (includes(i)) {
+                latest = Math.max(latest, finish[i]);
+            }
+        }
+        return latest;
+    }
+
+    private boolean includes(int index) {
+        return included == null || included[index];
+    }
+
+    private PriorityQueue<Integer> newQueue() {
+        return new PriorityQueue<>((a, b) -> Integer.compare(position[a], position[b]));
+    }
+
+    private static LocalDateTime toTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,206 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.dao.ExecutionRecordDao;
+import com.jobflow.domain.ExecutionRecord;
+import com.jobflow.domain.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Speculative Executor
+ *
+ * Cuts the tail latency of workflows stalled on one straggling task. For workflow
+ * tasks flagged speculative, and therefore idempotent, a backup attempt is started once
+ * the first attempt has run longer than the workflow.speculation.percentile of the
+ * task's recent successful durations. The first attempt to succeed completes the task
+ * and the other is cancelled; the task only fails if every attempt fails.
+ *
+ * Thresholds are computed from fj_execution_record and cached per task for
+ * workflow.speculation.refresh-ms. Tasks with fewer than
+ * workflow.speculation.min-samples successful runs are never speculated.
+ */
+@Slf4j
+@Component
+public class SpeculativeExecutor {
+
+    private final ExecutionRecordDao executionRecordDao;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, Threshold> thresholds = new ConcurrentHashMap<>();
+
+    @Value("${workflow.speculation.enabled}")
+    private boolean enabled;
+
+    @Value("${workflow.speculation.percentile}")
+    private double percentile;
+
+    @Value("${workflow.speculation.min-samples}")
+    private int minSamples;
+
+    @Value("${workflow.speculation.history-size}")
+    private int historySize;
+
+    @Value("${workflow.speculation.min-delay-ms}")
+    private long minDelayMs;
+
+    @Value("${workflow.speculation.refresh-ms}")
+    private long refreshMs;
+
+    private Counter launched;
+    private Counter backupWins;
+
+    @Autowired
+    public SpeculativeExecutor(ExecutionRecordDao executionRecordDao,
+                               @Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler,
+                               MeterRegistry meterRegistry) {
+        this.executionRecordDao = executionRecordDao;
+        this.taskScheduler = taskScheduler;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        launched = Counter.builder("jobflow.speculation.launched")
+            .description("Backup attempts started for straggling tasks")
+            .register(meterRegistry);
+        backupWins = Counter.builder("jobflow.speculation.backup.won")
+            .description("Straggling tasks completed by their backup attempt")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Whether a task may get a backup attempt
+     */
+    public boolean accepts(Task task) {
+        return enabled && Boolean.TRUE.equals(task.getSpeculative())
+            && task.getWorkflowId() != null && task.getWorkflowId() != 0;
+    }
+
+    /**
+     * Run a task, racing a backup attempt against the first one if it straggles
+     * @param attempt Starts one attempt of the task; cancelling its future stops it
+     * @return Future completed by the first successful attempt; cancelling it stops all attempts
+     */
+    public CompletableFuture<String> execute(Task task, Supplier<CompletableFuture<String>> attempt) {
+        Long thresholdMs = thresholdOf(task.getId());
+        if (thresholdMs == null) {
+            return attempt.get();
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        List<CompletableFuture<String>> attempts = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger outstanding = new AtomicInteger(1);
+        race(attempt.get(), false, result, attempts, outstanding);
+
+        ScheduledFuture<?> backup = taskScheduler.schedule(() -> {
+            // Counted before starting so a failing first attempt can't fail the task meanwhile
+            if (result.isDone() || !tryIncrement(outstanding)) {
+                return;
+            }
+            log.info("Task {} running longer than {} ms, starting a backup attempt", task.getId(), thresholdMs);
+            launched.increment();
+            race(attempt.get(), true, result, attempts, outstanding);
+        }, Instant.now().plusMillis(thresholdMs));
+
+        result.whenComplete((output, error) -> {
+            backup.cancel(false);
+            // Stops the loser, or every attempt if the task was cancelled or timed out
+            synchronized (attempts) {
+                attempts.forEach(running -> running.cancel(true));
+            }
+        });
+        return result;
+    }
+
+    private void race(CompletableFuture<String> running, boolean isBackup, CompletableFuture<String> result,
+                      List<CompletableFuture<String>> attempts, AtomicInteger outstanding) {
+        attempts.add(running);
+        if (result.isDone()) {
+            running.cancel(true);
+            return;
+        }
+        running.whenComplete((output, error) -> {
+            if (error == null) {
+                if (result.complete(output) && isBackup) {
+                    backupWins.increment();
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * Add an attempt unless all attempts already failed
+     */
+    private static boolean tryIncrement(AtomicInteger outstanding) {
+        int current;
+        do {
+            current = outstanding.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!outstanding.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Elapsed time after which a task counts as straggling, or null if its history is too short
+     */
+    private Long thresholdOf(Long taskId) {
+        Threshold threshold = thresholds.get(taskId);
+        if (threshold == null || threshold.loadedAt + refreshMs < System.currentTimeMillis()) {
+            threshold = new Threshold(computeThreshold(taskId), System.currentTimeMillis());
+            thresholds.put(taskId, threshold);
+        }
+        return threshold.valueMs;
+    }
+
+    private Long computeThreshold(Long taskId) {
+        try {
+            List<Long> durations = new ArrayList<>(executionRecordDao.findRecentDurations(
+                taskId, ExecutionRecord.ExecutionStatus.COMPLETED, historySize));
+            if (durations.size() < minSamples) {
+                return null;
+            }
+            Collections.sort(durations);
+            int rank = (int) Math.ceil(percentile / 100.0 * durations.size()) - 1;
+            long value = durations.get(Math.max(0, Math.min(rank, durations.size() - 1)));
+            return Math.max(value, minDelayMs);
+        } catch (Exception e) {
+            log.warn("Failed to load duration history of task {}: {}", taskId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cached straggler threshold of a task
+     */
+    private static class Threshold {
+        private final Long valueMs;
+        private final long loadedAt;
+
+        Threshold(Long valueMs, long loadedAt) {
+            this.valueMs = valueMs;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Task Dispatcher
+ *
+ * Bounded, priority-ordered queues in front of task execution. Work is queued per
+ * tenant and by Task.TaskPriority, and taken by a fixed set of workers. Tenants share
+ * the workers by weighted deficit round robin with a per-tenant concurrency cap, so one
+ * tenant's burst cannot starve the others. Within a tenant, aging keeps LOW tasks from
+ * starving behind a steady stream of CRITICAL ones. When a tenant's queue is full new
+ * work is rejected instead of growing an unbounded thread pool. Workers hand each
+ * task to the bulkhead for its TaskType; a full bulkhead fails the dispatch with
+ * RejectedExecutionException so the caller can defer it.
+ *
+ * Tenant weights and caps come from execution.fair-share.tenant-weights and
+ * execution.fair-share.tenant-max-concurrency, as comma separated tenantId=value pairs.
+ * A cap of tens of tasks suits platform threads but would hold virtual-thread task
+ * types far below what they can run, so those types are scheduled separately, with
+ * their own workers, and capped at execution.fair-share.virtual-max-concurrency per
+ * tenant, scaled by the tenant's cap relative to the default.
+ *
+ * Publishes queue depth per priority, queue wait time, rejections and each tenant's
+ * running share through Micrometer.
+ */
+@Slf4j
+@Component
+public class TaskDispatcher {
+
+    private static final Task.TaskPriority[] PRIORITIES = Task.TaskPriority.values();
+
+    private final MeterRegistry meterRegistry;
+    private final TaskTypeExecutors taskTypeExecutors;
+
+    @Value("${execution.dispatch.tenant-queue-capacity}")
+    private int tenantQueueCapacity;
+
+    @Value("${execution.dispatch.workers}")
+    private int workers;
+
+    @Value("${execution.dispatch.aging-step-ms}")
+    private long agingStepMs;
+
+    @Value("${execution.fair-share.default-weight}")
+    private int defaultWeight;
+
+    @Value("${execution.fair-share.default-max-concurrency}")
+    private int defaultMaxConcurrency;
+
+    @Value("${execution.fair-share.tenant-weights}")
+    private String tenantWeights;
+
+    @Value("${execution.fair-share.tenant-max-concurrency}")
+    private String tenantMaxConcurrency;
+
+    @Value("${execution.fair-share.virtual-max-concurrency}")
+    private int virtualMaxConcurrency;
+
+    private FairShareScheduler<Dispatch> scheduler;
+    // Virtual-thread task types, or null if there are none
+    private FairShareScheduler<Dispatch> virtualScheduler;
+    private final Set<Long> meteredTenants = ConcurrentHashMap.newKeySet();
+    private ExecutorService workerPool;
+    private Timer[] waitTimers;
+    private Counter rejections;
+
+    @Autowired
+    public TaskDispatcher(MeterRegistry meterRegistry, TaskTypeExecutors taskTypeExecutors) {
+        this.meterRegistry = meterRegistry;
+        this.taskTypeExecutors = taskTypeExecutors;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler = new FairShareScheduler<>(PRIORITIES.length, tenantQueueCapacity, agingStepMs,
+            defaultWeight, defaultMaxConcurrency);
+        if (taskTypeExecutors.hasVirtualTypes()) {
+            virtualScheduler = new FairShareScheduler<>(PRIORITIES.length, tenantQueueCapacity, agingStepMs,
+                defaultWeight, virtualMaxConcurrency);
+        }
+        configureTenants();
+
+        waitTimers = new Timer[PRIORITIES.length];
+        for (Task.TaskPriority priority : PRIORITIES) {
+            int level = priority.ordinal();
+            Gauge.builder("jobflow.dispatch.queue.depth", this, d -> d.getQueueDepth(priority))
+                .tag("priority", priority.name())
+                .description("Tasks waiting for execution")
+                .register(meterRegistry);
+            waitTimers[level] = Timer.builder("jobflow.dispatch.queue.wait")
+                .tag("priority", priority.name())
+                .description("Time tasks spent queued before execution")
+                .register(meterRegistry);
+        }
+        rejections = Counter.builder("jobflow.dispatch.rejected")
+            .description("Tasks rejected because the tenant's dispatch queue was full")
+            .register(meterRegistry);
+
+        int threads = virtualScheduler != null ? workers * 2 : workers;
+        workerPool = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("Dispatch-"));
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(() -> workLoop(scheduler));
+            if (virtualScheduler != null) {
+                workerPool.execute(() -> workLoop(virtualScheduler));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * Queue work for a task at the task's priority, in the task's tenant lane. The work
+     * starts the task and returns a future for its output; the tenant slot is held until
+     * that future completes, and cancelling the returned future cancels it.
+     * @return Future completed with the task's output, or exceptionally with
+     *         RejectedExecutionException if the tenant's queue or bulkhead is full
+     */
+    public CompletableFuture<String> dispatch(Task task, Supplier<CompletableFuture<String>> work) {
+        Long tenantId = tenantOf(task);
+        registerTenantMetrics(tenantId);
+
+        FairShareScheduler<Dispatch> lanes = schedulerFor(task.getType());
+        Dispatch dispatch = new Dispatch(work, taskTypeExecutors.executorFor(task.getType()));
+        // A handler still starting the work on a bulkhead thread is interrupted
+        dispatch.future.whenComplete((output, error) -> {
+            if (error != null) {
+                dispatch.interruptRunner();
+            }
+        });
+        if (!lanes.offer(tenantId, levelOf(task.getPriority()), dispatch)) {
+            rejections.increment();
+            log.warn("Dispatch queue full for tenant {}, rejecting task: {}", tenantId, task.getId());
+            dispatch.future.completeExceptionally(
+                new RejectedExecutionException("Dispatch queue is full for tenant " + tenantId));
+        }
+        return dispatch.future;
+    }
+
+    /**
+     * Change a tenant's weight and concurrency cap at runtime
+     */
+    public void configureTenant(Long tenantId, int weight, int maxConcurrency) {
+        scheduler.configureTenant(tenantId, weight, maxConcurrency);
+        if (virtualScheduler != null) {
+            long scaled = (long) virtualMaxConcurrency * maxConcurrency / Math.max(1, defaultMaxConcurrency);
+            virtualScheduler.configureTenant(tenantId, weight, (int) Math.min(Integer.MAX_VALUE, scaled));
+        }
+        registerTenantMetrics(tenantId);
+    }
+
+    /**
+     * Number of tasks waiting at a priority across all tenants
+     */
+    public int getQueueDepth(Task.TaskPriority priority) {
+        int level = levelOf(priority);
+        int depth = 0;
+        for (FairShareScheduler<Dispatch> lanes : schedulers()) {
+            for (Long tenantId : lanes.getTenants()) {
+                depth += lanes.getQueued(tenantId, level);
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Fraction of running tasks that belong to a tenant
+     */
+    public double getTenantShare(Long tenantId) {
+        int running = 0;
+        int total = 0;
+        for (FairShareScheduler<Dispatch> lanes : schedulers()) {
+            running += lanes.getRunning(tenantId);
+            total += lanes.getTotalRunning();
+        }
+        return total == 0 ? 0.0 : (double) running / total;
+    }
+
+    public int getTenantRunning(Long tenantId) {
+        int running = 0;
+        for (FairShareScheduler<Dispatch> lanes : schedulers()) {
+            running += lanes.getRunning(tenantId);
+        }
+        return running;
+    }
+
+    public int getTenantQueued(Long tenantId) {
+        int queued = 0;
+        for (FairShareScheduler<Dispatch> lanes : schedulers()) {
+            queued += lanes.getQueued(tenantId);
+        }
+        return queued;
+    }
+
+    private FairShareScheduler<Dispatch> schedulerFor(Task.TaskType type) {
+        return virtualScheduler != null && taskTypeExecutors.isVirtual(type) ? virtualScheduler : scheduler;
+    }
+
+    private List<FairShareScheduler<Dispatch>> schedulers() {
+        return virtualScheduler != null ? List.of(scheduler, virtualScheduler) : List.of(scheduler);
+    }
+
+    static int levelOf(Task.TaskPriority priority) {
+        return (priority != null ? priority : Task.TaskPriority.MEDIUM).ordinal();
+    }
+
+    private static Long tenantOf(Task task) {
+        return task.getTenantId() != null ? task.getTenantId() : 0L;
+    }
+
+    private void configureTenants() {
+        Map<Long, Integer> weights = parseTenantValues(tenantWeights);
+        Map<Long, Integer> caps = parseTenantValues(tenantMaxConcurrency);
+        Set<Long> tenants = new HashSet<>(weights.keySet());
+        tenants.addAll(caps.keySet());
+        for (Long tenantId : tenants) {
+            configureTenant(tenantId,
+                weights.getOrDefault(tenantId, defaultWeight),
+                caps.getOrDefault(tenantId, defaultMaxConcurrency));
+        }
+    }
+
+    /**
+     * Parse "tenantId=value,tenantId=value"
+     */
+    private static Map<Long, Integer> parseTenantValues(String spec) {
+        Map<Long, Integer> values = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return values;
+        }
+        for (String pair : spec.split(",")) {
+            String[] parts = pair.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid tenant setting: " + pair);
+            }
+            values.put(Long.parseLong(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return values;
+    }
+
+    private void registerTenantMetrics(Long tenantId) {
+        if (!meteredTenants.add(tenantId)) {
+            return;
+        }
+        String tenant = String.valueOf(tenantId);
+        Gauge.builder("jobflow.dispatch.tenant.share", this, d -> d.getTenantShare(tenantId))
+            .tag("tenant", tenant)
+            .description("Fraction of running tasks that belong to the tenant")
+            .register(meterRegistry);
+        Gauge.builder("jobflow.dispatch.tenant.running", this, d -> d.getTenantRunning(tenantId))
+            .tag("tenant", tenant)
+            .description("Tasks running for the tenant")
+            .register(meterRegistry);
+        Gauge.builder("jobflow.dispatch.tenant.queued", this, d -> d.getTenantQueued(tenantId))
+            .tag("tenant", tenant)
+            .description("Tasks waiting for execution for the tenant")
+            .register(meterRegistry);
+    }
+
+    private void workLoop(FairShareScheduler<Dispatch> lanes) {
+        while (!Thread.currentThread().isInterrupted()) {
+            FairShareScheduler.Grant<Dispatch> grant;
+            try {
+                grant = lanes.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            PriorityDispatchQueue.Entry<Dispatch> entry = grant.getEntry();
+            waitTimers[entry.getPriority()].record(entry.getWaitMs(), TimeUnit.MILLISECONDS);
+            Dispatch dispatch = entry.getItem();
+            Long tenantId = grant.getTenantId();
+            if (dispatch.future.isDone()) {
+                // Cancelled or timed out while still queued
+                lanes.release(tenantId);
+                continue;
+            }
+            try {
+                dispatch.executor.execute(() -> run(dispatch, tenantId, lanes));
+            } catch (RejectedExecutionException e) {
+                dispatch.future.completeExceptionally(e);
+                lanes.release(tenantId);
+            }
+        }
+    }
+
+    private void run(Dispatch dispatch, Long tenantId, FairShareScheduler<Dispatch> lanes) {
+        if (!dispatch.enter()) {
+            // Cancelled or timed out while waiting for the bulkhead
+            lanes.release(tenantId);
+            return;
+        }
+        CompletableFuture<String> execution;
+        try {
+            execution = dispatch.work.get();
+        } catch (Throwable t) {
+            dispatch.future.completeExceptionally(t);
+            lanes.release(tenantId);
+            return;
+        } finally {
+            dispatch.exit();
+        }
+
+        execution.whenComplete((output, error) -> {
+            lanes.release(tenantId);
+            if (error != null) {
+                dispatch.future.completeExceptionally(error);
+            } else {
+                dispatch.future.complete(output);
+            }
+        });
+        // Timing out or cancelling the dispatch stops the underlying execution
+        dispatch.future.whenComplete((output, error) -> {
+            if (error != null) {
+                execution.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Queued unit of work and its completion future
+     */
+    private static class Dispatch {
+        private final Supplier<CompletableFuture<String>> work;
+        private final Executor executor;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private Thread runner;
+
+        Dispatch(Supplier<CompletableFuture<String>> work, Executor executor) {
+            this.work = work;
+            this.executor = executor;
+        }
+
+        /**
+         * Record the thread about to start the work
+         * @return false if the dispatch already ended
+         */
+        synchronized boolean enter() {
+            if (future.isDone()) {
+                return false;
+            }
+            runner = Thread.currentThread();
+            return true;
+        }
+
+        synchronized void exit() {
+            runner = null;
+            // An interrupt meant for this work must not leak into the next task on the thread
+            Thread.interrupted();
+        }
+
+        synchronized void interruptRunner() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.dao.ExecutionRecordDao;
+import com.jobflow.domain.ExecutionRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Task Duration Stats
+ *
+ * p50 and p90 of each task's recent successful durations, read from
+ * fj_execution_record and cached per task for workflow.eta.refresh-ms. The durations of
+ * all tasks of a workflow are loaded in batched queries rather than one per task. Tasks
+ * with fewer than workflow.eta.min-samples successful runs fall back to
+ * workflow.eta.default-duration-ms.
+ */
+@Slf4j
+@Component
+public class TaskDurationStats {
+
+    private final ExecutionRecordDao executionRecordDao;
+    private final Map<Long, Estimate> estimates = new ConcurrentHashMap<>();
+
+    @Value("${workflow.eta.history-size}")
+    private int historySize;
+
+    @Value("${workflow.eta.min-samples}")
+    private int minSamples;
+
+    @Value("${workflow.eta.default-duration-ms}")
+    private long defaultDurationMs;
+
+    @Value("${workflow.eta.refresh-ms}")
+    private long refreshMs;
+
+    @Value("${workflow.eta.batch-size}")
+    private int batchSize;
+
+    @Autowired
+    public TaskDurationStats(ExecutionRecordDao executionRecordDao) {
+        this.executionRecordDao = executionRecordDao;
+    }
+
+    /**
+     * Fill the estimated durations of every task of a plan, by plan index
+     */
+    public void estimate(WorkflowPlan plan, long[] p50, long[] p90) {
+        long now = System.currentTimeMillis();
+        List<Long> stale = new ArrayList<>();
+        for (int i = 0; i < plan.size(); i++) {
+            Estimate estimate = estimates.get(plan.getTaskId(i));
+            if (estimate == null || estimate.loadedAt + refreshMs < now) {
+                stale.add(plan.getTaskId(i));
+            }
+        }
+        for (int from = 0; from < stale.size(); from += batchSize) {
+            load(stale.subList(from, Math.min(from + batchSize, stale.size())), now);
+        }
+
+        for (int i = 0; i < plan.size(); i++) {
+            Estimate estimate = estimates.get(plan.getTaskId(i));
+            p50[i] = estimate != null ? estimate.p50 : defaultDurationMs;
+            p90[i] = estimate != null ? estimate.p90 : defaultDurationMs;
+        }
+    }
+
+    private void load(List<Long> taskIds, long now) {
+        Map<Long, List<Long>> durations;
+        try {
+            durations = executionRecordDao.findRecentDurations(taskIds, ExecutionRecord.ExecutionStatus.COMPLETED,
+                historySize);
+        } catch (Exception e) {
+            log.warn("Failed to load duration history of {} tasks: {}", taskIds.size(), e.getMessage());
+            return;
+        }
+
+        for (Long taskId : taskIds) {
+            List<Long> history = durations.getOrDefault(taskId, Collections.emptyList());
+            if (history.size() < minSamples) {
+                estimates.put(taskId, new Estimate(defaultDurationMs, defaultDurationMs, now));
+                continue;
+            }
+            List<Long> sorted = new ArrayList<>(history);
+            Collections.sort(sorted);
+            estimates.put(taskId, new Estimate(percentile(sorted, 50), percentile(sorted, 90), now));
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(rank, sorted.size() - 1)));
+    }
+
+    /**
+     * Cached duration estimate of a task
+     */
+    private static class Estimate {
+        private final long p50;
+        private final long p90;
+        private final long loadedAt;
+
+        Estimate(long p50, long p90, long loadedAt) {
+            this.p50 = p50;
+            this.p90 = p90;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Task Type Executors
+ *
+ * One bulkhead per TaskType, each with its own pool size and queue limit, so a flood
+ * of slow shell scripts cannot hold up in-process bean tasks. A full bulkhead rejects
+ * work instead of running it on the caller; the task service defers rejected tasks
+ * back to the scheduler.
+ *
+ * Types listed in execution.virtual-threads.task-types run their bulkhead on virtual
+ * threads, so I/O-bound tasks waiting on sockets or child processes do not each hold a
+ * platform thread and the pool size, then a concurrency limit rather than a thread
+ * count, can be set in the tens of thousands. Virtual threads
+ * need Java 21; the thread factory is looked up reflectively so the code still builds
+ * and runs on Java 17, where every type falls back to platform threads.
+ */
+@Slf4j
+@Component
+public class TaskTypeExecutors {
+
+    /** Bulkhead used for tasks without a type, matching the fj_task.type column default */
+    private static final Task.TaskType DEFAULT_TYPE = Task.TaskType.SHELL;
+
+    private final MeterRegistry meterRegistry;
+    private final Set<Task.TaskType> virtualTypes = EnumSet.noneOf(Task.TaskType.class);
+    private final Map<Task.TaskType, Bulkhead> bulkheads = new EnumMap<>(Task.TaskType.class);
+
+    @Value("${execution.virtual-threads.task-types}")
+    private String virtualThreadTaskTypes;
+
+    @Value("${execution.bulkhead.http.pool-size}")
+    private int httpPoolSize;
+
+    @Value("${execution.bulkhead.http.queue-capacity}")
+    private int httpQueueCapacity;
+
+    @Value("${execution.bulkhead.shell.pool-size}")
+    private int shellPoolSize;
+
+    @Value("${execution.bulkhead.shell.queue-capacity}")
+    private int shellQueueCapacity;
+
+    @Value("${execution.bulkhead.spring-bean.pool-size}")
+    private int springBeanPoolSize;
+
+    @Value("${execution.bulkhead.spring-bean.queue-capacity}")
+    private int springBeanQueueCapacity;
+
+    @Autowired
+    public TaskTypeExecutors(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        Set<Task.TaskType> configuredTypes = parseTaskTypes(virtualThreadTaskTypes);
+        if (!configuredTypes.isEmpty()) {
+            if (createVirtualThreadFactory("probe-") != null) {
+                virtualTypes.addAll(configuredTypes);
+                log.info("Running {} tasks on virtual threads", virtualTypes);
+            } else {
+                log.warn("Virtual threads are not available on Java {}, running {} tasks on platform threads",
+                    Runtime.version().feature(), configuredTypes);
+            }
+        }
+
+        createBulkhead(Task.TaskType.HTTP, httpPoolSize, httpQueueCapacity);
+        createBulkhead(Task.TaskType.SHELL, shellPoolSize, shellQueueCapacity);
+        createBulkhead(Task.TaskType.SPRING_BEAN, springBeanPoolSize, springBeanQueueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkheads.values().forEach(Bulkhead::shutdown);
+    }
+
+    /**
+     * Bulkhead for a task type
+     */
+    public Executor executorFor(Task.TaskType type) {
+        return bulkheads.get(type != null ? type : DEFAULT_TYPE);
+    }
+
+    public boolean isVirtual(Task.TaskType type) {
+        return virtualTypes.contains(type != null ? type : DEFAULT_TYPE);
+    }
+
+    public boolean hasVirtualTypes() {
+        return !virtualTypes.isEmpty();
+    }
+
+    private void createBulkhead(Task.TaskType type, int poolSize, int queueCapacity) {
+        String prefix = "Bulkhead-" + type.name() + "-";
+        boolean virtual = isVirtual(type);
+        ThreadFactory threadFactory = virtual
+            ? createVirtualThreadFactory(prefix)
+            : new CustomizableThreadFactory(prefix);
+        bulkheads.put(type, new Bulkhead(type.name(), poolSize, queueCapacity, threadFactory, virtual, meterRegistry));
+    }
+
+    private static Set<Task.TaskType> parseTaskTypes(String spec) {
+        Set<Task.TaskType> types = EnumSet.noneOf(Task.TaskType.class);
+        if (spec != null) {
+            for (String type : spec.split(",")) {
+                if (!type.isBlank()) {
+                    types.add(Task.TaskType.valueOf(type.trim().toUpperCase()));
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Thread.ofVirtual().name(prefix, 0).factory(), or null before Java 21
+     */
+    static ThreadFactory createVirtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
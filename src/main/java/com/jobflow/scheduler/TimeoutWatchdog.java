@@ -0,0 +1,186 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.ExecutionRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Timeout Watchdog
+ *
+ * Tracks the deadline of every running task and workflow on this node in one
+ * hierarchical timing wheel. When a deadline passes, the registered timeout action
+ * runs on the watchdog's own pool, execution.watchdog.fire-threads, which queues
+ * instead of running work on the thread driving the wheel; no thread waits on any
+ * individual execution. Memory is one wheel entry per running execution.
+ *
+ * The registry also answers "which executions have been running too long" from
+ * memory, instead of scanning execution records in the database.
+ */
+@Slf4j
+@Component
+public class TimeoutWatchdog {
+
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final Map<String, Deadline> deadlines = new ConcurrentHashMap<>();
+
+    @Value("${execution.watchdog.tick-ms}")
+    private long tickMs;
+
+    @Value("${execution.watchdog.wheel-size}")
+    private int wheelSize;
+
+    @Value("${execution.watchdog.poll-timeout-ms}")
+    private long pollTimeoutMs;
+
+    @Value("${execution.watchdog.fire-threads}")
+    private int fireThreads;
+
+    private ExecutorService fireExecutor;
+    private HierarchicalTimingWheel wheel;
+    private ScheduledFuture<?> driver;
+
+    @Autowired
+    public TimeoutWatchdog(@Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    @PostConstruct
+    public void start() {
+        fireExecutor = Executors.newFixedThreadPool(fireThreads, new CustomizableThreadFactory("Watchdog-Fire-"));
+        wheel = new HierarchicalTimingWheel(tickMs, wheelSize, fireExecutor);
+        driver = taskScheduler.scheduleWithFixedDelay(() -> wheel.advanceClock(pollTimeoutMs), 1);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (driver != null) {
+            driver.cancel(false);
+        }
+        deadlines.values().forEach(Deadline::cancel);
+        deadlines.clear();
+        if (fireExecutor != null) {
+            fireExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Start watching an execution, replacing any earlier deadline for the same resource
+     * @param type Task or workflow
+     * @param resourceId Task or workflow ID
+     * @param executionId Execution record ID, may be null
+     * @param timeoutMs Time allowed from now
+     * @param onTimeout Action to run if the deadline passes before unwatch()
+     */
+    public void watch(ExecutionRecord.ExecutionType type, Long resourceId, String executionId,
+                      long timeoutMs, Runnable onTimeout) {
+        String key = key(type, resourceId);
+        long now = System.currentTimeMillis();
+        Deadline deadline = new Deadline(type, resourceId, executionId, now, now + timeoutMs);
+
+        Deadline previous = deadlines.put(key, deadline);
+        if (previous != null) {
+            previous.cancel();
+        }
+        deadline.attach(wheel.schedule(deadline.deadlineMs, () -> expire(key, deadline, onTimeout)));
+    }
+
+    /**
+     * Stop watching an execution that finished
+     * @return false if it was not watched, e.g. because its deadline already passed
+     */
+    public boolean unwatch(ExecutionRecord.ExecutionType type, Long resourceId) {
+        Deadline deadline = deadlines.remove(key(type, resourceId));
+        if (deadline == null) {
+            return false;
+        }
+        deadline.cancel();
+        return true;
+    }
+
+    /**
+     * Execution IDs of watched executions that started before the given time
+     */
+    public List<String> findExecutionsStartedBefore(LocalDateTime startedBefore) {
+        long cutoff = startedBefore.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return deadlines.values().stream()
+            .filter(deadline -> deadline.executionId != null && deadline.startedMs < cutoff)
+            .map(deadline -> deadline.executionId)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Number of executions being watched
+     */
+    public int getWatchedCount() {
+        return deadlines.size();
+    }
+
+    private void expire(String key, Deadline deadline, Runnable onTimeout) {
+        if (!deadlines.remove(key, deadline)) {
+            return;
+        }
+        log.warn("{} {} exceeded its deadline", deadline.type, deadline.resourceId);
+        try {
+            onTimeout.run();
+        } catch (Exception e) {
+            log.error("Timeout handling failed for {} {}: {}", deadline.type, deadline.resourceId, e.getMessage());
+        }
+    }
+
+    private static String key(ExecutionRecord.ExecutionType type, Long resourceId) {
+        return type.name() + ":" + resourceId;
+    }
+
+    /**
+     * Deadline of one running execution
+     */
+    private static class Deadline {
+        private final ExecutionRecord.ExecutionType type;
+        private final Long resourceId;
+        private final String executionId;
+        private final long startedMs;
+        private final long deadlineMs;
+        private HierarchicalTimingWheel.TimerEntry timerEntry;
+        private boolean cancelled;
+
+        Deadline(ExecutionRecord.ExecutionType type, Long resourceId, String executionId,
+                 long startedMs, long deadlineMs) {
+            this.type = type;
+            this.resourceId = resourceId;
+            this.executionId = executionId;
+            this.startedMs = startedMs;
+            this.deadlineMs = deadlineMs;
+        }
+
+        synchronized void attach(HierarchicalTimingWheel.TimerEntry entry) {
+            timerEntry = entry;
+            if (cancelled) {
+                entry.cancel();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (timerEntry != null) {
+                timerEntry.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.cluster.ClusterPartitioner;
+import com.jobflow.cluster.PartitionChangedEvent;
+import com.jobflow.dao.TaskDao;
+import com.jobflow.dao.WorkflowDao;
+import com.jobflow.domain.Task;
+import com.jobflow.domain.Workflow;
+import com.jobflow.service.TaskService;
+import com.jobflow.service.WorkflowService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Timing Wheel Dispatcher
+ *
+ * Loads the next fire time of every scheduled task and workflow once, keeps them in
+ * a hierarchical timing wheel driven by the shared task scheduler, and fires each
+ * entry at its exact tick. After firing, the next occurrence is computed from the
+ * cron expression in memory, so the database is only touched by a low-frequency
+ * resync that picks up definitions created or changed on other nodes.
+ *
+ * With cluster partitioning enabled, only tasks and workflows owned by this node are
+ * kept in the wheel, and ownership changes trigger an immediate resync.
+ *
+ * In claim mode, everything that fires within the same tick is claimed for this node
+ * in one batch instead of taking a distributed lock per task or workflow. Batchable
+ * tasks are handed to the MicroBatcher instead of being executed one by one.
+ *
+ * Fired entries run on a small dedicated pool, scheduler.wheel.fire-threads, whose
+ * queue is unbounded, so a saturated task executor can never push firing work back
+ * onto the thread driving the wheel.
+ */
+@Slf4j
+@Component
+public class TimingWheelDispatcher {
+
+    private static final String SYSTEM_OPERATOR = "system";
+    private static final String TASK_KEY_PREFIX = "task:";
+    private static final String WORKFLOW_KEY_PREFIX = "workflow:";
+
+    private final TaskDao taskDao;
+    private final WorkflowDao workflowDao;
+    private final TaskService taskService;
+    private final WorkflowService workflowService;
+    private final CronScheduleCache cronScheduleCache;
+    private final ClusterPartitioner partitioner;
+    private final MicroBatcher microBatcher;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final Executor taskExecutor;
+
+    // Pending wheel entries keyed by resource, used for rescheduling and cancellation
+    private final Map<String, ScheduledEntry> entries = new ConcurrentHashMap<>();
+
+    @Value("${scheduler.wheel.tick-ms}")
+    private long tickMs;
+
+    @Value("${scheduler.wheel.size}")
+    private int wheelSize;
+
+    @Value("${scheduler.wheel.poll-timeout-ms}")
+    private long pollTimeoutMs;
+
+    @Value("${scheduler.wheel.resync-interval-ms}")
+    private long resyncIntervalMs;
+
+    @Value("${scheduler.wheel.fire-threads}")
+    private int fireThreads;
+
+    @Value("${scheduler.claim.enabled}")
+    private boolean claimEnabled;
+
+    @Value("${scheduler.claim.batch-size}")
+    private int claimBatchSize;
+
+    @Value("${jobflow.worker.enabled}")
+    private boolean workerMode;
+
+    private final ClaimQueue<Task> taskClaims;
+    private final ClaimQueue<Workflow> workflowClaims;
+
+    private ExecutorService fireExecutor;
+    private HierarchicalTimingWheel wheel;
+    private ScheduledFuture<?> driver;
+    private ScheduledFuture<?> resyncJob;
+
+    @Autowired
+    public TimingWheelDispatcher(TaskDao taskDao,
+                                 WorkflowDao workflowDao,
+                                 TaskService taskService,
+                                 WorkflowService workflowService,
+                                 CronScheduleCache cronScheduleCache,
+                                 ClusterPartitioner partitioner,
+                                 MicroBatcher microBatcher,
+                                 @Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler,
+                                 @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.taskDao = taskDao;
+        this.workflowDao = workflowDao;
+        this.taskService = taskService;
+        this.workflowService = workflowService;
+        this.cronScheduleCache = cronScheduleCache;
+        this.partitioner = partitioner;
+        this.microBatcher = microBatcher;
+        this.taskScheduler = taskScheduler;
+        this.taskExecutor = taskExecutor;
+        this.taskClaims = new ClaimQueue<>(taskService::claimTasks, this::runTask);
+        this.workflowClaims = new ClaimQueue<>(workflowService::claimWorkflows, this::runWorkflow);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (workerMode) {
+            log.info("Worker mode, not scheduling tasks on this node");
+            return;
+        }
+        fireExecutor = Executors.newFixedThreadPool(fireThreads, new CustomizableThreadFactory("Wheel-Fire-"));
+        wheel = new HierarchicalTimingWheel(tickMs, wheelSize, fireExecutor);
+        driver = taskScheduler.scheduleWithFixedDelay(() -> wheel.advanceClock(pollTimeoutMs), 1);
+        resyncJob = taskScheduler.scheduleWithFixedDelay(this::resync, resyncIntervalMs);
+        log.info("Timing wheel dispatcher started with tick {}ms and {} buckets", tickMs, wheelSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (resyncJob != null) {
+            resyncJob.cancel(false);
+        }
+        if (driver != null) {
+            driver.cancel(false);
+        }
+        entries.values().forEach(entry -> entry.timerEntry.cancel());
+        entries.clear();
+        if (fireExecutor != null) {
+            fireExecutor.shutdownNow();
+        }
+    }
+
+    @EventListener(PartitionChangedEvent.class)
+    public void onPartitionChanged() {
+        if (wheel != null) {
+            taskExecutor.execute(this::resync);
+        }
+    }
+
+    /**
+     * Reload scheduled definitions and make sure each one owned by this node has a wheel entry
+     */
+    public void resync() {
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> scheduledKeys = new HashSet<>();
+        try {
+            // Only this node's slice is read; the partition filter runs in the query
+            Set<Integer> taskBuckets = partitioner.getOwnedTaskBuckets();
+            List<Task> tasks = taskBuckets == null
+                ? taskDao.findScheduledTasks(now)
+                : taskDao.findScheduledTasks(now, ClusterPartitioner.PARTITION_BUCKETS, taskBuckets);
+            Map<Long, List<LocalDateTime>> nextFireTimes = cronScheduleCache.nextFireTimes(tasks, now, 1);
+            for (Task task : tasks) {
+                List<LocalDateTime> times = nextFireTimes.get(task.getId());
+                scheduleTaskAt(task, times != null ? times.get(0) : null);
+                scheduledKeys.add(TASK_KEY_PREFIX + task.getId());
+            }
+            Set<Integer> workflowBuckets = partitioner.getOwnedWorkflowBuckets();
+            List<Workflow> workflows = workflowBuckets == null
+                ? workflowDao.findScheduledWorkflows(now)
+                : workflowDao.findScheduledWorkflows(now, ClusterPartitioner.PARTITION_BUCKETS, workflowBuckets);
+            for (Workflow workflow : workflows) {
+                scheduleWorkflow(workflow);
+                scheduledKeys.add(WORKFLOW_KEY_PREFIX + workflow.getId());
+            }
+
+            // Drop entries whose definitions are no longer scheduled
+            new ArrayList<>(entries.keySet()).stream()
+                .filter(key -> !scheduledKeys.contains(key))
+                .forEach(this::cancel);
+            log.debug("Timing wheel resynced, {} entries pending", wheel.size());
+        } catch (Exception e) {
+            log.error("Failed to resync timing wheel: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Schedule the next occurrence of a task, replacing any pending entry
+     */
+    public void scheduleTask(Task task) {
+        scheduleTaskAt(task, nextFireTime(task.getCron(), LocalDateTime.now()));
+    }
+
+    private void scheduleTaskAt(Task task, LocalDateTime next) {
+        if (next == null || task.hasExpired(next)) {
+            cancelTask(task.getId());
+            return;
+        }
+        schedule(TASK_KEY_PREFIX + task.getId(), next, () -> fireTask(task, next));
+    }
+
+    /**
+     * Schedule the next occurrence of a workflow, replacing any pending entry
+     */
+    public void scheduleWorkflow(Workflow workflow) {
+        scheduleWorkflowAt(workflow, nextFireTime(workflow.getCron(), LocalDateTime.now()));
+    }
+
+    private void scheduleWorkflowAt(Workflow workflow, LocalDateTime next) {
+        if (next == null || workflow.hasExpired(next)) {
+            cancelWorkflow(workflow.getId());
+            return;
+        }
+        schedule(WORKFLOW_KEY_PREFIX + workflow.getId(), next, () -> fireWorkflow(workflow, next));
+    }
+
+    public void cancelTask(Long taskId) {
+        cancel(TASK_KEY_PREFIX + taskId);
+    }
+
+    public void cancelWorkflow(Long workflowId) {
+        cancel(WORKFLOW_KEY_PREFIX + workflowId);
+    }
+
+    /**
+     * Number of entries currently held by the wheel
+     */
+    public int getPendingCount() {
+        return wheel != null ? wheel.size() : 0;
+    }
+
+    private void schedule(String key, LocalDateTime fireTime, Runnable action) {
+        if (wheel == null) {
+            return;
+        }
+        entries.compute(key, (k, existing) -> {
+            if (existing != null && existing.fireTime.equals(fireTime) && !existing.timerEntry.isCancelled()) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.timerEntry.cancel();
+            }
+            long epochMs = fireTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return new ScheduledEntry(fireTime, wheel.schedule(epochMs, action));
+        });
+    }
+
+    private void cancel(String key) {
+        ScheduledEntry entry = entries.remove(key);
+        if (entry != null) {
+            entry.timerEntry.cancel();
+        }
+    }
+
+    /**
+     * Drop the bookkeeping for an entry that has fired, unless a resync already replaced it
+     */
+    private void release(String key, LocalDateTime fireTime) {
+        entries.computeIfPresent(key, (k, existing) -> existing.fireTime.equals(fireTime) ? null : existing);
+    }
+
+    private void fireTask(Task snapshot, LocalDateTime fireTime) {
+        release(TASK_KEY_PREFIX + snapshot.getId(), fireTime);
+
+        // Queue the next occurrence before running so slow executions don't drift the schedule
+        scheduleTaskAt(snapshot, nextFireTime(snapshot.getCron(), fireTime));
+
+        if (claimEnabled) {
+            taskClaims.request(snapshot.getId());
+            return;
+        }
+
+        Task task = taskService.findById(snapshot.getId());
+        if (task == null) {
+            cancelTask(snapshot.getId());
+            return;
+        }
+        runTask(task);
+    }
+
+    private void fireWorkflow(Workflow snapshot, LocalDateTime fireTime) {
+        release(WORKFLOW_KEY_PREFIX + snapshot.getId(), fireTime);
+
+        scheduleWorkflowAt(snapshot, nextFireTime(snapshot.getCron(), fireTime));
+
+        if (claimEnabled) {
+            workflowClaims.request(snapshot.getId());
+            return;
+        }
+
+        Workflow workflow = workflowService.findById(snapshot.getId());
+        if (workflow == null) {
+            cancelWorkflow(snapshot.getId());
+            return;
+        }
+        runWorkflow(workflow);
+    }
+
+    private void runTask(Task task) {
+        if (microBatcher.accepts(task)) {
+            microBatcher.add(task);
+            return;
+        }
+        try {
+            taskService.executeTask(task, SYSTEM_OPERATOR);
+        } catch (Exception e) {
+            log.error("Failed to execute task {}: {}", task.getId(), e.getMessage());
+        }
+    }
+
+    private void runWorkflow(Workflow workflow) {
+        try {
+            workflowService.executeWorkflow(workflow, SYSTEM_OPERATOR);
+        } catch (Exception e) {
+            log.error("Failed to execute workflow {}: {}", workflow.getId(), e.getMessage());
+        }
+    }
+
+    private LocalDateTime nextFireTime(String cron, LocalDateTime from) {
+        if (cron == null || cron.isBlank()) {
+            return null;
+        }
+        try {
+            return cronScheduleCache.next(cron, from);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid cron expression '{}': {}", cron, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Collects IDs fired in the same tick and claims them in batches.
+     * At most one drain runs at a time, on the fire pool; claimed items run on the
+     * task executor.
+     */
+    private class ClaimQueue<T> {
+        private final Queue<Long> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Function<List<Long>, List<T>> claimer;
+        private final Consumer<T> runner;
+
+        ClaimQueue(Function<List<Long>, List<T>> claimer, Consumer<T> runner) {
+            this.claimer = claimer;
+            this.runner = runner;
+        }
+
+        void request(Long id) {
+            pending.offer(id);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                fireExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                List<Long> batch = nextBatch();
+                while (!batch.isEmpty()) {
+                    for (T claimed : claimer.apply(batch)) {
+                        taskExecutor.execute(() -> runner.accept(claimed));
+                    }
+                    batch = nextBatch();
+                }
+            } catch (Exception e) {
+                log.error("Failed to claim fired entries: {}", e.getMessage());
+            } finally {
+                draining.set(false);
+                if (!pending.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+
+        private List<Long> nextBatch() {
+            List<Long> batch = new ArrayList<>(claimBatchSize);
+            Long id;
+            while (batch.size() < claimBatchSize && (id = pending.poll()) != null) {
+                batch.add(id);
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Fire time and wheel entry for a scheduled resource
+     */
+    private static class ScheduledEntry {
+        private final LocalDateTime fireTime;
+        private final HierarchicalTimingWheel.TimerEntry timerEntry;
+
+        ScheduledEntry(LocalDateTime fireTime, HierarchicalTimingWheel.TimerEntry timerEntry) {
+            this.fireTime = fireTime;
+            this.timerEntry = timerEntry;
+        }
+    }
+}
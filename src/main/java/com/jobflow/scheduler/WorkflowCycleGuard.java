@@ -0,0 +1,142 @@
+package com.jobflow.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Workflow Cycle Guard
+ *
+ * Keeps a {@link DynamicTopologicalOrder} per workflow so a new dependency can be
+ * checked for cycles before it is written, in time proportional to the part of the
+ * graph it reorders. Orders are kept in a bounded LRU map together with the workflow
+ * structure version they reflect.
+ *
+ * Callers bump the structure version in their transaction before using the guard. The
+ * row lock taken by the bump serializes structure changes to a workflow across nodes,
+ * and an order is only trusted if it reflects the version right before the caller's
+ * bump; otherwise it is rebuilt from the rows the caller now sees. A dependency accepted
+ * here becomes part of the order for good only when its transaction commits; after a
+ * rollback the order is dropped.
+ */
+@Slf4j
+@Component
+public class WorkflowCycleGuard {
+
+    private final Map<Long, Entry> orders;
+
+    public WorkflowCycleGuard(@Value("${scheduler.cycle-guard.max-size}") int maxSize) {
+        this.orders = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Add a dependency to the workflow's order unless it would close a cycle. If it is
+     * accepted, the caller reports the end of its transaction through {@link #dependencyAdded}.
+     * @param structureVersion Version the caller's transaction bumped the workflow to
+     * @param plan Supplies the plan the caller's transaction sees, if the order has to be built
+     * @return false if the dependency would create a cycle
+     */
+    public boolean tryAddDependency(Long workflowId, long structureVersion, Long sourceTaskId, Long targetTaskId,
+                                    Supplier<WorkflowPlan> plan) {
+        Entry entry = getEntry(workflowId, structureVersion - 1, plan);
+        synchronized (entry) {
+            if (!entry.order.tryAddEdge(sourceTaskId, targetTaskId)) {
+                return false;
+            }
+            entry.pending = true;
+            return true;
+        }
+    }
+
+    /**
+     * Settle a dependency accepted by {@link #tryAddDependency} once its transaction ended
+     */
+    public void dependencyAdded(Long workflowId, long structureVersion, boolean committed) {
+        Entry entry = orders.get(workflowId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (committed && entry.pending && entry.structureVersion == structureVersion - 1) {
+                entry.structureVersion = structureVersion;
+                entry.pending = false;
+            } else {
+                // The reserved edge never made it to the database
+                orders.remove(workflowId, entry);
+            }
+        }
+    }
+
+    /**
+     * Apply a committed dependency removal to the workflow's order
+     */
+    public void dependencyRemoved(Long workflowId, long structureVersion, Long sourceTaskId, Long targetTaskId) {
+        Entry entry = orders.get(workflowId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (!entry.pending && entry.structureVersion == structureVersion - 1) {
+                if (sourceTaskId != null) {
+                    entry.order.removeEdge(sourceTaskId, targetTaskId);
+                }
+                entry.structureVersion = structureVersion;
+            } else {
+                orders.remove(workflowId, entry);
+            }
+        }
+    }
+
+    /**
+     * Move the workflow's order past a committed task addition, which adds no edges
+     */
+    public void taskAdded(Long workflowId, long structureVersion) {
+        dependencyRemoved(workflowId, structureVersion, null, null);
+    }
+
+    /**
+     * Drop the order of a workflow, e.g. after one of its tasks was removed
+     */
+    public void invalidate(Long workflowId) {
+        orders.remove(workflowId);
+    }
+
+    /**
+     * Order reflecting the given version, rebuilt if the cached one is of another version
+     */
+    private Entry getEntry(Long workflowId, long structureVersion, Supplier<WorkflowPlan> plan) {
+        Entry entry = orders.get(workflowId);
+        if (entry != null && entry.structureVersion == structureVersion && !entry.pending) {
+            return entry;
+        }
+
+        DynamicTopologicalOrder order = DynamicTopologicalOrder.of(plan.get());
+        entry = new Entry(order, structureVersion);
+        orders.put(workflowId, entry);
+        log.debug("Built dependency order of workflow {} at version {} with {} tasks",
+            workflowId, structureVersion, order.size());
+        return entry;
+    }
+
+    private static class Entry {
+        private final DynamicTopologicalOrder order;
+        private long structureVersion;
+        // An edge was added by a transaction that has not ended yet
+        private boolean pending;
+
+        Entry(DynamicTopologicalOrder order, long structureVersion) {
+            this.order = order;
+            this.structureVersion = structureVersion;
+        }
+    }
+}
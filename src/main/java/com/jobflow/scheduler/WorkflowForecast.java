@@ -0,0 +1,33 @@
+package com.jobflow.scheduler;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projected completion of a workflow run, from the p50 and p90 durations of its
+ * unfinished tasks along the dependency graph
+ */
+@Data
+public class WorkflowForecast {
+    private Long workflowId;
+    private boolean running;
+    private double progress;
+    // Completion if every unfinished task takes its p50 duration
+    private LocalDateTime estimatedCompletionTime;
+    // Completion if every unfinished task takes its p90 duration
+    private LocalDateTime pessimisticCompletionTime;
+    private long remainingMs;
+    // Start plus the workflow timeout; null without a timeout
+    private LocalDateTime deadline;
+    // The p90 projection misses the deadline
+    private boolean slaAtRisk;
+    // Unfinished task IDs on the longest remaining path, in execution order
+    private List<Long> criticalPath = new ArrayList<>();
+    // Slack in milliseconds of each unfinished task: how much it may overrun without delaying the run
+    private Map<Long, Long> slackMs = new LinkedHashMap<>();
+}
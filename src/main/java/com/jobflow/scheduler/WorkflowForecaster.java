@@ -0,0 +1,179 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Workflow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Workflow Forecaster
+ *
+ * Keeps a {@link RunForecast} for every workflow running on this node, fed with task
+ * starts and completions, and publishes it as gauges so projected SLA misses can be
+ * alerted on before they happen. Each run exports jobflow.workflow.eta.remaining and,
+ * if the workflow has a timeout, jobflow.workflow.sla.margin (deadline minus the p90
+ * projection; negative means a projected miss), both tagged with the workflow ID.
+ * jobflow.workflow.sla.at-risk counts the runs projected to miss their deadline.
+ */
+@Slf4j
+@Component
+public class WorkflowForecaster {
+
+    private final TaskDurationStats durationStats;
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, Forecast> forecasts = new ConcurrentHashMap<>();
+
+    @Value("${workflow.eta.enabled}")
+    private boolean enabled;
+
+    @Autowired
+    public WorkflowForecaster(TaskDurationStats durationStats, MeterRegistry meterRegistry) {
+        this.durationStats = durationStats;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("jobflow.workflow.sla.at-risk", this, WorkflowForecaster::countAtRisk)
+            .description("Running workflows whose p90 projected completion misses their deadline")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Start forecasting a run
+     */
+    public void start(WorkflowRun run) {
+        if (!enabled) {
+            return;
+        }
+        Workflow workflow = run.getWorkflow();
+        try {
+            RunForecast forecast = build(workflow, run.getPlan(), run);
+            Forecast previous = forecasts.put(workflow.getId(), register(workflow.getId(), forecast));
+            if (previous != null) {
+                unregister(previous);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to start forecast of workflow {}: {}", workflow.getId(), e.getMessage());
+        }
+    }
+
+    public void taskStarted(Long workflowId, Long taskId) {
+        Forecast forecast = forecasts.get(workflowId);
+        if (forecast != null) {
+            int index = forecast.run.getPlan().indexOf(taskId);
+            if (index >= 0) {
+                forecast.run.taskStarted(index, System.currentTimeMillis());
+            }
+        }
+    }
+
+    public void taskFinished(Long workflowId, Long taskId) {
+        Forecast forecast = forecasts.get(workflowId);
+        if (forecast != null) {
+            int index = forecast.run.getPlan().indexOf(taskId);
+            if (index >= 0) {
+                forecast.run.taskFinished(index, System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * Stop forecasting a run that ended
+     */
+    public void stop(Long workflowId) {
+        Forecast forecast = forecasts.remove(workflowId);
+        if (forecast != null) {
+            unregister(forecast);
+        }
+    }
+
+    /**
+     * Current projection of a running workflow, or null if it is not running on this node
+     */
+    public WorkflowForecast forecast(Long workflowId) {
+        Forecast forecast = forecasts.get(workflowId);
+        if (forecast == null) {
+            return null;
+        }
+        WorkflowForecast snapshot = forecast.run.snapshot(System.currentTimeMillis());
+        snapshot.setRunning(true);
+        return snapshot;
+    }
+
+    /**
+     * Projection of a full run of a workflow started now
+     */
+    public WorkflowForecast forecast(Workflow workflow, WorkflowPlan plan) {
+        return build(workflow, plan, null).snapshot(System.currentTimeMillis());
+    }
+
+    private RunForecast build(Workflow workflow, WorkflowPlan plan, WorkflowRun run) {
+        long[] p50 = new long[plan.size()];
+        long[] p90 = new long[plan.size()];
+        durationStats.estimate(plan, p50, p90);
+
+        boolean[] included = null;
+        if (run != null) {
+            included = new boolean[plan.size()];
+            for (int i = 0; i < included.length; i++) {
+                included[i] = run.includes(i);
+            }
+        }
+        long timeoutMs = workflow.getTimeout() != null ? workflow.getTimeout() : 0;
+        return new RunForecast(plan, included, p50, p90, System.currentTimeMillis(), timeoutMs);
+    }
+
+    private Forecast register(Long workflowId, RunForecast run) {
+        List<Meter> meters = new ArrayList<>();
+        meters.add(Gauge.builder("jobflow.workflow.eta.remaining", run,
+                r -> Math.max(0, r.getEstimatedFinishMs(System.currentTimeMillis()) - System.currentTimeMillis()))
+            .description("Projected time until the workflow run completes, from p50 task durations")
+            .tag("workflowId", String.valueOf(workflowId))
+            .baseUnit("milliseconds")
+            .register(meterRegistry));
+        if (run.getDeadlineMs() > 0) {
+            meters.add(Gauge.builder("jobflow.workflow.sla.margin", run,
+                    r -> r.getSlaMarginMs(System.currentTimeMillis()))
+                .description("Deadline minus the p90 projected completion; negative means a projected miss")
+                .tag("workflowId", String.valueOf(workflowId))
+                .baseUnit("milliseconds")
+                .register(meterRegistry));
+        }
+        return new Forecast(run, meters);
+    }
+
+    private void unregister(Forecast forecast) {
+        forecast.meters.forEach(meterRegistry::remove);
+    }
+
+    private double countAtRisk() {
+        long now = System.currentTimeMillis();
+        return forecasts.values().stream()
+            .filter(forecast -> forecast.run.getSlaMarginMs(now) < 0)
+            .count();
+    }
+
+    /**
+     * Forecast of a run with the gauges registered for it
+     */
+    private static class Forecast {
+        private final RunForecast run;
+        private final List<Meter> meters;
+
+        Forecast(RunForecast run, List<Meter> meters) {
+            this.run = run;
+            this.meters = meters;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.domain.WorkflowDependency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Workflow Plan
+ *
+ * Immutable compiled form of a workflow's dependency graph: tasks are numbered
+ * 0..n-1, and the plan holds their topological order, the roots, the successor and
+ * predecessor lists and the type of every edge. It holds only the structure, not the
+ * task rows, so one plan can serve every run of the workflow until tasks or
+ * dependencies change. Dependencies whose source or target is not a task of the
+ * workflow are ignored.
+ *
+ * The graph is stored in compressed sparse row form over primitive arrays: task i's
+ * successors are successorTargets[successorOffsets[i]..successorOffsets[i+1]), and
+ * likewise for predecessors. Task IDs are remapped to indexes through a sorted long
+ * array, so a plan of 100k tasks is a handful of arrays rather than maps of boxed keys.
+ */
+public final class WorkflowPlan {
+
+    private final Long workflowId;
+    // Sorted, so a task's index is found by binary search
+    private final long[] taskIds;
+    private final int[] order;
+    private final int rootCount;
+    private final int[] successorOffsets;
+    private final int[] successorTargets;
+    // Parallel to successorTargets
+    private final boolean[] successRequired;
+    private final int[] predecessorOffsets;
+    private final int[] predecessorSources;
+
+    private WorkflowPlan(Long workflowId, long[] taskIds, int[] order, int rootCount,
+                         int[] successorOffsets, int[] successorTargets, boolean[] successRequired,
+                         int[] predecessorOffsets, int[] predecessorSources) {
+        this.workflowId = workflowId;
+        this.taskIds = taskIds;
+        this.order = order;
+        this.rootCount = rootCount;
+        this.successorOffsets = successorOffsets;
+        this.successorTargets = successorTargets;
+        this.successRequired = successRequired;
+        this.predecessorOffsets = predecessorOffsets;
+        this.predecessorSources = predecessorSources;
+    }
+
+    /**
+     * Compile the plan of a workflow
+     * @throws IllegalStateException if the dependencies contain a cycle
+     */
+    public static WorkflowPlan compile(Long workflowId, Collection<Task> tasks,
+                                       Collection<WorkflowDependency> dependencies) {
+        long[] sorted = new long[tasks.size()];
+        int count = 0;
+        for (Task task : tasks) {
+            sorted[count++] = task.getId();
+        }
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (n == 0 || sorted[i] != sorted[n - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        long[] taskIds = n < sorted.length ? Arrays.copyOf(sorted, n) : sorted;
+
+        // First pass: resolve endpoints and count degrees
+        int[] sources = new int[dependencies.size()];
+        int[] targets = new int[dependencies.size()];
+        boolean[] required = new boolean[dependencies.size()];
+        int[] successorOffsets = new int[n + 1];
+        int[] predecessorOffsets = new int[n + 1];
+        int m = 0;
+        for (WorkflowDependency dependency : dependencies) {
+            int source = indexOf(taskIds, dependency.getSourceTaskId());
+            int target = indexOf(taskIds, dependency.getTargetTaskId());
+            if (source < 0 || target < 0) {
+                continue;
+            }
+            sources[m] = source;
+            targets[m] = target;
+            required[m] = dependency.getType() != WorkflowDependency.DependencyType.COMPLETION_REQUIRED;
+            successorOffsets[source + 1]++;
+            predecessorOffsets[target + 1]++;
+            m++;
+        }
+        for (int i = 0; i < n; i++) {
+            successorOffsets[i + 1] += successorOffsets[i];
+            predecessorOffsets[i + 1] += predecessorOffsets[i];
+        }
+
+        // Second pass: scatter the edges into their rows
+        int[] successorTargets = new int[m];
+        boolean[] successRequired = new boolean[m];
+        int[] predecessorSources = new int[m];
+        int[] outFill = Arrays.copyOf(successorOffsets, n);
+        int[] inFill = Arrays.copyOf(predecessorOffsets, n);
+        for (int e = 0; e < m; e++) {
+            int slot = outFill[sources[e]]++;
+            successorTargets[slot] = targets[e];
+            successRequired[slot] = required[e];
+            predecessorSources[inFill[targets[e]]++] = sources[e];
+        }
+
+        // Kahn's algorithm over the in-degrees; tasks left unvisited are on a cycle
+        int[] remaining = new int[n];
+        for (int i = 0; i < n; i++) {
+            remaining[i] = predecessorOffsets[i + 1] - predecessorOffsets[i];
+        }
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (remaining[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        int rootCount = tail;
+        while (head < tail) {
+            int task = order[head++];
+            for (int e = successorOffsets[task]; e < successorOffsets[task + 1]; e++) {
+                if (--remaining[successorTargets[e]] == 0) {
+                    order[tail++] = successorTargets[e];
+                }
+            }
+        }
+        if (tail != n) {
+            throw new IllegalStateException("Workflow " + workflowId + " has a dependency cycle");
+        }
+
+        return new WorkflowPlan(workflowId, taskIds, order, rootCount, successorOffsets, successorTargets,
+            successRequired, predecessorOffsets, predecessorSources);
+    }
+
+    private static int indexOf(long[] taskIds, Long taskId) {
+        if (taskId == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(taskIds, taskId);
+        return index >= 0 ? index : -1;
+    }
+
+    public Long getWorkflowId() {
+        return workflowId;
+    }
+
+    public int size() {
+        return taskIds.length;
+    }
+
+    public int getEdgeCount() {
+        return successorTargets.length;
+    }
+
+    public long getTaskId(int index) {
+        return taskIds[index];
+    }
+
+    /**
+     * Index of a task in the plan, or -1 if it is not part of it
+     */
+    public int indexOf(Long taskId) {
+        return indexOf(taskIds, taskId);
+    }
+
+    /**
+     * Whether the plan was compiled for exactly this set of tasks
+     */
+    public boolean covers(Collection<Task> tasks) {
+        if (tasks.size() != taskIds.length) {
+            return false;
+        }
+        for (Task task : tasks) {
+            if (indexOf(task.getId()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Task IDs in topological order
+     */
+    public List<Long> getTopologicalOrder() {
+        List<Long> ids = new ArrayList<>(order.length);
+        for (int index : order) {
+            ids.add(taskIds[index]);
+        }
+        return Collections.unmodifiableList(ids);
+    }
+
+    public List<Long> getRootTaskIds() {
+        List<Long> ids = new ArrayList<>(rootCount);
+        for (int i = 0; i < rootCount; i++) {
+            ids.add(taskIds[order[i]]);
+        }
+        return Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * Indexes of the tasks reachable from a task, the task included
+     */
+    public BitSet reachableFrom(int index) {
+        BitSet reached = new BitSet(taskIds.length);
+        int[] stack = new int[taskIds.length];
+        int top = 0;
+        stack[top++] = index;
+        reached.set(index);
+        while (top > 0) {
+            int task = stack[--top];
+            for (int e = successorOffsets[task]; e < successorOffsets[task + 1]; e++) {
+                int successor = successorTargets[e];
+                if (!reached.get(successor)) {
+                    reached.set(successor);
+                    stack[top++] = successor;
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Arrange task rows by their plan index
+     * @return Array of size(); slots of tasks missing from the collection are null
+     */
+    public Task[] align(Collection<Task> tasks) {
+        Task[] aligned = new Task[taskIds.length];
+        for (Task task : tasks) {
+            int index = indexOf(task.getId());
+            if (index >= 0) {
+                aligned[index] = task;
+            }
+        }
+        return aligned;
+    }
+
+    // Primitive accessors for the run engine; callers must not modify the returned arrays
+
+    int[] order() {
+        return order;
+    }
+
+    /**
+     * First edge of a task's successor row; the row ends at successorStart(index + 1)
+     */
+    int successorStart(int index) {
+        return successorOffsets[index];
+    }
+
+    int successorAt(int edge) {
+        return successorTargets[edge];
+    }
+
+    /**
+     * Whether an edge needs its source to succeed, as opposed to merely finish
+     */
+    boolean isSuccessRequired(int edge) {
+        return successRequired[edge];
+    }
+
+    /**
+     * First edge of a task's predecessor row; the row ends at predecessorStart(index + 1)
+     */
+    int predecessorStart(int index) {
+        return predecessorOffsets[index];
+    }
+
+    int predecessorAt(int edge) {
+        return predecessorSources[edge];
+    }
+
+    int predecessorCount(int index) {
+        return predecessorOffsets[index + 1] - predecessorOffsets[index];
+    }
+}
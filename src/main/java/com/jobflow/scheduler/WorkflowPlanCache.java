@@ -0,0 +1,92 @@
+package com.jobflow.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Workflow Plan Cache
+ *
+ * Bounded LRU cache of compiled workflow plans, keyed by workflow ID and the
+ * workflow's persisted structure version. Every change to a workflow's tasks or
+ * dependencies bumps that version in the same transaction, so a plan is only reused
+ * for the exact structure it was compiled from, whichever node made the change.
+ * Invalidation after a local commit only frees the stale entry early.
+ */
+@Slf4j
+@Component
+public class WorkflowPlanCache {
+
+    private final Map<Long, Entry> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public WorkflowPlanCache(@Value("${scheduler.plan-cache.max-size}") int maxSize) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Get the plan of a workflow at a structure version, compiling it on a miss
+     * @param structureVersion Version read no later than the rows the compiler reads
+     * @param compiler Compiles the plan; exceptions it throws propagate and nothing is cached
+     */
+    public WorkflowPlan get(Long workflowId, long structureVersion, Supplier<WorkflowPlan> compiler) {
+        Entry entry = cache.get(workflowId);
+        if (entry != null && entry.structureVersion == structureVersion) {
+            hits.incrementAndGet();
+            return entry.plan;
+        }
+
+        misses.incrementAndGet();
+        WorkflowPlan plan = compiler.get();
+        synchronized (cache) {
+            // A caller that read a newer version may have stored its plan meanwhile
+            Entry current = cache.get(workflowId);
+            if (current == null || current.structureVersion < structureVersion) {
+                cache.put(workflowId, new Entry(plan, structureVersion));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Drop the plan of a workflow whose tasks or dependencies changed
+     */
+    public void invalidate(Long workflowId) {
+        cache.remove(workflowId);
+        log.debug("Invalidated plan of workflow {}", workflowId);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static class Entry {
+        private final WorkflowPlan plan;
+        private final long structureVersion;
+
+        Entry(WorkflowPlan plan, long structureVersion) {
+            this.plan = plan;
+            this.structureVersion = structureVersion;
+        }
+    }
+}
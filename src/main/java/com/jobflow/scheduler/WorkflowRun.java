@@ -0,0 +1,253 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.domain.Workflow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Workflow Run
+ *
+ * In-memory state of one workflow execution over a compiled {@link WorkflowPlan}. The
+ * run keeps, per task, a counter of upstream tasks that have not finished yet. When a
+ * task finishes, the counter of each successor is decremented atomically, and
+ * successors reaching zero are returned as ready. Checking dependencies is
+ * O(out-degree) and reads nothing from the database.
+ *
+ * A task whose dependency can no longer be satisfied, because a SUCCESS_REQUIRED
+ * upstream failed or any upstream was skipped, is skipped instead of run. Skips
+ * propagate through the graph the same way. A run may cover only part of the plan; then
+ * only dependencies between tasks of that part count.
+ */
+public class WorkflowRun {
+
+    public enum Outcome {
+        SUCCEEDED,
+        FAILED,
+        SKIPPED
+    }
+
+    private final Workflow workflow;
+    private final String operator;
+    private final WorkflowPlan plan;
+    // Task rows by plan index; null for tasks outside the run
+    private final Task[] tasks;
+    private final boolean[] included;
+    private final AtomicIntegerArray unfinishedUpstream;
+    // 1 once an upstream outcome rules the task out
+    private final AtomicIntegerArray blocked;
+    private final AtomicIntegerArray finished;
+    private final AtomicInteger unfinishedTasks;
+    private final int taskCount;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final Set<Long> runningTasks = ConcurrentHashMap.newKeySet();
+    private final boolean failuresSatisfy;
+
+    private WorkflowRun(Workflow workflow, String operator, WorkflowPlan plan, Task[] tasks, boolean[] included) {
+        this.workflow = workflow;
+        this.operator = operator;
+        this.plan = plan;
+        this.tasks = tasks;
+        this.included = included;
+        this.failuresSatisfy = workflow.shouldSkipFailedTasks();
+
+        int n = plan.size();
+        int count = 0;
+        for (boolean member : included) {
+            if (member) {
+                count++;
+            }
+        }
+        int[] inDegree = new int[n];
+        if (count == n) {
+            // Whole plan: the in-degrees are the plan's own
+            for (int i = 0; i < n; i++) {
+                inDegree[i] = plan.predecessorCount(i);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                if (!included[i]) {
+                    continue;
+                }
+                for (int e = plan.successorStart(i); e < plan.successorStart(i + 1); e++) {
+                    if (included[plan.successorAt(e)]) {
+                        inDegree[plan.successorAt(e)]++;
+                    }
+                }
+            }
+        }
+        this.unfinishedUpstream = new AtomicIntegerArray(inDegree);
+        this.blocked = new AtomicIntegerArray(n);
+        this.finished = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            if (!included[i]) {
+                finished.set(i, 1);
+            }
+        }
+        this.taskCount = count;
+        this.unfinishedTasks = new AtomicInteger(count);
+    }
+
+    /**
+     * Start a run of the whole plan
+     * @param tasks Current task rows of the workflow; tasks missing from the plan are ignored
+     */
+    public static WorkflowRun start(Workflow workflow, String operator, WorkflowPlan plan, Collection<Task> tasks) {
+        return start(workflow, operator, plan, tasks, null);
+    }
+
+    /**
+     * Start a run of part of the plan
+     * @param subset Plan indexes of the tasks to run, or null for all
+     */
+    public static WorkflowRun start(Workflow workflow, String operator, WorkflowPlan plan, Collection<Task> tasks,
+                                    BitSet subset) {
+        Task[] aligned = plan.align(tasks);
+        boolean[] included = new boolean[plan.size()];
+        for (int i = 0; i < included.length; i++) {
+            // A task deleted since its row was read can't run
+            included[i] = aligned[i] != null && (subset == null || subset.get(i));
+        }
+        return new WorkflowRun(workflow, operator, plan, aligned, included);
+    }
+
+    /**
+     * Tasks with no upstream task in the run
+     */
+    public List<Task> getRootTasks() {
+        List<Task> roots = new ArrayList<>();
+        for (int i : plan.order()) {
+            if (included[i] && unfinishedUpstream.get(i) == 0) {
+                roots.add(tasks[i]);
+            }
+        }
+        return roots;
+    }
+
+    public boolean contains(Long taskId) {
+        int index = plan.indexOf(taskId);
+        return index >= 0 && included[index];
+    }
+
+    public void markTaskAsRunning(Long taskId) {
+        runningTasks.add(taskId);
+    }
+
+    /**
+     * Record the outcome of a task
+     * @return Tasks that became ready to run; tasks that became impossible are skipped
+     *         and reported through the skipped list
+     */
+    public List<Task> markTaskAsFinished(Long taskId, boolean succeeded, List<Task> skipped) {
+        List<Task> ready = new ArrayList<>();
+        int index = plan.indexOf(taskId);
+        if (index < 0 || !included[index]) {
+            return ready;
+        }
+        runningTasks.remove(taskId);
+
+        Deque<Integer> skips = new ArrayDeque<>();
+        if (!finish(index, succeeded || failuresSatisfy ? Outcome.SUCCEEDED : Outcome.FAILED, ready, skips)) {
+            return ready;
+        }
+        if (!succeeded) {
+            failures.incrementAndGet();
+        }
+        // Iterative, so a long chain of skips can't overflow the stack
+        while (!skips.isEmpty()) {
+            int skippedIndex = skips.pop();
+            skipped.add(tasks[skippedIndex]);
+            finish(skippedIndex, Outcome.SKIPPED, ready, skips);
+        }
+        return ready;
+    }
+
+    /**
+     * @return false for a duplicate completion, which changes nothing
+     */
+    private boolean finish(int index, Outcome outcome, List<Task> ready, Deque<Integer> skips) {
+        if (!finished.compareAndSet(index, 0, 1)) {
+            // Duplicate completion, e.g. a late event for a task already counted
+            return false;
+        }
+        int end = plan.successorStart(index + 1);
+        for (int e = plan.successorStart(index); e < end; e++) {
+            int successor = plan.successorAt(e);
+            if (!included[successor]) {
+                continue;
+            }
+            boolean satisfied = outcome == Outcome.SUCCEEDED
+                || (outcome == Outcome.FAILED && !plan.isSuccessRequired(e));
+            if (!satisfied) {
+                // Set before the decrement, so whoever decrements last sees it
+                blocked.set(successor, 1);
+            }
+            if (unfinishedUpstream.decrementAndGet(successor) == 0) {
+                if (blocked.get(successor) == 1) {
+                    skips.push(successor);
+                } else {
+                    ready.add(tasks[successor]);
+                }
+            }
+        }
+        unfinishedTasks.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Whether every task of the run has finished or been skipped
+     */
+    public boolean isFinished() {
+        return unfinishedTasks.get() == 0;
+    }
+
+    /**
+     * Whether any task failed, or was skipped because of a failure
+     */
+    public boolean hasFailures() {
+        return failures.get() > 0;
+    }
+
+    public Workflow getWorkflow() {
+        return workflow;
+    }
+
+    public WorkflowPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Operator who started the run, used for the updates it makes
+     */
+    public String getOperator() {
+        return operator;
+    }
+
+    public Set<Long> getRunningTasks() {
+        return runningTasks;
+    }
+
+    /**
+     * Whether the task at a plan index is part of the run
+     */
+    boolean includes(int index) {
+        return included[index];
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public double getProgress() {
+        return taskCount == 0 ? 0.0 : (double) (taskCount - unfinishedTasks.get()) / taskCount * 100;
+    }
+}
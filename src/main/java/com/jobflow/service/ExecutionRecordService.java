@@ -15,6 +15,20 @@ public interface ExecutionRecordService extends BaseService<ExecutionRecord> {
     ExecutionRecord createTaskExecution(Task task, String executor, String executorIp, 
                                       ExecutionRecord.TriggerType triggerType, String triggerInfo);
 
+    ExecutionRecord createTaskExecution(Task task, int retryCount, String executor, String executorIp,
+                                      ExecutionRecord.TriggerType triggerType, String triggerInfo);
+
+    /**
+     * Create already-started execution records for a batch of tasks with one JDBC batch
+     */
+    List<ExecutionRecord> startTaskExecutions(List<Task> tasks, String executor, String executorIp,
+                                              ExecutionRecord.TriggerType triggerType, String triggerInfo);
+
+    /**
+     * Write the outcome of finished executions with one JDBC batch
+     */
+    void finishExecutions(List<ExecutionRecord> records);
+
     ExecutionRecord createWorkflowExecution(Workflow workflow, String executor, String executorIp, 
                                           ExecutionRecord.TriggerType triggerType, String triggerInfo);
 
@@ -60,6 +74,14 @@ public interface ExecutionRecordService extends BaseService<ExecutionRecord> {
 
     ExecutionRecord timeoutExecution(String executionId);
 
+    /**
+     * Drop the records of executions that were deferred before they ran, so a task
+     * waiting for room leaves no record per attempt
+     */
+    void discardExecutions(List<String> executionIds);
+
+    void recordResourceUsage(String executionId, String resourceUsage);
+
     double getSuccessRate(ExecutionRecord.ExecutionType type, LocalDateTime start, LocalDateTime end);
 
     Map<String, Object> getExecutionTrend(ExecutionRecord.ExecutionType type, 
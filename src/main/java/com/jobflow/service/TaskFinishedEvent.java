@@ -0,0 +1,35 @@
+package com.jobflow.service;
+
+import com.jobflow.domain.Task;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when a task execution has reached its final outcome: completed, failed
+ * with no retry left, timed out or cancelled. Executions that were deferred or will be
+ * retried publish nothing until their last attempt ends. A workflow task that could not
+ * be started at all, because its lock was taken or it was not executable, is published
+ * as FAILED so the workflow run doesn't wait for it forever.
+ */
+public class TaskFinishedEvent extends ApplicationEvent {
+
+    private final Task task;
+    private final Task.TaskStatus status;
+
+    public TaskFinishedEvent(Object source, Task task, Task.TaskStatus status) {
+        super(source);
+        this.task = task;
+        this.status = status;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public Task.TaskStatus getStatus() {
+        return status;
+    }
+
+    public boolean isSuccessful() {
+        return status == Task.TaskStatus.COMPLETED;
+    }
+}
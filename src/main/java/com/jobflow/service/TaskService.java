@@ -1,7 +1,9 @@
 package com.jobflow.service;
 
 import com.jobflow.domain.Task;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service interface for managing tasks
@@ -19,12 +21,30 @@ public interface TaskService extends BaseService<Task> {
     List<Task> findDueTasks(Long tenantId);
 
     /**
-     * Execute a task
+     * Claim due tasks for this node in one batch, skipping tasks claimed elsewhere
+     */
+    List<Task> claimTasks(Collection<Long> taskIds);
+
+    /**
+     * Execute a task without waiting for it to finish
      */
     void executeTask(Task task, String operator);
 
     /**
-     * Retry a failed task
+     * Execute a task asynchronously
+     * @return Future completed once the task's outcome has been recorded
+     */
+    CompletableFuture<Void> executeTaskAsync(Task task, String operator);
+
+    /**
+     * Execute short tasks of the same tenant, type and target as one dispatch, with the
+     * status and execution record writes of the whole batch done in JDBC batches
+     * @return Future completed once the outcomes of all tasks have been recorded
+     */
+    CompletableFuture<Void> executeBatch(List<Task> tasks, String operator);
+
+    /**
+     * Retry a failed task after the configured backoff
      */
     void retryTask(Long taskId, String operator);
 
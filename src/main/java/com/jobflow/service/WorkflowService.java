@@ -3,6 +3,8 @@ package com.jobflow.service;
 import com.jobflow.domain.Task;
 import com.jobflow.domain.Workflow;
 import com.jobflow.domain.WorkflowDependency;
+import com.jobflow.scheduler.WorkflowForecast;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -16,6 +18,11 @@ public interface WorkflowService extends BaseService<Workflow> {
      */
     List<Workflow> findDueWorkflows(Long tenantId);
 
+    /**
+     * Claim due workflows for this node in one batch, skipping workflows claimed elsewhere
+     */
+    List<Workflow> claimWorkflows(Collection<Long> workflowIds);
+
     /**
      * Execute a workflow
      */
@@ -107,6 +114,12 @@ public interface WorkflowService extends BaseService<Workflow> {
      */
     java.time.LocalDateTime getEstimatedCompletionTime(Long workflowId);
 
+    /**
+     * Get the projected completion, per-task slack and critical path of a workflow run;
+     * for a workflow not running on this node, of a full run started now
+     */
+    WorkflowForecast getWorkflowForecast(Long workflowId);
+
     /**
      * Inner class for workflow statistics
      */
@@ -1,9 +1,11 @@
 package com.jobflow.service.impl;
 
+import com.jobflow.cluster.LocalNode;
 import com.jobflow.dao.ExecutionRecordDao;
 import com.jobflow.domain.ExecutionRecord;
 import com.jobflow.domain.Task;
 import com.jobflow.domain.Workflow;
+import com.jobflow.scheduler.TimeoutWatchdog;
 import com.jobflow.service.ExecutionRecordService;
 import com.jobflow.service.NotificationService;
 import lombok.extern.slf4j.Slf4j;
@@ -25,16 +27,27 @@ public class ExecutionRecordServiceImpl implements ExecutionRecordService {
 
     private final ExecutionRecordDao executionRecordDao;
     private final NotificationService notificationService;
+    private final TimeoutWatchdog timeoutWatchdog;
+    private final LocalNode localNode;
 
     @Autowired
-    public ExecutionRecordServiceImpl(ExecutionRecordDao executionRecordDao, NotificationService notificationService) {
+    public ExecutionRecordServiceImpl(ExecutionRecordDao executionRecordDao, NotificationService notificationService,
+                                      TimeoutWatchdog timeoutWatchdog, LocalNode localNode) {
         this.executionRecordDao = executionRecordDao;
         this.notificationService = notificationService;
+        this.timeoutWatchdog = timeoutWatchdog;
+        this.localNode = localNode;
     }
 
     @Override
     public ExecutionRecord createTaskExecution(Task task, String executor, String executorIp,
                                              ExecutionRecord.TriggerType triggerType, String triggerInfo) {
+        return createTaskExecution(task, 0, executor, executorIp, triggerType, triggerInfo);
+    }
+
+    @Override
+    public ExecutionRecord createTaskExecution(Task task, int retryCount, String executor, String executorIp,
+                                             ExecutionRecord.TriggerType triggerType, String triggerInfo) {
         ExecutionRecord record = new ExecutionRecord();
         record.setExecutionId(UUID.randomUUID().toString());
         record.setType(ExecutionRecord.ExecutionType.TASK);
@@ -44,10 +57,59 @@ public class ExecutionRecordServiceImpl implements ExecutionRecordService {
         record.setTriggerType(triggerType);
         record.setTriggerInfo(triggerInfo);
         record.setStatus(ExecutionRecord.ExecutionStatus.PENDING);
+        record.setRetryCount(retryCount);
+        record.setMaxRetries(task.getRetries());
         record.setTenantId(getCurrentTenantId());
         return executionRecordDao.save(record);
     }
 
+    @Override
+    public List<ExecutionRecord> startTaskExecutions(List<Task> tasks, String executor, String executorIp,
+                                                     ExecutionRecord.TriggerType triggerType, String triggerInfo) {
+        Long tenantId = getCurrentTenantId();
+        List<ExecutionRecord> records = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ExecutionRecord record = new ExecutionRecord();
+            record.setExecutionId(UUID.randomUUID().toString());
+            record.setType(ExecutionRecord.ExecutionType.TASK);
+            record.setTask(task);
+            record.setExecutor(executor);
+            record.setExecutorIp(executorIp);
+            record.setTriggerType(triggerType);
+            record.setTriggerInfo(triggerInfo);
+            record.setRetryCount(0);
+            record.setMaxRetries(task.getRetries());
+            record.setTenantId(tenantId);
+            record.markAsStarted();
+            records.add(record);
+        }
+        executionRecordDao.insertAll(records);
+        return records;
+    }
+
+    @Override
+    public void finishExecutions(List<ExecutionRecord> records) {
+        executionRecordDao.updateAll(records);
+        for (ExecutionRecord record : records) {
+            switch (record.getStatus()) {
+                case COMPLETED:
+                    notificationService.sendExecutionCompletedNotification(record);
+                    break;
+                case FAILED:
+                    notificationService.sendExecutionFailedNotification(record);
+                    break;
+                case TIMEOUT:
+                    notificationService.sendExecutionTimeoutNotification(record);
+                    break;
+                case CANCELLED:
+                    notificationService.sendExecutionCancelledNotification(record);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
     @Override
     public ExecutionRecord createWorkflowExecution(Workflow workflow, String executor, String executorIp,
                                                  ExecutionRecord.TriggerType triggerType, String triggerInfo) {
@@ -105,8 +167,14 @@ public class ExecutionRecordServiceImpl implements ExecutionRecordService {
 
     @Override
     public List<ExecutionRecord> findTimedOutExecutions(int timeoutMinutes) {
+        // This node's running executions are tracked in memory by the watchdog; only matches are loaded, in one query
         LocalDateTime timeout = LocalDateTime.now().minusMinutes(timeoutMinutes);
-        return executionRecordDao.findTimedOutExecutions(getCurrentTenantId(), timeout);
+        Long tenantId = getCurrentTenantId();
+        List<ExecutionRecord> timedOut = new ArrayList<>(executionRecordDao.findRunningByExecutionIds(
+            tenantId, timeoutWatchdog.findExecutionsStartedBefore(timeout)));
+        // Executions of other nodes, and those orphaned by a node that went away, are only known to the database
+        timedOut.addAll(executionRecordDao.findTimedOutExecutionsExcept(tenantId, timeout, localNode.getNodeId()));
+        return timedOut;
     }
 
     @Override
@@ -207,6 +275,11 @@ public class ExecutionRecordServiceImpl implements ExecutionRecordService {
         return executionRecordDao.save(record);
     }
 
+    @Override
+    public void recordResourceUsage(String executionId, String resourceUsage) {
+        executionRecordDao.updateResourceUsage(executionId, resourceUsage);
+    }
+
     @Override
     public ExecutionRecord cancelExecution(String executionId, String reason) {
         ExecutionRecord record = getByExecutionId(executionId);
@@ -225,6 +298,11 @@ public class ExecutionRecordServiceImpl implements ExecutionRecordService {
         return record;
     }
 
+    @Override
+    public void discardExecutions(List<String> executionIds) {
+        executionRecordDao.deleteByExecutionIds(executionIds);
+    }
+
     @Override
     public double getSuccessRate(ExecutionRecord.ExecutionType type, LocalDateTime start, LocalDateTime end) {
         Map<ExecutionRecord.ExecutionStatus, Long> stats = getExecutionStatistics(start, end);
@@ -1,43 +1,146 @@
 package com.jobflow.service.impl;
 
+import com.jobflow.cluster.LocalNode;
 import com.jobflow.dao.TaskDao;
 import com.jobflow.dao.OperationLogDao;
 import com.jobflow.dao.NotificationDao;
+import com.jobflow.domain.ExecutionRecord;
 import com.jobflow.domain.Task;
 import com.jobflow.domain.OperationLog;
 import com.jobflow.domain.Notification;
+import com.jobflow.executor.ExecutionCache;
+import com.jobflow.executor.OutputLimits;
+import com.jobflow.executor.ResourceUsage;
+import com.jobflow.executor.ResourceUsageTracker;
+import com.jobflow.executor.TaskExecutionException;
+import com.jobflow.executor.TaskHandler;
 import com.jobflow.lock.DistributedLock;
+import com.jobflow.scheduler.CronScheduleCache;
+import com.jobflow.scheduler.InFlightExecutionRegistry;
+import com.jobflow.scheduler.NodeResources;
+import com.jobflow.scheduler.RemoteWorkerBroker;
+import com.jobflow.scheduler.ResourceDemand;
+import com.jobflow.scheduler.RetryEngine;
+import com.jobflow.scheduler.SpeculativeExecutor;
+import com.jobflow.scheduler.TaskDispatcher;
+import com.jobflow.scheduler.TimeoutWatchdog;
 import com.jobflow.service.AbstractBaseService;
+import com.jobflow.service.ExecutionRecordService;
+import com.jobflow.service.TaskFinishedEvent;
 import com.jobflow.service.TaskService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.support.CronExpression;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskService {
 
+    private static final String SYSTEM_OPERATOR = "system";
+    // error_message is TEXT: 65,535 bytes
+    private static final int MAX_ERROR_MESSAGE_BYTES = 65_000;
+
     private final TaskDao taskDao;
     private final NotificationDao notificationDao;
     private final DistributedLock distributedLock;
-    private final ExecutorService executorService;
+    private final CronScheduleCache cronScheduleCache;
+    private final LocalNode localNode;
+    private final TaskDispatcher taskDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor completionExecutor;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final ExecutionRecordService executionRecordService;
+    private final TimeoutWatchdog timeoutWatchdog;
+    private final InFlightExecutionRegistry inFlightExecutions;
+    private final RetryEngine retryEngine;
+    private final ExecutionCache executionCache;
+    private final SpeculativeExecutor speculativeExecutor;
+    private final RemoteWorkerBroker remoteWorkers;
+    private final NodeResources nodeResources;
+    private final ResourceUsageTracker usageTracker;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<Task.TaskType, TaskHandler> taskHandlers = new EnumMap<>(Task.TaskType.class);
+
+    @Value("${execution.bulkhead.defer-delay-ms}")
+    private long deferDelayMs;
+
+    @Value("${execution.timeout.minutes}")
+    private long defaultTimeoutMinutes;
+
+    @Value("${scheduler.claim.enabled}")
+    private boolean claimEnabled;
+
+    @Value("${scheduler.claim.batch-size}")
+    private int claimBatchSize;
+
+    @Value("${scheduler.claim.lease-ms}")
+    private long claimLeaseMs;
 
     @Autowired
     public TaskServiceImpl(TaskDao taskDao, 
                          OperationLogDao operationLogDao,
                          NotificationDao notificationDao,
-                         DistributedLock distributedLock) {
+                         DistributedLock distributedLock,
+                         CronScheduleCache cronScheduleCache,
+                         LocalNode localNode,
+                         TaskDispatcher taskDispatcher,
+                         TransactionTemplate transactionTemplate,
+                         @Qualifier("taskExecutor") Executor completionExecutor,
+                         @Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler,
+                         ExecutionRecordService executionRecordService,
+                         TimeoutWatchdog timeoutWatchdog,
+                         InFlightExecutionRegistry inFlightExecutions,
+                         RetryEngine retryEngine,
+                         ExecutionCache executionCache,
+                         SpeculativeExecutor speculativeExecutor,
+                         RemoteWorkerBroker remoteWorkers,
+                         NodeResources nodeResources,
+                         ResourceUsageTracker usageTracker,
+                         ApplicationEventPublisher eventPublisher,
+                         List<TaskHandler> taskHandlers) {
         super(taskDao, operationLogDao);
         this.taskDao = taskDao;
         this.notificationDao = notificationDao;
         this.distributedLock = distributedLock;
-        this.executorService = Executors.newCachedThreadPool();
+        this.cronScheduleCache = cronScheduleCache;
+        this.localNode = localNode;
+        this.taskDispatcher = taskDispatcher;
+        this.transactionTemplate = transactionTemplate;
+        this.completionExecutor = completionExecutor;
+        this.taskScheduler = taskScheduler;
+        this.executionRecordService = executionRecordService;
+        this.timeoutWatchdog = timeoutWatchdog;
+        this.inFlightExecutions = inFlightExecutions;
+        this.retryEngine = retryEngine;
+        this.executionCache = executionCache;
+        this.speculativeExecutor = speculativeExecutor;
+        this.remoteWorkers = remoteWorkers;
+        this.nodeResources = nodeResources;
+        this.usageTracker = usageTracker;
+        this.eventPublisher = eventPublisher;
+        retryEngine.onRetryDue(this::executeRetry);
+        taskHandlers.forEach(handler -> this.taskHandlers.put(handler.getType(), handler));
     }
 
     @Override
@@ -50,6 +153,22 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
         return "Task";
     }
 
+    @Override
+    @Transactional
+    public Task update(Task task, String operator) {
+        Task updated = super.update(task, operator);
+        taskHandlers.values().forEach(handler -> handler.invalidate(task.getId()));
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public boolean delete(Long id, String operator) {
+        boolean deleted = super.delete(id, operator);
+        taskHandlers.values().forEach(handler -> handler.invalidate(id));
+        return deleted;
+    }
+
     @Override
     public List<Task> findByGroupName(String groupName, Long tenantId) {
         return taskDao.findByGroupName(groupName, tenantId);
@@ -61,68 +180,551 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
     }
 
     @Override
-    @Transactional
+    public List<Task> claimTasks(Collection<Long> taskIds) {
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(Duration.ofMillis(claimLeaseMs));
+        return taskDao.claimTasks(taskIds, localNode.getNodeId(), claimBatchSize, leaseUntil);
+    }
+
+    @Override
     public void executeTask(Task task, String operator) {
+        executeTaskAsync(task, operator);
+    }
+
+    @Override
+    public CompletableFuture<Void> executeTaskAsync(Task task, String operator) {
+        return executeTaskAsync(task, operator, 0);
+    }
+
+    /**
+     * Run a task
+     * @param attempt 0 for a regular run, otherwise the retry number
+     */
+    private CompletableFuture<Void> executeTaskAsync(Task task, String operator, int attempt) {
         String lockKey = "task_execution_" + task.getId();
-        
+        // A task claimed by this node is already exclusively ours; no per-task lock needed
+        boolean claimed = isClaimedByLocalNode(task);
+
+        // A local task that doesn't fit here is passed on before it is marked running or recorded
+        if (!remoteWorkers.accepts(task) && !nodeResources.fits(task)) {
+            if (claimed) {
+                releaseClaim(task);
+            }
+            log.info("Not enough capacity for task {}, retrying in {} ms", task.getId(), deferDelayMs);
+            scheduleDeferredRun(task, claimed, operator);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // The lock only guards the switch to RUNNING; from then on the status keeps
+        // other nodes out, so neither the lock nor a connection is held while the task runs
+        boolean started;
         try {
-            if (!distributedLock.acquire(lockKey)) {
+            if (!claimed && !distributedLock.acquire(lockKey)) {
+                // Almost always another dispatch starting the task; it reports the outcome
                 log.warn("Failed to acquire lock for task: {}", task.getId());
-                return;
+                return CompletableFuture.completedFuture(null);
+            }
+            started = Boolean.TRUE.equals(transactionTemplate.execute(status -> startExecution(task, operator)));
+        } finally {
+            if (!claimed) {
+                distributedLock.release(lockKey);
             }
+        }
 
-            if (!canExecute(task)) {
-                log.warn("Task {} is not executable", task.getId());
-                return;
+        if (!started) {
+            if (claimed) {
+                releaseClaim(task);
             }
+            return notStarted(task);
+        }
 
-            task.markAsRunning();
-            taskDao.update(task, operator);
+        long timeoutMs = timeoutOf(task);
+        String executionId = openExecutionRecord(task, operator, attempt);
+
+        String cacheKey = executionCache.keyFor(task);
+        String cachedOutput = cacheKey != null ? executionCache.get(cacheKey) : null;
+        CompletableFuture<String> execution;
+        if (cachedOutput != null) {
+            log.info("Inputs of task {} unchanged, reusing cached output", task.getId());
+            execution = CompletableFuture.completedFuture(cachedOutput);
+        } else {
+            // Remote tasks are throttled by the workers pulling them, not by the local pools;
+            // local ones only start if their declared resources fit on this node
+            Supplier<CompletableFuture<String>> attemptRun = remoteWorkers.accepts(task)
+                ? () -> remoteWorkers.submit(task, executionId)
+                : () -> nodeResources.admit(task, () -> taskDispatcher.dispatch(task, () -> executeTaskInternal(task)));
+            execution = speculativeExecutor.accepts(task)
+                ? speculativeExecutor.execute(task, attemptRun)
+                : attemptRun.get();
+            inFlightExecutions.register(task.getId(), executionId, execution);
+            // Failing the dispatch on timeout also cancels the underlying work
+            timeoutWatchdog.watch(ExecutionRecord.ExecutionType.TASK, task.getId(), executionId, timeoutMs,
+                () -> execution.completeExceptionally(
+                    new TimeoutException("Task " + task.getId() + " exceeded " + timeoutMs + " ms")));
+        }
 
-            Future<?> future = executorService.submit(() -> executeTaskInternal(task));
+        return execution.handleAsync((output, error) -> {
+            timeoutWatchdog.unwatch(ExecutionRecord.ExecutionType.TASK, task.getId());
+            inFlightExecutions.unregister(task.getId(), executionId);
+            onExecutionFinished(task, executionId, cacheKey, attempt, claimed, output, error, operator);
+            return null;
+        }, completionExecutor);
+    }
 
-            try {
-                future.get(task.getTimeout(), TimeUnit.MILLISECONDS);
-            } catch (TimeoutException e) {
-                future.cancel(true);
-                markAsTimeout(task.getId(), operator);
-            } catch (Exception e) {
-                log.error("Task execution failed: {}", e.getMessage());
-                markAsCompleted(task.getId(), false, e.getMessage(), operator);
+    /**
+     * End a dispatch of a task that is not executable. A workflow run waits for a
+     * finished event from each of its tasks, so a workflow task that can't run is
+     * reported as failed. A task that is already running is left alone; the run in
+     * progress reports its own outcome.
+     */
+    private CompletableFuture<Void> notStarted(Task task) {
+        if (task.getWorkflowId() != null && task.getStatus() != Task.TaskStatus.RUNNING) {
+            publishFinished(task, Task.TaskStatus.FAILED);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private boolean startExecution(Task task, String operator) {
+        if (!canExecute(task)) {
+            log.warn("Task {} is not executable", task.getId());
+            return false;
+        }
+        task.markAsRunning();
+        taskDao.update(task, operator);
+        return true;
+    }
+
+    /**
+     * Record the outcome of an execution, each update in its own short transaction
+     */
+    private void onExecutionFinished(Task task, String executionId, String cacheKey, int attempt, boolean claimed,
+                                     String output, Throwable error, String operator) {
+        Throwable cause = unwrap(error);
+        // Final outcome to announce, or null while the task will still run again
+        Task.TaskStatus finished = null;
+        try {
+            recordResourceUsage(task, executionId);
+            if (cause == null) {
+                finished = Task.TaskStatus.COMPLETED;
+                transactionTemplate.executeWithoutResult(status ->
+                    markAsCompleted(task.getId(), true, output, operator));
+                closeExecutionRecord(executionId, () -> executionRecordService.completeExecution(executionId, output));
+                executionCache.recordSuccess(task, cacheKey, output);
+            } else if (cause instanceof RejectedExecutionException) {
+                // The run never started, so it leaves no record behind
+                closeExecutionRecord(executionId, () ->
+                    executionRecordService.discardExecutions(List.of(executionId)));
+                deferExecution(task, cause.getMessage(), claimed, operator);
+            } else if (cause instanceof CancellationException) {
+                finished = Task.TaskStatus.CANCELLED;
+                // cancelTask() already recorded CANCELLED on the task
+                log.info("Task {} was cancelled: {}", task.getId(), cause.getMessage());
+                closeExecutionRecord(executionId, () ->
+                    executionRecordService.cancelExecution(executionId, cause.getMessage()));
+            } else if (cause instanceof TimeoutException) {
+                finished = Task.TaskStatus.TIMEOUT;
+                log.warn("Task {} timed out", task.getId());
+                transactionTemplate.executeWithoutResult(status ->
+                    markAsTimeout(task.getId(), operator));
+                closeExecutionRecord(executionId, () -> executionRecordService.timeoutExecution(executionId));
+            } else {
+                finished = Task.TaskStatus.FAILED;
+                log.error("Task execution failed: {}", cause.getMessage());
+                String message = failureMessage(cause);
+                transactionTemplate.executeWithoutResult(status ->
+                    markAsCompleted(task.getId(), false, message, operator));
+                closeExecutionRecord(executionId, () ->
+                    executionRecordService.failExecution(executionId, message, null));
+                if (scheduleRetry(task, executionId, attempt + 1)) {
+                    finished = null;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to record outcome of task {}: {}", task.getId(), e.getMessage());
+        } finally {
+            if (claimed) {
+                releaseClaim(task);
+            }
+        }
+        if (finished != null) {
+            publishFinished(task, finished);
+        }
+    }
+
+    private void publishFinished(Task task, Task.TaskStatus status) {
+        try {
+            eventPublisher.publishEvent(new TaskFinishedEvent(this, task, status));
+        } catch (Exception e) {
+            log.error("Failed to handle completion of task {}: {}", task.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> executeBatch(List<Task> tasks, String operator) {
+        List<Task> claimed = tasks.stream()
+            .filter(this::isClaimedByLocalNode)
+            .collect(Collectors.toList());
+
+        // One conditional update replaces the per-task lock and RUNNING update
+        Map<Long, Task> executable = new LinkedHashMap<>();
+        tasks.stream().filter(this::canExecute).forEach(task -> executable.put(task.getId(), task));
+        List<Task> started = executable.isEmpty()
+            ? List.of()
+            : taskDao.startTasks(executable.keySet(), operator).stream()
+                .map(executable::get)
+                .collect(Collectors.toList());
+        // Executable tasks that did not start are locked or running elsewhere, which reports them
+        tasks.stream().filter(task -> !executable.containsKey(task.getId())).forEach(this::notStarted);
+        if (started.isEmpty()) {
+            releaseClaims(claimed);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<ExecutionRecord> records = openExecutionRecords(started, operator);
+        List<CompletableFuture<String>> results = started.stream()
+            .map(task -> new CompletableFuture<String>())
+            .collect(Collectors.toList());
+        // Each task can be cancelled and times out on its own, like a single run
+        for (int i = 0; i < started.size(); i++) {
+            Task task = started.get(i);
+            String executionId = records.isEmpty() ? null : records.get(i).getExecutionId();
+            CompletableFuture<String> result = results.get(i);
+            long timeoutMs = timeoutOf(task);
+            inFlightExecutions.register(task.getId(), executionId, result);
+            timeoutWatchdog.watch(ExecutionRecord.ExecutionType.TASK, task.getId(), executionId, timeoutMs,
+                () -> result.completeExceptionally(
+                    new TimeoutException("Task " + task.getId() + " exceeded " + timeoutMs + " ms")));
+        }
+
+        // The whole batch takes one dispatch slot; a failing task doesn't fail the others
+        CompletableFuture<String> batch = taskDispatcher.dispatch(started.get(0), () -> {
+            for (int i = 0; i < started.size(); i++) {
+                pipe(startQuietly(started.get(i)), results.get(i));
+            }
+            return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, error) -> null);
+        });
+        batch.whenComplete((output, error) -> {
+            if (error != null) {
+                results.forEach(result -> result.completeExceptionally(unwrap(error)));
+            }
+        });
+
+        return batch.handleAsync((output, error) -> {
+            for (int i = 0; i < started.size(); i++) {
+                Long taskId = started.get(i).getId();
+                timeoutWatchdog.unwatch(ExecutionRecord.ExecutionType.TASK, taskId);
+                inFlightExecutions.unregister(taskId, records.isEmpty() ? null : records.get(i).getExecutionId());
+            }
+            onBatchFinished(started, records, results, claimed, error, operator);
+            return null;
+        }, completionExecutor);
+    }
+
+    /**
+     * Record the outcome of every task in a batch with one transaction of JDBC batches
+     */
+    private void onBatchFinished(List<Task> tasks, List<ExecutionRecord> records,
+                                 List<CompletableFuture<String>> results, List<Task> claimed,
+                                 Throwable error, String operator) {
+        Throwable batchCause = unwrap(error);
+        try {
+            if (batchCause instanceof RejectedExecutionException) {
+                deferBatch(tasks, records, batchCause.getMessage(), operator);
+                return;
+            }
+
+            Map<Long, Task.TaskStatus> statuses = new LinkedHashMap<>();
+            List<Integer> failed = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                ExecutionRecord record = records.isEmpty() ? null : records.get(i);
+                String output = null;
+                Throwable cause = null;
+                try {
+                    output = results.get(i).join();
+                } catch (CompletionException | CancellationException e) {
+                    cause = unwrap(e);
+                }
+
+                if (cause == null) {
+                    statuses.put(task.getId(), Task.TaskStatus.COMPLETED);
+                    if (record != null) {
+                        record.markAsCompleted(output);
+                    }
+                } else if (cause instanceof CancellationException) {
+                    // cancelTask() already recorded CANCELLED on the task
+                    statuses.put(task.getId(), Task.TaskStatus.CANCELLED);
+                    if (record != null) {
+                        record.markAsCancelled(cause.getMessage());
+                    }
+                } else if (cause instanceof TimeoutException) {
+                    statuses.put(task.getId(), Task.TaskStatus.TIMEOUT);
+                    if (record != null) {
+                        record.markAsTimeout();
+                    }
+                } else {
+                    String message = failureMessage(cause);
+                    statuses.put(task.getId(), Task.TaskStatus.FAILED);
+                    failed.add(i);
+                    if (record != null) {
+                        record.markAsFailed(message, null);
+                    }
+                }
             }
 
+            // Recurring tasks go back to SCHEDULED, like single runs do in markAsCompleted
+            Map<Long, Task.TaskStatus> persisted = new LinkedHashMap<>(statuses);
+            tasks.stream().filter(this::isRecurring)
+                .forEach(task -> persisted.put(task.getId(), Task.TaskStatus.SCHEDULED));
+            transactionTemplate.executeWithoutResult(status -> {
+                taskDao.updateStatuses(persisted, operator);
+                executionRecordService.finishExecutions(records);
+            });
+            Set<Integer> retried = new HashSet<>();
+            for (int i : failed) {
+                if (scheduleRetry(tasks.get(i), records.isEmpty() ? null : records.get(i).getExecutionId(), 1)) {
+                    retried.add(i);
+                }
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                if (!retried.contains(i)) {
+                    publishFinished(tasks.get(i), statuses.get(tasks.get(i).getId()));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to record outcome of a batch of {} tasks: {}", tasks.size(), e.getMessage());
         } finally {
-            distributedLock.release(lockKey);
+            releaseClaims(claimed);
+        }
+    }
+
+    private void deferBatch(List<Task> tasks, List<ExecutionRecord> records, String reason, String operator) {
+        log.info("Deferring batch of {} tasks by {} ms: {}", tasks.size(), deferDelayMs, reason);
+        Map<Long, Task.TaskStatus> statuses = new LinkedHashMap<>();
+        tasks.forEach(task -> statuses.put(task.getId(), Task.TaskStatus.SCHEDULED));
+        List<String> executionIds = records.stream().map(ExecutionRecord::getExecutionId).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            taskDao.updateStatuses(statuses, operator);
+            executionRecordService.discardExecutions(executionIds);
+        });
+        taskScheduler.schedule(() -> executeBatch(tasks, operator), Instant.now().plusMillis(deferDelayMs));
+    }
+
+    /**
+     * Start a task's handler, turning a synchronous failure into a failed future
+     */
+    private CompletableFuture<String> startQuietly(Task task) {
+        try {
+            return executeTaskInternal(task);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    private void executeTaskInternal(Task task) {
+    /**
+     * Complete target with source's outcome, and stop source if target fails first
+     */
+    private static void pipe(CompletableFuture<String> source, CompletableFuture<String> target) {
+        source.whenComplete((output, error) -> {
+            if (error != null) {
+                target.completeExceptionally(unwrap(error));
+            } else {
+                target.complete(output);
+            }
+        });
+        target.whenComplete((output, error) -> {
+            if (error != null) {
+                source.cancel(true);
+            }
+        });
+    }
+
+    private List<ExecutionRecord> openExecutionRecords(List<Task> tasks, String operator) {
+        try {
+            return executionRecordService.startTaskExecutions(
+                tasks, localNode.getNodeId(), localNode.getHostAddress(), triggerTypeOf(operator), operator);
+        } catch (Exception e) {
+            log.error("Failed to create execution records for a batch of {} tasks: {}", tasks.size(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Timeout of a run in milliseconds; a task without a positive timeout gets the default
+     */
+    private long timeoutOf(Task task) {
+        return task.getTimeout() != null && task.getTimeout() > 0
+            ? task.getTimeout()
+            : TimeUnit.MINUTES.toMillis(defaultTimeoutMinutes);
+    }
+
+    private static ExecutionRecord.TriggerType triggerTypeOf(String operator) {
+        return SYSTEM_OPERATOR.equals(operator)
+            ? ExecutionRecord.TriggerType.SCHEDULED
+            : ExecutionRecord.TriggerType.MANUAL;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+            ? error.getCause()
+            : error;
+    }
+
+    /**
+     * Failure message with the captured output, cut to fit the error_message column
+     */
+    private static String failureMessage(Throwable cause) {
+        String message = cause instanceof TaskExecutionException && ((TaskExecutionException) cause).getOutput() != null
+            ? cause.getMessage() + "\n" + ((TaskExecutionException) cause).getOutput()
+            : cause.getMessage();
+        return message != null ? OutputLimits.head(message, MAX_ERROR_MESSAGE_BYTES) : null;
+    }
+
+    /**
+     * Release this node's claim on a task. The snapshot forgets its lease too, so a
+     * deferred re-run of it takes the distributed lock instead of trusting a lease
+     * another node may hold by then.
+     */
+    private void releaseClaim(Task task) {
+        taskDao.releaseClaim(task.getId(), localNode.getNodeId());
+        task.setLeaseOwner(null);
+        task.setLeaseExpireTime(null);
+    }
+
+    private void releaseClaims(List<Task> tasks) {
+        taskDao.releaseClaims(tasks.stream().map(Task::getId).collect(Collectors.toList()), localNode.getNodeId());
+        tasks.forEach(task -> {
+            task.setLeaseOwner(null);
+            task.setLeaseExpireTime(null);
+        });
+    }
+
+    private boolean isClaimedByLocalNode(Task task) {
+        return claimEnabled &&
+               localNode.getNodeId().equals(task.getLeaseOwner()) &&
+               task.getLeaseExpireTime() != null &&
+               task.getLeaseExpireTime().isAfter(LocalDateTime.now());
+    }
+
+    private CompletableFuture<String> executeTaskInternal(Task task) {
         // Implementation depends on task type (HTTP, SHELL, SPRING_BEAN)
-        switch (task.getType()) {
-            case HTTP:
-                executeHttpTask(task);
-                break;
-            case SHELL:
-                executeShellTask(task);
-                break;
-            case SPRING_BEAN:
-                executeSpringBeanTask(task);
-                break;
-            default:
-                throw new UnsupportedOperationException("Unsupported task type: " + task.getType());
+        TaskHandler handler = task.getType() != null ? taskHandlers.get(task.getType()) : null;
+        if (handler == null) {
+            throw new UnsupportedOperationException("Unsupported task type: " + task.getType());
+        }
+        return handler.execute(task);
+    }
+
+    /**
+     * Create the execution record for a run; failures here never block the task itself
+     * @return The execution ID, or null if the record could not be created
+     */
+    private String openExecutionRecord(Task task, String operator, int attempt) {
+        try {
+            ExecutionRecord record = executionRecordService.createTaskExecution(
+                task, attempt, localNode.getNodeId(), localNode.getHostAddress(), triggerTypeOf(operator), operator);
+            executionRecordService.startExecution(record.getExecutionId());
+            return record.getExecutionId();
+        } catch (Exception e) {
+            log.error("Failed to create execution record for task {}: {}", task.getId(), e.getMessage());
+            return null;
         }
     }
 
-    private void executeHttpTask(Task task) {
-        // TODO: Implement HTTP task execution
+    /**
+     * Store what a run used next to what the task declared, to calibrate demands
+     */
+    private void recordResourceUsage(Task task, String executionId) {
+        ResourceUsage usage = usageTracker.take(task);
+        ResourceDemand demand = nodeResources.demandOf(task);
+        if (usage == null && demand.isNone()) {
+            return;
+        }
+        StringBuilder json = new StringBuilder("{");
+        if (usage != null) {
+            json.append("\"cpuMs\":").append(usage.getCpuMs())
+                .append(",\"peakMemoryMb\":").append(usage.getPeakMemoryMb()).append(',');
+        }
+        json.append("\"demand\":{\"cpu\":").append(demand.getCpu())
+            .append(",\"memoryMb\":").append(demand.getMemoryMb()).append("}}");
+        closeExecutionRecord(executionId, () -> executionRecordService.recordResourceUsage(executionId, json.toString()));
+    }
+
+    private void closeExecutionRecord(String executionId, Runnable update) {
+        if (executionId == null) {
+            return;
+        }
+        try {
+            update.run();
+        } catch (Exception e) {
+            log.error("Failed to update execution record {}: {}", executionId, e.getMessage());
+        }
     }
 
-    private void executeShellTask(Task task) {
-        // TODO: Implement Shell task execution
+    /**
+     * Put a task rejected by a full dispatch queue, bulkhead or node back to SCHEDULED and
+     * try again shortly, instead of failing it or running it on the caller's thread
+     * @param claimed Whether the task was claimed; the caller releases the claim
+     */
+    private void deferExecution(Task task, String reason, boolean claimed, String operator) {
+        log.info("Deferring task {} by {} ms: {}", task.getId(), deferDelayMs, reason);
+        // Only the status is written, so edits made since the snapshot was read are kept
+        task.setStatus(Task.TaskStatus.SCHEDULED);
+        transactionTemplate.executeWithoutResult(status ->
+            taskDao.updateStatuses(Map.of(task.getId(), Task.TaskStatus.SCHEDULED), operator));
+        scheduleDeferredRun(task, claimed, operator);
     }
 
-    private void executeSpringBeanTask(Task task) {
-        // TODO: Implement Spring Bean task execution
+    /**
+     * Try a deferred task again after the defer delay. Its claim is released by then, so
+     * a claimed task is claimed again first: if another node took it in the meantime,
+     * that node runs it and this one lets it go.
+     */
+    private void scheduleDeferredRun(Task task, boolean claimed, String operator) {
+        taskScheduler.schedule(() -> {
+            if (!claimed) {
+                executeTask(task, operator);
+                return;
+            }
+            List<Task> reclaimed = claimTasks(List.of(task.getId()));
+            if (reclaimed.isEmpty()) {
+                log.debug("Deferred task {} was taken by another node", task.getId());
+                return;
+            }
+            executeTask(reclaimed.get(0), operator);
+        }, Instant.now().plusMillis(deferDelayMs));
+    }
+
+    /**
+     * Queue the next retry of a failed task, if it has retries left. The retry time is
+     * stored on the failed execution record so the retry survives a restart.
+     * @return Whether a retry was queued
+     */
+    private boolean scheduleRetry(Task task, String executionId, int attempt) {
+        if (!retryEngine.canRetry(task.getRetries(), attempt)) {
+            return false;
+        }
+        LocalDateTime retryAt = retryEngine.nextRetryTime(attempt);
+        if (executionId != null) {
+            try {
+                executionRecordService.retryExecution(executionId, retryAt);
+            } catch (Exception e) {
+                log.error("Failed to persist retry of task {}: {}", task.getId(), e.getMessage());
+                executionId = null;
+            }
+        }
+        retryEngine.schedule(task.getId(), executionId, attempt, retryAt);
+        return true;
+    }
+
+    private void executeRetry(RetryEngine.PendingRetry retry) {
+        Task task = findById(retry.getTaskId());
+        if (task == null) {
+            log.warn("Dropping retry {} of deleted task {}", retry.getAttempt(), retry.getTaskId());
+            return;
+        }
+        log.info("Retrying task {} (attempt {})", task.getId(), retry.getAttempt());
+        executeTaskAsync(task, SYSTEM_OPERATOR, retry.getAttempt());
     }
 
     @Override
@@ -135,7 +737,8 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
 
         task.incrementRetries();
         taskDao.update(task, operator);
-        executeTask(task, operator);
+        // Manual retries back off like automatic ones, so a bulk retry after an outage is spread out
+        retryEngine.schedule(taskId, null, 1, retryEngine.nextRetryTime(1));
     }
 
     @Override
@@ -148,6 +751,8 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
 
         task.setStatus(Task.TaskStatus.CANCELLED);
         taskDao.update(task, operator);
+        // Stop the live work on whichever node is running it
+        inFlightExecutions.cancelTask(taskId, "Cancelled by " + operator);
     }
 
     @Override
@@ -179,8 +784,7 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
         }
 
         try {
-            CronExpression cronExpression = CronExpression.parse(task.getCronExpression());
-            LocalDateTime next = cronExpression.next(LocalDateTime.now());
+            LocalDateTime next = cronScheduleCache.next(task.getCronExpression(), LocalDateTime.now());
             task.setNextExecutionTime(next);
         } catch (Exception e) {
             log.error("Failed to calculate next execution time: {}", e.getMessage());
@@ -189,7 +793,7 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
 
     @Override
     public boolean isWithinTimeout(Task task) {
-        if (task.getLastExecutionTime() == null || task.getTimeout() == null) {
+        if (task.getLastExecutionTime() == null || task.getTimeout() == null || task.getTimeout() <= 0) {
             return true;
         }
 
@@ -211,6 +815,7 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
         
         task.markAsCompleted(success, result, duration);
         calculateNextExecutionTime(task);
+        rescheduleIfRecurring(task);
         taskDao.update(task, operator);
 
         // Send notifications if configured
@@ -229,6 +834,7 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
 
         task.markAsTimeout();
         calculateNextExecutionTime(task);
+        rescheduleIfRecurring(task);
         taskDao.update(task, operator);
 
         if (task.getNotifyOnFailure()) {
@@ -236,6 +842,21 @@ public class TaskServiceImpl extends AbstractBaseService<Task> implements TaskSe
         }
     }
 
+    /**
+     * Put a recurring task back to SCHEDULED once a run has finished, so the next
+     * occurrence can still be resynced and claimed. The outcome of the run stays on
+     * its execution record.
+     */
+    private void rescheduleIfRecurring(Task task) {
+        if (isRecurring(task)) {
+            task.setStatus(Task.TaskStatus.SCHEDULED);
+        }
+    }
+
+    private boolean isRecurring(Task task) {
+        return task.getCron() != null && !task.getCron().isBlank() && !task.hasExpired(LocalDateTime.now());
+    }
+
     private void sendNotifications(Task task, boolean success) {
         // TODO: Implement notification sending logic
     }
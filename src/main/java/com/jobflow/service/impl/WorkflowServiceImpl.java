@@ -1,5 +1,6 @@
 package com.jobflow.service.impl;
 
+import com.jobflow.cluster.LocalNode;
 import com.jobflow.dao.WorkflowDao;
 import com.jobflow.dao.WorkflowDependencyDao;
 import com.jobflow.dao.TaskDao;
@@ -7,18 +8,34 @@ import com.jobflow.dao.OperationLogDao;
 import com.jobflow.dao.NotificationDao;
 import com.jobflow.domain.*;
 import com.jobflow.lock.DistributedLock;
+import com.jobflow.scheduler.TimeoutWatchdog;
+import com.jobflow.scheduler.WorkflowCycleGuard;
+import com.jobflow.scheduler.WorkflowForecast;
+import com.jobflow.scheduler.WorkflowForecaster;
+import com.jobflow.scheduler.WorkflowPlan;
+import com.jobflow.scheduler.WorkflowPlanCache;
+import com.jobflow.scheduler.WorkflowRun;
 import com.jobflow.service.AbstractBaseService;
+import com.jobflow.service.TaskFinishedEvent;
 import com.jobflow.service.TaskService;
 import com.jobflow.service.WorkflowService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,9 +48,24 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
     private final TaskService taskService;
     private final NotificationDao notificationDao;
     private final DistributedLock distributedLock;
+    private final LocalNode localNode;
+    private final TimeoutWatchdog timeoutWatchdog;
+    private final WorkflowPlanCache planCache;
+    private final WorkflowCycleGuard cycleGuard;
+    private final WorkflowForecaster forecaster;
+    private final TransactionTemplate transactionTemplate;
 
-    // Cache for storing running workflow states
-    private final Map<Long, WorkflowExecutionState> executionStates = new ConcurrentHashMap<>();
+    @Value("${scheduler.claim.enabled}")
+    private boolean claimEnabled;
+
+    @Value("${scheduler.claim.batch-size}")
+    private int claimBatchSize;
+
+    @Value("${scheduler.claim.lease-ms}")
+    private long claimLeaseMs;
+
+    // Dependency state of the workflows running on this node
+    private final Map<Long, WorkflowRun> executionStates = new ConcurrentHashMap<>();
 
     @Autowired
     public WorkflowServiceImpl(WorkflowDao workflowDao,
@@ -42,7 +74,13 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
                              TaskService taskService,
                              OperationLogDao operationLogDao,
                              NotificationDao notificationDao,
-                             DistributedLock distributedLock) {
+                             DistributedLock distributedLock,
+                             LocalNode localNode,
+                             TimeoutWatchdog timeoutWatchdog,
+                             WorkflowPlanCache planCache,
+                             WorkflowCycleGuard cycleGuard,
+                             WorkflowForecaster forecaster,
+                             TransactionTemplate transactionTemplate) {
         super(workflowDao, operationLogDao);
         this.workflowDao = workflowDao;
         this.dependencyDao = dependencyDao;
@@ -50,6 +88,12 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
         this.taskService = taskService;
         this.notificationDao = notificationDao;
         this.distributedLock = distributedLock;
+        this.localNode = localNode;
+        this.timeoutWatchdog = timeoutWatchdog;
+        this.planCache = planCache;
+        this.cycleGuard = cycleGuard;
+        this.forecaster = forecaster;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
@@ -68,41 +112,53 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
     }
 
     @Override
-    @Transactional
+    public List<Workflow> claimWorkflows(Collection<Long> workflowIds) {
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(Duration.ofMillis(claimLeaseMs));
+        return workflowDao.claimWorkflows(workflowIds, localNode.getNodeId(), claimBatchSize, leaseUntil);
+    }
+
+    @Override
     public void executeWorkflow(Workflow workflow, String operator) {
         String lockKey = "workflow_execution_" + workflow.getId();
+        // A workflow claimed by this node is already exclusively ours; no per-workflow lock needed
+        boolean claimed = isClaimedByLocalNode(workflow);
         
         try {
-            if (!distributedLock.acquire(lockKey)) {
+            if (!claimed && !distributedLock.acquire(lockKey)) {
                 log.warn("Failed to acquire lock for workflow: {}", workflow.getId());
                 return;
             }
+            if (!canStart(workflow)) {
+                return;
+            }
 
-            workflow.markAsRunning();
-            workflowDao.update(workflow, operator);
-
-            List<Task> sortedTasks = getTopologicalSort(workflow.getId());
-            if (sortedTasks.isEmpty()) {
+            // Task rows are read once; the graph comes from the cached plan
+            long structureVersion = workflowDao.getStructureVersion(workflow.getId());
+            List<Task> tasks = getWorkflowTasks(workflow.getId());
+            if (tasks.isEmpty()) {
                 log.warn("No tasks found in workflow: {}", workflow.getId());
                 return;
             }
 
-            WorkflowExecutionState state = new WorkflowExecutionState(workflow, sortedTasks);
-            executionStates.put(workflow.getId(), state);
-
-            // Start execution with root tasks (tasks with no dependencies)
-            List<Task> rootTasks = findRootTasks(workflow.getId(), sortedTasks);
-            for (Task task : rootTasks) {
-                executeWorkflowTask(workflow.getId(), task, operator);
-            }
+            startRun(workflow, structureVersion, tasks, null, operator);
 
         } finally {
-            distributedLock.release(lockKey);
+            if (claimed) {
+                workflowDao.releaseClaim(workflow.getId(), localNode.getNodeId());
+            } else {
+                distributedLock.release(lockKey);
+            }
         }
     }
 
+    private boolean isClaimedByLocalNode(Workflow workflow) {
+        return claimEnabled &&
+               localNode.getNodeId().equals(workflow.getLeaseOwner()) &&
+               workflow.getLeaseExpireTime() != null &&
+               workflow.getLeaseExpireTime().isAfter(LocalDateTime.now());
+    }
+
     @Override
-    @Transactional
     public void executeWorkflowFromTask(Long workflowId, Long taskId, String operator) {
         Workflow workflow = findById(workflowId);
         Task startTask = taskDao.findById(taskId);
@@ -110,41 +166,270 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
         if (workflow == null || startTask == null) {
             throw new IllegalArgumentException("Workflow or task not found");
         }
+        if (!workflowId.equals(startTask.getWorkflowId())) {
+            throw new IllegalArgumentException("Task does not belong to the workflow");
+        }
+        if (!canStart(workflow)) {
+            throw new IllegalStateException("Workflow is already running");
+        }
 
-        List<Task> downstreamTasks = getDownstreamTasks(workflowId, taskId);
-        downstreamTasks.add(0, startTask);
+        // Upstream tasks outside the subset are not part of the run, so the start task is its only root
+        long structureVersion = workflowDao.getStructureVersion(workflowId);
+        startRun(workflow, structureVersion, getWorkflowTasks(workflowId), taskId, operator);
+    }
 
-        workflow.markAsRunning();
-        workflowDao.update(workflow, operator);
+    /**
+     * Whether a new run of the workflow may start. Task events carry no run, so this node
+     * keeps one run per workflow; and a workflow that isn't concurrent doesn't start
+     * again while a run is RUNNING on any node.
+     */
+    private boolean canStart(Workflow workflow) {
+        if (executionStates.containsKey(workflow.getId())) {
+            log.warn("Workflow {} is already running on this node, skipping this start", workflow.getId());
+            return false;
+        }
+        if (workflow.getStatus() == Workflow.WorkflowStatus.RUNNING && !workflow.allowsConcurrent()) {
+            log.warn("Workflow {} is still running, skipping this start", workflow.getId());
+            return false;
+        }
+        return true;
+    }
 
-        WorkflowExecutionState state = new WorkflowExecutionState(workflow, downstreamTasks);
-        executionStates.put(workflowId, state);
+    /**
+     * Start a run of the workflow, or of the part downstream of a task. The RUNNING
+     * status commits on its own before any task is dispatched, so the tasks' own
+     * transactions don't join it.
+     * @param fromTaskId Task to start from, or null for the whole workflow
+     */
+    private void startRun(Workflow workflow, long structureVersion, List<Task> tasks, Long fromTaskId,
+                          String operator) {
+        WorkflowRun run;
+        try {
+            WorkflowPlan plan = getPlan(workflow.getId(), structureVersion, tasks);
+            if (fromTaskId == null) {
+                run = WorkflowRun.start(workflow, operator, plan, tasks);
+            } else {
+                run = WorkflowRun.start(workflow, operator, plan, tasks,
+                    plan.reachableFrom(plan.indexOf(fromTaskId)));
+            }
+        } catch (IllegalStateException e) {
+            log.error("Cannot run workflow {}: {}", workflow.getId(), e.getMessage());
+            workflow.setStatus(Workflow.WorkflowStatus.FAILED);
+            rescheduleIfRecurring(workflow);
+            workflowDao.update(workflow, operator);
+            return;
+        }
 
-        executeWorkflowTask(workflowId, startTask, operator);
+        if (executionStates.putIfAbsent(workflow.getId(), run) != null) {
+            log.warn("Workflow {} is already running on this node, skipping this start", workflow.getId());
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                workflow.markAsRunning();
+                workflowDao.update(workflow, operator);
+            });
+        } catch (RuntimeException e) {
+            executionStates.remove(workflow.getId(), run);
+            throw e;
+        }
+
+        // Inside a caller's transaction the status joined it, so the run starts once that commits
+        afterCompletion(committed -> {
+            if (!committed) {
+                executionStates.remove(workflow.getId(), run);
+                return;
+            }
+            watchTimeout(workflow, operator);
+            forecaster.start(run);
+            for (Task task : run.getRootTasks()) {
+                executeWorkflowTask(run, task);
+            }
+        });
     }
 
-    private void executeWorkflowTask(Long workflowId, Task task, String operator) {
-        WorkflowExecutionState state = executionStates.get(workflowId);
-        if (state == null || !canExecuteTask(state, task)) {
+    /**
+     * Compiled plan of a workflow, from the cache when it matches the structure version
+     * @param structureVersion Version of the workflow, read before its task rows
+     * @param tasks Current task rows of the workflow, reused when the plan is compiled
+     * @throws IllegalStateException if the dependencies contain a cycle
+     */
+    private WorkflowPlan getPlan(Long workflowId, long structureVersion, List<Task> tasks) {
+        Supplier<WorkflowPlan> compiler =
+            () -> WorkflowPlan.compile(workflowId, tasks, getWorkflowDependencies(workflowId));
+        WorkflowPlan plan = planCache.get(workflowId, structureVersion, compiler);
+        if (!plan.covers(tasks)) {
+            // Tasks were moved into or out of the workflow without addTask or removeTask
+            planCache.invalidate(workflowId);
+            plan = planCache.get(workflowId, structureVersion, compiler);
+        }
+        return plan;
+    }
+
+    /**
+     * Compiled plan of a workflow as currently stored
+     */
+    private WorkflowPlan getPlan(Long workflowId) {
+        long structureVersion = workflowDao.getStructureVersion(workflowId);
+        return getPlan(workflowId, structureVersion, getWorkflowTasks(workflowId));
+    }
+
+    /**
+     * Compile the plan of a workflow without the cache, for use inside a transaction that
+     * changes its structure: such a plan may include rows that never commit
+     */
+    private WorkflowPlan compilePlan(Long workflowId) {
+        return WorkflowPlan.compile(workflowId, getWorkflowTasks(workflowId), getWorkflowDependencies(workflowId));
+    }
+
+    /**
+     * Record a change to a workflow's tasks or dependencies. The version is bumped in
+     * the caller's transaction; the local cached plan is dropped once it commits.
+     * @return The new structure version
+     */
+    private long structureChanged(Long workflowId) {
+        long structureVersion = workflowDao.bumpStructureVersion(workflowId);
+        afterCommit(() -> planCache.invalidate(workflowId));
+        return structureVersion;
+    }
+
+    private static void afterCommit(Runnable action) {
+        afterCompletion(committed -> {
+            if (committed) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Run an action once the current transaction has ended, with whether it committed
+     */
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
             return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
 
-        state.markTaskAsRunning(task.getId());
-        taskService.executeTask(task, operator);
+    private void watchTimeout(Workflow workflow, String operator) {
+        if (workflow.getTimeout() != null && workflow.getTimeout() > 0) {
+            timeoutWatchdog.watch(ExecutionRecord.ExecutionType.WORKFLOW, workflow.getId(), null,
+                workflow.getTimeout(), () -> onWorkflowTimeout(workflow.getId(), operator));
+        }
     }
 
-    private boolean canExecuteTask(WorkflowExecutionState state, Task task) {
-        List<WorkflowDependency> dependencies = dependencyDao.findByTargetTaskId(
-            state.getWorkflow().getId(), task.getId());
+    /**
+     * Called by the watchdog when a workflow passes its deadline
+     */
+    private void onWorkflowTimeout(Long workflowId, String operator) {
+        WorkflowRun state = executionStates.remove(workflowId);
+        if (state == null) {
+            return;
+        }
+        forecaster.stop(workflowId);
+
+        Workflow workflow = state.getWorkflow();
+        log.warn("Workflow {} timed out", workflowId);
+        workflow.setStatus(Workflow.WorkflowStatus.TIMEOUT);
+        rescheduleIfRecurring(workflow);
+        workflowDao.update(workflow, operator);
 
-        for (WorkflowDependency dependency : dependencies) {
-            Task sourceTask = taskDao.findById(dependency.getSourceTaskId());
-            if (!dependency.isSatisfied(sourceTask)) {
-                return false;
+        for (Long taskId : state.getRunningTasks()) {
+            try {
+                taskService.cancelTask(taskId, operator);
+            } catch (Exception e) {
+                log.warn("Failed to cancel task {} of timed out workflow {}: {}", taskId, workflowId, e.getMessage());
             }
         }
+    }
 
-        return true;
+    private void executeWorkflowTask(WorkflowRun run, Task task) {
+        // Tasks without their own priority run at the workflow's priority
+        Workflow workflow = run.getWorkflow();
+        if (task.getPriority() == null && workflow.getPriority() != null) {
+            task.setPriority(Task.TaskPriority.valueOf(workflow.getPriority().name()));
+        }
+
+        run.markTaskAsRunning(task.getId());
+        forecaster.taskStarted(workflow.getId(), task.getId());
+        taskService.executeTask(task, run.getOperator());
+    }
+
+    /**
+     * Advance the run of the task's workflow: start the tasks whose dependencies are now
+     * met, and finish the workflow once every task is done
+     */
+    @EventListener
+    public void onTaskFinished(TaskFinishedEvent event) {
+        Task task = event.getTask();
+        if (task.getWorkflowId() == null) {
+            return;
+        }
+        WorkflowRun run = executionStates.get(task.getWorkflowId());
+        if (run == null || !run.contains(task.getId())) {
+            return;
+        }
+
+        Workflow workflow = run.getWorkflow();
+        List<Task> skipped = new ArrayList<>();
+        List<Task> ready = run.markTaskAsFinished(task.getId(), event.isSuccessful(), skipped);
+        forecaster.taskFinished(workflow.getId(), task.getId());
+        skipped.forEach(skippedTask -> forecaster.taskFinished(workflow.getId(), skippedTask.getId()));
+        if (!skipped.isEmpty()) {
+            log.info("Skipping {} tasks of workflow {} after task {} ended with {}",
+                skipped.size(), workflow.getId(), task.getId(), event.getStatus());
+        }
+
+        if (!event.isSuccessful() && workflow.shouldStopOnFailure()) {
+            if (executionStates.remove(workflow.getId(), run)) {
+                log.warn("Stopping workflow {}: task {} ended with {}", workflow.getId(), task.getId(), event.getStatus());
+                finishRun(run, Workflow.WorkflowStatus.FAILED);
+                for (Long taskId : run.getRunningTasks()) {
+                    try {
+                        taskService.cancelTask(taskId, run.getOperator());
+                    } catch (Exception e) {
+                        log.warn("Failed to cancel task {} of workflow {}: {}", taskId, workflow.getId(), e.getMessage());
+                    }
+                }
+            }
+            return;
+        }
+
+        for (Task next : ready) {
+            executeWorkflowTask(run, next);
+        }
+
+        if (run.isFinished() && executionStates.remove(workflow.getId(), run)) {
+            finishRun(run, run.hasFailures() && !workflow.shouldSkipFailedTasks()
+                ? Workflow.WorkflowStatus.FAILED : Workflow.WorkflowStatus.COMPLETED);
+        }
+    }
+
+    private void finishRun(WorkflowRun run, Workflow.WorkflowStatus status) {
+        Workflow workflow = run.getWorkflow();
+        timeoutWatchdog.unwatch(ExecutionRecord.ExecutionType.WORKFLOW, workflow.getId());
+        forecaster.stop(workflow.getId());
+        workflow.setStatus(status);
+        rescheduleIfRecurring(workflow);
+        workflowDao.update(workflow, run.getOperator());
+        log.info("Workflow {} finished with {}", workflow.getId(), status);
+    }
+
+    /**
+     * Put a recurring workflow back to SCHEDULED once a run has ended, so the next
+     * occurrence can still be resynced and claimed. The outcome of the run is logged.
+     */
+    private void rescheduleIfRecurring(Workflow workflow) {
+        if (workflow.getCron() != null && !workflow.getCron().isBlank()
+                && !workflow.hasExpired(LocalDateTime.now())) {
+            workflow.setStatus(Workflow.WorkflowStatus.SCHEDULED);
+        }
     }
 
     @Override
@@ -157,13 +442,14 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
 
         workflow.setStatus(Workflow.WorkflowStatus.CANCELLED);
         workflowDao.update(workflow, operator);
+        timeoutWatchdog.unwatch(ExecutionRecord.ExecutionType.WORKFLOW, workflowId);
 
         // Cancel all running tasks
-        WorkflowExecutionState state = executionStates.get(workflowId);
+        WorkflowRun state = executionStates.remove(workflowId);
+        forecaster.stop(workflowId);
         if (state != null) {
-            state.getRunningTasks().forEach(taskId -> 
+            state.getRunningTasks().forEach(taskId ->
                 taskService.cancelTask(taskId, operator));
-            executionStates.remove(workflowId);
         }
     }
 
@@ -181,6 +467,7 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
     @Override
     @Transactional
     public void addTask(Long workflowId, Task task, String operator) {
+        long structureVersion = structureChanged(workflowId);
         Workflow workflow = findById(workflowId);
         if (workflow == null) {
             throw new IllegalArgumentException("Workflow not found");
@@ -189,6 +476,7 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
         task.setTenantId(workflow.getTenantId());
         Long taskId = taskDao.insert(task, operator);
         task.setId(taskId);
+        afterCommit(() -> cycleGuard.taskAdded(workflowId, structureVersion));
 
         // Update workflow task count
         workflow.setTotalTasks(workflow.getTotalTasks() + 1);
@@ -198,6 +486,8 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
     @Override
     @Transactional
     public void removeTask(Long workflowId, Long taskId, String operator) {
+        structureChanged(workflowId);
+
         // Remove all dependencies first
         List<WorkflowDependency> dependencies = dependencyDao.findByWorkflowId(workflowId);
         dependencies.stream()
@@ -206,6 +496,7 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
 
         // Then remove the task
         taskDao.delete(taskId, operator);
+        afterCommit(() -> cycleGuard.invalidate(workflowId));
 
         // Update workflow task count
         Workflow workflow = findById(workflowId);
@@ -217,6 +508,9 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
     @Transactional
     public void addDependency(Long workflowId, Long sourceTaskId, Long targetTaskId,
                             WorkflowDependency.DependencyType type, String operator) {
+        // Taken first, so the reads below see every structure change committed before it
+        long structureVersion = structureChanged(workflowId);
+
         // Validate tasks exist
         if (!taskDao.exists(sourceTaskId) || !taskDao.exists(targetTaskId)) {
             throw new IllegalArgumentException("Source or target task not found");
@@ -235,30 +529,32 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
         dependency.setType(type);
         dependency.setTenantId(findById(workflowId).getTenantId());
 
-        dependencyDao.insert(dependency, operator);
-
-        // Validate no cycles were created
-        if (!validateWorkflowDag(workflowId)) {
-            dependencyDao.delete(dependency.getId(), operator);
+        // Reject cycles before writing; the edge stays in the workflow's order only if this commits
+        if (!cycleGuard.tryAddDependency(workflowId, structureVersion, sourceTaskId, targetTaskId,
+                () -> compilePlan(workflowId))) {
             throw new IllegalStateException("Adding this dependency would create a cycle");
         }
+
+        dependency.setId(dependencyDao.insert(dependency, operator));
+        afterCompletion(committed -> cycleGuard.dependencyAdded(workflowId, structureVersion, committed));
     }
 
     @Override
     @Transactional
     public void removeDependency(Long workflowId, Long sourceTaskId, Long targetTaskId, 
                                String operator) {
+        long structureVersion = structureChanged(workflowId);
         List<WorkflowDependency> dependencies = dependencyDao.findByWorkflowId(workflowId);
         dependencies.stream()
             .filter(d -> d.getSourceTaskId().equals(sourceTaskId) && 
                         d.getTargetTaskId().equals(targetTaskId))
             .forEach(d -> dependencyDao.delete(d.getId(), operator));
+        afterCommit(() -> cycleGuard.dependencyRemoved(workflowId, structureVersion, sourceTaskId, targetTaskId));
     }
 
     @Override
     public List<Task> getWorkflowTasks(Long workflowId) {
-        // TODO: Implement method to get all tasks in workflow
-        return new ArrayList<>();
+        return taskDao.findByWorkflowId(workflowId);
     }
 
     @Override
@@ -268,133 +564,33 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
 
     @Override
     public boolean validateWorkflowDag(Long workflowId) {
-        List<Task> tasks = getWorkflowTasks(workflowId);
-        List<WorkflowDependency> dependencies = getWorkflowDependencies(workflowId);
-        
-        // Build adjacency list
-        Map<Long, Set<Long>> graph = new HashMap<>();
-        for (Task task : tasks) {
-            graph.put(task.getId(), new HashSet<>());
-        }
-        
-        for (WorkflowDependency dep : dependencies) {
-            graph.get(dep.getSourceTaskId()).add(dep.getTargetTaskId());
-        }
-
-        // Check for cycles using DFS
-        Set<Long> visited = new HashSet<>();
-        Set<Long> recursionStack = new HashSet<>();
-
-        for (Task task : tasks) {
-            if (hasCycle(task.getId(), graph, visited, recursionStack)) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private boolean hasCycle(Long taskId, Map<Long, Set<Long>> graph, 
-                           Set<Long> visited, Set<Long> recursionStack) {
-        if (recursionStack.contains(taskId)) {
+        try {
+            // A valid plan is kept, so the next run of the workflow starts from the cache
+            getPlan(workflowId);
             return true;
-        }
-
-        if (visited.contains(taskId)) {
+        } catch (IllegalStateException e) {
             return false;
         }
-
-        visited.add(taskId);
-        recursionStack.add(taskId);
-
-        for (Long neighbor : graph.get(taskId)) {
-            if (hasCycle(neighbor, graph, visited, recursionStack)) {
-                return true;
-            }
-        }
-
-        recursionStack.remove(taskId);
-        return false;
     }
 
     @Override
     public List<Task> getTopologicalSort(Long workflowId) {
+        long structureVersion = workflowDao.getStructureVersion(workflowId);
         List<Task> tasks = getWorkflowTasks(workflowId);
-        List<WorkflowDependency> dependencies = getWorkflowDependencies(workflowId);
-        
-        // Build adjacency list and in-degree count
-        Map<Long, Set<Long>> graph = new HashMap<>();
-        Map<Long, Integer> inDegree = new HashMap<>();
-        
-        for (Task task : tasks) {
-            graph.put(task.getId(), new HashSet<>());
-            inDegree.put(task.getId(), 0);
-        }
-        
-        for (WorkflowDependency dep : dependencies) {
-            graph.get(dep.getSourceTaskId()).add(dep.getTargetTaskId());
-            inDegree.merge(dep.getTargetTaskId(), 1, Integer::sum);
+        WorkflowPlan plan;
+        try {
+            plan = getPlan(workflowId, structureVersion, tasks);
+        } catch (IllegalStateException e) {
+            return new ArrayList<>();
         }
 
-        // Perform topological sort using Kahn's algorithm
-        Queue<Long> queue = new LinkedList<>();
-        inDegree.forEach((taskId, degree) -> {
-            if (degree == 0) queue.offer(taskId);
-        });
-
-        List<Task> result = new ArrayList<>();
         Map<Long, Task> taskMap = tasks.stream()
-            .collect(Collectors.toMap(Task::getId, task -> task));
-
-        while (!queue.isEmpty()) {
-            Long taskId = queue.poll();
-            result.add(taskMap.get(taskId));
-
-            for (Long neighbor : graph.get(taskId)) {
-                inDegree.merge(neighbor, -1, Integer::sum);
-                if (inDegree.get(neighbor) == 0) {
-                    queue.offer(neighbor);
-                }
-            }
-        }
-
-        return result.size() == tasks.size() ? result : new ArrayList<>();
-    }
-
-    private List<Task> findRootTasks(Long workflowId, List<Task> tasks) {
-        Set<Long> targetTasks = dependencyDao.findByWorkflowId(workflowId).stream()
-            .map(WorkflowDependency::getTargetTaskId)
-            .collect(Collectors.toSet());
-
-        return tasks.stream()
-            .filter(task -> !targetTasks.contains(task.getId()))
+            .collect(Collectors.toMap(Task::getId, task -> task, (first, second) -> first));
+        return plan.getTopologicalOrder().stream()
+            .map(taskMap::get)
             .collect(Collectors.toList());
     }
 
-    private List<Task> getDownstreamTasks(Long workflowId, Long taskId) {
-        Set<Long> visited = new HashSet<>();
-        List<Task> result = new ArrayList<>();
-        collectDownstreamTasks(workflowId, taskId, visited, result);
-        return result;
-    }
-
-    private void collectDownstreamTasks(Long workflowId, Long taskId, 
-                                      Set<Long> visited, List<Task> result) {
-        if (!visited.add(taskId)) {
-            return;
-        }
-
-        Task task = taskDao.findById(taskId);
-        if (task != null) {
-            result.add(task);
-        }
-
-        List<WorkflowDependency> dependencies = dependencyDao.findBySourceTaskId(workflowId, taskId);
-        for (WorkflowDependency dep : dependencies) {
-            collectDownstreamTasks(workflowId, dep.getTargetTaskId(), visited, result);
-        }
-    }
-
     @Override
     public List<Workflow> getExecutionHistory(Long workflowId, Long tenantId) {
         // TODO: Implement execution history retrieval
@@ -447,56 +643,22 @@ public class WorkflowServiceImpl extends AbstractBaseService<Workflow> implement
 
     @Override
     public LocalDateTime getEstimatedCompletionTime(Long workflowId) {
-        // TODO: Implement completion time estimation based on historical execution times
-        return LocalDateTime.now().plusHours(1);
+        WorkflowForecast forecast = getWorkflowForecast(workflowId);
+        return forecast != null ? forecast.getEstimatedCompletionTime() : null;
     }
 
-    /**
-     * Inner class to track workflow execution state
-     */
-    private static class WorkflowExecutionState {
-        private final Workflow workflow;
-        private final List<Task> tasks;
-        private final Set<Long> completedTasks;
-        private final Set<Long> runningTasks;
-        private final LocalDateTime startTime;
-
-        public WorkflowExecutionState(Workflow workflow, List<Task> tasks) {
-            this.workflow = workflow;
-            this.tasks = tasks;
-            this.completedTasks = new HashSet<>();
-            this.runningTasks = new HashSet<>();
-            this.startTime = LocalDateTime.now();
-        }
-
-        public Workflow getWorkflow() {
-            return workflow;
-        }
-
-        public List<Task> getTasks() {
-            return tasks;
-        }
-
-        public Set<Long> getRunningTasks() {
-            return runningTasks;
-        }
-
-        public void markTaskAsRunning(Long taskId) {
-            runningTasks.add(taskId);
-        }
-
-        public void markTaskAsCompleted(Long taskId) {
-            runningTasks.remove(taskId);
-            completedTasks.add(taskId);
-        }
-
-        public boolean isCompleted() {
-            return completedTasks.size() == tasks.size();
+    @Override
+    public WorkflowForecast getWorkflowForecast(Long workflowId) {
+        WorkflowForecast forecast = forecaster.forecast(workflowId);
+        if (forecast != null) {
+            return forecast;
         }
 
-        public double getProgress() {
-            return tasks.isEmpty() ? 0.0 : 
-                   (double) completedTasks.size() / tasks.size() * 100;
+        // Not running here: project a full run started now
+        Workflow workflow = findById(workflowId);
+        if (workflow == null) {
+            return null;
         }
+        return forecaster.forecast(workflow, getPlan(workflowId));
     }
 }
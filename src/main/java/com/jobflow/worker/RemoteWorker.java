@@ -0,0 +1,352 @@
+package com.jobflow.worker;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.cluster.LocalNode;
+import com.jobflow.domain.Task;
+import com.jobflow.executor.ResourceUsageTracker;
+import com.jobflow.executor.TaskExecutionException;
+import com.jobflow.executor.TaskHandler;
+import com.jobflow.scheduler.NodeResources;
+import com.jobflow.scheduler.ResourceDemand;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Remote Worker
+ *
+ * Worker mode, enabled with jobflow.worker.enabled. The node schedules nothing itself;
+ * it long-polls each scheduler in jobflow.worker.scheduler-urls for batches of leased
+ * tasks, never asking for more than its free jobflow.worker.concurrency slots, and runs
+ * them with the local task handlers. Every jobflow.worker.report-interval-ms one report
+ * per scheduler carries the results finished since the last report and renews the
+ * leases of tasks still running; tasks whose lease the scheduler revoked are stopped.
+ * Polls advertise the CPU and memory not reserved by running tasks, and results carry
+ * the usage measured by the ResourceUsageTracker.
+ *
+ * Scaling out is a matter of starting more workers against the same schedulers. A
+ * worker that dies simply stops reporting, and its leases are reassigned.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jobflow.worker.enabled", havingValue = "true")
+public class RemoteWorker {
+
+    private static final String API_PATH = "/api/workers/";
+
+    private final ObjectMapper objectMapper;
+    private final LocalNode localNode;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final NodeResources nodeResources;
+    private final ResourceUsageTracker usageTracker;
+    private final Map<Task.TaskType, TaskHandler> taskHandlers = new EnumMap<>(Task.TaskType.class);
+    private final HttpClient httpClient;
+
+    // Running tasks and unreported results, by lease ID
+    private final Map<String, RunningTask> running = new ConcurrentHashMap<>();
+    private final Queue<Outcome> outbox = new ConcurrentLinkedQueue<>();
+
+    @Value("${jobflow.worker.scheduler-urls}")
+    private String schedulerUrls;
+
+    @Value("${jobflow.worker.token}")
+    private String token;
+
+    @Value("${jobflow.worker.concurrency}")
+    private int concurrency;
+
+    @Value("${jobflow.worker.poll-wait-ms}")
+    private long pollWaitMs;
+
+    @Value("${jobflow.worker.report-interval-ms}")
+    private long reportIntervalMs;
+
+    @Value("${jobflow.worker.retry-delay-ms}")
+    private long retryDelayMs;
+
+    private Semaphore slots;
+    private ExecutorService starters;
+    private final List<Thread> pollers = new ArrayList<>();
+    private ScheduledFuture<?> reporter;
+
+    @Autowired
+    public RemoteWorker(ObjectMapper objectMapper,
+                        LocalNode localNode,
+                        @Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler,
+                        NodeResources nodeResources,
+                        ResourceUsageTracker usageTracker,
+                        List<TaskHandler> handlers) {
+        this.objectMapper = objectMapper;
+        this.localNode = localNode;
+        this.taskScheduler = taskScheduler;
+        this.nodeResources = nodeResources;
+        this.usageTracker = usageTracker;
+        handlers.forEach(handler -> taskHandlers.put(handler.getType(), handler));
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        slots = new Semaphore(concurrency);
+        starters = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("Worker-"));
+        for (String url : schedulerUrls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String baseUrl = url.trim().replaceAll("/+$", "");
+            Thread poller = new CustomizableThreadFactory("Worker-Poll-").newThread(() -> pollLoop(baseUrl));
+            pollers.add(poller);
+            poller.start();
+        }
+        reporter = taskScheduler.scheduleWithFixedDelay(this::report, reportIntervalMs);
+        log.info("Worker {} polling {} with {} slots", localNode.getNodeId(), schedulerUrls, concurrency);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pollers.forEach(Thread::interrupt);
+        if (reporter != null) {
+            reporter.cancel(false);
+        }
+        if (starters != null) {
+            starters.shutdownNow();
+        }
+    }
+
+    /**
+     * Number of tasks running on this worker
+     */
+    public int getRunningCount() {
+        return running.size();
+    }
+
+    private void pollLoop(String baseUrl) {
+        while (!Thread.currentThread().isInterrupted()) {
+            int free;
+            try {
+                // Only ask for as much work as there are free slots
+                slots.acquire();
+                free = 1 + slots.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            List<WorkerProtocol.LeasedTask> leased;
+            try {
+                leased = poll(baseUrl, free);
+            } catch (InterruptedException e) {
+                slots.release(free);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                slots.release(free);
+                log.warn("Polling {} failed: {}", baseUrl, e.getMessage());
+                if (!sleep(retryDelayMs)) {
+                    return;
+                }
+                continue;
+            }
+
+            slots.release(free - leased.size());
+            leased.forEach(lease -> start(baseUrl, lease));
+        }
+    }
+
+    private List<WorkerProtocol.LeasedTask> poll(String baseUrl, int maxTasks) throws IOException, InterruptedException {
+        WorkerProtocol.PollRequest request = new WorkerProtocol.PollRequest();
+        request.setTaskTypes(new ArrayList<>(taskHandlers.keySet()));
+        request.setMaxTasks(maxTasks);
+        request.setWaitMs(pollWaitMs);
+        request.setFreeCpu(nodeResources.getFreeCpu());
+        request.setFreeMemoryMb(nodeResources.getFreeMemoryMb());
+        request.setIdle(running.isEmpty());
+        JsonNode data = post(baseUrl + API_PATH + localNode.getNodeId() + "/poll", request,
+            Duration.ofMillis(pollWaitMs).plusSeconds(10));
+        return objectMapper.convertValue(data, new TypeReference<List<WorkerProtocol.LeasedTask>>() {});
+    }
+
+    private void start(String baseUrl, WorkerProtocol.LeasedTask lease) {
+        Task task = lease.getTask();
+        // The scheduler already packed the task into our free capacity
+        ResourceDemand demand = nodeResources.demandOf(task);
+        nodeResources.reserve(demand);
+        CompletableFuture<String> execution = new CompletableFuture<>();
+        running.put(lease.getLeaseId(), new RunningTask(baseUrl, execution));
+        execution.whenComplete((output, error) -> {
+            running.remove(lease.getLeaseId());
+            nodeResources.release(demand);
+            slots.release();
+            WorkerProtocol.TaskResult result = toResult(lease.getLeaseId(), output, error);
+            result.setResourceUsage(usageTracker.take(task));
+            outbox.add(new Outcome(baseUrl, result));
+        });
+        log.debug("Running task {} under lease {}", task.getId(), lease.getLeaseId());
+
+        // Handlers may do blocking work before returning, so never on the poller
+        starters.execute(() -> {
+            if (execution.isDone()) {
+                return;
+            }
+            TaskHandler handler = taskHandlers.get(task.getType());
+            if (handler == null) {
+                execution.completeExceptionally(new UnsupportedOperationException("Unsupported task type: " + task.getType()));
+                return;
+            }
+            try {
+                CompletableFuture<String> work = handler.execute(task);
+                // A revoked lease stops the live work, e.g. kills the shell process tree
+                execution.whenComplete((output, error) -> {
+                    if (error != null) {
+                        work.cancel(true);
+                    }
+                });
+                work.whenComplete((output, error) -> {
+                    if (error != null) {
+                        execution.completeExceptionally(error);
+                    } else {
+                        execution.complete(output);
+                    }
+                });
+            } catch (Exception e) {
+                execution.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Send one report per scheduler with finished results and running lease IDs
+     */
+    private void report() {
+        Map<String, WorkerProtocol.ReportRequest> reports = new LinkedHashMap<>();
+        List<Outcome> sent = new ArrayList<>();
+        Outcome outcome;
+        while ((outcome = outbox.poll()) != null) {
+            reports.computeIfAbsent(outcome.baseUrl, url -> new WorkerProtocol.ReportRequest())
+                .getResults().add(outcome.result);
+            sent.add(outcome);
+        }
+        running.forEach((leaseId, task) -> reports
+            .computeIfAbsent(task.baseUrl, url -> new WorkerProtocol.ReportRequest())
+            .getRunningLeaseIds().add(leaseId));
+
+        for (Map.Entry<String, WorkerProtocol.ReportRequest> entry : reports.entrySet()) {
+            String baseUrl = entry.getKey();
+            try {
+                JsonNode data = post(baseUrl + API_PATH + localNode.getNodeId() + "/report", entry.getValue(),
+                    Duration.ofMillis(reportIntervalMs).plusSeconds(10));
+                List<String> revoked = objectMapper.convertValue(data, new TypeReference<List<String>>() {});
+                for (String leaseId : revoked) {
+                    RunningTask task = running.get(leaseId);
+                    if (task != null && task.execution.completeExceptionally(new CancellationException("Lease revoked"))) {
+                        log.info("Lease {} revoked by {}, stopped its task", leaseId, baseUrl);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                requeue(sent, baseUrl);
+            } catch (Exception e) {
+                // Results are kept for the next report; leases may expire meanwhile
+                log.warn("Reporting to {} failed: {}", baseUrl, e.getMessage());
+                requeue(sent, baseUrl);
+            }
+        }
+    }
+
+    private void requeue(List<Outcome> sent, String baseUrl) {
+        sent.stream().filter(outcome -> outcome.baseUrl.equals(baseUrl)).forEach(outbox::add);
+    }
+
+    private JsonNode post(String url, Object body, Duration timeout) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .header(WorkerProtocol.TOKEN_HEADER, token)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+            .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + url);
+        }
+        return objectMapper.readTree(response.body()).get("data");
+    }
+
+    private static WorkerProtocol.TaskResult toResult(String leaseId, String output, Throwable error) {
+        if (error == null) {
+            return new WorkerProtocol.TaskResult(leaseId, true, output, null, null);
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String captured = cause instanceof TaskExecutionException ? ((TaskExecutionException) cause).getOutput() : null;
+        return new WorkerProtocol.TaskResult(leaseId, false, captured, cause.getMessage(), null);
+    }
+
+    private static boolean sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A leased task running on this worker
+     */
+    private static class RunningTask {
+        private final String baseUrl;
+        private final CompletableFuture<String> execution;
+
+        RunningTask(String baseUrl, CompletableFuture<String> execution) {
+            this.baseUrl = baseUrl;
+            this.execution = execution;
+        }
+    }
+
+    /**
+     * A finished task waiting to be reported
+     */
+    private static class Outcome {
+        private final String baseUrl;
+        private final WorkerProtocol.TaskResult result;
+
+        Outcome(String baseUrl, WorkerProtocol.TaskResult result) {
+            this.baseUrl = baseUrl;
+            this.result = result;
+        }
+    }
+}
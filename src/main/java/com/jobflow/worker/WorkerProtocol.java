@@ -0,0 +1,70 @@
+package com.jobflow.worker;
+
+import com.jobflow.domain.Task;
+import com.jobflow.executor.ResourceUsage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Worker Protocol
+ *
+ * Messages exchanged between remote workers and the scheduler. A worker long-polls
+ * POST /api/workers/{workerId}/poll for a batch of leased tasks, then periodically
+ * POSTs /api/workers/{workerId}/report with the results of finished tasks and the
+ * lease IDs of tasks still running. The report answer lists the leases the worker
+ * lost, whose tasks it must stop. Every request carries the shared worker token.
+ *
+ * Polls advertise the worker's free CPU and memory, and only tasks whose declared
+ * demand fits are leased; results carry the usage measured on the worker.
+ */
+public final class WorkerProtocol {
+
+    public static final String TOKEN_HEADER = "X-Worker-Token";
+
+    private WorkerProtocol() {
+    }
+
+    @Data
+    public static class PollRequest {
+        // Task types the worker can run; empty for all
+        private List<Task.TaskType> taskTypes = new ArrayList<>();
+        private int maxTasks;
+        private long waitMs;
+        // Free capacity of the worker; null if unknown
+        private Double freeCpu;
+        private Long freeMemoryMb;
+        // Nothing running, so any single task may be leased even if it exceeds the capacity
+        private boolean idle;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LeasedTask {
+        private String leaseId;
+        private String executionId;
+        private Task task;
+        private long leaseMs;
+    }
+
+    @Data
+    public static class ReportRequest {
+        private List<String> runningLeaseIds = new ArrayList<>();
+        private List<TaskResult> results = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TaskResult {
+        private String leaseId;
+        private boolean success;
+        private String output;
+        private String error;
+        private ResourceUsage resourceUsage;
+    }
+}
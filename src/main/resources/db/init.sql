@@ -3,6 +3,7 @@ CREATE TABLE IF NOT EXISTS fj_task (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     description TEXT,
+    type VARCHAR(20) NOT NULL DEFAULT 'SHELL',
     command TEXT NOT NULL,
     cron VARCHAR(100),
     timeout INTEGER,
@@ -15,6 +16,11 @@ CREATE TABLE IF NOT EXISTS fj_task (
     workflow_id BIGINT,
     sequence INTEGER,
     parameters TEXT,
+    cacheable BOOLEAN NOT NULL DEFAULT FALSE,
+    batchable BOOLEAN NOT NULL DEFAULT FALSE,
+    speculative BOOLEAN NOT NULL DEFAULT FALSE,
+    lease_owner VARCHAR(255),
+    lease_expire_time DATETIME,
     tenant_id BIGINT NOT NULL,
     created_by VARCHAR(50),
     created_time DATETIME,
@@ -56,6 +62,9 @@ CREATE TABLE IF NOT EXISTS fj_workflow (
     parameters TEXT,
     concurrent BOOLEAN DEFAULT FALSE,
     error_handling VARCHAR(20),
+    structure_version BIGINT NOT NULL DEFAULT 0,  -- Bumped whenever tasks or dependencies change
+    lease_owner VARCHAR(255),
+    lease_expire_time DATETIME,
     tenant_id BIGINT NOT NULL,
     created_by VARCHAR(50),
     created_time DATETIME,
@@ -151,6 +160,7 @@ CREATE INDEX idx_task_tenant ON fj_task(tenant_id);
 CREATE INDEX idx_task_workflow ON fj_task(workflow_id);
 CREATE INDEX idx_task_status ON fj_task(status);
 CREATE INDEX idx_task_schedule ON fj_task(start_time, end_time);
+CREATE INDEX idx_task_lease ON fj_task(lease_owner, lease_expire_time);
 
 CREATE INDEX idx_task_notification_task ON fj_task_notification(task_id);
 CREATE INDEX idx_task_notification_tenant ON fj_task_notification(tenant_id);
@@ -158,6 +168,7 @@ CREATE INDEX idx_task_notification_tenant ON fj_task_notification(tenant_id);
 CREATE INDEX idx_workflow_tenant ON fj_workflow(tenant_id);
 CREATE INDEX idx_workflow_status ON fj_workflow(status);
 CREATE INDEX idx_workflow_schedule ON fj_workflow(start_time, end_time);
+CREATE INDEX idx_workflow_lease ON fj_workflow(lease_owner, lease_expire_time);
 
 CREATE INDEX idx_workflow_notification_workflow ON fj_workflow_notification(workflow_id);
 CREATE INDEX idx_workflow_notification_tenant ON fj_workflow_notification(tenant_id);
@@ -0,0 +1,125 @@
+package com.jobflow.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Simulates a cluster of partitioners sharing one in-memory membership registry
+ */
+class ClusterPartitionerTest {
+
+    private static final int TASKS = 50_000;
+
+    private final InMemoryClusterMembership membership = new InMemoryClusterMembership();
+    private final AtomicInteger rebalances = new AtomicInteger();
+
+    @Test
+    void everyTaskHasExactlyOneOwner() {
+        List<ClusterPartitioner> nodes = startNodes(5);
+
+        for (long taskId = 0; taskId < TASKS; taskId++) {
+            assertEquals(1, owners(nodes, taskId), "owners of task " + taskId);
+        }
+    }
+
+    @Test
+    void survivorsTakeOverTheTasksOfALeavingNode() {
+        List<ClusterPartitioner> nodes = startNodes(4);
+        ClusterPartitioner leaving = nodes.remove(3);
+        int rebalancesBefore = rebalances.get();
+
+        leaving.stop();
+        nodes.forEach(ClusterPartitioner::heartbeat);
+
+        assertEquals(rebalancesBefore + 3, rebalances.get());
+        for (long taskId = 0; taskId < TASKS; taskId++) {
+            assertEquals(1, owners(nodes, taskId), "owners of task " + taskId);
+        }
+    }
+
+    @Test
+    void ownedBucketsSelectExactlyTheOwnedTasks() {
+        List<ClusterPartitioner> nodes = startNodes(3);
+
+        Set<Integer> covered = new HashSet<>();
+        for (ClusterPartitioner node : nodes) {
+            Set<Integer> buckets = node.getOwnedTaskBuckets();
+            buckets.forEach(bucket -> assertTrue(covered.add(bucket), "bucket " + bucket + " has two owners"));
+            for (long taskId = 0; taskId < TASKS; taskId++) {
+                assertEquals(node.ownsTask(taskId), buckets.contains(ClusterPartitioner.bucketOf(taskId)));
+            }
+        }
+        assertEquals(ClusterPartitioner.PARTITION_BUCKETS, covered.size());
+    }
+
+    @Test
+    void ownershipIsBalancedAcrossNodes() {
+        // The busiest node bounds how far splitting the resync and firing work across nodes can help
+        double single = TASKS;
+        for (int nodeCount : new int[]{2, 4, 8}) {
+            List<ClusterPartitioner> nodes = startNodes(nodeCount);
+            int busiest = 0;
+            for (ClusterPartitioner node : nodes) {
+                int owned = 0;
+                for (long taskId = 0; taskId < TASKS; taskId++) {
+                    if (node.ownsTask(taskId)) {
+                        owned++;
+                    }
+                }
+                busiest = Math.max(busiest, owned);
+            }
+            double share = single / busiest;
+            assertTrue(share >= nodeCount * 0.75, "busiest of " + nodeCount + " nodes owns 1/" + share + " of the tasks");
+            nodes.forEach(ClusterPartitioner::stop);
+        }
+    }
+
+    private List<ClusterPartitioner> startNodes(int count) {
+        List<ClusterPartitioner> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ThreadPoolTaskScheduler taskScheduler = mock(ThreadPoolTaskScheduler.class);
+            // Heartbeats are driven by the test; the job only has to exist so stop() leaves the cluster
+            doReturn(mock(ScheduledFuture.class)).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), anyLong());
+            ClusterPartitioner node = new ClusterPartitioner(membership, new LocalNode("node-" + i),
+                taskScheduler, event -> rebalances.incrementAndGet());
+            ReflectionTestUtils.setField(node, "enabled", true);
+            ReflectionTestUtils.setField(node, "virtualNodes", 160);
+            ReflectionTestUtils.setField(node, "heartbeatIntervalMs", 1000L);
+            ReflectionTestUtils.setField(node, "memberTtlMs", 60_000L);
+            node.start();
+            nodes.add(node);
+        }
+        // Two rounds: the first registers everyone, the second lets every node see everyone
+        nodes.forEach(ClusterPartitioner::heartbeat);
+        nodes.forEach(ClusterPartitioner::heartbeat);
+        for (ClusterPartitioner node : nodes) {
+            assertEquals(count, node.getMembers().size());
+        }
+        return nodes;
+    }
+
+    private static int owners(List<ClusterPartitioner> nodes, long taskId) {
+        int owners = 0;
+        for (ClusterPartitioner node : nodes) {
+            if (node.ownsTask(taskId)) {
+                owners++;
+            }
+        }
+        return owners;
+    }
+}
@@ -0,0 +1,99 @@
+package com.jobflow.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 100_000;
+
+    @Test
+    void emptyRingOwnsNothing() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(), VIRTUAL_NODES);
+
+        assertTrue(ring.isEmpty());
+        assertNull(ring.getOwner("task:1"));
+    }
+
+    @Test
+    void ownerDoesNotDependOnMemberOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("c", "a", "b"), VIRTUAL_NODES);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.getOwner("task:" + i), reordered.getOwner("task:" + i));
+        }
+    }
+
+    @Test
+    void keysSpreadEvenlyOverNodes() {
+        for (int nodeCount : new int[]{2, 4, 8}) {
+            Map<String, Integer> load = load(new ConsistentHashRing(nodes(nodeCount), VIRTUAL_NODES));
+
+            double fairShare = (double) KEYS / nodeCount;
+            assertEquals(nodeCount, load.size());
+            load.forEach((node, keys) -> assertTrue(Math.abs(keys - fairShare) < fairShare * 0.25,
+                node + " owns " + keys + " of " + KEYS + " keys with " + nodeCount + " nodes"));
+        }
+    }
+
+    @Test
+    void joiningNodeTakesAboutItsShareFromTheOthersOnly() {
+        ConsistentHashRing before = new ConsistentHashRing(nodes(4), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(nodes(5), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "task:" + i;
+            String oldOwner = before.getOwner(key);
+            String newOwner = after.getOwner(key);
+            if (!oldOwner.equals(newOwner)) {
+                // Keys only ever move to the new node
+                assertEquals("node-4", newOwner);
+                moved++;
+            }
+        }
+        double share = (double) moved / KEYS;
+        assertTrue(share > 0.15 && share < 0.25, "moved " + share + " of the keys");
+    }
+
+    @Test
+    void leavingNodeHandsOnlyItsOwnKeysOver() {
+        ConsistentHashRing before = new ConsistentHashRing(nodes(4), VIRTUAL_NODES);
+        List<String> remaining = nodes(4);
+        remaining.remove("node-2");
+        ConsistentHashRing after = new ConsistentHashRing(remaining, VIRTUAL_NODES);
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "task:" + i;
+            if (!"node-2".equals(before.getOwner(key))) {
+                assertEquals(before.getOwner(key), after.getOwner(key));
+            }
+        }
+    }
+
+    private static Map<String, Integer> load(ConsistentHashRing ring) {
+        Map<String, Integer> load = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            load.merge(ring.getOwner("task:" + i), 1, Integer::sum);
+        }
+        return load;
+    }
+
+    private static List<String> nodes(int count) {
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add("node-" + i);
+        }
+        return nodes;
+    }
+}
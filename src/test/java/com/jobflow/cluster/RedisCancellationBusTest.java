@@ -0,0 +1,22 @@
+package com.jobflow.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RedisCancellationBusTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishesOnTheCancellationChannel() {
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        RedisCancellationBus bus = new RedisCancellationBus(redisTemplate, mock(RedisConnectionFactory.class));
+
+        bus.publish("EXECUTION:execution-1|Cancelled");
+
+        verify(redisTemplate).convertAndSend("cluster:cancellations", "EXECUTION:execution-1|Cancelled");
+    }
+}
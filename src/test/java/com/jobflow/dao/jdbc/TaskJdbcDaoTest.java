@@ -0,0 +1,193 @@
+package com.jobflow.dao.jdbc;
+
+import com.jobflow.domain.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskJdbcDaoTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TaskJdbcDao taskDao;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("db/task-schema.sql")
+            .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        taskDao = new TaskJdbcDao(jdbcTemplate, new NamedParameterJdbcTemplate(database));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void startsOnlyScheduledTasksOfTheCurrentTenant() {
+        long scheduled = insertTask("SCHEDULED", 1L);
+        long running = insertTask("RUNNING", 1L);
+        long failed = insertTask("FAILED", 1L);
+        long otherTenant = insertTask("SCHEDULED", 2L);
+
+        List<Long> started = taskDao.startTasks(List.of(scheduled, running, failed, otherTenant), "test");
+
+        assertEquals(List.of(scheduled), started);
+        assertEquals("RUNNING", status(scheduled));
+        assertEquals("FAILED", status(failed));
+        assertEquals("SCHEDULED", status(otherTenant));
+    }
+
+    @Test
+    void secondStartOfTheSameTasksStartsNothing() {
+        long first = insertTask("SCHEDULED", 1L);
+        long second = insertTask("SCHEDULED", 1L);
+
+        assertEquals(List.of(first, second), taskDao.startTasks(List.of(first, second), "test"));
+        assertTrue(taskDao.startTasks(List.of(first, second), "test").isEmpty());
+    }
+
+    @Test
+    void updateStatusesLeavesOtherTenantsAlone() {
+        long own = insertTask("RUNNING", 1L);
+        long otherTenant = insertTask("RUNNING", 2L);
+
+        taskDao.updateStatuses(Map.of(own, Task.TaskStatus.COMPLETED, otherTenant, Task.TaskStatus.COMPLETED), "test");
+
+        assertEquals("COMPLETED", status(own));
+        assertEquals("RUNNING", status(otherTenant));
+    }
+
+    @Test
+    void claimsFreeScheduledTasksUpToTheLimit() {
+        long first = insertTask("SCHEDULED", 1L);
+        long second = insertTask("SCHEDULED", 1L);
+        long third = insertTask("SCHEDULED", 1L);
+        long running = insertTask("RUNNING", 1L);
+        LocalDateTime leaseUntil = LocalDateTime.now().plusMinutes(1);
+
+        List<Task> claimed = taskDao.claimTasks(List.of(first, second, third, running), "node-1", 2, leaseUntil);
+
+        assertEquals(List.of(first, second), claimed.stream().map(Task::getId).sorted().collect(Collectors.toList()));
+        claimed.forEach(task -> assertEquals("node-1", task.getLeaseOwner()));
+        assertEquals("node-1", leaseOwner(first));
+        assertNull(leaseOwner(third));
+        assertNull(leaseOwner(running));
+    }
+
+    @Test
+    void taskOfAnotherTenantIsNotClaimed() {
+        long own = insertTask("SCHEDULED", 1L);
+        long otherTenant = insertTask("SCHEDULED", 2L);
+
+        List<Task> claimed = taskDao.claimTasks(List.of(own, otherTenant), "node-1", 10,
+            LocalDateTime.now().plusMinutes(1));
+
+        assertEquals(List.of(own), claimed.stream().map(Task::getId).collect(Collectors.toList()));
+        assertNull(leaseOwner(otherTenant));
+    }
+
+    @Test
+    void leasedTaskIsClaimedOnlyByItsOwnerUntilTheLeaseExpires() {
+        long leased = insertTask("SCHEDULED", 1L);
+        long expired = insertTask("SCHEDULED", 1L);
+        taskDao.claimTasks(List.of(leased), "node-1", 10, LocalDateTime.now().plusMinutes(1));
+        taskDao.claimTasks(List.of(expired), "node-1", 10, LocalDateTime.now().minusSeconds(1));
+
+        List<Task> claimed = taskDao.claimTasks(List.of(leased, expired), "node-2", 10,
+            LocalDateTime.now().plusMinutes(1));
+
+        assertEquals(List.of(expired), claimed.stream().map(Task::getId).collect(Collectors.toList()));
+        assertEquals("node-1", leaseOwner(leased));
+        assertEquals(1, taskDao.claimTasks(List.of(leased), "node-1", 10, LocalDateTime.now().plusMinutes(1)).size());
+    }
+
+    @Test
+    void releasedClaimCanBeTakenByAnotherNode() {
+        long task = insertTask("SCHEDULED", 1L);
+        taskDao.claimTasks(List.of(task), "node-1", 10, LocalDateTime.now().plusMinutes(1));
+
+        assertFalse(taskDao.releaseClaim(task, "node-2"));
+        assertTrue(taskDao.releaseClaim(task, "node-1"));
+
+        assertEquals(1, taskDao.claimTasks(List.of(task), "node-2", 10, LocalDateTime.now().plusMinutes(1)).size());
+        assertEquals("node-2", leaseOwner(task));
+    }
+
+    @Test
+    void unsetLimitsAreReadAsNull() {
+        long unset = insertTask("SCHEDULED", 1L);
+        long set = insertTask("SCHEDULED", 1L);
+        jdbcTemplate.update("UPDATE fj_task SET timeout = 5000, retries = 0, retry_delay = 1000 WHERE id = ?", set);
+
+        Task unsetTask = taskDao.findById(unset).orElseThrow();
+        assertNull(unsetTask.getTimeout());
+        assertNull(unsetTask.getRetries());
+        assertNull(unsetTask.getRetryDelay());
+
+        Task setTask = taskDao.findById(set).orElseThrow();
+        assertEquals(5000, setTask.getTimeout());
+        assertEquals(0, setTask.getRetries());
+        assertEquals(1000, setTask.getRetryDelay());
+    }
+
+    @Test
+    void standaloneTaskHasNoWorkflow() {
+        long standalone = insertTask("SCHEDULED", 1L);
+        long inWorkflow = insertTask("SCHEDULED", 1L);
+        jdbcTemplate.update("UPDATE fj_task SET workflow_id = 7, sequence = 2 WHERE id = ?", inWorkflow);
+
+        assertNull(taskDao.findById(standalone).orElseThrow().getWorkflowId());
+        assertEquals(7L, taskDao.findById(inWorkflow).orElseThrow().getWorkflowId());
+    }
+
+    @Test
+    void scheduledTasksOfASliceAreSelectedByIdBucket() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(insertTask("SCHEDULED", 1L));
+        }
+        insertTask("FAILED", 1L);
+
+        List<Long> slice = taskDao.findScheduledTasks(LocalDateTime.now(), 4, Set.of(1, 3)).stream()
+            .map(Task::getId).sorted().collect(Collectors.toList());
+
+        assertEquals(ids.stream().filter(id -> id % 4 == 1 || id % 4 == 3).collect(Collectors.toList()), slice);
+        assertTrue(taskDao.findScheduledTasks(LocalDateTime.now(), 4, Set.of()).isEmpty());
+    }
+
+    private long insertTask(String status, Long tenantId) {
+        jdbcTemplate.update("INSERT INTO fj_task (name, command, status, tenant_id) VALUES ('task', 'true', ?, ?)",
+            status, tenantId);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM fj_task", Long.class);
+    }
+
+    private String leaseOwner(long taskId) {
+        return jdbcTemplate.queryForObject("SELECT lease_owner FROM fj_task WHERE id = ?", String.class, taskId);
+    }
+
+    private String status(long taskId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM fj_task WHERE id = ?", String.class, taskId);
+    }
+}
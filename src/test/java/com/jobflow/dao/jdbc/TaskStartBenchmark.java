@@ -0,0 +1,114 @@
+package com.jobflow.dao.jdbc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tasks started per second on an in-memory H2 database: a batch of BATCH_SIZE tasks
+ * switched to RUNNING by one startTasks call, and the per-task path of a locked row
+ * read and update in its own transaction for each task. H2 has no network round trip,
+ * so against MySQL the gap is wider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskStartBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private TaskJdbcDao taskDao;
+    private List<Long> taskIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("db/task-schema.sql")
+            .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        taskDao = new TaskJdbcDao(jdbcTemplate, new NamedParameterJdbcTemplate(database));
+        taskIds = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            jdbcTemplate.update("INSERT INTO fj_task (name, command, status, tenant_id) VALUES ('task', 'true', 'SCHEDULED', 1)");
+            taskIds.add(jdbcTemplate.queryForObject("SELECT MAX(id) FROM fj_task", Long.class));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void reschedule() {
+        jdbcTemplate.update("UPDATE fj_task SET status = 'SCHEDULED'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int batchStart() {
+        return transactionTemplate.execute(status -> taskDao.startTasks(taskIds, "bench")).size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int perTaskStart() {
+        int started = 0;
+        for (Long taskId : taskIds) {
+            Boolean ok = transactionTemplate.execute(status -> {
+                String current = jdbcTemplate.queryForObject(
+                    "SELECT status FROM fj_task WHERE id = ? AND tenant_id = 1 FOR UPDATE", String.class, taskId);
+                if (!"SCHEDULED".equals(current)) {
+                    return false;
+                }
+                jdbcTemplate.update("UPDATE fj_task SET status = 'RUNNING', updated_by = ?, updated_time = ? WHERE id = ?",
+                    "bench", LocalDateTime.now(), taskId);
+                return true;
+            });
+            if (Boolean.TRUE.equals(ok)) {
+                started++;
+            }
+        }
+        return started;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(TaskStartBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.jobflow.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedBodySubscriberTest {
+
+    @Test
+    void keepsBodyWithinTheLimit() {
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(16, StandardCharsets.UTF_8);
+
+        subscriber.onNext(List.of(buffer("hello "), buffer("world")));
+        subscriber.onComplete();
+
+        assertEquals("hello world", body(subscriber));
+    }
+
+    @Test
+    void truncatesAndCountsTheRest() {
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(4, StandardCharsets.UTF_8);
+
+        subscriber.onNext(List.of(buffer("0123"), buffer("4567")));
+        subscriber.onNext(List.of(buffer("89")));
+        subscriber.onComplete();
+
+        assertEquals("0123\n... [truncated, 10 bytes total]", body(subscriber));
+    }
+
+    @Test
+    void doesNotSplitACharacterAtTheCut() {
+        // The cut falls inside the three byte euro sign
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(5, StandardCharsets.UTF_8);
+
+        subscriber.onNext(List.of(buffer("abc\u20acdef")));
+        subscriber.onComplete();
+
+        String body = body(subscriber);
+        assertEquals("abc\n... [truncated, 9 bytes total]", body);
+        assertFalse(body.contains("\ufffd"));
+    }
+
+    @Test
+    void undecodableBytesStayWithinTheLimit() {
+        BoundedBodySubscriber subscriber = new BoundedBodySubscriber(64, StandardCharsets.UTF_8);
+        byte[] binary = new byte[64];
+        Arrays.fill(binary, (byte) 0xFF);
+
+        subscriber.onNext(List.of(ByteBuffer.wrap(binary)));
+        subscriber.onComplete();
+
+        String body = body(subscriber);
+        String captured = body.substring(0, body.indexOf("\n... [truncated"));
+        assertTrue(OutputLimits.utf8Length(captured) <= 64);
+        assertTrue(OutputLimits.utf8Length(body) <= 64 + BoundedBodySubscriber.TRUNCATION_NOTE_BYTES);
+    }
+
+    private static ByteBuffer buffer(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String body(BoundedBodySubscriber subscriber) {
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+}
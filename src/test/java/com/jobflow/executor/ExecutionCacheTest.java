@@ -0,0 +1,149 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.dao.WorkflowDependencyDao;
+import com.jobflow.domain.Task;
+import com.jobflow.domain.WorkflowDependency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExecutionCacheTest {
+
+    private static final Long WORKFLOW_ID = 5L;
+
+    private final WorkflowDependencyDao dependencyDao = mock(WorkflowDependencyDao.class);
+    private ExecutionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cache(100, 60_000);
+    }
+
+    @Test
+    void keyIgnoresParameterKeyOrderAndWhitespace() {
+        String key = cache.keyFor(task(1L, null, "{\"b\":{\"y\":2,\"x\":1},\"a\":[1,2]}"));
+        String reordered = cache.keyFor(task(1L, null, "{ \"a\": [1, 2], \"b\": {\"x\": 1, \"y\": 2} }"));
+
+        assertNotNull(key);
+        assertEquals(key, reordered);
+        // Array order is meaningful
+        assertNotEquals(key, cache.keyFor(task(1L, null, "{\"a\":[2,1],\"b\":{\"x\":1,\"y\":2}}")));
+    }
+
+    @Test
+    void keyChangesWithCommandAndParameters() {
+        String key = cache.keyFor(task(1L, null, "{\"a\":1}"));
+
+        Task otherCommand = task(1L, null, "{\"a\":1}");
+        otherCommand.setCommand("echo other");
+        assertNotEquals(key, cache.keyFor(otherCommand));
+        assertNotEquals(key, cache.keyFor(task(1L, null, "{\"a\":2}")));
+    }
+
+    @Test
+    void keyFollowsTheUpstreamOutputHash() {
+        Task upstream = task(1L, WORKFLOW_ID, null);
+        Task downstream = task(2L, WORKFLOW_ID, null);
+        when(dependencyDao.findByTargetTaskId(WORKFLOW_ID, 2L)).thenReturn(List.of(dependency(1L, 2L)));
+
+        cache.recordSuccess(upstream, null, "first");
+        String first = cache.keyFor(downstream);
+        cache.recordSuccess(upstream, null, "first");
+        String same = cache.keyFor(downstream);
+        cache.recordSuccess(upstream, null, "second");
+        String second = cache.keyFor(downstream);
+
+        assertNotNull(first);
+        assertEquals(first, same);
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void noKeyWhileAnUpstreamOutputIsUnknown() {
+        when(dependencyDao.findByTargetTaskId(WORKFLOW_ID, 3L))
+            .thenReturn(List.of(dependency(1L, 3L), dependency(2L, 3L)));
+        cache.recordSuccess(task(1L, WORKFLOW_ID, null), null, "known");
+
+        assertNull(cache.keyFor(task(3L, WORKFLOW_ID, null)));
+
+        cache.recordSuccess(task(2L, WORKFLOW_ID, null), null, "known too");
+        assertNotNull(cache.keyFor(task(3L, WORKFLOW_ID, null)));
+    }
+
+    @Test
+    void taskThatDidNotOptInHasNoKey() {
+        Task task = task(1L, null, null);
+        task.setCacheable(false);
+
+        assertNull(cache.keyFor(task));
+    }
+
+    @Test
+    void localTierEvictsTheLeastRecentlyUsedOutput() {
+        cache = cache(2, 60_000);
+        Task task = task(1L, null, null);
+        cache.recordSuccess(task, "a", "output a");
+        cache.recordSuccess(task, "b", "output b");
+        // Touching a leaves b as the least recently used
+        assertEquals("output a", cache.get("a"));
+
+        cache.recordSuccess(task, "c", "output c");
+
+        assertEquals(2, cache.getLocalSize());
+        assertNull(cache.get("b"));
+        assertEquals("output a", cache.get("a"));
+        assertEquals("output c", cache.get("c"));
+    }
+
+    @Test
+    void localTierEntriesExpireAfterTheTtl() throws InterruptedException {
+        cache = cache(100, 50);
+        cache.recordSuccess(task(1L, null, null), "a", "output a");
+        assertEquals("output a", cache.get("a"));
+
+        Thread.sleep(100);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getLocalSize());
+    }
+
+    private ExecutionCache cache(int maxEntries, long ttlMs) {
+        ExecutionCache cache = new ExecutionCache(dependencyDao, null, new SimpleMeterRegistry(), new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "sharedEnabled", false);
+        ReflectionTestUtils.setField(cache, "maxLocalEntries", maxEntries);
+        ReflectionTestUtils.setField(cache, "ttlMs", ttlMs);
+        cache.init();
+        return cache;
+    }
+
+    private static Task task(Long id, Long workflowId, String parameters) {
+        Task task = new Task();
+        task.setId(id);
+        task.setWorkflowId(workflowId);
+        task.setType(Task.TaskType.SHELL);
+        task.setCommand("echo " + id);
+        task.setParameters(parameters);
+        task.setCacheable(true);
+        return task;
+    }
+
+    private static WorkflowDependency dependency(Long source, Long target) {
+        WorkflowDependency dependency = new WorkflowDependency();
+        dependency.setWorkflowId(WORKFLOW_ID);
+        dependency.setSourceTaskId(source);
+        dependency.setTargetTaskId(target);
+        return dependency;
+    }
+}
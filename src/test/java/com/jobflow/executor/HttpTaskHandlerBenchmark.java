@@ -0,0 +1,134 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP task throughput against a local stub server: CONCURRENCY tasks in flight per
+ * operation, run by HttpTaskHandler on its shared pooled client, and by a fresh client
+ * per request that buffers the whole body, which is what the handler replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HttpTaskHandlerBenchmark {
+
+    private static final int CONCURRENCY = 64;
+
+    @Param({"1024", "1048576"})
+    private int bodyBytes;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private HttpTaskHandler handler;
+    private Task task;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        byte[] body = new byte[bodyBytes];
+        Arrays.fill(body, (byte) 'x');
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        serverThreads = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverThreads);
+        server.createContext("/hook", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        handler = new HttpTaskHandler(new ObjectMapper());
+        ReflectionTestUtils.setField(handler, "connectTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(handler, "keepAliveSeconds", 60);
+        ReflectionTestUtils.setField(handler, "ioThreads", 8);
+        ReflectionTestUtils.setField(handler, "maxCapturedBytes", 57344);
+        handler.init();
+
+        task = new Task();
+        task.setId(1L);
+        task.setType(Task.TaskType.HTTP);
+        task.setCommand("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+        task.setTimeout(30_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        handler.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public int sharedClient() {
+        List<CompletableFuture<String>> calls = new ArrayList<>(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            calls.add(handler.execute(task));
+        }
+        int length = 0;
+        for (CompletableFuture<String> call : calls) {
+            length += call.join().length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public int clientPerRequest() {
+        URI uri = URI.create(task.getCommand());
+        List<CompletableFuture<HttpResponse<String>>> calls = new ArrayList<>(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            HttpClient client = HttpClient.newHttpClient();
+            calls.add(client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString()));
+        }
+        int length = 0;
+        for (CompletableFuture<HttpResponse<String>> call : calls) {
+            length += call.join().body().length();
+        }
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(HttpTaskHandlerBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,152 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs HTTP tasks against a stub server on the loopback interface
+ */
+class HttpTaskHandlerTest {
+
+    private static final int MAX_CAPTURED_BYTES = 256;
+
+    private final CountDownLatch released = new CountDownLatch(1);
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private HttpTaskHandler handler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/ok", exchange -> respond(exchange, 200, "hello"));
+        server.createContext("/echo", exchange -> respond(exchange, 200, exchange.getRequestMethod() + " "
+            + exchange.getRequestHeaders().getFirst("X-Task") + " "
+            + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+        server.createContext("/error", exchange -> respond(exchange, 503, "unavailable"));
+        server.createContext("/large", exchange -> {
+            char[] body = new char[10_000];
+            Arrays.fill(body, 'x');
+            respond(exchange, 200, new String(body));
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "late");
+        });
+        server.start();
+
+        handler = new HttpTaskHandler(new ObjectMapper());
+        ReflectionTestUtils.setField(handler, "connectTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(handler, "keepAliveSeconds", 60);
+        ReflectionTestUtils.setField(handler, "ioThreads", 2);
+        ReflectionTestUtils.setField(handler, "maxCapturedBytes", MAX_CAPTURED_BYTES);
+        handler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+        handler.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void successfulResponseIsTheOutput() throws Exception {
+        assertEquals("HTTP 200\nhello", handler.execute(task("/ok", null, null)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sendsMethodHeadersAndBodyFromTheParameters() throws Exception {
+        Task task = task("/echo", "{\"method\":\"post\",\"headers\":{\"X-Task\":\"7\"},\"body\":{\"a\":1}}", null);
+
+        assertEquals("HTTP 200\nPOST 7 {\"a\":1}", handler.execute(task).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void non2xxResponseFailsWithTheResponseAsOutput() {
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> handler.execute(task("/error", null, null)).get(5, TimeUnit.SECONDS));
+
+        TaskExecutionException cause = assertInstanceOf(TaskExecutionException.class, error.getCause());
+        assertTrue(cause.getMessage().contains("503"), cause.getMessage());
+        assertEquals("HTTP 503\nunavailable", cause.getOutput());
+    }
+
+    @Test
+    void capturesOnlyTheFirstBytesOfALargeBody() throws Exception {
+        String output = handler.execute(task("/large", null, null)).get(5, TimeUnit.SECONDS);
+
+        assertTrue(output.startsWith("HTTP 200\nxxx"), output);
+        assertTrue(output.endsWith("[truncated, 10000 bytes total]"), output);
+        String body = output.substring("HTTP 200\n".length());
+        assertTrue(body.length() <= MAX_CAPTURED_BYTES + BoundedBodySubscriber.TRUNCATION_NOTE_BYTES,
+            "captured " + body.length() + " characters");
+    }
+
+    @Test
+    void requestFailsOnceTheTaskTimeoutPasses() {
+        long start = System.nanoTime();
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> handler.execute(task("/slow", null, 200)).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(HttpTimeoutException.class, error.getCause());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+    }
+
+    @Test
+    void invalidTaskFailsWithoutARequest() {
+        Task task = task("/ok", "not json", null);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> handler.execute(task).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TaskExecutionException.class, error.getCause());
+    }
+
+    private Task task(String path, String parameters, Integer timeout) {
+        Task task = new Task();
+        task.setId(1L);
+        task.setType(Task.TaskType.HTTP);
+        task.setCommand("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        task.setParameters(parameters);
+        task.setTimeout(timeout);
+        return task;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShellTaskHandlerTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void deletesOnlySpillFilesPastTheRetention() throws Exception {
+        ShellTaskHandler handler = new ShellTaskHandler(new ObjectMapper(), null, null);
+        ReflectionTestUtils.setField(handler, "spillDir", spillDir.toString());
+        ReflectionTestUtils.setField(handler, "spillRetentionHours", 24L);
+
+        Path expired = Files.createFile(spillDir.resolve("task-1-stdout-1.log"));
+        Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(Duration.ofHours(25))));
+        Path recent = Files.createFile(spillDir.resolve("task-2-stdout-2.log"));
+        Path unrelated = Files.createFile(spillDir.resolve("notes.txt"));
+        Files.setLastModifiedTime(unrelated, FileTime.from(Instant.now().minus(Duration.ofHours(25))));
+
+        handler.deleteExpiredSpillFiles();
+
+        assertFalse(Files.exists(expired));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(unrelated));
+    }
+}
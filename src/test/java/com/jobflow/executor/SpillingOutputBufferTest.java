@@ -0,0 +1,99 @@
+package com.jobflow.executor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillingOutputBufferTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void keepsOnlyTheLastRingBytes() {
+        SpillingOutputBuffer buffer = new SpillingOutputBuffer(8, 1024, spillDir, "test-");
+
+        write(buffer, "0123456789");
+        write(buffer, "abcdefghij");
+
+        assertEquals("cdefghij", buffer.tail(StandardCharsets.UTF_8));
+        assertEquals(20, buffer.getTotalBytes());
+    }
+
+    @Test
+    void outputThatFitsIsNotSpilled() {
+        SpillingOutputBuffer buffer = new SpillingOutputBuffer(16, 16, spillDir, "test-");
+
+        write(buffer, "short");
+        buffer.close();
+
+        assertNull(buffer.getSpillFile());
+        assertEquals("short", buffer.tail(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void spillsTheCompleteOutputPastTheThreshold() throws Exception {
+        SpillingOutputBuffer buffer = new SpillingOutputBuffer(8, 8, spillDir, "test-");
+
+        write(buffer, "01234");
+        write(buffer, "56789");
+        write(buffer, "abcdefghijklmnop");
+        buffer.close();
+
+        assertNotNull(buffer.getSpillFile());
+        assertArrayEquals("0123456789abcdefghijklmnop".getBytes(StandardCharsets.UTF_8),
+            Files.readAllBytes(buffer.getSpillFile()));
+        assertEquals("ijklmnop", buffer.tail(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void summaryFitsTheLimitOnACharacterBoundary() {
+        SpillingOutputBuffer buffer = new SpillingOutputBuffer(4096, 8192, spillDir, "test-");
+        // Two, three and four byte characters
+        write(buffer, "\u00e9\u20ac\ud83d\ude00".repeat(300));
+
+        for (int limit = 100; limit < 140; limit++) {
+            String summary = buffer.summary("stdout", StandardCharsets.UTF_8, limit);
+
+            assertTrue(OutputLimits.utf8Length(summary) <= limit, "summary exceeds " + limit + " bytes");
+            assertTrue(summary.startsWith("--- stdout (2700 bytes, last "), summary);
+            assertFalse(summary.contains("\ufffd"), "summary splits a character");
+            assertTrue(summary.endsWith("\ud83d\ude00"));
+        }
+    }
+
+    @Test
+    void summaryShowsEverythingWithinTheLimit() {
+        SpillingOutputBuffer buffer = new SpillingOutputBuffer(64, 64, spillDir, "test-");
+        write(buffer, "done\n");
+
+        assertEquals("--- stderr (5 bytes) ---\ndone\n",
+            buffer.summary("stderr", StandardCharsets.UTF_8, OutputLimits.MAX_STORED_BYTES));
+    }
+
+    @Test
+    void outputLimitsCutOnCharacterBoundaries() {
+        String text = "a\u00e9\u20ac\ud83d\ude00";
+
+        assertEquals("a\u00e9", OutputLimits.head(text, 5));
+        assertEquals("a\u00e9\u20ac", OutputLimits.head(text, 6));
+        assertEquals("\ud83d\ude00", OutputLimits.tail(text, 6));
+        assertEquals("\u20ac\ud83d\ude00", OutputLimits.tail(text, 7));
+        assertEquals(text, OutputLimits.head(text, 10));
+    }
+
+    private static void write(SpillingOutputBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.write(bytes, 0, bytes.length);
+    }
+}
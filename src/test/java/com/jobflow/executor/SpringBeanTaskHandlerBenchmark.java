@@ -0,0 +1,122 @@
+package com.jobflow.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invokes a Spring bean method the way a SPRING_BEAN task does:
+ * - directCall: the method called in code, the lower bound
+ * - cachedMethodHandle: SpringBeanTaskHandler.execute, with the handle resolved once per task
+ * - cachedReflection: Method.invoke with the method and arguments resolved once
+ * - reflectionPerCall: bean lookup, method search, argument conversion and
+ *   Method.invoke on every call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpringBeanTaskHandlerBenchmark {
+
+    private static final String COMMAND = "calculator.add";
+    private static final String PARAMETERS = "{\"args\":[3,4]}";
+
+    private GenericApplicationContext applicationContext;
+    private ObjectMapper objectMapper;
+    private SpringBeanTaskHandler handler;
+    private Task task;
+    private Calculator calculator;
+    private Method method;
+    private Object[] args;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        applicationContext = new GenericApplicationContext();
+        applicationContext.registerBean("calculator", Calculator.class);
+        applicationContext.refresh();
+        objectMapper = new ObjectMapper();
+        handler = new SpringBeanTaskHandler(applicationContext, objectMapper);
+
+        task = new Task();
+        task.setId(1L);
+        task.setType(Task.TaskType.SPRING_BEAN);
+        task.setCommand(COMMAND);
+        task.setParameters(PARAMETERS);
+
+        calculator = applicationContext.getBean(Calculator.class);
+        method = Calculator.class.getMethod("add", int.class, int.class);
+        args = new Object[]{3, 4};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public String directCall() {
+        return String.valueOf(calculator.add(3, 4));
+    }
+
+    @Benchmark
+    public String cachedMethodHandle() {
+        return handler.execute(task).join();
+    }
+
+    @Benchmark
+    public String cachedReflection() throws Exception {
+        return String.valueOf(method.invoke(calculator, args));
+    }
+
+    @Benchmark
+    public String reflectionPerCall() throws Exception {
+        int separator = COMMAND.lastIndexOf('.');
+        Object bean = applicationContext.getBean(COMMAND.substring(0, separator));
+        String methodName = COMMAND.substring(separator + 1);
+        JsonNode argsNode = objectMapper.readTree(PARAMETERS).get("args");
+        for (Method candidate : bean.getClass().getMethods()) {
+            if (candidate.getName().equals(methodName) && candidate.getParameterCount() == argsNode.size()) {
+                Class<?>[] types = candidate.getParameterTypes();
+                Object[] values = new Object[types.length];
+                for (int i = 0; i < types.length; i++) {
+                    values[i] = objectMapper.convertValue(argsNode.get(i), types[i]);
+                }
+                return String.valueOf(candidate.invoke(bean, values));
+            }
+        }
+        throw new IllegalStateException("No method " + methodName);
+    }
+
+    public static class Calculator {
+        public int add(int left, int right) {
+            return left + right;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(SpringBeanTaskHandlerBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.jobflow.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadTest {
+
+    // Started per task like virtual threads; the semaphores don't care what kind of thread it is
+    private final ThreadFactory perTaskThreads = Thread::new;
+
+    @Test
+    void threadPerTaskBulkheadLimitsConcurrencyAndQueue() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 2, 3, perTaskThreads, true, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            bulkhead.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(() -> { }));
+        waitFor(() -> bulkhead.getActiveCount() == 2 && bulkhead.getQueueSize() == 3);
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+
+        // Permits are back once the work is done
+        waitFor(() -> bulkhead.getActiveCount() == 0);
+        CountDownLatch again = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            bulkhead.execute(again::countDown);
+        }
+        assertTrue(again.await(5, TimeUnit.SECONDS));
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void pooledBulkheadRejectsWhenPoolAndQueueAreFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, Thread::new, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+
+        bulkhead.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        bulkhead.execute(() -> { });
+
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(() -> { }));
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the next fire times of many tasks, as after a restart or clock change:
+ * - perCallParse: parses each task's expression on every call, as
+ *   calculateNextExecutionTime did before
+ * - cachedPerTask: one call per task through the CronScheduleCache
+ * - cachedBulk: one nextFireTimes call for all tasks
+ * The tasks share a limited set of distinct expressions, as real schedules do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CronScheduleCacheBenchmark {
+
+    @Param({"100000"})
+    private int tasks;
+
+    @Param({"50"})
+    private int distinctExpressions;
+
+    @Param({"1"})
+    private int count;
+
+    private List<Task> taskList;
+    private CronScheduleCache cache;
+    private LocalDateTime from;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskList = new ArrayList<>(tasks);
+        for (long id = 0; id < tasks; id++) {
+            int variant = (int) (id % distinctExpressions);
+            Task task = new Task();
+            task.setId(id);
+            task.setCron("0 " + (variant % 60) + " " + (variant % 24) + " * * MON-FRI");
+            taskList.add(task);
+        }
+        cache = new CronScheduleCache(4096);
+        from = LocalDateTime.of(2024, 1, 1, 0, 0);
+    }
+
+    @Benchmark
+    public Map<Long, LocalDateTime> perCallParse() {
+        Map<Long, LocalDateTime> next = new HashMap<>(tasks * 2);
+        for (Task task : taskList) {
+            next.put(task.getId(), CronExpression.parse(task.getCron()).next(from));
+        }
+        return next;
+    }
+
+    @Benchmark
+    public Map<Long, LocalDateTime> cachedPerTask() {
+        Map<Long, LocalDateTime> next = new HashMap<>(tasks * 2);
+        for (Task task : taskList) {
+            next.put(task.getId(), cache.next(task.getCron(), from));
+        }
+        return next;
+    }
+
+    @Benchmark
+    public Map<Long, List<LocalDateTime>> cachedBulk() {
+        return cache.nextFireTimes(taskList, from, count);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CronScheduleCacheBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CronScheduleCacheTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0, 30);
+
+    @Test
+    void expressionsDifferingOnlyInWhitespaceShareOneCompiledSchedule() {
+        CronScheduleCache cache = new CronScheduleCache(16);
+
+        assertSame(cache.get("0 * * * * *"), cache.get("  0  *  * * *\t* "));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        CronScheduleCache cache = new CronScheduleCache(2);
+        cache.get("0 0 * * * *");
+        cache.get("0 1 * * * *");
+        // Touch the first so the second is the eldest
+        cache.get("0 0 * * * *");
+        cache.get("0 2 * * * *");
+
+        assertEquals(2, cache.size());
+        long misses = cache.getMissCount();
+        cache.get("0 0 * * * *");
+        assertEquals(misses, cache.getMissCount());
+        cache.get("0 1 * * * *");
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    void nextFireTimesMatchThoseOfSingleCalls() {
+        CronScheduleCache cache = new CronScheduleCache(16);
+
+        List<LocalDateTime> times = cache.next("0 */15 * * * *", FROM, 3);
+
+        assertEquals(List.of(
+            LocalDateTime.of(2024, 1, 1, 0, 15),
+            LocalDateTime.of(2024, 1, 1, 0, 30),
+            LocalDateTime.of(2024, 1, 1, 0, 45)), times);
+        assertEquals(times.get(0), cache.next("0 */15 * * * *", FROM));
+    }
+
+    @Test
+    void bulkComputationEvaluatesEachExpressionOnceAndSkipsInvalidOnes() {
+        CronScheduleCache cache = new CronScheduleCache(16);
+        Task first = task(1L, "0 0 * * * *");
+        Task sameExpression = task(2L, "0  0 * * * *");
+        Task other = task(3L, "0 30 9 * * MON-FRI");
+        Task invalid = task(4L, "not a cron");
+        Task none = task(5L, null);
+
+        Map<Long, List<LocalDateTime>> times = cache.nextFireTimes(
+            List.of(first, sameExpression, other, invalid, none), FROM, 2);
+
+        assertEquals(3, times.size());
+        assertSame(times.get(1L), times.get(2L));
+        assertEquals(List.of(LocalDateTime.of(2024, 1, 1, 1, 0), LocalDateTime.of(2024, 1, 1, 2, 0)), times.get(1L));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 9, 30), times.get(3L).get(0));
+        assertFalse(times.containsKey(4L));
+        assertFalse(times.containsKey(5L));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void invalidExpressionIsRejected() {
+        CronScheduleCache cache = new CronScheduleCache(16);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get("* * *"));
+        assertEquals(0, cache.size());
+    }
+
+    private static Task task(Long id, String cron) {
+        Task task = new Task();
+        task.setId(id);
+        task.setCron(cron);
+        return task;
+    }
+}
@@ -0,0 +1,136 @@
+package com.jobflow.scheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a DAG edge by edge, checking each edge for a cycle before it is kept: with the
+ * incremental order used by WorkflowCycleGuard, and with the previous approach of adding
+ * the edge and searching the whole graph again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DynamicTopologicalOrderBenchmark {
+
+    @Param({"1000", "5000"})
+    private int edges;
+
+    private long[][] edgeList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Random DAG over a hidden ranking, added in random order so edges often contradict the order built so far
+        Random random = new Random(7);
+        int tasks = edges;
+        List<Long> ranking = new ArrayList<>();
+        for (long id = 0; id < tasks; id++) {
+            ranking.add(id);
+        }
+        Collections.shuffle(ranking, random);
+        edgeList = new long[edges][];
+        for (int i = 0; i < edges; i++) {
+            int a = random.nextInt(tasks);
+            int b = random.nextInt(tasks);
+            while (b == a) {
+                b = random.nextInt(tasks);
+            }
+            edgeList[i] = new long[]{ranking.get(Math.min(a, b)), ranking.get(Math.max(a, b))};
+        }
+    }
+
+    @Benchmark
+    public int incrementalOrder() {
+        DynamicTopologicalOrder order = new DynamicTopologicalOrder(edges);
+        int accepted = 0;
+        for (long[] edge : edgeList) {
+            if (order.tryAddEdge(edge[0], edge[1])) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public int fullSearchPerEdge() {
+        Map<Long, Set<Long>> successors = new HashMap<>();
+        int accepted = 0;
+        for (long[] edge : edgeList) {
+            successors.computeIfAbsent(edge[0], id -> new HashSet<>()).add(edge[1]);
+            if (hasCycle(successors)) {
+                successors.get(edge[0]).remove(edge[1]);
+            } else {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Iterative three-color search over the whole graph, as the old validateWorkflowDag did
+     */
+    private static boolean hasCycle(Map<Long, Set<Long>> successors) {
+        Map<Long, Integer> state = new HashMap<>();
+        for (Long start : successors.keySet()) {
+            if (state.containsKey(start)) {
+                continue;
+            }
+            Deque<Long> path = new ArrayDeque<>();
+            Deque<java.util.Iterator<Long>> iterators = new ArrayDeque<>();
+            path.push(start);
+            iterators.push(successors.getOrDefault(start, Set.of()).iterator());
+            state.put(start, 1);
+            while (!path.isEmpty()) {
+                if (iterators.peek().hasNext()) {
+                    Long next = iterators.peek().next();
+                    Integer color = state.get(next);
+                    if (color == null) {
+                        state.put(next, 1);
+                        path.push(next);
+                        iterators.push(successors.getOrDefault(next, Set.of()).iterator());
+                    } else if (color == 1) {
+                        return true;
+                    }
+                } else {
+                    state.put(path.pop(), 2);
+                    iterators.pop();
+                }
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(DynamicTopologicalOrderBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
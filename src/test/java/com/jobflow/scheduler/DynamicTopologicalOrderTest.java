@@ -0,0 +1,129 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.domain.WorkflowDependency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamicTopologicalOrderTest {
+
+    @Test
+    void rejectsSelfLoopAndTwoCycle() {
+        DynamicTopologicalOrder order = new DynamicTopologicalOrder(4);
+
+        assertFalse(order.tryAddEdge(1L, 1L));
+        assertTrue(order.tryAddEdge(1L, 2L));
+        assertFalse(order.tryAddEdge(2L, 1L));
+        assertTrue(order.precedes(1L, 2L));
+    }
+
+    @Test
+    void reordersWhenEdgeContradictsInsertionOrder() {
+        DynamicTopologicalOrder order = new DynamicTopologicalOrder(4);
+        order.addTask(1L);
+        order.addTask(2L);
+        order.addTask(3L);
+
+        assertTrue(order.tryAddEdge(3L, 1L));
+        assertTrue(order.tryAddEdge(2L, 3L));
+
+        assertTrue(order.precedes(2L, 3L));
+        assertTrue(order.precedes(3L, 1L));
+        assertFalse(order.tryAddEdge(1L, 2L));
+    }
+
+    @Test
+    void removedEdgeNoLongerBlocksTheReverseEdge() {
+        DynamicTopologicalOrder order = new DynamicTopologicalOrder(4);
+        assertTrue(order.tryAddEdge(1L, 2L));
+        assertTrue(order.tryAddEdge(2L, 3L));
+        assertFalse(order.tryAddEdge(3L, 1L));
+
+        order.removeEdge(2L, 3L);
+
+        assertTrue(order.tryAddEdge(3L, 1L));
+    }
+
+    @Test
+    void agreesWithDepthFirstSearchOnRandomGraphs() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int tasks = 2 + random.nextInt(40);
+            DynamicTopologicalOrder order = new DynamicTopologicalOrder(tasks);
+            Map<Long, Set<Long>> successors = new HashMap<>();
+            List<long[]> accepted = new ArrayList<>();
+
+            for (int i = 0; i < tasks * 3; i++) {
+                long source = random.nextInt(tasks);
+                long target = random.nextInt(tasks);
+                boolean expected = source != target && !reaches(successors, target, source);
+
+                assertEquals(expected, order.tryAddEdge(source, target),
+                    "edge " + source + "->" + target + " in round " + round);
+                if (expected) {
+                    successors.computeIfAbsent(source, id -> new HashSet<>()).add(target);
+                    accepted.add(new long[]{source, target});
+                }
+            }
+            for (long[] edge : accepted) {
+                assertTrue(order.precedes(edge[0], edge[1]), "order violates " + edge[0] + "->" + edge[1]);
+            }
+        }
+    }
+
+    @Test
+    void seedsFromCompiledPlan() {
+        Task first = task(1L);
+        Task second = task(2L);
+        Task third = task(3L);
+        WorkflowPlan plan = WorkflowPlan.compile(1L, List.of(first, second, third),
+            List.of(dependency(1L, 2L), dependency(2L, 3L)));
+        DynamicTopologicalOrder order = DynamicTopologicalOrder.of(plan);
+
+        assertEquals(3, order.size());
+        assertTrue(order.precedes(1L, 3L));
+        assertFalse(order.tryAddEdge(3L, 1L));
+        assertTrue(order.tryAddEdge(1L, 3L));
+    }
+
+    private static Task task(Long id) {
+        Task task = new Task();
+        task.setId(id);
+        return task;
+    }
+
+    private static WorkflowDependency dependency(Long source, Long target) {
+        WorkflowDependency dependency = new WorkflowDependency();
+        dependency.setSourceTaskId(source);
+        dependency.setTargetTaskId(target);
+        return dependency;
+    }
+
+    private static boolean reaches(Map<Long, Set<Long>> successors, long from, long to) {
+        Deque<Long> stack = new ArrayDeque<>(List.of(from));
+        Set<Long> seen = new HashSet<>();
+        while (!stack.isEmpty()) {
+            long node = stack.pop();
+            if (node == to) {
+                return true;
+            }
+            if (seen.add(node)) {
+                stack.addAll(successors.getOrDefault(node, Set.of()));
+            }
+        }
+        return false;
+    }
+}
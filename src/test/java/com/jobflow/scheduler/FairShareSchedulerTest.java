@@ -0,0 +1,115 @@
+package com.jobflow.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairShareSchedulerTest {
+
+    private static final Long A = 1L;
+    private static final Long B = 2L;
+
+    private final FairShareScheduler<String> scheduler = new FairShareScheduler<>(3, 100, 0, 1, 10);
+
+    @Test
+    void backloggedTenantsShareByWeight() throws Exception {
+        scheduler.configureTenant(A, 3, 10);
+        fill(A, 40);
+        fill(B, 40);
+
+        int grantsOfA = 0;
+        for (int i = 0; i < 40; i++) {
+            FairShareScheduler.Grant<String> grant = scheduler.take();
+            if (A.equals(grant.getTenantId())) {
+                grantsOfA++;
+            }
+            scheduler.release(grant.getTenantId());
+        }
+
+        assertEquals(30, grantsOfA);
+    }
+
+    @Test
+    void floodingTenantDoesNotDelayAnotherBeyondItsShare() throws Exception {
+        fill(A, 100);
+        scheduler.offer(B, 1, "b");
+
+        assertEquals(A, scheduler.take().getTenantId());
+        FairShareScheduler.Grant<String> second = scheduler.take();
+        assertEquals(B, second.getTenantId());
+        assertEquals("b", second.getEntry().getItem());
+    }
+
+    @Test
+    void tenantAtMaxConcurrencyYieldsToOthers() throws Exception {
+        scheduler.configureTenant(A, 1, 2);
+        fill(A, 5);
+        fill(B, 5);
+
+        int grantsOfA = 0;
+        for (int i = 0; i < 6; i++) {
+            if (A.equals(scheduler.take().getTenantId())) {
+                grantsOfA++;
+            }
+        }
+
+        assertEquals(2, grantsOfA);
+        assertEquals(2, scheduler.getRunning(A));
+        assertEquals(4, scheduler.getRunning(B));
+        assertEquals(6, scheduler.getTotalRunning());
+        assertEquals(2.0 / 6, scheduler.getShare(A), 1e-9);
+    }
+
+    @Test
+    void takeWaitsUntilTheTenantGetsASlotBack() throws Exception {
+        scheduler.configureTenant(A, 1, 1);
+        fill(A, 2);
+        scheduler.take();
+
+        CompletableFuture<FairShareScheduler.Grant<String>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return scheduler.take();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+        scheduler.release(A);
+        assertEquals(A, waiting.get(5, TimeUnit.SECONDS).getTenantId());
+    }
+
+    @Test
+    void fullLaneRejectsOnlyItsOwnTenant() {
+        FairShareScheduler<String> small = new FairShareScheduler<>(3, 2, 0, 1, 10);
+
+        assertTrue(small.offer(A, 1, "a1"));
+        assertTrue(small.offer(A, 1, "a2"));
+        assertFalse(small.offer(A, 1, "a3"));
+        assertTrue(small.offer(B, 1, "b1"));
+        assertEquals(2, small.getQueued(A));
+        assertEquals(1, small.getQueued(B));
+    }
+
+    @Test
+    void higherPriorityGoesFirstWithinATenant() throws Exception {
+        scheduler.offer(A, 0, "low");
+        scheduler.offer(A, 2, "high");
+
+        assertEquals("high", scheduler.take().getEntry().getItem());
+        assertEquals(1, scheduler.getQueued(A, 0));
+    }
+
+    private void fill(Long tenantId, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(scheduler.offer(tenantId, 1, tenantId + "-" + i));
+        }
+    }
+}
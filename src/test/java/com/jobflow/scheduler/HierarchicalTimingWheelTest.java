@@ -0,0 +1,67 @@
+package com.jobflow.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void firesEntriesInOrderOfExpiration() throws Exception {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 8, Runnable::run);
+        StringBuffer fired = new StringBuffer();
+        long now = System.currentTimeMillis();
+
+        wheel.schedule(now + 60, () -> fired.append("c"));
+        wheel.schedule(now + 5, () -> fired.append("a"));
+        wheel.schedule(now + 20, () -> fired.append("b"));
+        wheel.schedule(now + 40, () -> fired.append("x")).cancel();
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (fired.length() < 3 && System.currentTimeMillis() < deadline) {
+            wheel.advanceClock(10);
+        }
+
+        assertEquals("abc", fired.toString());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void blockedFireExecutorDoesNotBlockScheduling() throws Exception {
+        CountDownLatch handedOver = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Stands in for an executor that is full and makes the caller wait
+        Executor blocking = action -> {
+            handedOver.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            action.run();
+        };
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, 8, blocking);
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(System.currentTimeMillis() + 5, fired::incrementAndGet);
+
+        CompletableFuture<Boolean> driver = CompletableFuture.supplyAsync(() -> wheel.advanceClock(1000));
+        assertTrue(handedOver.await(2, TimeUnit.SECONDS));
+
+        // The driver is stuck in the executor; the wheel lock must already be free
+        CompletableFuture<HierarchicalTimingWheel.TimerEntry> scheduled = CompletableFuture.supplyAsync(() ->
+            wheel.schedule(System.currentTimeMillis() + 10_000, fired::incrementAndGet));
+        scheduled.get(1, TimeUnit.SECONDS);
+
+        release.countDown();
+        assertTrue(driver.get(2, TimeUnit.SECONDS));
+        assertEquals(1, fired.get());
+        assertEquals(1, wheel.size());
+    }
+}
@@ -0,0 +1,107 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.cluster.InMemoryCancellationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two nodes sharing one in-memory cancellation bus
+ */
+class InFlightExecutionRegistryTest {
+
+    private InFlightExecutionRegistry node1;
+    private InFlightExecutionRegistry node2;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryCancellationBus bus = new InMemoryCancellationBus();
+        node1 = new InFlightExecutionRegistry(bus);
+        node1.init();
+        node2 = new InFlightExecutionRegistry(bus);
+        node2.init();
+    }
+
+    @Test
+    void cancelFailsTheExecutionOnTheNodeRunningIt() {
+        CompletableFuture<String> execution = new CompletableFuture<>();
+        CompletableFuture<String> other = new CompletableFuture<>();
+        node2.register(1L, "execution-1", execution);
+        node2.register(2L, "execution-2", other);
+
+        node1.cancelExecution("execution-1", "Cancelled by admin");
+
+        ExecutionException error = assertThrows(ExecutionException.class, execution::get);
+        CancellationException cause = assertInstanceOf(CancellationException.class, error.getCause());
+        assertEquals("Cancelled by admin", cause.getMessage());
+        assertFalse(other.isDone());
+    }
+
+    @Test
+    void cancelStopsTheLiveWorkBehindTheExecution() {
+        CompletableFuture<String> execution = new CompletableFuture<>();
+        CompletableFuture<String> work = new CompletableFuture<>();
+        // What the dispatcher does with the future it registers
+        execution.whenComplete((output, error) -> {
+            if (error != null) {
+                work.cancel(true);
+            }
+        });
+        node1.register(1L, "execution-1", execution);
+
+        node2.cancelExecution("execution-1", "Cancelled");
+
+        assertTrue(work.isCancelled());
+    }
+
+    @Test
+    void cancelTaskReachesExecutionsWithoutARecord() {
+        CompletableFuture<String> withoutRecord = new CompletableFuture<>();
+        CompletableFuture<String> otherTask = new CompletableFuture<>();
+        node2.register(1L, null, withoutRecord);
+        node2.register(2L, "execution-2", otherTask);
+
+        node1.cancelTask(1L, "Cancelled");
+
+        assertTrue(withoutRecord.isCompletedExceptionally());
+        assertFalse(otherTask.isDone());
+    }
+
+    @Test
+    void cancelOfAnUnknownExecutionIsIgnored() {
+        CompletableFuture<String> execution = new CompletableFuture<>();
+        node1.register(1L, "execution-1", execution);
+
+        node2.cancelExecution("execution-9", "Cancelled");
+        node2.cancelTask(9L, "Cancelled");
+
+        assertFalse(execution.isDone());
+        assertEquals(1, node1.getInFlightCount());
+    }
+
+    @Test
+    void cancelAfterTheExecutionFinishedIsIgnored() throws Exception {
+        CompletableFuture<String> finished = new CompletableFuture<>();
+        node1.register(1L, "execution-1", finished);
+        finished.complete("output");
+
+        node1.cancelExecution("execution-1", "Cancelled");
+        assertEquals("output", finished.get());
+
+        CompletableFuture<String> unregistered = new CompletableFuture<>();
+        node1.register(2L, "execution-2", unregistered);
+        node1.unregister(2L, "execution-2");
+        node1.cancelExecution("execution-2", "Cancelled");
+        assertFalse(unregistered.isDone());
+        assertEquals(1, node1.getInFlightCount());
+    }
+}
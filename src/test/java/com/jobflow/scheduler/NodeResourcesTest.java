@@ -0,0 +1,75 @@
+package com.jobflow.scheduler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodeResourcesTest {
+
+    private NodeResources nodeResources;
+
+    @BeforeEach
+    void setUp() {
+        nodeResources = new NodeResources(new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(nodeResources, "enabled", true);
+        ReflectionTestUtils.setField(nodeResources, "configuredCpu", 4.0);
+        ReflectionTestUtils.setField(nodeResources, "configuredMemoryMb", 1024L);
+        nodeResources.init();
+    }
+
+    @Test
+    void fitsChecksFreeCapacityWithoutReserving() {
+        Task large = task(1L, 3, 512);
+
+        assertTrue(nodeResources.fits(large));
+        assertEquals(0, nodeResources.getReservedCpu());
+
+        nodeResources.reserve(new ResourceDemand(2, 256));
+        assertFalse(nodeResources.fits(large));
+        assertTrue(nodeResources.fits(task(2L, 1, 256)));
+    }
+
+    @Test
+    void taskWithoutDemandAlwaysFits() {
+        nodeResources.reserve(new ResourceDemand(4, 1024));
+        Task plain = new Task();
+        plain.setId(3L);
+
+        assertTrue(nodeResources.fits(plain));
+    }
+
+    @Test
+    void admitRejectsWhatDoesNotFitAndReleasesWhenDone() {
+        CompletableFuture<String> running = new CompletableFuture<>();
+        nodeResources.admit(task(1L, 3, 512), () -> running);
+
+        CompletableFuture<String> rejected = nodeResources.admit(task(2L, 2, 128),
+            () -> CompletableFuture.completedFuture("ran"));
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+
+        running.complete("done");
+        assertEquals(0, nodeResources.getReservedCpu());
+        assertTrue(nodeResources.fits(task(2L, 2, 128)));
+    }
+
+    private static Task task(Long id, double cpu, long memoryMb) {
+        Task task = new Task();
+        task.setId(id);
+        task.setParameters("{\"resources\":{\"cpu\":" + cpu + ",\"memoryMb\":" + memoryMb + "}}");
+        return task;
+    }
+}
@@ -0,0 +1,102 @@
+package com.jobflow.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityDispatchQueueTest {
+
+    private static final long AGING_STEP_MS = 50;
+
+    @Test
+    void higherPriorityGoesFirstAndEachLaneIsFifo() {
+        PriorityDispatchQueue<String> queue = new PriorityDispatchQueue<>(3, 10, 60_000);
+        queue.offer(0, "low-1");
+        queue.offer(2, "high-1");
+        queue.offer(1, "normal");
+        queue.offer(2, "high-2");
+        queue.offer(0, "low-2");
+
+        List<String> order = new ArrayList<>();
+        for (PriorityDispatchQueue.Entry<String> entry = queue.poll(); entry != null; entry = queue.poll()) {
+            order.add(entry.getItem());
+        }
+
+        assertEquals(List.of("high-1", "high-2", "normal", "low-1", "low-2"), order);
+    }
+
+    @Test
+    void outOfRangePriorityIsClampedAndFullQueueRejects() {
+        PriorityDispatchQueue<String> queue = new PriorityDispatchQueue<>(3, 2, 60_000);
+
+        assertTrue(queue.offer(9, "above"));
+        assertTrue(queue.offer(-1, "below"));
+        assertFalse(queue.offer(1, "overflow"));
+
+        assertEquals(1, queue.depth(2));
+        assertEquals(1, queue.depth(0));
+        assertEquals(0, queue.remainingCapacity());
+    }
+
+    @Test
+    void lowEntryIsPromotedOnceTheAgingIntervalPasses() throws InterruptedException {
+        PriorityDispatchQueue<String> queue = new PriorityDispatchQueue<>(3, 10, AGING_STEP_MS);
+        queue.offer(0, "low");
+        queue.offer(2, "high");
+        // Fresh entries are taken by base priority
+        assertEquals("high", queue.poll().getItem());
+
+        queue.offer(0, "low-2");
+        // Three steps lift the low entries above a fresh high entry, two would only tie
+        Thread.sleep(AGING_STEP_MS * 3 + 20);
+        queue.offer(2, "high-2");
+
+        assertEquals("low", queue.poll().getItem());
+        assertEquals("low-2", queue.poll().getItem());
+        assertEquals("high-2", queue.poll().getItem());
+    }
+
+    @Test
+    void busyHighLaneCannotStarveTheLowLane() throws InterruptedException {
+        PriorityDispatchQueue<String> queue = new PriorityDispatchQueue<>(2, 1000, AGING_STEP_MS);
+        queue.offer(0, "low");
+
+        // Keep the high lane busier than the consumer, so it is never empty
+        PriorityDispatchQueue.Entry<String> low = null;
+        int taken = 0;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (low == null && System.currentTimeMillis() < deadline) {
+            queue.offer(1, "high");
+            queue.offer(1, "high");
+            PriorityDispatchQueue.Entry<String> entry = queue.poll(1, TimeUnit.SECONDS);
+            assertNotNull(entry);
+            if ("low".equals(entry.getItem())) {
+                low = entry;
+            } else {
+                taken++;
+            }
+            Thread.sleep(5);
+        }
+
+        assertNotNull(low, "low entry starved behind " + taken + " high entries");
+        assertTrue(taken > 0);
+        assertTrue(queue.depth(1) > 0);
+        assertTrue(low.getWaitMs() < AGING_STEP_MS * 20, "low entry waited " + low.getWaitMs() + " ms");
+    }
+
+    @Test
+    void timedPollReturnsNullWhenNothingArrives() throws InterruptedException {
+        PriorityDispatchQueue<String> queue = new PriorityDispatchQueue<>(3, 10, AGING_STEP_MS);
+
+        assertNull(queue.poll(20, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.size());
+    }
+}
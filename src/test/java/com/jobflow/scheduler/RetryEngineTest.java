@@ -0,0 +1,124 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.dao.ExecutionRecordDao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RetryEngineTest {
+
+    private static final long INITIAL_DELAY_MS = 100;
+    private static final long MAX_DELAY_MS = 1000;
+
+    private final ExecutionRecordDao executionRecordDao = mock(ExecutionRecordDao.class);
+    private RetryEngine retryEngine;
+
+    @BeforeEach
+    void setUp() {
+        retryEngine = new RetryEngine(executionRecordDao,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), Runnable::run);
+        ReflectionTestUtils.setField(retryEngine, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retryEngine, "initialDelayMs", INITIAL_DELAY_MS);
+        ReflectionTestUtils.setField(retryEngine, "multiplier", 2.0);
+        ReflectionTestUtils.setField(retryEngine, "maxDelayMs", MAX_DELAY_MS);
+        ReflectionTestUtils.setField(retryEngine, "batchSize", 10);
+        ReflectionTestUtils.setField(retryEngine, "workerMode", false);
+        when(executionRecordDao.findPendingRetries()).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        retryEngine.stop();
+    }
+
+    @Test
+    void retryTimeIsJitteredWithinTheBackoffCeiling() {
+        for (int attempt = 1; attempt <= 6; attempt++) {
+            // 100, 200, 400, 800, then capped at 1000
+            long ceiling = Math.min(MAX_DELAY_MS, INITIAL_DELAY_MS << (attempt - 1));
+            long shortest = Long.MAX_VALUE;
+            long longest = 0;
+            for (int i = 0; i < 2000; i++) {
+                LocalDateTime before = LocalDateTime.now();
+                LocalDateTime retryAt = retryEngine.nextRetryTime(attempt);
+                LocalDateTime after = LocalDateTime.now();
+
+                assertFalse(retryAt.isBefore(before), "retry " + attempt + " before now");
+                assertFalse(retryAt.isAfter(after.plus(Duration.ofMillis(ceiling))), "retry " + attempt + " past " + ceiling);
+                long delay = Duration.between(before, retryAt).toMillis();
+                shortest = Math.min(shortest, delay);
+                longest = Math.max(longest, delay);
+            }
+            // Spread over the whole window rather than clustered at the ceiling
+            assertTrue(shortest < ceiling / 10, "shortest delay of retry " + attempt + " was " + shortest);
+            assertTrue(longest > ceiling * 9 / 10, "longest delay of retry " + attempt + " was " + longest);
+        }
+    }
+
+    @Test
+    void taskRetriesOverrideTheDefaultLimit() {
+        assertTrue(retryEngine.canRetry(null, 3));
+        assertFalse(retryEngine.canRetry(null, 4));
+
+        assertTrue(retryEngine.canRetry(5, 5));
+        assertFalse(retryEngine.canRetry(5, 6));
+
+        assertFalse(retryEngine.canRetry(0, 1));
+    }
+
+    @Test
+    void retryOfAnExecutionIsQueuedOnce() {
+        LocalDateTime retryAt = LocalDateTime.now().plusMinutes(1);
+
+        retryEngine.schedule(1L, "execution-1", 1, retryAt);
+        retryEngine.schedule(1L, "execution-1", 1, retryAt);
+        retryEngine.schedule(2L, "execution-2", 1, retryAt);
+        // Retries that aren't persisted have nothing to deduplicate on
+        retryEngine.schedule(3L, null, 1, retryAt);
+        retryEngine.schedule(3L, null, 1, retryAt);
+
+        assertEquals(4, retryEngine.getPendingCount());
+    }
+
+    @Test
+    void dispatchesOnlyTheRetriesItClaimed() throws InterruptedException {
+        when(executionRecordDao.claimRetries(anyCollection())).thenReturn(List.of("claimed"));
+        Queue<Long> started = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(2);
+        retryEngine.onRetryDue(retry -> {
+            started.add(retry.getTaskId());
+            done.countDown();
+        });
+        // Due in this order, so the unclaimed one is passed over before the last one runs
+        LocalDateTime now = LocalDateTime.now();
+        retryEngine.schedule(1L, "taken-elsewhere", 1, now.minusSeconds(3));
+        retryEngine.schedule(2L, "claimed", 1, now.minusSeconds(2));
+        retryEngine.schedule(3L, null, 1, now.minusSeconds(1));
+
+        retryEngine.start();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2L, 3L), List.copyOf(started));
+        verify(executionRecordDao).claimRetries(List.of("taken-elsewhere", "claimed"));
+        assertEquals(0, retryEngine.getPendingCount());
+    }
+}
@@ -0,0 +1,142 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.domain.WorkflowDependency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Diamond 1 -> {2, 3} -> 4 with p50 durations 100, 300, 100 and 50 ms; p90 is twice p50
+ */
+class RunForecastTest {
+
+    private static final long T = 1_000_000L;
+
+    private WorkflowPlan plan;
+    private long[] p50;
+    private long[] p90;
+
+    @BeforeEach
+    void setUp() {
+        plan = WorkflowPlan.compile(1L, tasks(1L, 2L, 3L, 4L),
+            List.of(dependency(1L, 2L), dependency(1L, 3L), dependency(2L, 4L), dependency(3L, 4L)));
+        p50 = new long[plan.size()];
+        p90 = new long[plan.size()];
+        Map<Long, Long> durations = Map.of(1L, 100L, 2L, 300L, 3L, 100L, 4L, 50L);
+        durations.forEach((taskId, ms) -> {
+            p50[plan.indexOf(taskId)] = ms;
+            p90[plan.indexOf(taskId)] = ms * 2;
+        });
+    }
+
+    @Test
+    void projectsTheLongestPathOfAFreshRun() {
+        RunForecast forecast = new RunForecast(plan, null, p50, p90, T, 0);
+
+        WorkflowForecast snapshot = forecast.snapshot(T);
+
+        assertEquals(T + 450, forecast.getEstimatedFinishMs(T));
+        assertEquals(time(T + 450), snapshot.getEstimatedCompletionTime());
+        assertEquals(time(T + 900), snapshot.getPessimisticCompletionTime());
+        assertEquals(450, snapshot.getRemainingMs());
+        assertEquals(0.0, snapshot.getProgress());
+        assertEquals(List.of(1L, 2L, 4L), snapshot.getCriticalPath());
+        assertEquals(Map.of(1L, 0L, 2L, 0L, 3L, 200L, 4L, 0L), snapshot.getSlackMs());
+        assertEquals(Long.MAX_VALUE, forecast.getSlaMarginMs(T));
+    }
+
+    @Test
+    void deadlineIsAtRiskWhenTheP90ProjectionPassesIt() {
+        RunForecast forecast = new RunForecast(plan, null, p50, p90, T, 800);
+
+        assertEquals(-100, forecast.getSlaMarginMs(T));
+        WorkflowForecast snapshot = forecast.snapshot(T);
+        assertEquals(time(T + 800), snapshot.getDeadline());
+        assertTrue(snapshot.isSlaAtRisk());
+    }
+
+    @Test
+    void partiallyCompletedRunUsesActualTimes() {
+        RunForecast forecast = new RunForecast(plan, null, p50, p90, T, 800);
+        forecast.taskStarted(plan.indexOf(1L), T);
+        forecast.taskFinished(plan.indexOf(1L), T + 50);
+        forecast.taskStarted(plan.indexOf(2L), T + 50);
+        forecast.taskStarted(plan.indexOf(3L), T + 50);
+
+        WorkflowForecast snapshot = forecast.snapshot(T + 50);
+
+        // 2 ends at 350, so 4 runs from 350 to 400; at p90 2 ends at 650 and 4 at 750
+        assertEquals(time(T + 400), snapshot.getEstimatedCompletionTime());
+        assertEquals(time(T + 750), snapshot.getPessimisticCompletionTime());
+        assertEquals(350, snapshot.getRemainingMs());
+        assertEquals(25.0, snapshot.getProgress());
+        assertEquals(List.of(2L, 4L), snapshot.getCriticalPath());
+        assertEquals(Map.of(2L, 0L, 3L, 200L, 4L, 0L), snapshot.getSlackMs());
+        assertEquals(50, forecast.getSlaMarginMs(T + 50));
+        assertFalse(snapshot.isSlaAtRisk());
+    }
+
+    @Test
+    void overrunningTaskPushesTheProjectionWithTheClock() {
+        RunForecast forecast = new RunForecast(plan, null, p50, p90, T, 0);
+        forecast.taskStarted(plan.indexOf(1L), T);
+        forecast.taskFinished(plan.indexOf(1L), T + 100);
+        forecast.taskStarted(plan.indexOf(2L), T + 100);
+        forecast.taskStarted(plan.indexOf(3L), T + 100);
+        forecast.taskFinished(plan.indexOf(3L), T + 200);
+
+        // 2 was expected to end at 400 but is still running at 500
+        assertEquals(T + 550, forecast.getEstimatedFinishMs(T + 500));
+
+        forecast.taskFinished(plan.indexOf(2L), T + 600);
+        assertEquals(T + 650, forecast.getEstimatedFinishMs(T + 600));
+        assertEquals(List.of(4L), forecast.snapshot(T + 600).getCriticalPath());
+    }
+
+    @Test
+    void runOfASubsetIgnoresTasksOutsideIt() {
+        boolean[] included = new boolean[plan.size()];
+        included[plan.indexOf(3L)] = true;
+        included[plan.indexOf(4L)] = true;
+        RunForecast forecast = new RunForecast(plan, included, p50, p90, T, 0);
+
+        WorkflowForecast snapshot = forecast.snapshot(T);
+
+        assertEquals(T + 150, forecast.getEstimatedFinishMs(T));
+        assertEquals(List.of(3L, 4L), snapshot.getCriticalPath());
+        assertEquals(Map.of(3L, 0L, 4L, 0L), snapshot.getSlackMs());
+    }
+
+    private static LocalDateTime time(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    private static List<Task> tasks(Long... ids) {
+        List<Task> tasks = new ArrayList<>();
+        for (Long id : ids) {
+            Task task = new Task();
+            task.setId(id);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static WorkflowDependency dependency(Long source, Long target) {
+        WorkflowDependency dependency = new WorkflowDependency();
+        dependency.setSourceTaskId(source);
+        dependency.setTargetTaskId(target);
+        dependency.setType(WorkflowDependency.DependencyType.SUCCESS_REQUIRED);
+        return dependency;
+    }
+}
@@ -0,0 +1,178 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.dao.ExecutionRecordDao;
+import com.jobflow.domain.ExecutionRecord;
+import com.jobflow.domain.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SpeculativeExecutorTest {
+
+    // p90 of 20, 40, ... 200 ms
+    private static final long THRESHOLD_MS = 180;
+
+    private final ExecutionRecordDao executionRecordDao = mock(ExecutionRecordDao.class);
+    private final List<CompletableFuture<String>> started = new CopyOnWriteArrayList<>();
+    private final List<Long> startedAt = new CopyOnWriteArrayList<>();
+    private ThreadPoolTaskScheduler taskScheduler;
+    private SpeculativeExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.initialize();
+
+        executor = new SpeculativeExecutor(executionRecordDao, taskScheduler, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executor, "enabled", true);
+        ReflectionTestUtils.setField(executor, "percentile", 90.0);
+        ReflectionTestUtils.setField(executor, "minSamples", 10);
+        ReflectionTestUtils.setField(executor, "historySize", 100);
+        ReflectionTestUtils.setField(executor, "minDelayMs", 0L);
+        ReflectionTestUtils.setField(executor, "refreshMs", 60_000L);
+        executor.init();
+
+        List<Long> durations = new ArrayList<>();
+        for (long ms = 200; ms >= 20; ms -= 20) {
+            durations.add(ms);
+        }
+        when(executionRecordDao.findRecentDurations(eq(1L), eq(ExecutionRecord.ExecutionStatus.COMPLETED), anyInt()))
+            .thenReturn(durations);
+        when(executionRecordDao.findRecentDurations(eq(2L), eq(ExecutionRecord.ExecutionStatus.COMPLETED), anyInt()))
+            .thenReturn(durations.subList(0, 9));
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskScheduler.shutdown();
+    }
+
+    @Test
+    void backupStartsOnceTheAttemptPassesThePercentile() throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<String> result = executor.execute(task(1L), attempt());
+
+        Thread.sleep(THRESHOLD_MS / 2);
+        assertEquals(1, started.size());
+
+        awaitAttempts(2);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(startedAt.get(1) - start) >= THRESHOLD_MS);
+        assertFalse(result.isDone());
+    }
+
+    @Test
+    void attemptFinishingInTimeGetsNoBackup() throws Exception {
+        CompletableFuture<String> result = executor.execute(task(1L), attempt());
+        started.get(0).complete("first");
+
+        assertEquals("first", result.get(1, TimeUnit.SECONDS));
+        Thread.sleep(THRESHOLD_MS * 2);
+        assertEquals(1, started.size());
+    }
+
+    @Test
+    void firstSuccessWinsAndTheLoserIsCancelled() throws Exception {
+        CompletableFuture<String> result = executor.execute(task(1L), attempt());
+        awaitAttempts(2);
+
+        started.get(1).complete("backup");
+
+        assertEquals("backup", result.get(1, TimeUnit.SECONDS));
+        assertTrue(started.get(0).isCancelled());
+        // A late success of the loser changes nothing
+        assertFalse(started.get(0).complete("first"));
+        assertEquals("backup", result.get());
+    }
+
+    @Test
+    void taskFailsOnlyWhenEveryAttemptFailed() throws Exception {
+        CompletableFuture<String> result = executor.execute(task(1L), attempt());
+        awaitAttempts(2);
+
+        started.get(0).completeExceptionally(new IllegalStateException("first failed"));
+        Thread.sleep(50);
+        assertFalse(result.isDone());
+
+        started.get(1).completeExceptionally(new IllegalStateException("backup failed"));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals("backup failed", error.getCause().getMessage());
+    }
+
+    @Test
+    void failureBeforeTheThresholdFailsTheTaskWithoutABackup() throws Exception {
+        CompletableFuture<String> result = executor.execute(task(1L), attempt());
+
+        started.get(0).completeExceptionally(new IllegalStateException("failed"));
+
+        assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        Thread.sleep(THRESHOLD_MS * 2);
+        assertEquals(1, started.size());
+    }
+
+    @Test
+    void cancellingTheTaskStopsEveryAttempt() throws Exception {
+        CompletableFuture<String> result = executor.execute(task(1L), attempt());
+        awaitAttempts(2);
+
+        result.cancel(true);
+
+        assertTrue(started.get(0).isCancelled());
+        assertTrue(started.get(1).isCancelled());
+    }
+
+    @Test
+    void taskWithTooFewSamplesIsNeverSpeculated() throws Exception {
+        CompletableFuture<String> result = executor.execute(task(2L), attempt());
+
+        assertSame(started.get(0), result);
+        Thread.sleep(THRESHOLD_MS * 2);
+        assertEquals(1, started.size());
+    }
+
+    private Supplier<CompletableFuture<String>> attempt() {
+        return () -> {
+            CompletableFuture<String> attempt = new CompletableFuture<>();
+            started.add(attempt);
+            startedAt.add(System.nanoTime());
+            return attempt;
+        };
+    }
+
+    private void awaitAttempts(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (started.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, started.size());
+    }
+
+    private static Task task(Long id) {
+        Task task = new Task();
+        task.setId(id);
+        task.setWorkflowId(7L);
+        task.setSpeculative(true);
+        return task;
+    }
+}
@@ -0,0 +1,76 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.ExecutionRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeoutWatchdogTest {
+
+    private ThreadPoolTaskScheduler taskScheduler;
+    private TimeoutWatchdog watchdog;
+
+    @BeforeEach
+    void setUp() {
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.initialize();
+
+        watchdog = new TimeoutWatchdog(taskScheduler);
+        ReflectionTestUtils.setField(watchdog, "tickMs", 5L);
+        ReflectionTestUtils.setField(watchdog, "wheelSize", 64);
+        ReflectionTestUtils.setField(watchdog, "pollTimeoutMs", 10L);
+        ReflectionTestUtils.setField(watchdog, "fireThreads", 1);
+        watchdog.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchdog.stop();
+        taskScheduler.shutdown();
+    }
+
+    @Test
+    void slowTimeoutActionDoesNotDelayOtherDeadlines() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch second = new CountDownLatch(1);
+
+        watchdog.watch(ExecutionRecord.ExecutionType.TASK, 1L, "e1", 10, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50);
+        // The only fire thread is busy; the driver queues this expiry instead of running it
+        watchdog.watch(ExecutionRecord.ExecutionType.TASK, 2L, "e2", 10, second::countDown);
+        Thread.sleep(50);
+        assertEquals(1, second.getCount());
+
+        release.countDown();
+        assertTrue(second.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void unwatchedExecutionDoesNotTimeOut() throws Exception {
+        AtomicInteger timeouts = new AtomicInteger();
+        watchdog.watch(ExecutionRecord.ExecutionType.TASK, 1L, "e1", 30, timeouts::incrementAndGet);
+
+        assertTrue(watchdog.unwatch(ExecutionRecord.ExecutionType.TASK, 1L));
+        Thread.sleep(100);
+
+        assertEquals(0, timeouts.get());
+        assertFalse(watchdog.unwatch(ExecutionRecord.ExecutionType.TASK, 1L));
+    }
+}
@@ -0,0 +1,118 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.cluster.ClusterPartitioner;
+import com.jobflow.dao.TaskDao;
+import com.jobflow.dao.WorkflowDao;
+import com.jobflow.domain.Task;
+import com.jobflow.service.TaskService;
+import com.jobflow.service.WorkflowService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimingWheelDispatcherTest {
+
+    private final TaskDao taskDao = mock(TaskDao.class);
+    private final WorkflowDao workflowDao = mock(WorkflowDao.class);
+    private final TaskService taskService = mock(TaskService.class);
+    private final WorkflowService workflowService = mock(WorkflowService.class);
+    private final ClusterPartitioner partitioner = mock(ClusterPartitioner.class);
+    private final MicroBatcher microBatcher = mock(MicroBatcher.class);
+
+    private ThreadPoolTaskScheduler taskScheduler;
+    private ExecutorService taskExecutor;
+    private TimingWheelDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(2);
+        taskScheduler.initialize();
+        taskExecutor = Executors.newFixedThreadPool(2);
+
+        dispatcher = new TimingWheelDispatcher(taskDao, workflowDao, taskService, workflowService,
+            new CronScheduleCache(16), partitioner, microBatcher, taskScheduler, taskExecutor);
+        ReflectionTestUtils.setField(dispatcher, "tickMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "wheelSize", 64);
+        ReflectionTestUtils.setField(dispatcher, "pollTimeoutMs", 10L);
+        // Resyncs are triggered by the test
+        ReflectionTestUtils.setField(dispatcher, "resyncIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(dispatcher, "fireThreads", 2);
+        ReflectionTestUtils.setField(dispatcher, "claimEnabled", false);
+        ReflectionTestUtils.setField(dispatcher, "claimBatchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "workerMode", false);
+
+        when(partitioner.ownsTask(anyLong())).thenReturn(true);
+        when(partitioner.ownsWorkflow(anyLong())).thenReturn(true);
+        // Not partitioned: every scheduled definition belongs to this node
+        when(partitioner.getOwnedTaskBuckets()).thenReturn(null);
+        when(partitioner.getOwnedWorkflowBuckets()).thenReturn(null);
+        when(workflowDao.findScheduledWorkflows(any())).thenReturn(List.of());
+        when(microBatcher.accepts(any())).thenReturn(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+        taskScheduler.shutdown();
+        taskExecutor.shutdownNow();
+    }
+
+    @Test
+    void recurringTaskFiresAgainAfterResyncDuringRun() throws Exception {
+        Task task = new Task();
+        task.setId(1L);
+        task.setCron("* * * * * *");
+        task.setStatus(Task.TaskStatus.SCHEDULED);
+
+        // Same selection as TaskJdbcDao.findScheduledTasks
+        when(taskDao.findScheduledTasks(any())).thenAnswer(invocation ->
+            task.getStatus() == Task.TaskStatus.SCHEDULED || task.getStatus() == Task.TaskStatus.RUNNING
+                ? List.of(task) : List.of());
+        when(taskService.findById(1L)).thenReturn(task);
+
+        CountDownLatch firstRun = new CountDownLatch(1);
+        CountDownLatch resynced = new CountDownLatch(1);
+        CountDownLatch secondRun = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (firstRun.getCount() > 0) {
+                // Resync while the first run is still going, then finish it the way
+                // TaskServiceImpl does for a recurring task
+                task.setStatus(Task.TaskStatus.RUNNING);
+                firstRun.countDown();
+                assertTrue(resynced.await(5, TimeUnit.SECONDS));
+                task.setStatus(Task.TaskStatus.SCHEDULED);
+            } else {
+                secondRun.countDown();
+            }
+            return null;
+        }).when(taskService).executeTask(any(Task.class), anyString());
+
+        dispatcher.start();
+        dispatcher.resync();
+
+        assertTrue(firstRun.await(3, TimeUnit.SECONDS), "first occurrence did not fire");
+        dispatcher.resync();
+        assertEquals(1, dispatcher.getPendingCount(), "resync dropped the next occurrence");
+        resynced.countDown();
+
+        assertTrue(secondRun.await(3, TimeUnit.SECONDS), "second occurrence did not fire");
+    }
+}
@@ -0,0 +1,143 @@
+package com.jobflow.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs TASKS simulated I/O-bound tasks, each blocking for ioMs, and measures the time
+ * until all have finished:
+ * - virtualBulkhead: a Bulkhead on virtual threads allowing every task in flight at once
+ *   (needs Java 21, skipped before)
+ * - platformBulkhead: the default HTTP bulkhead, 100 platform threads
+ * - taskExecutorPool: the taskExecutor bean's setup, core 10, max 50, queue 100 and
+ *   CallerRunsPolicy, which is what tasks ran on before bulkheads
+ *
+ * Memory is reported as the peak number of live platform threads, each holding a stack
+ * outside the heap, and through the GC profiler as allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadBulkheadBenchmark {
+
+    private static final int TASKS = 10_000;
+
+    @Param({"50"})
+    private long ioMs;
+
+    private Bulkhead virtualBulkhead;
+    private Bulkhead platformBulkhead;
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ThreadFactory virtualThreads = TaskTypeExecutors.createVirtualThreadFactory("Bench-Virtual-");
+        if (virtualThreads != null) {
+            virtualBulkhead = new Bulkhead("virtual", TASKS, 0, virtualThreads, true, new SimpleMeterRegistry());
+        }
+        platformBulkhead = new Bulkhead("platform", 100, TASKS, new CustomizableThreadFactory("Bench-Platform-"),
+            new SimpleMeterRegistry());
+
+        taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(10);
+        taskExecutor.setMaxPoolSize(50);
+        taskExecutor.setQueueCapacity(100);
+        taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        taskExecutor.initialize();
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (virtualBulkhead != null) {
+            virtualBulkhead.shutdown();
+        }
+        platformBulkhead.shutdown();
+        taskExecutor.shutdown();
+    }
+
+    /**
+     * Peak live platform threads during the iteration
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Threads {
+        public long peakPlatformThreads;
+
+        @TearDown(Level.Iteration)
+        public void record() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            peakPlatformThreads = threads.getPeakThreadCount();
+        }
+    }
+
+    @Benchmark
+    public void virtualBulkhead(Threads threads) throws InterruptedException {
+        if (virtualBulkhead == null) {
+            return;
+        }
+        runAll(virtualBulkhead);
+    }
+
+    @Benchmark
+    public void platformBulkhead(Threads threads) throws InterruptedException {
+        runAll(platformBulkhead);
+    }
+
+    @Benchmark
+    public void taskExecutorPool(Threads threads) throws InterruptedException {
+        runAll(taskExecutor);
+    }
+
+    private void runAll(Executor executor) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(ioMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(VirtualThreadBulkheadBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
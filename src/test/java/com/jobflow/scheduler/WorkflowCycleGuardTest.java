@@ -0,0 +1,99 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.domain.WorkflowDependency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowCycleGuardTest {
+
+    private static final Long WORKFLOW_ID = 1L;
+
+    // Committed dependencies and structure version, as every node would read them
+    private final List<WorkflowDependency> committed = new ArrayList<>();
+    private long committedVersion;
+
+    @Test
+    void nodeWithStaleOrderSeesDependencyCommittedElsewhere() {
+        WorkflowCycleGuard node1 = new WorkflowCycleGuard(16);
+        WorkflowCycleGuard node2 = new WorkflowCycleGuard(16);
+
+        // Node 2 caches the order of the empty workflow
+        assertTrue(addDependency(node2, 3L, 4L, true));
+        // Node 1 adds A->B
+        assertTrue(addDependency(node1, 1L, 2L, true));
+
+        // Node 2's order predates A->B; it must still reject B->A
+        assertFalse(addDependency(node2, 2L, 1L, true));
+    }
+
+    @Test
+    void rolledBackDependencyLeavesNoPhantomEdge() {
+        WorkflowCycleGuard guard = new WorkflowCycleGuard(16);
+
+        assertTrue(addDependency(guard, 1L, 2L, false));
+
+        assertTrue(addDependency(guard, 2L, 1L, true));
+    }
+
+    @Test
+    void uncommittedDependencyWithoutCompletionIsNotTrusted() {
+        WorkflowCycleGuard guard = new WorkflowCycleGuard(16);
+        long version = committedVersion + 1;
+        // The insert failed before the completion callback was registered
+        assertTrue(guard.tryAddDependency(WORKFLOW_ID, version, 1L, 2L, plan()));
+
+        assertTrue(addDependency(guard, 2L, 1L, true));
+    }
+
+    @Test
+    void committedRemovalIsApplied() {
+        WorkflowCycleGuard guard = new WorkflowCycleGuard(16);
+        assertTrue(addDependency(guard, 1L, 2L, true));
+
+        committed.removeIf(dependency -> dependency.getSourceTaskId().equals(1L));
+        guard.dependencyRemoved(WORKFLOW_ID, ++committedVersion, 1L, 2L);
+
+        assertTrue(addDependency(guard, 2L, 1L, true));
+    }
+
+    /**
+     * What WorkflowServiceImpl.addDependency does in one transaction
+     */
+    private boolean addDependency(WorkflowCycleGuard guard, Long source, Long target, boolean commit) {
+        long version = committedVersion + 1;
+        if (!guard.tryAddDependency(WORKFLOW_ID, version, source, target, plan())) {
+            return false;
+        }
+        if (commit) {
+            committed.add(dependency(source, target));
+            committedVersion = version;
+        }
+        guard.dependencyAdded(WORKFLOW_ID, version, commit);
+        return true;
+    }
+
+    private Supplier<WorkflowPlan> plan() {
+        List<WorkflowDependency> snapshot = List.copyOf(committed);
+        return () -> WorkflowPlan.compile(WORKFLOW_ID, List.of(task(1L), task(2L), task(3L), task(4L)), snapshot);
+    }
+
+    private static Task task(Long id) {
+        Task task = new Task();
+        task.setId(id);
+        return task;
+    }
+
+    private static WorkflowDependency dependency(Long source, Long target) {
+        WorkflowDependency dependency = new WorkflowDependency();
+        dependency.setSourceTaskId(source);
+        dependency.setTargetTaskId(target);
+        return dependency;
+    }
+}
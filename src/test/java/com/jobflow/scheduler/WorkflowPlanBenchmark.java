@@ -0,0 +1,150 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.domain.WorkflowDependency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Sorts a large random workflow and collects the tasks downstream of one task: with the
+ * compiled WorkflowPlan, and with the Map&lt;Long, Set&lt;Long&gt;&gt; graph that
+ * getTopologicalSort built before. Runs with the GC profiler, whose
+ * gc.alloc.rate.norm column is the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class WorkflowPlanBenchmark {
+
+    @Param({"10000", "100000"})
+    private int tasks;
+
+    private List<Task> taskRows;
+    private List<WorkflowDependency> dependencies;
+    private WorkflowPlan plan;
+    private Long startTaskId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Layered DAG, about two dependencies per task, each on a task of an earlier layer
+        Random random = new Random(3);
+        taskRows = new ArrayList<>(tasks);
+        for (long id = 1; id <= tasks; id++) {
+            Task task = new Task();
+            task.setId(id);
+            taskRows.add(task);
+        }
+        dependencies = new ArrayList<>(tasks * 2);
+        for (int target = 1; target < tasks; target++) {
+            for (int i = 0; i < 2; i++) {
+                WorkflowDependency dependency = new WorkflowDependency();
+                dependency.setSourceTaskId((long) random.nextInt(target) + 1);
+                dependency.setTargetTaskId((long) target + 1);
+                dependency.setType(WorkflowDependency.DependencyType.SUCCESS_REQUIRED);
+                dependencies.add(dependency);
+            }
+        }
+        plan = WorkflowPlan.compile(1L, taskRows, dependencies);
+        startTaskId = (long) tasks / 2;
+    }
+
+    @Benchmark
+    public List<Long> compiledPlanSort() {
+        return WorkflowPlan.compile(1L, taskRows, dependencies).getTopologicalOrder();
+    }
+
+    @Benchmark
+    public List<Task> mapGraphSort() {
+        Map<Long, Set<Long>> graph = new HashMap<>();
+        Map<Long, Integer> inDegree = new HashMap<>();
+        for (Task task : taskRows) {
+            graph.put(task.getId(), new HashSet<>());
+            inDegree.put(task.getId(), 0);
+        }
+        for (WorkflowDependency dependency : dependencies) {
+            graph.get(dependency.getSourceTaskId()).add(dependency.getTargetTaskId());
+            inDegree.merge(dependency.getTargetTaskId(), 1, Integer::sum);
+        }
+
+        Queue<Long> queue = new LinkedList<>();
+        inDegree.forEach((taskId, degree) -> {
+            if (degree == 0) {
+                queue.offer(taskId);
+            }
+        });
+        List<Task> result = new ArrayList<>();
+        Map<Long, Task> taskMap = taskRows.stream().collect(Collectors.toMap(Task::getId, task -> task));
+        while (!queue.isEmpty()) {
+            Long taskId = queue.poll();
+            result.add(taskMap.get(taskId));
+            for (Long neighbor : graph.get(taskId)) {
+                inDegree.merge(neighbor, -1, Integer::sum);
+                if (inDegree.get(neighbor) == 0) {
+                    queue.offer(neighbor);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BitSet compiledPlanDownstream() {
+        return plan.reachableFrom(plan.indexOf(startTaskId));
+    }
+
+    @Benchmark
+    public Set<Long> mapGraphDownstream() {
+        // Successors grouped by source, as the dependency table was queried per task before
+        Map<Long, List<Long>> successors = new HashMap<>();
+        for (WorkflowDependency dependency : dependencies) {
+            successors.computeIfAbsent(dependency.getSourceTaskId(), id -> new ArrayList<>())
+                .add(dependency.getTargetTaskId());
+        }
+        Set<Long> visited = new HashSet<>();
+        List<Long> stack = new ArrayList<>(List.of(startTaskId));
+        while (!stack.isEmpty()) {
+            Long taskId = stack.remove(stack.size() - 1);
+            if (visited.add(taskId)) {
+                stack.addAll(successors.getOrDefault(taskId, List.of()));
+            }
+        }
+        return visited;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(WorkflowPlanBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
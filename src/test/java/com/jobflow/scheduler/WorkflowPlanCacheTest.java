@@ -0,0 +1,55 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class WorkflowPlanCacheTest {
+
+    private final WorkflowPlanCache cache = new WorkflowPlanCache(16);
+    private final AtomicInteger compiles = new AtomicInteger();
+
+    @Test
+    void reusesPlanOfTheSameStructureVersion() {
+        WorkflowPlan first = cache.get(1L, 3, compiler());
+        WorkflowPlan second = cache.get(1L, 3, compiler());
+
+        assertSame(first, second);
+        assertEquals(1, compiles.get());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void recompilesWhenTheStructureVersionChanges() {
+        WorkflowPlan first = cache.get(1L, 3, compiler());
+        WorkflowPlan second = cache.get(1L, 4, compiler());
+
+        assertNotSame(first, second);
+        assertSame(second, cache.get(1L, 4, compiler()));
+        assertEquals(2, compiles.get());
+    }
+
+    @Test
+    void olderVersionDoesNotReplaceNewerPlan() {
+        WorkflowPlan newer = cache.get(1L, 4, compiler());
+        cache.get(1L, 3, compiler());
+
+        assertSame(newer, cache.get(1L, 4, compiler()));
+    }
+
+    private Supplier<WorkflowPlan> compiler() {
+        return () -> {
+            compiles.incrementAndGet();
+            Task task = new Task();
+            task.setId(10L);
+            return WorkflowPlan.compile(1L, List.of(task), List.of());
+        };
+    }
+}
@@ -0,0 +1,174 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.domain.WorkflowDependency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowPlanTest {
+
+    @Test
+    void compilesRowsAndOrderOfDiamond() {
+        // 10 -> 20, 10 -> 30, 20 -> 40, 30 -> 40
+        WorkflowPlan plan = WorkflowPlan.compile(1L, tasks(40L, 30L, 20L, 10L), List.of(
+            dependency(10L, 20L, WorkflowDependency.DependencyType.SUCCESS_REQUIRED),
+            dependency(10L, 30L, WorkflowDependency.DependencyType.COMPLETION_REQUIRED),
+            dependency(20L, 40L, WorkflowDependency.DependencyType.SUCCESS_REQUIRED),
+            dependency(30L, 40L, WorkflowDependency.DependencyType.SUCCESS_REQUIRED)));
+
+        assertEquals(4, plan.size());
+        assertEquals(4, plan.getEdgeCount());
+        assertEquals(List.of(10L), plan.getRootTaskIds());
+        assertEquals(List.of(10L, 20L, 30L, 40L), plan.getTopologicalOrder());
+
+        int first = plan.indexOf(10L);
+        assertArrayEquals(new long[]{20L, 30L}, successorIds(plan, first));
+        assertTrue(plan.isSuccessRequired(edgeTo(plan, first, 20L)));
+        assertFalse(plan.isSuccessRequired(edgeTo(plan, first, 30L)));
+
+        int last = plan.indexOf(40L);
+        assertEquals(2, plan.predecessorCount(last));
+        assertArrayEquals(new long[]{20L, 30L}, predecessorIds(plan, last));
+        assertEquals(0, plan.predecessorCount(first));
+    }
+
+    @Test
+    void ignoresForeignDependenciesAndDuplicateTasks() {
+        WorkflowPlan plan = WorkflowPlan.compile(1L, tasks(1L, 2L, 2L),
+            List.of(dependency(1L, 2L), dependency(2L, 99L), dependency(null, 1L)));
+
+        assertEquals(2, plan.size());
+        assertEquals(1, plan.getEdgeCount());
+        assertEquals(-1, plan.indexOf(99L));
+        assertEquals(-1, plan.indexOf(null));
+    }
+
+    @Test
+    void rejectsCycle() {
+        assertThrows(IllegalStateException.class, () -> WorkflowPlan.compile(1L, tasks(1L, 2L, 3L),
+            List.of(dependency(1L, 2L), dependency(2L, 3L), dependency(3L, 1L))));
+    }
+
+    @Test
+    void reachableFromIncludesTheTaskAndEverythingDownstream() {
+        WorkflowPlan plan = WorkflowPlan.compile(1L, tasks(1L, 2L, 3L, 4L, 5L),
+            List.of(dependency(1L, 2L), dependency(2L, 3L), dependency(4L, 5L)));
+
+        BitSet reached = plan.reachableFrom(plan.indexOf(2L));
+
+        assertEquals(2, reached.cardinality());
+        assertTrue(reached.get(plan.indexOf(2L)));
+        assertTrue(reached.get(plan.indexOf(3L)));
+    }
+
+    @Test
+    void coversAndAlignsTaskRows() {
+        List<Task> rows = tasks(5L, 3L, 8L);
+        WorkflowPlan plan = WorkflowPlan.compile(1L, rows, List.of());
+
+        assertTrue(plan.covers(tasks(3L, 5L, 8L)));
+        assertFalse(plan.covers(tasks(3L, 5L)));
+        assertFalse(plan.covers(tasks(3L, 5L, 9L)));
+
+        Task[] aligned = plan.align(rows.subList(0, 2));
+        assertSame(rows.get(0), aligned[plan.indexOf(5L)]);
+        assertSame(rows.get(1), aligned[plan.indexOf(3L)]);
+        assertNull(aligned[plan.indexOf(8L)]);
+    }
+
+    @Test
+    void orderRespectsEveryEdgeOfRandomDags() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            int n = 1 + random.nextInt(300);
+            List<Long> ranking = new ArrayList<>();
+            for (long id = 1; id <= n; id++) {
+                ranking.add(id * 7);
+            }
+            Collections.shuffle(ranking, random);
+            List<WorkflowDependency> dependencies = new ArrayList<>();
+            for (int e = 0; e < n * 2 && n > 1; e++) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                if (a != b) {
+                    dependencies.add(dependency(ranking.get(Math.min(a, b)), ranking.get(Math.max(a, b))));
+                }
+            }
+
+            WorkflowPlan plan = WorkflowPlan.compile(1L, tasks(ranking.toArray(new Long[0])), dependencies);
+
+            List<Long> order = plan.getTopologicalOrder();
+            assertEquals(n, order.size());
+            for (WorkflowDependency dependency : dependencies) {
+                assertTrue(order.indexOf(dependency.getSourceTaskId()) < order.indexOf(dependency.getTargetTaskId()),
+                    "order violates " + dependency.getSourceTaskId() + "->" + dependency.getTargetTaskId());
+            }
+            for (Long root : plan.getRootTaskIds()) {
+                assertEquals(0, plan.predecessorCount(plan.indexOf(root)));
+            }
+        }
+    }
+
+    private static long[] successorIds(WorkflowPlan plan, int index) {
+        long[] ids = new long[plan.successorStart(index + 1) - plan.successorStart(index)];
+        for (int e = plan.successorStart(index); e < plan.successorStart(index + 1); e++) {
+            ids[e - plan.successorStart(index)] = plan.getTaskId(plan.successorAt(e));
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static long[] predecessorIds(WorkflowPlan plan, int index) {
+        long[] ids = new long[plan.predecessorCount(index)];
+        for (int e = plan.predecessorStart(index); e < plan.predecessorStart(index + 1); e++) {
+            ids[e - plan.predecessorStart(index)] = plan.getTaskId(plan.predecessorAt(e));
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static int edgeTo(WorkflowPlan plan, int index, long targetId) {
+        for (int e = plan.successorStart(index); e < plan.successorStart(index + 1); e++) {
+            if (plan.getTaskId(plan.successorAt(e)) == targetId) {
+                return e;
+            }
+        }
+        throw new AssertionError("no edge to " + targetId);
+    }
+
+    private static List<Task> tasks(Long... ids) {
+        List<Task> tasks = new ArrayList<>();
+        for (Long id : ids) {
+            Task task = new Task();
+            task.setId(id);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static WorkflowDependency dependency(Long source, Long target) {
+        return dependency(source, target, WorkflowDependency.DependencyType.SUCCESS_REQUIRED);
+    }
+
+    private static WorkflowDependency dependency(Long source, Long target, WorkflowDependency.DependencyType type) {
+        WorkflowDependency dependency = new WorkflowDependency();
+        dependency.setSourceTaskId(source);
+        dependency.setTargetTaskId(target);
+        dependency.setType(type);
+        return dependency;
+    }
+}
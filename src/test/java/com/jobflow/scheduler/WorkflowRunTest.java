@@ -0,0 +1,85 @@
+package com.jobflow.scheduler;
+
+import com.jobflow.domain.Task;
+import com.jobflow.domain.Workflow;
+import com.jobflow.domain.WorkflowDependency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowRunTest {
+
+    @Test
+    void releasesSuccessorOnceAllUpstreamTasksFinish() {
+        WorkflowRun run = run(List.of(dependency(1L, 3L), dependency(2L, 3L)));
+
+        assertEquals(List.of(1L, 2L), ids(run.getRootTasks()));
+        assertTrue(run.markTaskAsFinished(1L, true, new ArrayList<>()).isEmpty());
+        assertEquals(List.of(3L), ids(run.markTaskAsFinished(2L, true, new ArrayList<>())));
+        run.markTaskAsFinished(3L, true, new ArrayList<>());
+
+        assertTrue(run.isFinished());
+        assertFalse(run.hasFailures());
+    }
+
+    @Test
+    void failureSkipsDownstreamTasks() {
+        WorkflowRun run = run(List.of(dependency(1L, 2L), dependency(2L, 3L)));
+        List<Task> skipped = new ArrayList<>();
+
+        assertTrue(run.markTaskAsFinished(1L, false, skipped).isEmpty());
+
+        assertEquals(List.of(2L, 3L), ids(skipped));
+        assertTrue(run.isFinished());
+        assertTrue(run.hasFailures());
+    }
+
+    @Test
+    void duplicateFailureOfAFinishedTaskIsIgnored() {
+        WorkflowRun run = run(List.of(dependency(1L, 2L), dependency(1L, 3L)));
+
+        assertEquals(List.of(2L, 3L), ids(run.markTaskAsFinished(1L, true, new ArrayList<>())));
+        // A late failure event for the task that already succeeded
+        List<Task> skipped = new ArrayList<>();
+        assertTrue(run.markTaskAsFinished(1L, false, skipped).isEmpty());
+        run.markTaskAsFinished(2L, true, new ArrayList<>());
+        run.markTaskAsFinished(3L, true, new ArrayList<>());
+
+        assertTrue(skipped.isEmpty());
+        assertTrue(run.isFinished());
+        assertFalse(run.hasFailures());
+    }
+
+    private static WorkflowRun run(List<WorkflowDependency> dependencies) {
+        List<Task> tasks = List.of(task(1L), task(2L), task(3L));
+        Workflow workflow = new Workflow();
+        workflow.setId(1L);
+        return WorkflowRun.start(workflow, "test", WorkflowPlan.compile(1L, tasks, dependencies), tasks);
+    }
+
+    private static List<Long> ids(List<Task> tasks) {
+        List<Long> ids = new ArrayList<>();
+        tasks.forEach(task -> ids.add(task.getId()));
+        ids.sort(Long::compare);
+        return ids;
+    }
+
+    private static Task task(Long id) {
+        Task task = new Task();
+        task.setId(id);
+        return task;
+    }
+
+    private static WorkflowDependency dependency(Long source, Long target) {
+        WorkflowDependency dependency = new WorkflowDependency();
+        dependency.setSourceTaskId(source);
+        dependency.setTargetTaskId(target);
+        dependency.setType(WorkflowDependency.DependencyType.SUCCESS_REQUIRED);
+        return dependency;
+    }
+}
@@ -0,0 +1,164 @@
+package com.jobflow.service.impl;
+
+import com.jobflow.cluster.LocalNode;
+import com.jobflow.dao.NotificationDao;
+import com.jobflow.dao.OperationLogDao;
+import com.jobflow.dao.TaskDao;
+import com.jobflow.dao.WorkflowDao;
+import com.jobflow.dao.WorkflowDependencyDao;
+import com.jobflow.domain.ExecutionRecord;
+import com.jobflow.domain.Task;
+import com.jobflow.domain.Workflow;
+import com.jobflow.lock.DistributedLock;
+import com.jobflow.scheduler.TimeoutWatchdog;
+import com.jobflow.scheduler.WorkflowCycleGuard;
+import com.jobflow.scheduler.WorkflowForecaster;
+import com.jobflow.scheduler.WorkflowPlanCache;
+import com.jobflow.service.TaskFinishedEvent;
+import com.jobflow.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkflowServiceImplTest {
+
+    private final WorkflowDao workflowDao = mock(WorkflowDao.class);
+    private final WorkflowDependencyDao dependencyDao = mock(WorkflowDependencyDao.class);
+    private final TaskDao taskDao = mock(TaskDao.class);
+    private final TaskService taskService = mock(TaskService.class);
+    private final DistributedLock distributedLock = mock(DistributedLock.class);
+    private final LocalNode localNode = mock(LocalNode.class);
+    private final TimeoutWatchdog timeoutWatchdog = mock(TimeoutWatchdog.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private WorkflowServiceImpl workflowService;
+
+    @BeforeEach
+    void setUp() {
+        workflowService = new WorkflowServiceImpl(workflowDao, dependencyDao, taskDao, taskService,
+            mock(OperationLogDao.class), mock(NotificationDao.class), distributedLock, localNode,
+            timeoutWatchdog, new WorkflowPlanCache(16), new WorkflowCycleGuard(16),
+            mock(WorkflowForecaster.class), new TransactionTemplate(transactionManager));
+
+        when(localNode.getNodeId()).thenReturn("node-1");
+        when(distributedLock.acquire(anyString())).thenReturn(true);
+        when(dependencyDao.findByWorkflowId(anyLong())).thenReturn(List.of());
+    }
+
+    @Test
+    void recurringWorkflowIsScheduledAgainAfterItsRun() {
+        Workflow workflow = workflow("0 0 * * * *");
+        Task task = task(workflow);
+        when(taskDao.findByWorkflowId(1L)).thenReturn(List.of(task));
+
+        workflowService.executeWorkflow(workflow, "system");
+        workflowService.onTaskFinished(new TaskFinishedEvent(this, task, Task.TaskStatus.FAILED));
+
+        assertEquals(Workflow.WorkflowStatus.SCHEDULED, workflow.getStatus());
+    }
+
+    @Test
+    void recurringWorkflowIsScheduledAgainAfterTimeout() {
+        Workflow workflow = workflow("0 0 * * * *");
+        workflow.setTimeout(60_000);
+        when(taskDao.findByWorkflowId(1L)).thenReturn(List.of(task(workflow)));
+
+        workflowService.executeWorkflow(workflow, "system");
+        ArgumentCaptor<Runnable> onTimeout = ArgumentCaptor.forClass(Runnable.class);
+        verify(timeoutWatchdog).watch(eq(ExecutionRecord.ExecutionType.WORKFLOW), eq(1L), any(), anyLong(),
+            onTimeout.capture());
+        onTimeout.getValue().run();
+
+        assertEquals(Workflow.WorkflowStatus.SCHEDULED, workflow.getStatus());
+    }
+
+    @Test
+    void oneOffWorkflowKeepsItsOutcome() {
+        Workflow workflow = workflow(null);
+        Task task = task(workflow);
+        when(taskDao.findByWorkflowId(1L)).thenReturn(List.of(task));
+
+        workflowService.executeWorkflow(workflow, "system");
+        workflowService.onTaskFinished(new TaskFinishedEvent(this, task, Task.TaskStatus.COMPLETED));
+
+        assertEquals(Workflow.WorkflowStatus.COMPLETED, workflow.getStatus());
+    }
+
+    @Test
+    void runningStatusCommitsBeforeRootTasksStart() {
+        Workflow workflow = workflow(null);
+        Task task = task(workflow);
+        when(taskDao.findByWorkflowId(1L)).thenReturn(List.of(task));
+
+        workflowService.executeWorkflow(workflow, "system");
+
+        InOrder order = inOrder(workflowDao, transactionManager, taskService);
+        order.verify(workflowDao).update(workflow, "system");
+        order.verify(transactionManager).commit(any());
+        order.verify(taskService).executeTask(task, "system");
+    }
+
+    @Test
+    void overlappingStartDoesNotReplaceTheActiveRun() {
+        Workflow workflow = workflow("0 0 * * * *");
+        workflow.setConcurrent(true);
+        Task task = task(workflow);
+        when(taskDao.findByWorkflowId(1L)).thenReturn(List.of(task));
+
+        workflowService.executeWorkflow(workflow, "system");
+        workflowService.executeWorkflow(workflow, "system");
+        verify(taskService, times(1)).executeTask(task, "system");
+
+        // The first run's completion still finishes the first run
+        workflowService.onTaskFinished(new TaskFinishedEvent(this, task, Task.TaskStatus.COMPLETED));
+        assertEquals(Workflow.WorkflowStatus.SCHEDULED, workflow.getStatus());
+        workflowService.executeWorkflow(workflow, "system");
+        verify(taskService, times(2)).executeTask(task, "system");
+    }
+
+    @Test
+    void runningWorkflowThatIsNotConcurrentIsNotStartedAgain() {
+        Workflow workflow = workflow("0 0 * * * *");
+        workflow.setStatus(Workflow.WorkflowStatus.RUNNING);
+        when(taskDao.findByWorkflowId(1L)).thenReturn(List.of(task(workflow)));
+
+        workflowService.executeWorkflow(workflow, "system");
+
+        verify(taskService, never()).executeTask(any(), anyString());
+        verify(workflowDao, never()).update(any(), anyString());
+    }
+
+    private static Workflow workflow(String cron) {
+        Workflow workflow = new Workflow();
+        workflow.setId(1L);
+        workflow.setTenantId(1L);
+        workflow.setCron(cron);
+        workflow.setStatus(Workflow.WorkflowStatus.SCHEDULED);
+        return workflow;
+    }
+
+    private static Task task(Workflow workflow) {
+        Task task = new Task();
+        task.setId(10L);
+        task.setWorkflowId(workflow.getId());
+        task.setStatus(Task.TaskStatus.SCHEDULED);
+        return task;
+    }
+}
@@ -0,0 +1,265 @@
+package com.jobflow.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.domain.Task;
+import com.jobflow.executor.ResourceUsageTracker;
+import com.jobflow.scheduler.NodeResources;
+import com.jobflow.scheduler.RemoteWorkerBroker;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs real RemoteWorker processes against a RemoteWorkerBroker on this machine and
+ * measures how throughput grows with the number of workers. The broker is served over
+ * plain HTTP in the worker protocol, so the workers poll and report exactly as against
+ * a scheduler; each worker is a separate JVM started with the test classpath.
+ *
+ * Every round submits the same batch of sleeping SHELL tasks and times it with 1, 2
+ * and 4 workers. A last round kills one of two workers mid-batch and checks that its
+ * leases expire and the other worker finishes the batch.
+ *
+ * Arguments, all optional: tasks per round, task duration in ms, slots per worker
+ */
+public class RemoteWorkerScaleOutHarness {
+
+    private static final long LEASE_MS = 3_000;
+    private static final long POLL_WAIT_MS = 5_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+    private final RemoteWorkerBroker broker;
+    private final HttpServer server;
+    private final List<Process> workers = new ArrayList<>();
+    private long nextTaskId = 1;
+
+    private RemoteWorkerScaleOutHarness() throws IOException {
+        taskScheduler.setPoolSize(2);
+        taskScheduler.initialize();
+
+        NodeResources nodeResources = new NodeResources(new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(nodeResources, "enabled", false);
+        nodeResources.init();
+
+        broker = new RemoteWorkerBroker(taskScheduler, nodeResources,
+            new ResourceUsageTracker(taskScheduler), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(broker, "enabled", true);
+        ReflectionTestUtils.setField(broker, "remoteTaskTypes", "SHELL");
+        ReflectionTestUtils.setField(broker, "leaseMs", LEASE_MS);
+        ReflectionTestUtils.setField(broker, "maxPollBatch", 16);
+        broker.init();
+        broker.start();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        // Long polls hold their exchange, so every request needs its own thread
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/workers/", this::handle);
+        server.start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        long taskMs = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        RemoteWorkerScaleOutHarness harness = new RemoteWorkerScaleOutHarness();
+        try {
+            double single = 0;
+            for (int workerCount : new int[]{1, 2, 4}) {
+                harness.startWorkers(workerCount, concurrency);
+                long elapsed = harness.runBatch(tasks, taskMs);
+                double throughput = tasks * 1000.0 / elapsed;
+                if (workerCount == 1) {
+                    single = throughput;
+                }
+                System.out.printf("%d worker(s): %d tasks in %d ms, %.1f tasks/s, speedup %.2f (ideal %.2f)%n",
+                    workerCount, tasks, elapsed, throughput, throughput / single,
+                    Math.min(workerCount, Math.ceil((double) tasks / concurrency)));
+                harness.stopWorkers();
+            }
+
+            harness.startWorkers(2, concurrency);
+            long elapsed = harness.runBatchKillingWorker(tasks, taskMs);
+            System.out.printf("2 workers, one killed: %d tasks in %d ms, none lost%n", tasks, elapsed);
+        } finally {
+            harness.stopWorkers();
+            harness.close();
+        }
+    }
+
+    /**
+     * Submit a batch and wait until every task has reported
+     * @return Wall time of the batch in milliseconds
+     */
+    private long runBatch(int tasks, long taskMs) throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture.allOf(submit(tasks, taskMs).toArray(new CompletableFuture[0]))
+            .get(tasks * taskMs + 60_000, TimeUnit.MILLISECONDS);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private long runBatchKillingWorker(int tasks, long taskMs) throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> results = submit(tasks, taskMs);
+        Thread.sleep(taskMs / 2);
+        // Crash the worker without a final report; its leases must expire and move
+        workers.remove(0).destroyForcibly().waitFor();
+        try {
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .get(tasks * taskMs + LEASE_MS * 2 + 60_000, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            long done = results.stream().filter(CompletableFuture::isDone).count();
+            throw new IllegalStateException("Only " + done + " of " + tasks + " tasks finished after a worker crash", e);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private List<CompletableFuture<String>> submit(int tasks, long taskMs) {
+        List<CompletableFuture<String>> results = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            Task task = new Task();
+            task.setId(nextTaskId++);
+            task.setName("sleep-" + task.getId());
+            task.setType(Task.TaskType.SHELL);
+            task.setCommand(Long.toString(taskMs));
+            results.add(broker.submit(task, "execution-" + task.getId()));
+        }
+        return results;
+    }
+
+    private void startWorkers(int count, int concurrency) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String schedulerUrl = "http://localhost:" + server.getAddress().getPort();
+        for (int i = 0; i < count; i++) {
+            Process process = new ProcessBuilder(java, "-cp", classPath(),
+                WorkerProcess.class.getName(), schedulerUrl, "worker-" + workers.size() + "-" + System.nanoTime(),
+                Integer.toString(concurrency))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+            workers.add(process);
+            awaitReady(process);
+        }
+    }
+
+    /**
+     * Classpath of this harness; under exec:java that is the loader's, not the JVM's
+     */
+    private static String classPath() {
+        ClassLoader loader = RemoteWorkerScaleOutHarness.class.getClassLoader();
+        if (!(loader instanceof URLClassLoader)) {
+            return System.getProperty("java.class.path");
+        }
+        List<String> entries = new ArrayList<>();
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+            try {
+                entries.add(Paths.get(url.toURI()).toString());
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException("Unsupported classpath entry " + url, e);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void awaitReady(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if ("READY".equals(line)) {
+                // Keep reading so the worker's log output never fills the pipe and blocks it
+                Thread drainer = new Thread(() -> reader.lines().forEach(output -> { }));
+                drainer.setDaemon(true);
+                drainer.start();
+                return;
+            }
+        }
+        throw new IOException("Worker exited before it was ready");
+    }
+
+    private void stopWorkers() throws InterruptedException {
+        for (Process process : workers) {
+            try {
+                // Closing stdin lets the worker stop its pollers and exit
+                process.getOutputStream().close();
+            } catch (IOException e) {
+                process.destroy();
+            }
+        }
+        for (Process process : workers) {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+        workers.clear();
+    }
+
+    private void close() {
+        server.stop(0);
+        broker.stop();
+        taskScheduler.shutdown();
+    }
+
+    /**
+     * Serves POST /api/workers/{workerId}/poll and /report like WorkerController
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            if (path.length != 5 || !"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String workerId = path[3];
+            Object data;
+            if ("poll".equals(path[4])) {
+                WorkerProtocol.PollRequest request =
+                    objectMapper.readValue(exchange.getRequestBody(), WorkerProtocol.PollRequest.class);
+                data = poll(workerId, request);
+            } else if ("report".equals(path[4])) {
+                WorkerProtocol.ReportRequest request =
+                    objectMapper.readValue(exchange.getRequestBody(), WorkerProtocol.ReportRequest.class);
+                data = broker.report(workerId, request);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("data", data));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private List<WorkerProtocol.LeasedTask> poll(String workerId, WorkerProtocol.PollRequest request) {
+        CompletableFuture<List<WorkerProtocol.LeasedTask>> response = new CompletableFuture<>();
+        Runnable withdraw = broker.poll(workerId, request, response::complete);
+        try {
+            // An empty batch when the wait runs out, as the DeferredResult default
+            return response.completeOnTimeout(List.of(), Math.min(request.getWaitMs(), POLL_WAIT_MS),
+                TimeUnit.MILLISECONDS).join();
+        } finally {
+            withdraw.run();
+        }
+    }
+}
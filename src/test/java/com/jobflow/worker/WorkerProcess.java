@@ -0,0 +1,78 @@
+package com.jobflow.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobflow.cluster.LocalNode;
+import com.jobflow.domain.Task;
+import com.jobflow.executor.ResourceUsageTracker;
+import com.jobflow.executor.TaskHandler;
+import com.jobflow.scheduler.NodeResources;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker process started by RemoteWorkerScaleOutHarness: a RemoteWorker wired by hand,
+ * whose only handler runs SHELL tasks by sleeping for the number of milliseconds in
+ * the task command. Prints READY once polling and runs until stdin is closed.
+ *
+ * Arguments: scheduler URL, worker ID, concurrency
+ */
+public class WorkerProcess {
+
+    public static void main(String[] args) throws IOException {
+        String schedulerUrl = args[0];
+        String workerId = args[1];
+        int concurrency = Integer.parseInt(args[2]);
+
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(2);
+        taskScheduler.initialize();
+
+        NodeResources nodeResources = new NodeResources(new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(nodeResources, "enabled", false);
+        nodeResources.init();
+
+        RemoteWorker worker = new RemoteWorker(new ObjectMapper().findAndRegisterModules(), new LocalNode(workerId),
+            taskScheduler, nodeResources, new ResourceUsageTracker(taskScheduler), List.of(new SleepHandler()));
+        ReflectionTestUtils.setField(worker, "schedulerUrls", schedulerUrl);
+        ReflectionTestUtils.setField(worker, "token", "harness");
+        ReflectionTestUtils.setField(worker, "concurrency", concurrency);
+        ReflectionTestUtils.setField(worker, "pollWaitMs", 5_000L);
+        ReflectionTestUtils.setField(worker, "reportIntervalMs", 50L);
+        ReflectionTestUtils.setField(worker, "retryDelayMs", 200L);
+        worker.start();
+        System.out.println("READY");
+        System.out.flush();
+
+        // The harness stops a worker by closing its stdin, or kills it to simulate a crash
+        while (System.in.read() >= 0) {
+            // Nothing is read from the harness
+        }
+        worker.stop();
+        taskScheduler.shutdown();
+        System.exit(0);
+    }
+
+    /**
+     * Stands in for CPU-heavy shell tasks: holds a worker slot for the given time
+     */
+    private static class SleepHandler implements TaskHandler {
+
+        @Override
+        public Task.TaskType getType() {
+            return Task.TaskType.SHELL;
+        }
+
+        @Override
+        public CompletableFuture<String> execute(Task task) {
+            long ms = Long.parseLong(task.getCommand());
+            return CompletableFuture.supplyAsync(() -> "slept " + ms,
+                CompletableFuture.delayedExecutor(ms, TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+-- fj_task from db/init.sql, without the workflow foreign key and with the notification column TaskRowMapper reads
+CREATE TABLE IF NOT EXISTS fj_task (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    type VARCHAR(20) NOT NULL DEFAULT 'SHELL',
+    command TEXT NOT NULL,
+    cron VARCHAR(100),
+    timeout INTEGER,
+    retries INTEGER,
+    retry_delay INTEGER,
+    status VARCHAR(20) NOT NULL,
+    priority VARCHAR(20),
+    start_time DATETIME,
+    end_time DATETIME,
+    workflow_id BIGINT,
+    sequence INTEGER,
+    parameters TEXT,
+    notification TEXT,
+    cacheable BOOLEAN NOT NULL DEFAULT FALSE,
+    batchable BOOLEAN NOT NULL DEFAULT FALSE,
+    speculative BOOLEAN NOT NULL DEFAULT FALSE,
+    lease_owner VARCHAR(255),
+    lease_expire_time DATETIME,
+    tenant_id BIGINT NOT NULL,
+    created_by VARCHAR(50),
+    created_time DATETIME,
+    updated_by VARCHAR(50),
+    updated_time DATETIME
+);